@@ -24,7 +24,6 @@ import examples.common.XPlannerOutDirectories;
 import explanation.analysis.PolicyInfo;
 import explanation.verbalization.VerbalizerSettings;
 import explanation.verbalization.Vocabulary;
-import gurobi.GRBException;
 import language.domain.metrics.IQFunction;
 import language.domain.metrics.ITransitionStructure;
 import language.domain.models.IAction;
@@ -33,6 +32,7 @@ import language.objectives.AttributeCostFunction;
 import language.objectives.CostCriterion;
 import language.policy.Decision;
 import prism.PrismException;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.PrismConnectorException;
 import solver.prismconnector.exceptions.ResultParsingException;
@@ -51,23 +51,25 @@ public class ClinicSchedulingXPlanner {
 	}
 
 	public PolicyInfo runXPlanning(File problemFile)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		return mXPlanner.runXPlanning(problemFile, CostCriterion.AVERAGE_COST);
 	}
 
 	public PolicyInfo runPlanning(File problemFile) throws DSMException, XMDPException, PrismException, IOException,
-			ResultParsingException, ExplicitModelParsingException, GRBException {
+			ResultParsingException, ExplicitModelParsingException, LPSolverException {
 		return mXPlanner.runPlanning(problemFile, CostCriterion.AVERAGE_COST);
 	}
 	
 
 	public PolicyInfo runPlanning(int revenuePPatient, int overtimeCostPPatient, int idleTimeCostPPatient, int leadTimeCostFactor, int switchABPCostFactor, File problemFile) throws DSMException, XMDPException, PrismException, IOException,
-			ResultParsingException, ExplicitModelParsingException, GRBException {
+			ResultParsingException, ExplicitModelParsingException, LPSolverException {
 		return mXPlanner.runPlanning(problemFile, revenuePPatient, overtimeCostPPatient, idleTimeCostPPatient, leadTimeCostFactor, switchABPCostFactor);
 	}
 	
 	public static void main(String[] args)
-			throws PrismException, XMDPException, IOException, GRBException, DSMException, PrismConnectorException {
+			throws PrismException, XMDPException, IOException, LPSolverException, DSMException,
+			PrismConnectorException {
 		String problemFilename = args[0];
 		File problemFile = new File(PROBLEMS_PATH, problemFilename);
 
@@ -15,6 +15,7 @@ import language.objectives.CostCriterion;
 import prism.PrismException;
 import solver.prismconnector.PrismConnector;
 import solver.prismconnector.PrismConnectorSettings;
+import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.ResultParsingException;
 
 public class UtilityWeightPlanner extends XPlanner {
@@ -34,6 +35,28 @@ public class UtilityWeightPlanner extends XPlanner {
 	}
 
 
+	/**
+	 * Create a session for planning with many utility function weights. The XMDP is built, exported, and read only
+	 * once; each weight vector only re-weights the objective costs and re-solves.
+	 * 
+	 * @param problemFile
+	 *            : Problem file, whose utility function weights are the initial scaling constants
+	 * @param costCriterion
+	 *            : Cost criterion
+	 * @return Sweep session, which should be closed when it is no longer used
+	 * @throws DSMException
+	 * @throws XMDPException
+	 * @throws PrismException
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
+	 */
+	public WeightSweepSession createSweepSession(File problemFile, CostCriterion costCriterion)
+			throws DSMException, XMDPException, PrismException, IOException, ExplicitModelParsingException {
+		PrismConnectorSettings prismConnSettings = createPrismConnectorSettings(problemFile, mOutputDirs);
+		XMDP xmdp = mXMDPLoader.loadXMDP(problemFile);
+		return new WeightSweepSession(xmdp, costCriterion, prismConnSettings);
+	}
+
 	/**
 	 * run planning method for Mobile Robot Planning
 	 * @param the mission file
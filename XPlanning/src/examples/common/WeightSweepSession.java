@@ -0,0 +1,118 @@
+package examples.common;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import explanation.analysis.PolicyInfo;
+import language.domain.metrics.IQFunction;
+import language.domain.metrics.ITransitionStructure;
+import language.domain.models.IAction;
+import language.exceptions.XMDPException;
+import language.mdp.XMDP;
+import language.objectives.AttributeCostFunction;
+import language.objectives.CostCriterion;
+import language.objectives.CostFunction;
+import prism.PrismException;
+import solver.gurobiconnector.GRBConnector;
+import solver.gurobiconnector.GRBConnectorSettings;
+import solver.lpsolver.LPSolverException;
+import solver.prismconnector.PrismConnector;
+import solver.prismconnector.PrismConnectorSettings;
+import solver.prismconnector.ValueEncodingScheme;
+import solver.prismconnector.exceptions.ExplicitModelParsingException;
+import solver.prismconnector.explicitmodel.PrismExplicitModelPointer;
+import solver.prismconnector.explicitmodel.PrismExplicitModelReader;
+
+/**
+ * {@link WeightSweepSession} solves an XMDP for many scaling constants of its cost function. The XMDP is translated to
+ * PRISM, exported to explicit model files, and read into an explicit MDP (with the reward structures of all QAs) only
+ * once. For each set of scaling constants, only the objective costs are recomputed before re-solving.
+ *
+ * The session should be closed when it is no longer used.
+ */
+public class WeightSweepSession implements AutoCloseable {
+
+	private XMDP mXMDP;
+	private List<IQFunction<IAction, ITransitionStructure<IAction>>> mQFunctions = new ArrayList<>();
+	private GRBConnector mGRBConnector;
+
+	/**
+	 *
+	 * @param xmdp
+	 *            : XMDP, whose cost function determines the attribute cost functions and the offset
+	 * @param costCriterion
+	 *            : Cost criterion
+	 * @param prismConnSettings
+	 *            : Settings of the PRISM connector that exports the explicit model files
+	 * @throws PrismException
+	 * @throws XMDPException
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
+	 */
+	public WeightSweepSession(XMDP xmdp, CostCriterion costCriterion, PrismConnectorSettings prismConnSettings)
+			throws PrismException, XMDPException, IOException, ExplicitModelParsingException {
+		mXMDP = xmdp;
+		for (AttributeCostFunction<IQFunction<IAction, ITransitionStructure<IAction>>> attrCostFunc : xmdp
+				.getCostFunction().getAttributeCostFunctions()) {
+			mQFunctions.add(attrCostFunc.getQFunction());
+		}
+
+		// Use PrismConnector to export XMDP to explicit model files
+		PrismConnector prismConnector = new PrismConnector(xmdp, costCriterion, prismConnSettings);
+		PrismExplicitModelPointer prismExplicitModelPtr = prismConnector.exportExplicitModelFiles();
+		ValueEncodingScheme encodings = prismConnector.getPrismMDPTranslator().getValueEncodingScheme();
+		PrismExplicitModelReader prismExplicitModelReader = new PrismExplicitModelReader(prismExplicitModelPtr,
+				encodings);
+
+		// Close down PRISM
+		prismConnector.terminate();
+
+		// GRBConnector reads the explicit model files once, and keeps the explicit MDP and the state map (for reading
+		// policies) across solves
+		GRBConnectorSettings grbConnSettings = new GRBConnectorSettings(prismExplicitModelReader);
+		mGRBConnector = new GRBConnector(xmdp, costCriterion, grbConnSettings);
+	}
+
+	/**
+	 *
+	 * @return QAs of the cost function, in the order of the scaling constants of {@link #runPlanning(double...)}
+	 */
+	public List<IQFunction<?, ?>> getQFunctions() {
+		return Collections.unmodifiableList(mQFunctions);
+	}
+
+	/**
+	 * Generate an optimal policy for the cost function with the given scaling constants.
+	 *
+	 * @param weights
+	 *            : Scaling constant of each QA, in the order of {@link #getQFunctions()}
+	 * @return Optimal policy, whose policy information is with respect to the re-weighted cost function, or null if
+	 *         there is no solution
+	 * @throws XMDPException
+	 * @throws IOException
+	 * @throws LPSolverException
+	 */
+	public PolicyInfo runPlanning(double... weights) throws XMDPException, IOException, LPSolverException {
+		if (weights.length != mQFunctions.size()) {
+			throw new IllegalArgumentException(
+					"Expected " + mQFunctions.size() + " scaling constants, but got " + weights.length);
+		}
+
+		CostFunction costFunction = mXMDP.getCostFunction();
+		CostFunction reweightedCostFunction = new CostFunction(costFunction.getOffset());
+		for (int q = 0; q < weights.length; q++) {
+			AttributeCostFunction<IQFunction<IAction, ITransitionStructure<IAction>>> attrCostFunc = costFunction
+					.getAttributeCostFunction(mQFunctions.get(q));
+			reweightedCostFunction.put(attrCostFunc, weights[q]);
+		}
+
+		return mGRBConnector.generateOptimalPolicy(reweightedCostFunction);
+	}
+
+	@Override
+	public void close() throws LPSolverException {
+		mGRBConnector.close();
+	}
+}
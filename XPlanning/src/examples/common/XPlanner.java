@@ -14,13 +14,13 @@ import explanation.analysis.PolicyInfo;
 import explanation.verbalization.Verbalizer;
 import explanation.verbalization.VerbalizerSettings;
 import explanation.verbalization.Vocabulary;
-import gurobi.GRBException;
 import language.exceptions.XMDPException;
 import language.mdp.XMDP;
 import language.objectives.CostCriterion;
 import prism.PrismException;
 import solver.gurobiconnector.GRBConnector;
 import solver.gurobiconnector.GRBConnectorSettings;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.PrismConnector;
 import solver.prismconnector.PrismConnectorSettings;
 import solver.prismconnector.ValueEncodingScheme;
@@ -51,12 +51,14 @@ public class XPlanner {
 	}
 
 	public PolicyInfo runXPlanning(File problemFile, CostCriterion costCriterion)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		return runXPlanning(problemFile, costCriterion, null);
 	}
 
 	public PolicyInfo runXPlanning(File problemFile, CostCriterion costCriterion, DifferenceScaler diffScaler)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		// Run regular planning
 		PolicyInfo policyInfo = runPlanning(problemFile, costCriterion);
 
@@ -84,7 +86,7 @@ public class XPlanner {
 	}
 
 	public PolicyInfo runPlanning(File problemFile, CostCriterion costCriterion) throws DSMException, XMDPException,
-			ExplicitModelParsingException, PrismException, IOException, GRBException, ResultParsingException {
+			ExplicitModelParsingException, PrismException, IOException, LPSolverException, ResultParsingException {
 		PrismConnectorSettings prismConnSettings = createPrismConnectorSettings(problemFile, mOutputDirs);
 		XMDP xmdp = mXMDPLoader.loadXMDP(problemFile);
 
@@ -110,7 +112,7 @@ public class XPlanner {
 	}
 
 	private PolicyInfo runPlanningAverageCost(XMDP xmdp, PrismConnectorSettings prismConnSettings)
-			throws PrismException, XMDPException, IOException, ExplicitModelParsingException, GRBException {
+			throws PrismException, XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
 		// Use PrismConnector to export XMDP to explicit model files
 		PrismConnector prismConnector = new PrismConnector(xmdp, CostCriterion.AVERAGE_COST, prismConnSettings);
 		PrismExplicitModelPointer prismExplicitModelPtr = prismConnector.exportExplicitModelFiles();
@@ -123,8 +125,9 @@ public class XPlanner {
 
 		// GRBConnector reads from explicit model files, and solves for optimal policy
 		GRBConnectorSettings grbConnSettings = new GRBConnectorSettings(prismExplicitModelReader);
-		GRBConnector grbConnector = new GRBConnector(xmdp, CostCriterion.AVERAGE_COST, grbConnSettings);
-		return grbConnector.generateOptimalPolicy();
+		try (GRBConnector grbConnector = new GRBConnector(xmdp, CostCriterion.AVERAGE_COST, grbConnSettings)) {
+			return grbConnector.generateOptimalPolicy();
+		}
 	}
 
 	public static PrismConnectorSettings createPrismConnectorSettings(File problemFile,
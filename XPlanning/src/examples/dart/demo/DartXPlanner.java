@@ -17,13 +17,15 @@ import org.apache.commons.math3.util.Precision;
 import examples.common.DSMException;
 import examples.common.IXMDPLoader;
 import examples.common.UtilityWeightPlanner;
+import examples.common.WeightSweepSession;
 import examples.common.XPlannerOutDirectories;
 import examples.dart.metrics.DestroyedProbabilityQFunction;
 import examples.dart.metrics.MissTargetEvent;
 import explanation.analysis.PolicyInfo;
+import explanation.analysis.WeightRegion;
+import explanation.analysis.WeightSpaceExplorer;
 import explanation.verbalization.VerbalizerSettings;
 import explanation.verbalization.Vocabulary;
-import gurobi.GRBException;
 import language.domain.metrics.IQFunction;
 import language.domain.metrics.ITransitionStructure;
 import language.domain.models.IAction;
@@ -32,6 +34,7 @@ import language.objectives.AttributeCostFunction;
 import language.objectives.CostCriterion;
 import language.policy.Decision;
 import prism.PrismException;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.PrismConnectorException;
 import solver.prismconnector.exceptions.ResultParsingException;
@@ -48,17 +51,19 @@ public class DartXPlanner {
 	}
 
 	public PolicyInfo runXPlanning(File problemFile)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		return mXPlanner.runXPlanning(problemFile, CostCriterion.TOTAL_COST);
 	}
 
 	public PolicyInfo runPlanning(File problemFile) throws DSMException, XMDPException, PrismException, IOException,
-			ResultParsingException, ExplicitModelParsingException, GRBException {
+			ResultParsingException, ExplicitModelParsingException, LPSolverException {
 		return mXPlanner.runPlanning(problemFile, CostCriterion.TOTAL_COST);
 	}
 
 	public static void main(String[] args)
-			throws IOException, PrismException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws IOException, PrismException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		String problemFilename = args[0];
 
 		//File missionJsonFile = new File(MISSIONS_PATH, missionFilename);
@@ -73,7 +78,8 @@ public class DartXPlanner {
 		
 	}
 
-	private static void runGenerator(File file) throws IOException, PrismException, XMDPException, PrismConnectorException, GRBException, DSMException {
+	private static void runGenerator(File file)
+			throws IOException, PrismException, XMDPException, PrismConnectorException, LPSolverException, DSMException {
 		// TODO Auto-generated method stub
 		Path policiesOutputPath = Paths.get(XPlannerOutDirectories.POLICIES_OUTPUT_PATH);
 		Path explanationOutputPath = Paths.get(XPlannerOutDirectories.EXPLANATIONS_OUTPUT_PATH);
@@ -89,24 +95,27 @@ public class DartXPlanner {
 		writer.flush();
 		writer.close();
 		int rowNumber = 0;
-		for (double i = 0; i <= 1; i+=0.005) { // 34. is start value
-				try {
-						double j = 1-i;
-						if (i + j == 1) {
-						PolicyInfo inf = xplanner.runPlanning(file, i, j);
-						states = printToExcel("tmpdata/runDart/sample_" + file.getName() + ".csv", inf, states, rowNumber++);
-						}
-					} catch (Exception e) {
-						break;
-					}
+
+		// Explore the weights (target weight, threat weight) for the distinct optimal policies, instead of sweeping a
+		// grid of weights. The problem is built once, and only re-weighted for each weight vector.
+		// The CSV file has one row per policy region (distinct optimal policy), with the weights at which the policy
+		// was found, instead of one row per grid point of weights.
+		try (WeightSweepSession session = xplanner.createSweepSession(file)) {
+			WeightSpaceExplorer explorer = new WeightSpaceExplorer(session.getQFunctions());
+			List<WeightRegion> regions = explorer.explore(session::runPlanning);
+
+			for (WeightRegion region : regions) {
+				states = printToExcel("tmpdata/runDart/sample_" + file.getName() + ".csv", region.getPolicyInfo(),
+						states, rowNumber++);
 			}
+		}
 
 		xplanner.runXPlanning(file);
 	}
 
-	private PolicyInfo runPlanning(File file, double i, double j) throws DSMException, XMDPException, PrismException, IOException,
-	ResultParsingException, ExplicitModelParsingException, GRBException {
-		return mXPlanner.runPlanning(file, i, j, CostCriterion.TOTAL_COST);
+	private WeightSweepSession createSweepSession(File problemFile)
+			throws DSMException, XMDPException, PrismException, IOException, ExplicitModelParsingException {
+		return mXPlanner.createSweepSession(problemFile, CostCriterion.TOTAL_COST);
 	}
 
 	private static ArrayList<String> printToExcel(String fileName, PolicyInfo inf, ArrayList<String> states, int rowNumber) {
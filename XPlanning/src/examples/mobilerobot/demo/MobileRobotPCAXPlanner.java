@@ -18,11 +18,11 @@ import explanation.analysis.PolicyInfo;
 import explanation.verbalization.QADecimalFormatter;
 import explanation.verbalization.VerbalizerSettings;
 import explanation.verbalization.Vocabulary;
-import gurobi.GRBException;
 import language.exceptions.XMDPException;
 import language.mdp.XMDP;
 import language.objectives.CostCriterion;
 import prism.PrismException;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.PrismConnectorException;
 import solver.prismconnector.exceptions.ResultParsingException;
@@ -44,17 +44,19 @@ public class MobileRobotPCAXPlanner {
 	}
 
 	public PolicyInfo runXPlanning(File missionJsonFile)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		return mXPlanner.runXPlanning(missionJsonFile, CostCriterion.TOTAL_COST);
 	}
 
 	public PolicyInfo runPlanning(File missionJsonFile) throws DSMException, XMDPException, PrismException, IOException,
-			ResultParsingException, ExplicitModelParsingException, GRBException {
+			ResultParsingException, ExplicitModelParsingException, LPSolverException {
 		return mXPlanner.runPlanning(missionJsonFile, CostCriterion.TOTAL_COST);
 	}
 
 	public static void main(String[] args)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		String missionFilename = args[0];
 		File missionJsonFile = new File(MISSIONS_PATH, missionFilename);
 		File mapsJsonDir = new File(MAPS_PATH);
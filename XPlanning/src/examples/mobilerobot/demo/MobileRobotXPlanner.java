@@ -18,15 +18,17 @@ import org.apache.commons.math3.util.Precision;
 import examples.common.DSMException;
 import examples.common.IXMDPLoader;
 import examples.common.UtilityWeightPlanner;
+import examples.common.WeightSweepSession;
 import examples.common.XPlannerOutDirectories;
 import examples.mobilerobot.metrics.CollisionEvent;
 import examples.mobilerobot.metrics.IntrusiveMoveEvent;
 import examples.mobilerobot.metrics.TravelTimeQFunction;
 import explanation.analysis.PolicyInfo;
+import explanation.analysis.WeightRegion;
+import explanation.analysis.WeightSpaceExplorer;
 import explanation.verbalization.QADecimalFormatter;
 import explanation.verbalization.VerbalizerSettings;
 import explanation.verbalization.Vocabulary;
-import gurobi.GRBException;
 import language.domain.metrics.IQFunction;
 import language.domain.metrics.ITransitionStructure;
 import language.domain.models.IAction;
@@ -38,6 +40,7 @@ import language.objectives.AttributeCostFunction;
 import language.objectives.CostCriterion;
 import language.policy.Decision;
 import prism.PrismException;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.PrismConnectorException;
 import solver.prismconnector.exceptions.ResultParsingException;
@@ -62,21 +65,22 @@ public class MobileRobotXPlanner {
 	}
 
 	public PolicyInfo runXPlanning(File missionJsonFile)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 		return mXPlanner.runXPlanning(missionJsonFile, CostCriterion.TOTAL_COST);
 	}
 
 	public PolicyInfo runPlanning(File missionJsonFile, double w_travelTime, double w_intru, double w_collision) throws DSMException, XMDPException, PrismException, IOException,
-	ResultParsingException, ExplicitModelParsingException, GRBException {
+	ResultParsingException, ExplicitModelParsingException, LPSolverException {
 		return mXPlanner.runPlanning(missionJsonFile, CostCriterion.TOTAL_COST, w_travelTime, w_intru, w_collision);
 	}
 
 	public PolicyInfo runPlanning(File missionJsonFile) throws DSMException, XMDPException, PrismException, IOException,
-	ResultParsingException, ExplicitModelParsingException, GRBException {
+	ResultParsingException, ExplicitModelParsingException, LPSolverException {
 		return mXPlanner.runPlanning(missionJsonFile, CostCriterion.TOTAL_COST);
 	}
 
-	public void runPlanningWithRL(File missionJsonFile) throws XMDPException, DSMException, ResultParsingException, ExplicitModelParsingException, PrismException, IOException, GRBException, InterruptedException {
+	public void runPlanningWithRL(File missionJsonFile) throws XMDPException, DSMException, ResultParsingException, ExplicitModelParsingException, PrismException, IOException, LPSolverException, InterruptedException {
 		MiniGridConnection conn = new MiniGridConnection(runPlanning(missionJsonFile));
 		for (var i = 0; i < 100 && conn.hasNext(); i++) {
 			conn.step();
@@ -105,23 +109,28 @@ public class MobileRobotXPlanner {
 		//xplanner.runPlanningWithRL(missionJsonFile);
 		//printToExcel(prefix + missionJsonFile.getName() + ".csv", inf, states);
 
-		
-		for (double i = 0; i <=1; i+=0.05) {
-			for (double j = 0; j <= 1; j+=0.05) {
-					double k = 1-i-j;
-					try {
-							PolicyInfo inf = xplanner.runPlanning(missionJsonFile, i, j, k);
-							states = printToExcel(prefix + missionJsonFile.getName() + ".csv", inf, states);
-					} catch (Exception e) {
-						System.out.println(e);
-						break;
-					}
-				}
+		// Explore the weight simplex for the distinct optimal policies, instead of sweeping a grid of weights. The
+		// mission is built once, and only re-weighted for each weight vector.
+		// The CSV file has one row per policy region (distinct optimal policy), with the weights at which the policy
+		// was found, instead of one row per grid point of weights.
+		try (WeightSweepSession session = xplanner.createSweepSession(missionJsonFile)) {
+			WeightSpaceExplorer explorer = new WeightSpaceExplorer(session.getQFunctions());
+			List<WeightRegion> regions = explorer.explore(session::runPlanning);
+
+			for (WeightRegion region : regions) {
+				states = printToExcel(prefix + missionJsonFile.getName() + ".csv", region.getPolicyInfo(), states);
+			}
 		}
 	}
 
+	public WeightSweepSession createSweepSession(File missionJsonFile)
+			throws DSMException, XMDPException, PrismException, IOException, ExplicitModelParsingException {
+		return mXPlanner.createSweepSession(missionJsonFile, CostCriterion.TOTAL_COST);
+	}
+
 	public static void main(String[] args)
-			throws PrismException, IOException, XMDPException, PrismConnectorException, GRBException, DSMException {
+			throws PrismException, IOException, XMDPException, PrismConnectorException, LPSolverException,
+			DSMException {
 	      long start1 = System.nanoTime();
 
 		String missionFilename = "mission64"; // or "mission64"
@@ -1,11 +1,18 @@
 package explanation.analysis;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import gurobi.GRBException;
 import language.domain.metrics.IQFunction;
 import language.domain.metrics.ITransitionStructure;
 import language.domain.models.IAction;
@@ -19,12 +26,14 @@ import language.objectives.CostFunction;
 import language.objectives.IPenaltyFunction;
 import language.objectives.QuadraticPenaltyFunction;
 import solver.gurobiconnector.GRBConnector;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 
 public class AlternativeExplorer {
 
 	private GRBConnector mGRBConnector;
 	private DifferenceScaler mDiffScaler;
+	private int mNumThreads;
 
 	/**
 	 * Generate Pareto-optimal alternative policies that are immediate neighbors of the original solution policy. This
@@ -45,8 +54,23 @@ public class AlternativeExplorer {
 	 *            : Difference scaler
 	 */
 	public AlternativeExplorer(GRBConnector grbConnector, DifferenceScaler diffScaler) {
+		this(grbConnector, diffScaler, 1);
+	}
+
+	/**
+	 * Generate Pareto-optimal alternative policies, improving multiple QAs concurrently when more than 1 thread is
+	 * used.
+	 * 
+	 * @param grbConnector
+	 * @param diffScaler
+	 *            : Difference scaler, or null for immediate neighbors
+	 * @param numThreads
+	 *            : Maximum number of alternatives computed at the same time
+	 */
+	public AlternativeExplorer(GRBConnector grbConnector, DifferenceScaler diffScaler, int numThreads) {
 		mDiffScaler = diffScaler;
 		mGRBConnector = grbConnector;
+		mNumThreads = numThreads;
 	}
 
 	/**
@@ -59,10 +83,14 @@ public class AlternativeExplorer {
 	 * @throws XMDPException
 	 * @throws IOException
 	 * @throws ExplicitModelParsingException
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
 	public Set<PolicyInfo> getParetoOptimalAlternatives(PolicyInfo policyInfo)
-			throws XMDPException, IOException, ExplicitModelParsingException, GRBException {
+			throws XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
+		if (mNumThreads > 1) {
+			return getParetoOptimalAlternativesConcurrently(policyInfo);
+		}
+
 		Set<PolicyInfo> alternatives = new HashSet<>();
 		XMDP xmdp = policyInfo.getXMDP();
 
@@ -100,6 +128,123 @@ public class AlternativeExplorer {
 		return alternatives;
 	}
 
+	/**
+	 * Generate Pareto-optimal alternative policies, improving the QAs concurrently on a bounded thread pool. The QAs
+	 * are explored in the same order as in the sequential exploration, and the results are merged in that order: when
+	 * an alternative is merged, the solves for the later QAs that have been improved as a side effect are cancelled, and
+	 * their results are discarded. Therefore, the alternatives are the same as those of the sequential exploration.
+	 * 
+	 * All solves have stopped when this method returns.
+	 * 
+	 * @param policyInfo
+	 *            : Original solution policy information
+	 * @return Pareto-optimal alternative policies
+	 * @throws XMDPException
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
+	 * @throws LPSolverException
+	 */
+	private Set<PolicyInfo> getParetoOptimalAlternativesConcurrently(PolicyInfo policyInfo)
+			throws XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
+		Set<PolicyInfo> alternatives = new HashSet<>();
+		XMDP xmdp = policyInfo.getXMDP();
+
+		// QAs to be explored, in the same order as in the sequential exploration
+		Set<IQFunction<?, ?>> qFunctions = new HashSet<>();
+		for (IQFunction<?, ?> qFunction : xmdp.getQSpace()) {
+			qFunctions.add(qFunction);
+		}
+
+		// Skip any QA that already has its best value (0 attribute-cost) in the solution policy
+		List<IQFunction<?, ?>> frontier = new ArrayList<>();
+		for (IQFunction<?, ?> qFunction : qFunctions) {
+			if (!hasZeroAttributeCost(policyInfo, qFunction)) {
+				frontier.add(qFunction);
+			}
+		}
+		if (frontier.isEmpty()) {
+			return alternatives;
+		}
+
+		// Solves are started in the order of the frontier
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(mNumThreads, frontier.size()));
+		List<Future<PolicyInfo>> solves = new ArrayList<>();
+		boolean[] isCancelled = new boolean[frontier.size()];
+
+		try {
+			// Generate alternatives by improving each QA (one per solve) to the next best value, if exists
+			for (IQFunction<?, ?> qFunction : frontier) {
+				solves.add(executor.submit(() -> getParetoOptimalAlternative(policyInfo, qFunction)));
+			}
+
+			for (int k = 0; k < frontier.size(); k++) {
+				if (isCancelled[k]) {
+					// Skip -- This QA has been improved as a side effect
+					continue;
+				}
+
+				PolicyInfo alternativeInfo = getResult(solves.get(k));
+
+				if (alternativeInfo != null) {
+					alternatives.add(alternativeInfo);
+
+					// For later QAs that have been improved as a side effect, cancel their solves
+					for (int l = k + 1; l < frontier.size(); l++) {
+						if (!isCancelled[l] && isImprovedAsSideEffect(frontier.get(l), policyInfo, alternativeInfo)) {
+							solves.get(l).cancel(true);
+							isCancelled[l] = true;
+						}
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while generating alternatives");
+		} finally {
+			// Interrupt any solve in progress, and wait for it to stop, so that it does not keep using the connector
+			executor.shutdownNow();
+			awaitTermination(executor);
+		}
+		return alternatives;
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		boolean interrupted = false;
+		while (!executor.isTerminated()) {
+			try {
+				executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private PolicyInfo getResult(Future<PolicyInfo> future) throws InterruptedException, XMDPException, IOException,
+			ExplicitModelParsingException, LPSolverException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof XMDPException) {
+				throw (XMDPException) cause;
+			} else if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof ExplicitModelParsingException) {
+				throw (ExplicitModelParsingException) cause;
+			} else if (cause instanceof LPSolverException) {
+				throw (LPSolverException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+	}
+
 	/**
 	 * Generate a Pareto-optimal alternative policy that has an improvement in the given QA compared to the original
 	 * solution policy.
@@ -112,10 +257,10 @@ public class AlternativeExplorer {
 	 * @throws XMDPException
 	 * @throws IOException
 	 * @throws ExplicitModelParsingException
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
 	public PolicyInfo getParetoOptimalAlternative(PolicyInfo policyInfo, IQFunction<?, ?> qFunction)
-			throws XMDPException, IOException, ExplicitModelParsingException, GRBException {
+			throws XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
 		// QA value of the solution policy
 		double currQAValue = policyInfo.getQAValue(qFunction);
 
@@ -162,7 +307,8 @@ public class AlternativeExplorer {
 	}
 
 	public PolicyInfo computeHardConstraintSatisfyingAlternative(XMDP xmdp, IQFunction<?, ?> qFunction,
-			double qaValueConstraint) throws ExplicitModelParsingException, XMDPException, IOException, GRBException {
+			double qaValueConstraint) throws ExplicitModelParsingException, XMDPException, IOException,
+			LPSolverException {
 		CostFunction costFunction = xmdp.getCostFunction();
 
 		// Create a new objective function with a demoted QA
@@ -234,28 +380,32 @@ public class AlternativeExplorer {
 	}
 
 	private void update(Iterator<IQFunction<?, ?>> frontierIter, PolicyInfo policyInfo, PolicyInfo alternativeInfo) {
-		CostFunction costFunction = policyInfo.getXMDP().getCostFunction();
-
 		while (frontierIter.hasNext()) {
 			IQFunction<?, ?> qFunction = frontierIter.next();
-			double attrCostFuncSlope = costFunction.getAttributeCostFunction(qFunction).getSlope();
-
-			double solnQAValue = policyInfo.getQAValue(qFunction);
-			double altQAValue = alternativeInfo.getQAValue(qFunction);
 
 			// If this QA of the alternative has been improved as a side effect, remove it from the QAs to be explored
-			if (mDiffScaler != null) {
-				// Check if the side-effect improvement is significant
-				if (hasSignificantImprovement(qFunction, attrCostFuncSlope, solnQAValue, altQAValue)) {
-					frontierIter.remove();
-				}
-			} else if ((attrCostFuncSlope > 0 && altQAValue < solnQAValue)
-					|| (attrCostFuncSlope < 0 && altQAValue > solnQAValue)) {
+			if (isImprovedAsSideEffect(qFunction, policyInfo, alternativeInfo)) {
 				frontierIter.remove();
 			}
 		}
 	}
 
+	private boolean isImprovedAsSideEffect(IQFunction<?, ?> qFunction, PolicyInfo policyInfo,
+			PolicyInfo alternativeInfo) {
+		CostFunction costFunction = policyInfo.getXMDP().getCostFunction();
+		double attrCostFuncSlope = costFunction.getAttributeCostFunction(qFunction).getSlope();
+
+		double solnQAValue = policyInfo.getQAValue(qFunction);
+		double altQAValue = alternativeInfo.getQAValue(qFunction);
+
+		if (mDiffScaler != null) {
+			// Check if the side-effect improvement is significant
+			return hasSignificantImprovement(qFunction, attrCostFuncSlope, solnQAValue, altQAValue);
+		}
+		return (attrCostFuncSlope > 0 && altQAValue < solnQAValue)
+				|| (attrCostFuncSlope < 0 && altQAValue > solnQAValue);
+	}
+
 	private boolean hasSignificantImprovement(IQFunction<?, ?> qFunction, double attrCostFuncSlope, double solnQAValue,
 			double altQAValue) {
 		double softBound = mDiffScaler.getSignificantImprovement(qFunction, solnQAValue);
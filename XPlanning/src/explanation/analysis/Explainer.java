@@ -4,7 +4,6 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
-import gurobi.GRBException;
 import language.domain.metrics.IEvent;
 import language.domain.metrics.IQFunction;
 import language.domain.metrics.NonStandardMetricQFunction;
@@ -15,6 +14,7 @@ import language.policy.Policy;
 import prism.PrismException;
 import solver.gurobiconnector.GRBConnector;
 import solver.gurobiconnector.GRBConnectorSettings;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.PrismConnector;
 import solver.prismconnector.PrismConnectorSettings;
 import solver.prismconnector.ValueEncodingScheme;
@@ -34,7 +34,7 @@ public class Explainer {
 	}
 
 	public Explanation explain(XMDP xmdp, CostCriterion costCriterion, PolicyInfo policyInfo) throws PrismException,
-			XMDPException, IOException, ExplicitModelParsingException, GRBException, ResultParsingException {
+			XMDPException, IOException, ExplicitModelParsingException, LPSolverException, ResultParsingException {
 		// PrismConnector
 		// Create a new PrismConnector to export PRISM explicit model files from the XMDP
 		// so that GRBConnector can create the corresponding ExplicitMDP
@@ -0,0 +1,26 @@
+package explanation.analysis;
+
+import java.io.IOException;
+
+import language.exceptions.XMDPException;
+import solver.lpsolver.LPSolverException;
+
+/**
+ * {@link IWeightedPlanner} computes an optimal policy for a cost function with the given scaling constants of the QAs.
+ * It is the solver oracle of {@link WeightSpaceExplorer}.
+ */
+public interface IWeightedPlanner {
+
+	/**
+	 * Compute an optimal policy for the cost function with the given scaling constants.
+	 *
+	 * @param weights
+	 *            : Scaling constant of each QA, in the order of the QAs of the explorer; the scaling constants are
+	 *            non-negative and sum to 1
+	 * @return Optimal policy information, or null if there is no solution
+	 * @throws XMDPException
+	 * @throws IOException
+	 * @throws LPSolverException
+	 */
+	PolicyInfo plan(double[] weights) throws XMDPException, IOException, LPSolverException;
+}
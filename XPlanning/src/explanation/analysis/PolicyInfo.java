@@ -19,6 +19,7 @@ public class PolicyInfo {
 	private XMDP mXMDP;
 	private QuantitativePolicy mQuantPolicy;
 	private double mObjectiveCost;
+	private Map<IQFunction<?, ?>, Double> mQACosts = new HashMap<>();
 	private Map<IQFunction<?, ?>, Double> mScaledQACosts = new HashMap<>();
 
 	public PolicyInfo(XMDP xmdp, Policy policy, double objectiveCost) {
@@ -36,6 +37,10 @@ public class PolicyInfo {
 		mQuantPolicy.putEventBasedQAValue(qFunction, qaValue);
 	}
 
+	public void putQACost(IQFunction<?, ?> qFunction, double qaCost) {
+		mQACosts.put(qFunction, qaCost);
+	}
+
 	public void putScaledQACost(IQFunction<?, ?> qFunction, double scaledQACost) {
 		mScaledQACosts.put(qFunction, scaledQACost);
 	}
@@ -65,6 +70,16 @@ public class PolicyInfo {
 		return mQuantPolicy.getEventBasedQAValue(qFunction);
 	}
 
+	/**
+	 * 
+	 * @param qFunction
+	 *            : QA function
+	 * @return Non-scaled QA cost, i.e., the expected total cost of the single-attribute cost function of the QA
+	 */
+	public double getQACost(IQFunction<?, ?> qFunction) {
+		return mQACosts.get(qFunction);
+	}
+
 	public double getScaledQACost(IQFunction<?, ?> qFunction) {
 		return mScaledQACosts.get(qFunction);
 	}
@@ -80,7 +95,7 @@ public class PolicyInfo {
 		PolicyInfo policyInfo = (PolicyInfo) obj;
 		return policyInfo.mXMDP.equals(mXMDP) && policyInfo.mQuantPolicy.equals(mQuantPolicy)
 				&& Double.compare(policyInfo.mObjectiveCost, mObjectiveCost) == 0
-				&& policyInfo.mScaledQACosts.equals(mScaledQACosts);
+				&& policyInfo.mQACosts.equals(mQACosts) && policyInfo.mScaledQACosts.equals(mScaledQACosts);
 	}
 
 	@Override
@@ -91,6 +106,7 @@ public class PolicyInfo {
 			result = 31 * result + mXMDP.hashCode();
 			result = 31 * result + mQuantPolicy.hashCode();
 			result = 31 * result + Double.hashCode(mObjectiveCost);
+			result = 31 * result + mQACosts.hashCode();
 			result = 31 * result + mScaledQACosts.hashCode();
 			hashCode = result;
 		}
@@ -0,0 +1,62 @@
+package explanation.analysis;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link WeightRegion} is a Pareto-optimal policy found by {@link WeightSpaceExplorer}, together with the region of
+ * the weight simplex in which the policy is optimal. The region is the convex hull of its corner weights.
+ */
+public class WeightRegion {
+
+	private PolicyInfo mPolicyInfo;
+
+	// Non-scaled QA costs of the policy, in the order of the QAs of the explorer
+	private double[] mQACosts;
+
+	// Part of the objective cost that does not depend on the scaling constants (e.g., the SSP cost offset)
+	private double mConstantCost;
+
+	private List<double[]> mCornerWeights = new ArrayList<>();
+
+	WeightRegion(PolicyInfo policyInfo, double[] qaCosts, double constantCost) {
+		mPolicyInfo = policyInfo;
+		mQACosts = qaCosts;
+		mConstantCost = constantCost;
+	}
+
+	void setCornerWeights(List<double[]> cornerWeights) {
+		mCornerWeights = cornerWeights;
+	}
+
+	public PolicyInfo getPolicyInfo() {
+		return mPolicyInfo;
+	}
+
+	/**
+	 *
+	 * @return Corner weights of the region, in the order of the QAs of the explorer
+	 */
+	public List<double[]> getCornerWeights() {
+		return Collections.unmodifiableList(mCornerWeights);
+	}
+
+	/**
+	 *
+	 * @param weights
+	 *            : Scaling constant of each QA
+	 * @return Objective cost of the policy with the given scaling constants
+	 */
+	public double getObjectiveCost(double[] weights) {
+		double objectiveCost = mConstantCost;
+		for (int q = 0; q < mQACosts.length; q++) {
+			objectiveCost += weights[q] * mQACosts[q];
+		}
+		return objectiveCost;
+	}
+
+	double[] getQACosts() {
+		return mQACosts;
+	}
+}
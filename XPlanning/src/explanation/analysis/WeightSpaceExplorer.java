@@ -0,0 +1,381 @@
+package explanation.analysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import language.domain.metrics.IQFunction;
+import language.exceptions.XMDPException;
+import solver.lpsolver.LPSolverException;
+
+/**
+ * {@link WeightSpaceExplorer} finds the distinct policies that are optimal for some scaling constants (weights) of the
+ * QAs, and the region of the weight simplex in which each policy is optimal, using optimistic linear support.
+ *
+ * The objective cost of a policy is linear in the weights: sum_q (w_q * C_q) + C_0, where C_q is the non-scaled QA
+ * cost of the policy, and C_0 is the part of the cost that does not depend on the weights. The minimum objective cost
+ * over the policies found so far is a concave, piecewise-linear function of the weights. A policy that is not found
+ * yet can only improve this minimum at one of its corner weights; therefore, the planner is only called at corner
+ * weights that have not been checked. If the resulting policy improves the minimum, it is added, and the corner
+ * weights are recomputed. The exploration ends when all corner weights have been checked. Then, every policy that is
+ * optimal for some weights has been found, and the number of solves is the number of corner weights checked, instead
+ * of the number of points of a weight grid.
+ *
+ * Pareto-optimal policies that are not optimal for any weights (i.e., in a non-convex part of the Pareto front) cannot
+ * be found by planning with a weighted cost function, and thus are not found by this explorer either.
+ */
+public class WeightSpaceExplorer {
+
+	public static final double DEFAULT_TOLERANCE = 1e-6;
+
+	// Tolerance on weights, for non-negativity and for identifying corner weights
+	private static final double WEIGHT_TOLERANCE = 1e-9;
+
+	// Pivot threshold of Gaussian elimination
+	private static final double SINGULAR_TOLERANCE = 1e-12;
+
+	private List<IQFunction<?, ?>> mQFunctions;
+	private double mTolerance;
+
+	// Number of planner calls in the last exploration
+	private int mNumSolves;
+
+	public WeightSpaceExplorer(List<IQFunction<?, ?>> qFunctions) {
+		this(qFunctions, DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 *
+	 * @param qFunctions
+	 *            : QAs, in the order of the weights given to the planner
+	 * @param tolerance
+	 *            : Relative tolerance on objective costs, under which a policy is not an improvement
+	 */
+	public WeightSpaceExplorer(List<IQFunction<?, ?>> qFunctions, double tolerance) {
+		mQFunctions = qFunctions;
+		mTolerance = tolerance;
+	}
+
+	public List<WeightRegion> explore(IWeightedPlanner planner) throws XMDPException, IOException, LPSolverException {
+		return explore(planner, null);
+	}
+
+	/**
+	 * Explore the weight simplex for all policies that are optimal for some weights. The weight region of a policy is
+	 * final once all of its corner weights have been checked; it is then passed to the listener, while the exploration
+	 * of the other regions continues.
+	 *
+	 * @param planner
+	 *            : Planner of the weighted cost function
+	 * @param regionListener
+	 *            : Listener of final weight regions, or null
+	 * @return Weight region of each policy found, in the order in which the regions become final
+	 * @throws XMDPException
+	 * @throws IOException
+	 * @throws LPSolverException
+	 */
+	public List<WeightRegion> explore(IWeightedPlanner planner, Consumer<WeightRegion> regionListener)
+			throws XMDPException, IOException, LPSolverException {
+		int numQAs = mQFunctions.size();
+		mNumSolves = 0;
+
+		List<WeightRegion> regions = new ArrayList<>();
+		List<WeightRegion> finalRegions = new ArrayList<>();
+		List<double[]> checkedWeights = new ArrayList<>();
+
+		while (true) {
+			// Corner weights of the minimum objective cost over the policies found so far
+			// Without any policy, the extreme weights are the corner weights
+			List<CornerWeight> corners = regions.isEmpty() ? createExtremeWeights(numQAs)
+					: computeCornerWeights(regions);
+
+			// Pass any region whose corner weights have all been checked to the listener
+			updateRegions(regions, corners, checkedWeights, finalRegions, regionListener);
+
+			CornerWeight corner = findUncheckedCornerWeight(corners, checkedWeights);
+			if (corner == null) {
+				break;
+			}
+
+			PolicyInfo policyInfo = planner.plan(corner.mWeights.clone());
+			mNumSolves++;
+			checkedWeights.add(corner.mWeights);
+
+			if (policyInfo != null) {
+				WeightRegion region = createRegion(policyInfo, corner.mWeights);
+
+				// A policy found before cannot improve the minimum at its own corner weights
+				if (isImprovement(region.getObjectiveCost(corner.mWeights), corner.mMinObjectiveCost)) {
+					regions.add(region);
+				}
+			}
+		}
+
+		// Policies whose regions have been taken over by policies found later (i.e., without corner weights) are not
+		// in the final regions
+		return finalRegions;
+	}
+
+	/**
+	 *
+	 * @return Number of planner calls in the last exploration
+	 */
+	public int getNumSolves() {
+		return mNumSolves;
+	}
+
+	private WeightRegion createRegion(PolicyInfo policyInfo, double[] weights) {
+		double[] qaCosts = new double[mQFunctions.size()];
+		double constantCost = policyInfo.getObjectiveCost();
+		for (int q = 0; q < qaCosts.length; q++) {
+			qaCosts[q] = policyInfo.getQACost(mQFunctions.get(q));
+			constantCost -= weights[q] * qaCosts[q];
+		}
+		return new WeightRegion(policyInfo, qaCosts, constantCost);
+	}
+
+	private void updateRegions(List<WeightRegion> regions, List<CornerWeight> corners, List<double[]> checkedWeights,
+			List<WeightRegion> finalRegions, Consumer<WeightRegion> regionListener) {
+		for (WeightRegion region : regions) {
+			if (finalRegions.contains(region)) {
+				continue;
+			}
+
+			// Corner weights at which the policy has the minimum objective cost
+			List<double[]> cornerWeights = new ArrayList<>();
+			boolean allChecked = true;
+			for (CornerWeight corner : corners) {
+				if (!isImprovement(corner.mMinObjectiveCost, region.getObjectiveCost(corner.mWeights))) {
+					cornerWeights.add(corner.mWeights);
+					allChecked &= containsWeights(checkedWeights, corner.mWeights);
+				}
+			}
+			region.setCornerWeights(cornerWeights);
+
+			if (!cornerWeights.isEmpty() && allChecked) {
+				finalRegions.add(region);
+				if (regionListener != null) {
+					regionListener.accept(region);
+				}
+			}
+		}
+	}
+
+	private boolean isImprovement(double objectiveCost, double minObjectiveCost) {
+		if (Double.isInfinite(minObjectiveCost)) {
+			return true;
+		}
+		return objectiveCost < minObjectiveCost - mTolerance * Math.max(1, Math.abs(minObjectiveCost));
+	}
+
+	private CornerWeight findUncheckedCornerWeight(List<CornerWeight> corners, List<double[]> checkedWeights) {
+		for (CornerWeight corner : corners) {
+			if (!containsWeights(checkedWeights, corner.mWeights)) {
+				return corner;
+			}
+		}
+		return null;
+	}
+
+	private static List<CornerWeight> createExtremeWeights(int numQAs) {
+		List<CornerWeight> corners = new ArrayList<>();
+		for (int q = 0; q < numQAs; q++) {
+			double[] weights = new double[numQAs];
+			weights[q] = 1;
+			corners.add(new CornerWeight(weights, Double.POSITIVE_INFINITY));
+		}
+		return corners;
+	}
+
+	/**
+	 * Compute the corner weights of the minimum objective cost over the given policies. These are the vertices of the
+	 * polytope {(w, y) : w_q >= 0, sum_q w_q = 1, y <= objective cost of each policy at w}, at which n of the
+	 * inequalities are tight, where n is the number of QAs. The vertices are enumerated over all combinations of n
+	 * inequalities, which is affordable for the few QAs and policies of a planning problem.
+	 *
+	 * @param regions
+	 *            : Policies found so far
+	 * @return Corner weights, with the minimum objective cost at each
+	 */
+	private List<CornerWeight> computeCornerWeights(List<WeightRegion> regions) {
+		int numQAs = mQFunctions.size();
+		int numInequalities = numQAs + regions.size();
+		List<CornerWeight> corners = new ArrayList<>();
+
+		// Indices of the tight inequalities: [0, numQAs) are w_q >= 0, and the rest are the policies
+		int[] tight = new int[numQAs];
+		for (int i = 0; i < numQAs; i++) {
+			tight[i] = i;
+		}
+
+		while (tight[0] <= numInequalities - numQAs) {
+			double[] weights = solveTightInequalities(tight, regions);
+
+			if (weights != null) {
+				double minObjectiveCost = Double.POSITIVE_INFINITY;
+				for (WeightRegion region : regions) {
+					minObjectiveCost = Math.min(minObjectiveCost, region.getObjectiveCost(weights));
+				}
+				double y = weights[numQAs];
+				double[] cornerWeights = new double[numQAs];
+				System.arraycopy(weights, 0, cornerWeights, 0, numQAs);
+
+				// The vertex must be on the minimum objective cost
+				if (!isImprovement(minObjectiveCost, y) && !containsCornerWeight(corners, cornerWeights)) {
+					corners.add(new CornerWeight(cornerWeights, minObjectiveCost));
+				}
+			}
+
+			// Next combination of tight inequalities
+			int i = numQAs - 1;
+			while (i > 0 && tight[i] == numInequalities - numQAs + i) {
+				i--;
+			}
+			tight[i]++;
+			for (int j = i + 1; j < numQAs; j++) {
+				tight[j] = tight[j - 1] + 1;
+			}
+		}
+		return corners;
+	}
+
+	/**
+	 * Solve for the point (w, y) at which the given inequalities are tight, and sum_q w_q = 1.
+	 *
+	 * @param tight
+	 *            : Indices of the tight inequalities
+	 * @param regions
+	 *            : Policies found so far
+	 * @return (w, y), or null if the point is not unique or not a valid weight
+	 */
+	private double[] solveTightInequalities(int[] tight, List<WeightRegion> regions) {
+		int numQAs = mQFunctions.size();
+		int size = numQAs + 1;
+		double[][] a = new double[size][size];
+		double[] b = new double[size];
+
+		// sum_q w_q = 1
+		for (int q = 0; q < numQAs; q++) {
+			a[0][q] = 1;
+		}
+		b[0] = 1;
+
+		for (int i = 0; i < numQAs; i++) {
+			if (tight[i] < numQAs) {
+				// w_q = 0
+				a[i + 1][tight[i]] = 1;
+			} else {
+				// y - sum_q (w_q * C_q) = C_0
+				WeightRegion region = regions.get(tight[i] - numQAs);
+				double[] qaCosts = region.getQACosts();
+				for (int q = 0; q < numQAs; q++) {
+					a[i + 1][q] = -qaCosts[q];
+				}
+				a[i + 1][numQAs] = 1;
+				b[i + 1] = region.getObjectiveCost(new double[numQAs]);
+			}
+		}
+
+		double[] solution = solveLinearSystem(a, b);
+		if (solution == null) {
+			return null;
+		}
+		for (int q = 0; q < numQAs; q++) {
+			if (solution[q] < -WEIGHT_TOLERANCE) {
+				return null;
+			}
+			solution[q] = Math.max(solution[q], 0);
+		}
+		return solution;
+	}
+
+	/**
+	 * Solve a square linear system by Gaussian elimination with partial pivoting.
+	 *
+	 * @param a
+	 *            : Coefficient matrix; modified
+	 * @param b
+	 *            : Right-hand side; modified
+	 * @return Solution, or null if the matrix is singular
+	 */
+	private static double[] solveLinearSystem(double[][] a, double[] b) {
+		int n = b.length;
+		for (int col = 0; col < n; col++) {
+			int pivot = col;
+			for (int row = col + 1; row < n; row++) {
+				if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+					pivot = row;
+				}
+			}
+			if (Math.abs(a[pivot][col]) < SINGULAR_TOLERANCE) {
+				return null;
+			}
+			double[] tmpRow = a[col];
+			a[col] = a[pivot];
+			a[pivot] = tmpRow;
+			double tmp = b[col];
+			b[col] = b[pivot];
+			b[pivot] = tmp;
+
+			for (int row = col + 1; row < n; row++) {
+				double factor = a[row][col] / a[col][col];
+				for (int k = col; k < n; k++) {
+					a[row][k] -= factor * a[col][k];
+				}
+				b[row] -= factor * b[col];
+			}
+		}
+
+		double[] x = new double[n];
+		for (int row = n - 1; row >= 0; row--) {
+			double sum = b[row];
+			for (int k = row + 1; k < n; k++) {
+				sum -= a[row][k] * x[k];
+			}
+			x[row] = sum / a[row][row];
+		}
+		return x;
+	}
+
+	private static boolean containsCornerWeight(List<CornerWeight> corners, double[] weights) {
+		for (CornerWeight corner : corners) {
+			if (isSameWeights(corner.mWeights, weights)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean containsWeights(List<double[]> weightsList, double[] weights) {
+		for (double[] other : weightsList) {
+			if (isSameWeights(other, weights)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isSameWeights(double[] weights, double[] other) {
+		for (int q = 0; q < weights.length; q++) {
+			if (Math.abs(weights[q] - other[q]) > WEIGHT_TOLERANCE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Corner weight of the minimum objective cost over the policies found so far.
+	 */
+	private static class CornerWeight {
+
+		private double[] mWeights;
+		private double mMinObjectiveCost;
+
+		CornerWeight(double[] weights, double minObjectiveCost) {
+			mWeights = weights;
+			mMinObjectiveCost = minObjectiveCost;
+		}
+	}
+}
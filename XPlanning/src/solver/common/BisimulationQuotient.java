@@ -0,0 +1,428 @@
+package solver.common;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import language.objectives.CostCriterion;
+
+/**
+ * {@link BisimulationQuotient} is the quotient of an {@link ExplicitMDP} by its coarsest probabilistic bisimulation
+ * that respects the goal states and all cost functions. Two states i and j are bisimilar iff: they are both goal states
+ * or both non-goal states; they have the same enabled actions; for each enabled action a, c_k(i,a) = c_k(j,a) for all
+ * cost functions k (or c_k(i) = c_k(j) for state costs); and P(B|i,a) = P(B|j,a) for every block B of bisimilar states.
+ *
+ * The bisimulation is computed by partition refinement: starting from the partition by goal label, enabled actions,
+ * and costs, each block is split by the probabilities of moving into each block via each action, until the partition
+ * is stable.
+ *
+ * Each block of the partition is a state of the quotient MDP. Action and cost function indices are preserved. The
+ * initial state is the representative of its block; each other block is represented by its lowest-index state. A
+ * policy of the quotient MDP is lifted by choosing the same action(s) at all states of a block that are reachable from
+ * the initial state under the lifted policy. The occupation measure of a quotient solution is lifted to the occupation
+ * measure of the lifted policy, which is non-zero at exactly the same states; since the costs are the same at all
+ * states of a block, this preserves the expected cost of every cost function.
+ */
+public class BisimulationQuotient {
+
+	/**
+	 * Probabilities are compared after rounding to this precision, so that the same probability mass accumulated in a
+	 * different order is considered equal.
+	 */
+	public static final double PROBABILITY_PRECISION = 1e-12;
+
+	private ExplicitMDP mOriginalMDP;
+	private ExplicitMDP mQuotientMDP;
+
+	// Block of each original state
+	private int[] mBlockOfState;
+
+	// Representative original state of each block
+	private int[] mRepresentatives;
+
+	private BisimulationQuotient(ExplicitMDP originalMDP, ExplicitMDP quotientMDP, int[] blockOfState,
+			int[] representatives) {
+		mOriginalMDP = originalMDP;
+		mQuotientMDP = quotientMDP;
+		mBlockOfState = blockOfState;
+		mRepresentatives = representatives;
+	}
+
+	/**
+	 * Compute the bisimulation quotient of an MDP.
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return Bisimulation quotient of the MDP
+	 */
+	public static BisimulationQuotient compute(ExplicitMDP explicitMDP) {
+		int n = explicitMDP.getNumStates();
+
+		boolean[] isGoal = new boolean[n];
+		for (Integer goal : explicitMDP.getGoalStates()) {
+			isGoal[goal] = true;
+		}
+
+		int[] blockOfState = new int[n];
+		int numBlocks = computeInitialPartition(explicitMDP, isGoal, blockOfState);
+
+		// Refine the partition until it is stable; a block is never merged, so the partition is stable when the number
+		// of blocks does not change
+		while (true) {
+			int[] refinedBlockOfState = new int[n];
+			int numRefinedBlocks = refinePartition(explicitMDP, blockOfState, refinedBlockOfState);
+			blockOfState = refinedBlockOfState;
+			if (numRefinedBlocks == numBlocks) {
+				break;
+			}
+			numBlocks = numRefinedBlocks;
+		}
+
+		int[] representatives = new int[numBlocks];
+		Arrays.fill(representatives, -1);
+		int iniState = explicitMDP.getInitialState();
+		representatives[blockOfState[iniState]] = iniState;
+		for (int i = 0; i < n; i++) {
+			if (representatives[blockOfState[i]] == -1) {
+				representatives[blockOfState[i]] = i;
+			}
+		}
+
+		ExplicitMDP quotientMDP = buildQuotientMDP(explicitMDP, blockOfState, representatives, isGoal);
+		return new BisimulationQuotient(explicitMDP, quotientMDP, blockOfState, representatives);
+	}
+
+	/**
+	 * Partition the states by goal label, enabled actions, and costs of all cost functions.
+	 *
+	 * @param explicitMDP
+	 * @param isGoal
+	 * @param blockOfState
+	 *            : Return parameter of the block of each state
+	 * @return Number of blocks
+	 */
+	private static int computeInitialPartition(ExplicitMDP explicitMDP, boolean[] isGoal, int[] blockOfState) {
+		int numCostFunctions = explicitMDP.getNumCostFunctions();
+		boolean isTransitionCost = explicitMDP.getCostType() == CostType.TRANSITION_COST;
+		Map<Signature, Integer> blocks = new HashMap<>();
+
+		for (int i = 0; i < explicitMDP.getNumStates(); i++) {
+			int start = explicitMDP.getStateActionPairOffset(i);
+			int end = explicitMDP.getStateActionPairOffset(i + 1);
+			int numEntries = isTransitionCost ? (end - start) * (1 + numCostFunctions) : (end - start) + numCostFunctions;
+			long[] entries = new long[numEntries];
+			int e = 0;
+
+			for (int ia = start; ia < end; ia++) {
+				int a = explicitMDP.getActionOfStateActionPair(ia);
+				entries[e++] = a;
+				if (isTransitionCost) {
+					for (int k = 0; k < numCostFunctions; k++) {
+						entries[e++] = Double.doubleToLongBits(explicitMDP.getTransitionCost(k, i, a));
+					}
+				}
+			}
+			if (!isTransitionCost) {
+				for (int k = 0; k < numCostFunctions; k++) {
+					entries[e++] = Double.doubleToLongBits(explicitMDP.getStateCost(k, i));
+				}
+			}
+
+			Signature signature = new Signature(isGoal[i] ? 1 : 0, entries);
+			blockOfState[i] = blocks.computeIfAbsent(signature, key -> blocks.size());
+		}
+		return blocks.size();
+	}
+
+	/**
+	 * Split each block by the probabilities of moving into each block via each enabled action.
+	 *
+	 * @param explicitMDP
+	 * @param blockOfState
+	 *            : Block of each state in the current partition
+	 * @param refinedBlockOfState
+	 *            : Return parameter of the block of each state in the refined partition
+	 * @return Number of blocks of the refined partition
+	 */
+	private static int refinePartition(ExplicitMDP explicitMDP, int[] blockOfState, int[] refinedBlockOfState) {
+		Map<Signature, Integer> blocks = new HashMap<>();
+		Map<Integer, Double> blockProbs = new HashMap<>();
+		long[] entries = new long[16];
+
+		for (int i = 0; i < explicitMDP.getNumStates(); i++) {
+			int start = explicitMDP.getStateActionPairOffset(i);
+			int end = explicitMDP.getStateActionPairOffset(i + 1);
+			int e = 0;
+
+			for (int ia = start; ia < end; ia++) {
+				int a = explicitMDP.getActionOfStateActionPair(ia);
+
+				// Probability of moving into each block via action a
+				blockProbs.clear();
+				SuccessorIterator succIter = explicitMDP.successors(i, a);
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					blockProbs.merge(blockOfState[j], succIter.getProbability(), Double::sum);
+				}
+
+				int[] succBlocks = new int[blockProbs.size()];
+				int b = 0;
+				for (Integer succBlock : blockProbs.keySet()) {
+					succBlocks[b++] = succBlock;
+				}
+				Arrays.sort(succBlocks);
+
+				if (entries.length < e + 2 + 2 * succBlocks.length) {
+					entries = Arrays.copyOf(entries, 2 * (e + 2 + 2 * succBlocks.length));
+				}
+				entries[e++] = a;
+				entries[e++] = succBlocks.length;
+				for (int succBlock : succBlocks) {
+					entries[e++] = succBlock;
+					entries[e++] = Math.round(blockProbs.get(succBlock) / PROBABILITY_PRECISION);
+				}
+			}
+
+			Signature signature = new Signature(blockOfState[i], Arrays.copyOf(entries, e));
+			refinedBlockOfState[i] = blocks.computeIfAbsent(signature, key -> blocks.size());
+		}
+		return blocks.size();
+	}
+
+	private static ExplicitMDP buildQuotientMDP(ExplicitMDP explicitMDP, int[] blockOfState, int[] representatives,
+			boolean[] isGoal) {
+		int numBlocks = representatives.length;
+		int numActions = explicitMDP.getNumActions();
+		int numCostFunctions = explicitMDP.getNumCostFunctions();
+		CostType costType = explicitMDP.getCostType();
+
+		// Same set of action names, so that the action indices are preserved
+		Set<String> actionNames = new HashSet<>();
+		for (int a = 0; a < numActions; a++) {
+			actionNames.add(explicitMDP.getActionNameAtIndex(a));
+		}
+
+		Set<Integer> goalBlocks = new HashSet<>();
+		for (int b = 0; b < numBlocks; b++) {
+			if (isGoal[representatives[b]]) {
+				goalBlocks.add(b);
+			}
+		}
+
+		ExplicitMDP quotientMDP = new ExplicitMDP(numBlocks, actionNames, costType, numCostFunctions,
+				blockOfState[explicitMDP.getInitialState()], goalBlocks);
+		Map<Integer, Double> blockProbs = new HashMap<>();
+
+		for (int b = 0; b < numBlocks; b++) {
+			int i = representatives[b];
+
+			for (int a : explicitMDP.getEnabledActions(i)) {
+				blockProbs.clear();
+				SuccessorIterator succIter = explicitMDP.successors(i, a);
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					blockProbs.merge(blockOfState[j], succIter.getProbability(), Double::sum);
+				}
+				for (Map.Entry<Integer, Double> e : blockProbs.entrySet()) {
+					quotientMDP.addTransitionProbability(b, a, e.getKey(), e.getValue());
+				}
+			}
+
+			// Costs of all cost functions, including the objective cost function
+			for (int k = 0; k < numCostFunctions; k++) {
+				if (costType == CostType.TRANSITION_COST) {
+					for (int a = 0; a < numActions; a++) {
+						quotientMDP.addTransitionCost(k, b, a, explicitMDP.getTransitionCost(k, i, a));
+					}
+				} else {
+					quotientMDP.addStateCost(k, b, explicitMDP.getStateCost(k, i));
+				}
+			}
+		}
+		return quotientMDP;
+	}
+
+	public ExplicitMDP getOriginalMDP() {
+		return mOriginalMDP;
+	}
+
+	public ExplicitMDP getQuotientMDP() {
+		return mQuotientMDP;
+	}
+
+	public int getNumBlocks() {
+		return mRepresentatives.length;
+	}
+
+	/**
+	 *
+	 * @param originalState
+	 * @return Block of the state, i.e., the corresponding state of the quotient MDP
+	 */
+	public int getBlockOfState(int originalState) {
+		return mBlockOfState[originalState];
+	}
+
+	/**
+	 *
+	 * @param block
+	 * @return Representative original state of the block
+	 */
+	public int getRepresentative(int block) {
+		return mRepresentatives[block];
+	}
+
+	/**
+	 * Lift a policy matrix of the quotient MDP to the original MDP, by choosing the same action(s) at the states of
+	 * each block that are reachable from the initial state under the lifted policy. Same as in a policy matrix of the
+	 * original MDP, the unreachable states have no action.
+	 *
+	 * @param quotientPolicyMatrix
+	 *            : Policy matrix in the sparse (state, action) layout of the quotient MDP
+	 * @return Policy matrix in the sparse (state, action) layout of the original MDP
+	 */
+	public double[] liftPolicyMatrix(double[] quotientPolicyMatrix) {
+		double[] policyMatrix = new double[mOriginalMDP.getNumStateActionPairs()];
+		boolean[] isReached = new boolean[mOriginalMDP.getNumStates()];
+		Deque<Integer> queue = new ArrayDeque<>();
+		int iniState = mOriginalMDP.getInitialState();
+		isReached[iniState] = true;
+		queue.add(iniState);
+
+		while (!queue.isEmpty()) {
+			int i = queue.poll();
+			int b = mBlockOfState[i];
+			for (int ba = mQuotientMDP.getStateActionPairOffset(b); ba < mQuotientMDP
+					.getStateActionPairOffset(b + 1); ba++) {
+				if (quotientPolicyMatrix[ba] == 0) {
+					continue;
+				}
+				int a = mQuotientMDP.getActionOfStateActionPair(ba);
+				policyMatrix[mOriginalMDP.getStateActionPairIndex(i, a)] = quotientPolicyMatrix[ba];
+
+				SuccessorIterator succIter = mOriginalMDP.successors(i, a);
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					if (!isReached[j]) {
+						isReached[j] = true;
+						queue.add(j);
+					}
+				}
+			}
+		}
+		return policyMatrix;
+	}
+
+	/**
+	 * Lift values in the sparse (state, action) layout of the quotient MDP (e.g., occupation measure) to the original
+	 * MDP, by assigning the values of each block to its representative state. The values of the other states are 0.
+	 *
+	 * @param quotientValues
+	 *            : Values in the sparse (state, action) layout of the quotient MDP
+	 * @return Values in the sparse (state, action) layout of the original MDP
+	 */
+	public double[] liftStateActionValues(double[] quotientValues) {
+		double[] originalValues = new double[mOriginalMDP.getNumStateActionPairs()];
+
+		for (int b = 0; b < mRepresentatives.length; b++) {
+			int i = mRepresentatives[b];
+			for (int ba = mQuotientMDP.getStateActionPairOffset(b); ba < mQuotientMDP
+					.getStateActionPairOffset(b + 1); ba++) {
+				int a = mQuotientMDP.getActionOfStateActionPair(ba);
+				originalValues[mOriginalMDP.getStateActionPairIndex(i, a)] = quotientValues[ba];
+			}
+		}
+		return originalValues;
+	}
+
+	/**
+	 * Lift all (state, action) values of a solution of the quotient MDP to the original MDP. The occupation measure x
+	 * is lifted to the occupation measure of the lifted policy, so that x_ia is non-zero iff pi(i) = a in the lifted
+	 * policy matrix. The other values are lifted by {@link #liftStateActionValues(double[])}.
+	 *
+	 * @param quotientSolution
+	 *            : Solution of the quotient MDP
+	 * @param policyMatrix
+	 *            : Policy matrix of the solution, lifted by {@link #liftPolicyMatrix(double[])}
+	 * @return Solution with the same objective value and running times, in the layout of the original MDP
+	 */
+	public LPSolution liftSolution(LPSolution quotientSolution, double[] policyMatrix) {
+		LPSolution solution = new LPSolution(quotientSolution.exists(), quotientSolution.getObjectiveValue());
+		for (String varName : quotientSolution.getSolutionNames()) {
+			double[] values = varName.equals("x") ? computeOccupationMeasure(policyMatrix) : null;
+			if (values == null) {
+				values = liftStateActionValues(quotientSolution.getSolution(varName));
+			}
+			solution.addSolution(varName, values);
+		}
+		solution.setRunningTimes(quotientSolution.getBuildTime(), quotientSolution.getSolveTime());
+		return solution;
+	}
+
+	/**
+	 * Compute the occupation measure of a lifted policy in the original MDP. The policy is deterministic, same as the
+	 * policy read from the policy matrix: the first action with non-zero probability at each state.
+	 *
+	 * @param policyMatrix
+	 *            : Lifted policy matrix
+	 * @return Occupation measure of the lifted policy, or null if it cannot be computed (then the occupation measure of
+	 *         each block is assigned to its representative state)
+	 */
+	private double[] computeOccupationMeasure(double[] policyMatrix) {
+		int[] policyPairs = new int[mOriginalMDP.getNumStates()];
+		Arrays.fill(policyPairs, -1);
+		for (int i = 0; i < mOriginalMDP.getNumStates(); i++) {
+			for (int ia = mOriginalMDP.getStateActionPairOffset(i); ia < mOriginalMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				if (policyMatrix[ia] > 0) {
+					policyPairs[i] = ia;
+					break;
+				}
+			}
+		}
+
+		ExplicitDTMCEvaluator evaluator = new ExplicitDTMCEvaluator(mOriginalMDP, CostCriterion.TOTAL_COST);
+		try {
+			return evaluator.computeOccupationMeasure(policyPairs);
+		} catch (NonConvergenceException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Signature of a state: its current block, and a sequence of entries that determines its new block.
+	 */
+	private static final class Signature {
+
+		private final int mBlock;
+		private final long[] mEntries;
+		private final int mHashCode;
+
+		Signature(int block, long[] entries) {
+			mBlock = block;
+			mEntries = entries;
+			mHashCode = 31 * block + Arrays.hashCode(entries);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature signature = (Signature) obj;
+			return signature.mBlock == mBlock && Arrays.equals(signature.mEntries, mEntries);
+		}
+
+		@Override
+		public int hashCode() {
+			return mHashCode;
+		}
+	}
+}
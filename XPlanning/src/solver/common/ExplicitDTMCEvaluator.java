@@ -0,0 +1,452 @@
+package solver.common;
+
+import java.util.Arrays;
+
+import language.objectives.CostCriterion;
+
+/**
+ * {@link ExplicitDTMCEvaluator} evaluates a deterministic policy of an {@link ExplicitMDP}, i.e., the DTMC induced by
+ * the policy, without building the DTMC in PRISM.
+ *
+ * The occupation measure x_ia of the policy is computed by solving a single sparse linear system: the expected number
+ * of visits to each state from the initial state (total-cost criterion), or the limiting frequency of each state from
+ * the initial state (average-cost criterion). The expected total (or long-run average) k-cost of the policy is then
+ * sum_i,a (x_ia * c^k_ia), for every cost function k.
+ */
+public class ExplicitDTMCEvaluator {
+
+	public static final double DEFAULT_EPSILON = 1e-8;
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+
+	/**
+	 * Each transition of the transformed (aperiodic) DTMC is a self-loop with probability (1 - this factor).
+	 */
+	private static final double APERIODICITY_FACTOR = 0.5;
+
+	/**
+	 * Iterative method to solve for the expected state visits.
+	 */
+	public enum LinearSolverMethod {
+		JACOBI, GAUSS_SEIDEL, BICGSTAB
+	}
+
+	private ExplicitMDP mExplicitMDP;
+	private CostCriterion mCostCriterion;
+	private LinearSolverMethod mMethod;
+	private double mEpsilon;
+	private int mMaxIterations;
+
+	public ExplicitDTMCEvaluator(ExplicitMDP explicitMDP, CostCriterion costCriterion) {
+		this(explicitMDP, costCriterion, LinearSolverMethod.GAUSS_SEIDEL, DEFAULT_EPSILON, DEFAULT_MAX_ITERATIONS);
+	}
+
+	/**
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param costCriterion
+	 *            : Total-cost or average-cost criterion
+	 * @param method
+	 *            : Iterative method to solve for the expected state visits (total-cost criterion only)
+	 * @param epsilon
+	 *            : Convergence threshold of the iterative methods
+	 * @param maxIterations
+	 *            : Maximum number of iterations of the iterative methods
+	 */
+	public ExplicitDTMCEvaluator(ExplicitMDP explicitMDP, CostCriterion costCriterion, LinearSolverMethod method,
+			double epsilon, int maxIterations) {
+		mExplicitMDP = explicitMDP;
+		mCostCriterion = costCriterion;
+		mMethod = method;
+		mEpsilon = epsilon;
+		mMaxIterations = maxIterations;
+	}
+
+	public ExplicitMDP getExplicitMDP() {
+		return mExplicitMDP;
+	}
+
+	/**
+	 * Compute the expected total (or long-run average) k-cost of a deterministic policy from the initial state, for all
+	 * k.
+	 *
+	 * @param policyPairs
+	 *            : Index of the chosen (state, action) pair of each state, or -1 if the policy is undefined at the state
+	 * @return Expected total (or long-run average) k-cost of the policy, for all k; for the total-cost criterion, all
+	 *         costs are infinite if the policy does not reach the goal states with probability 1
+	 * @throws NonConvergenceException
+	 */
+	public double[] evaluatePolicy(int[] policyPairs) throws NonConvergenceException {
+		double[] xResults = computeOccupationMeasure(policyPairs);
+		if (xResults == null) {
+			double[] costs = new double[mExplicitMDP.getNumCostFunctions()];
+			Arrays.fill(costs, Double.POSITIVE_INFINITY);
+			return costs;
+		}
+		return ExplicitModelChecker.computeOccupancyCosts(xResults, mExplicitMDP);
+	}
+
+	/**
+	 * Compute the occupation measure of a deterministic policy from the initial state.
+	 *
+	 * For the total-cost criterion, x_ia is the expected number of visits to state i, if pi(i) = a; 0, otherwise. Goal
+	 * states are absorbing, and have no occupation measure.
+	 *
+	 * For the average-cost criterion, x_ia is the limiting frequency of state i, if pi(i) = a; 0, otherwise. A state
+	 * at which the policy is undefined is a deadlock: it loops to itself with no cost.
+	 *
+	 * @param policyPairs
+	 *            : Index of the chosen (state, action) pair of each state, or -1 if the policy is undefined at the state
+	 * @return Occupation measure, in the sparse (state, action) layout of the MDP, or null if the criterion is total
+	 *         cost and the policy does not reach the goal states with probability 1
+	 * @throws NonConvergenceException
+	 */
+	public double[] computeOccupationMeasure(int[] policyPairs) throws NonConvergenceException {
+		int n = mExplicitMDP.getNumStates();
+		boolean[] isGoal = new boolean[n];
+		if (mCostCriterion == CostCriterion.TOTAL_COST) {
+			for (Integer goal : mExplicitMDP.getGoalStates()) {
+				isGoal[goal] = true;
+			}
+		}
+
+		double[] stateVisits = mCostCriterion == CostCriterion.TOTAL_COST
+				? computeExpectedStateVisits(policyPairs, isGoal)
+				: computeLimitingStateFrequencies(policyPairs);
+		if (stateVisits == null) {
+			return null;
+		}
+
+		double[] xResults = new double[mExplicitMDP.getNumStateActionPairs()];
+		for (int i = 0; i < n; i++) {
+			if (stateVisits[i] > 0 && !isGoal[i] && policyPairs[i] != -1) {
+				xResults[policyPairs[i]] = stateVisits[i];
+			}
+		}
+		return xResults;
+	}
+
+	/**
+	 * Compute the expected number of visits to each state from the initial state, by solving the linear system:
+	 * visits(j) = [j = s0] + sum_i (visits(i) * P(j|i,pi(i))), over the non-goal states reachable from s0.
+	 *
+	 * @param policyPairs
+	 * @param isGoal
+	 * @return Expected number of visits to each state, or null if the policy does not reach the goal states with
+	 *         probability 1
+	 * @throws NonConvergenceException
+	 */
+	private double[] computeExpectedStateVisits(int[] policyPairs, boolean[] isGoal) throws NonConvergenceException {
+		int n = mExplicitMDP.getNumStates();
+		int iniState = mExplicitMDP.getInitialState();
+		double[] stateVisits = new double[n];
+		if (isGoal[iniState]) {
+			return stateVisits;
+		}
+
+		// Non-goal states reachable from the initial state, in the order of their indices
+		int[] localIndex = new int[n];
+		Arrays.fill(localIndex, -1);
+		int[] states = findReachableNonGoalStates(policyPairs, isGoal, localIndex);
+		int m = states.length;
+
+		// Transitions between the reachable non-goal states, by destination: the predecessors of local state l are at
+		// [predOffsets[l], predOffsets[l + 1]) of predStates and predProbs
+		int[] predOffsets = new int[m + 1];
+		boolean[] reachesGoal = new boolean[m];
+		for (int l = 0; l < m; l++) {
+			int i = states[l];
+			if (policyPairs[i] == -1) {
+				// Deadlock state never reaches the goal states
+				return null;
+			}
+			SuccessorIterator succIter = successorsUnderPolicy(i, policyPairs);
+			while (succIter.hasNext()) {
+				int j = succIter.next();
+				if (isGoal[j]) {
+					reachesGoal[l] = true;
+				} else {
+					predOffsets[localIndex[j] + 1]++;
+				}
+			}
+		}
+		for (int l = 0; l < m; l++) {
+			predOffsets[l + 1] += predOffsets[l];
+		}
+		int[] predStates = new int[predOffsets[m]];
+		double[] predProbs = new double[predOffsets[m]];
+		int[] nextPred = Arrays.copyOf(predOffsets, m);
+		for (int l = 0; l < m; l++) {
+			SuccessorIterator succIter = successorsUnderPolicy(states[l], policyPairs);
+			while (succIter.hasNext()) {
+				int j = succIter.next();
+				if (!isGoal[j]) {
+					int e = nextPred[localIndex[j]]++;
+					predStates[e] = l;
+					predProbs[e] = succIter.getProbability();
+				}
+			}
+		}
+
+		// The policy reaches the goal states with probability 1 iff every reachable state can reach the goal states
+		if (!allReachGoal(reachesGoal, predOffsets, predStates)) {
+			return null;
+		}
+
+		double[] localVisits = new double[m];
+		int iniLocal = localIndex[iniState];
+		boolean solved = false;
+		if (mMethod == LinearSolverMethod.BICGSTAB) {
+			solved = solveBiCGSTAB(localVisits, iniLocal, predOffsets, predStates, predProbs);
+		}
+		if (!solved) {
+			// BiCGSTAB may break down; Jacobi and Gauss-Seidel always converge for a proper policy
+			Arrays.fill(localVisits, 0);
+			solved = solveStationary(localVisits, iniLocal, predOffsets, predStates, predProbs,
+					mMethod == LinearSolverMethod.JACOBI);
+		}
+		if (!solved) {
+			throw new NonConvergenceException("Expected state visits did not converge");
+		}
+
+		for (int l = 0; l < m; l++) {
+			stateVisits[states[l]] = localVisits[l];
+		}
+		return stateVisits;
+	}
+
+	private int[] findReachableNonGoalStates(int[] policyPairs, boolean[] isGoal, int[] localIndex) {
+		int n = mExplicitMDP.getNumStates();
+		boolean[] reachable = new boolean[n];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		int iniState = mExplicitMDP.getInitialState();
+		reachable[iniState] = true;
+		queue[tail++] = iniState;
+
+		while (head < tail) {
+			int i = queue[head++];
+			if (policyPairs[i] == -1) {
+				continue;
+			}
+			SuccessorIterator succIter = successorsUnderPolicy(i, policyPairs);
+			while (succIter.hasNext()) {
+				int j = succIter.next();
+				if (!reachable[j] && !isGoal[j]) {
+					reachable[j] = true;
+					queue[tail++] = j;
+				}
+			}
+		}
+
+		int[] states = Arrays.copyOf(queue, tail);
+		Arrays.sort(states);
+		for (int l = 0; l < states.length; l++) {
+			localIndex[states[l]] = l;
+		}
+		return states;
+	}
+
+	private boolean allReachGoal(boolean[] reachesGoal, int[] predOffsets, int[] predStates) {
+		int m = reachesGoal.length;
+		int[] queue = new int[m];
+		int tail = 0;
+		for (int l = 0; l < m; l++) {
+			if (reachesGoal[l]) {
+				queue[tail++] = l;
+			}
+		}
+		for (int head = 0; head < tail; head++) {
+			int l = queue[head];
+			for (int e = predOffsets[l]; e < predOffsets[l + 1]; e++) {
+				int pred = predStates[e];
+				if (!reachesGoal[pred]) {
+					reachesGoal[pred] = true;
+					queue[tail++] = pred;
+				}
+			}
+		}
+		return tail == m;
+	}
+
+	/**
+	 * Jacobi or Gauss-Seidel iteration: visits(l) = [l = s0] + sum_pred (visits(pred) * P(l|pred)).
+	 *
+	 * @return Whether the iteration converged
+	 */
+	private boolean solveStationary(double[] visits, int iniLocal, int[] predOffsets, int[] predStates,
+			double[] predProbs, boolean jacobi) {
+		int m = visits.length;
+		double[] prevVisits = jacobi ? new double[m] : visits;
+
+		for (int iteration = 0; iteration < mMaxIterations; iteration++) {
+			if (jacobi) {
+				System.arraycopy(visits, 0, prevVisits, 0, m);
+			}
+
+			double maxResidual = 0;
+			for (int l = 0; l < m; l++) {
+				double newVisits = l == iniLocal ? 1 : 0;
+				for (int e = predOffsets[l]; e < predOffsets[l + 1]; e++) {
+					newVisits += prevVisits[predStates[e]] * predProbs[e];
+				}
+				maxResidual = Math.max(maxResidual, Math.abs(newVisits - visits[l]));
+				visits[l] = newVisits;
+			}
+
+			if (maxResidual < mEpsilon) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * BiCGSTAB for the system (I - P^T) visits = e_s0.
+	 *
+	 * @return Whether the iteration converged, without breaking down
+	 */
+	private boolean solveBiCGSTAB(double[] visits, int iniLocal, int[] predOffsets, int[] predStates,
+			double[] predProbs) {
+		int m = visits.length;
+
+		// Initial guess: visits = 0; therefore, r = b = e_s0
+		double[] r = new double[m];
+		r[iniLocal] = 1;
+		double[] rHat = r.clone();
+		double[] p = new double[m];
+		double[] v = new double[m];
+		double[] s = new double[m];
+		double[] t = new double[m];
+		double rho = 1;
+		double alpha = 1;
+		double omega = 1;
+
+		for (int iteration = 0; iteration < mMaxIterations; iteration++) {
+			double rhoNew = dot(rHat, r);
+			if (rhoNew == 0 || omega == 0) {
+				return false;
+			}
+			double beta = (rhoNew / rho) * (alpha / omega);
+			for (int l = 0; l < m; l++) {
+				p[l] = r[l] + beta * (p[l] - omega * v[l]);
+			}
+
+			multiply(p, v, predOffsets, predStates, predProbs);
+			double rHatV = dot(rHat, v);
+			if (rHatV == 0) {
+				return false;
+			}
+			alpha = rhoNew / rHatV;
+
+			for (int l = 0; l < m; l++) {
+				s[l] = r[l] - alpha * v[l];
+			}
+			if (maxNorm(s) < mEpsilon) {
+				for (int l = 0; l < m; l++) {
+					visits[l] += alpha * p[l];
+				}
+				return true;
+			}
+
+			multiply(s, t, predOffsets, predStates, predProbs);
+			double tt = dot(t, t);
+			if (tt == 0) {
+				return false;
+			}
+			omega = dot(t, s) / tt;
+
+			for (int l = 0; l < m; l++) {
+				visits[l] += alpha * p[l] + omega * s[l];
+				r[l] = s[l] - omega * t[l];
+			}
+			if (maxNorm(r) < mEpsilon) {
+				return true;
+			}
+			rho = rhoNew;
+		}
+		return false;
+	}
+
+	/**
+	 * result = (I - P^T) vector
+	 */
+	private void multiply(double[] vector, double[] result, int[] predOffsets, int[] predStates, double[] predProbs) {
+		for (int l = 0; l < vector.length; l++) {
+			double sum = vector[l];
+			for (int e = predOffsets[l]; e < predOffsets[l + 1]; e++) {
+				sum -= vector[predStates[e]] * predProbs[e];
+			}
+			result[l] = sum;
+		}
+	}
+
+	private static double dot(double[] u, double[] v) {
+		double sum = 0;
+		for (int l = 0; l < u.length; l++) {
+			sum += u[l] * v[l];
+		}
+		return sum;
+	}
+
+	private static double maxNorm(double[] u) {
+		double max = 0;
+		for (double value : u) {
+			max = Math.max(max, Math.abs(value));
+		}
+		return max;
+	}
+
+	/**
+	 * Compute the limiting frequency of each state from the initial state, by iterating the state distribution over
+	 * the transformed (aperiodic) DTMC: d_t+1(j) = (1 - tau) * d_t(j) + tau * sum_i (d_t(i) * P(j|i,pi(i))). The
+	 * transformed DTMC has the same limiting frequencies as the original DTMC.
+	 *
+	 * @param policyPairs
+	 * @return Limiting frequency of each state
+	 * @throws NonConvergenceException
+	 */
+	private double[] computeLimitingStateFrequencies(int[] policyPairs) throws NonConvergenceException {
+		int n = mExplicitMDP.getNumStates();
+		double[] distribution = new double[n];
+		double[] nextDistribution = new double[n];
+		distribution[mExplicitMDP.getInitialState()] = 1;
+
+		for (int iteration = 0; iteration < mMaxIterations; iteration++) {
+			for (int j = 0; j < n; j++) {
+				// Deadlock state keeps all of its probability
+				nextDistribution[j] = policyPairs[j] == -1 ? distribution[j]
+						: (1 - APERIODICITY_FACTOR) * distribution[j];
+			}
+			for (int i = 0; i < n; i++) {
+				if (policyPairs[i] == -1 || distribution[i] == 0) {
+					continue;
+				}
+				SuccessorIterator succIter = successorsUnderPolicy(i, policyPairs);
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					nextDistribution[j] += APERIODICITY_FACTOR * distribution[i] * succIter.getProbability();
+				}
+			}
+
+			double change = 0;
+			for (int j = 0; j < n; j++) {
+				change += Math.abs(nextDistribution[j] - distribution[j]);
+			}
+
+			double[] temp = distribution;
+			distribution = nextDistribution;
+			nextDistribution = temp;
+
+			if (change < mEpsilon) {
+				return distribution;
+			}
+		}
+		throw new NonConvergenceException("Limiting state frequencies did not converge");
+	}
+
+	private SuccessorIterator successorsUnderPolicy(int i, int[] policyPairs) {
+		return mExplicitMDP.successors(i, mExplicitMDP.getActionOfStateActionPair(policyPairs[i]));
+	}
+}
@@ -2,15 +2,33 @@ package solver.common;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * {@link ExplicitMDP} stores its transition probabilities in compressed-sparse-row (CSR) form: each (state, action)
+ * pair is a row, whose non-zero entries are stored in parallel destination-state and probability arrays. Memory and
+ * build time therefore grow with the number of transitions, rather than with n^2 * m.
+ * 
+ * Transitions are staged as they are added, and are compacted into CSR form when they are first queried. At the same
+ * time, the enabled actions of every state are indexed, so that solvers can iterate over A_i directly, and the
+ * transitions are indexed by destination state, so that solvers can iterate over the predecessors of a state directly.
+ * 
+ * The enabled (state, action) pairs are numbered 0, ..., P-1 in increasing order of (i, a). Solvers use this numbering
+ * as a sparse layout for any quantity defined on (i, a) for a in A_i, such as occupation measures and policies.
+ */
 public class ExplicitMDP {
 
 	/**
 	 * Index of the optimization objective function of this MDP.
 	 */
-	private static final int OBJECTIVE_FUNCTION_INDEX = 0;
+	public static final int OBJECTIVE_FUNCTION_INDEX = 0;
+
+	/**
+	 * Initial capacity of the staging arrays of transitions.
+	 */
+	private static final int INITIAL_STAGING_CAPACITY = 1024;
 
 	/*
 	 * Cached hashCode -- Effective Java
@@ -22,17 +40,50 @@ public class ExplicitMDP {
 	private CostType mCostType;
 	private int mIniState;
 	private Set<Integer> mGoalStates;
-	private double[][][] mTransProbs;
 	private double[][][] mTransCosts;
 	private double[][] mStateCosts;
 
+	// Cost function k is shared with other MDPs (of the same objective overlay family) iff mSharedCostFunctions[k];
+	// a shared cost function is copied on the first write to it. Null if no cost function is shared.
+	private boolean[] mSharedCostFunctions;
+
+	// Transition probabilities in CSR form:
+	// non-zero entries of row (i, a) are at [mRowOffsets[i * m + a], mRowOffsets[i * m + a + 1]) of mDestStates and
+	// mProbs, ordered by destination state
+	private volatile int[] mRowOffsets;
+	private int[] mDestStates;
+	private double[] mProbs;
+
+	// Enabled-action index: bit (i * m + a) is set iff action a is applicable in state i, and mEnabledActions[i] lists
+	// the applicable actions in state i in increasing order
+	private BitSet mEnabledBits;
+	private int[][] mEnabledActions;
+
+	// Enabled (state, action) pairs of state i are numbered [mPairOffsets[i], mPairOffsets[i + 1])
+	private int[] mPairOffsets;
+	private int[] mPairActions;
+
+	// Predecessor index in CSR form:
+	// transitions (j, a) -> i entering state i are at [mPredOffsets[i], mPredOffsets[i + 1]) of mPredSrcStates,
+	// mPredActions and mPredProbs, ordered by (j, a)
+	private int[] mPredOffsets;
+	private int[] mPredSrcStates;
+	private int[] mPredActions;
+	private int[] mPredPairs;
+	private double[] mPredProbs;
+
+	// Staged transitions (row, dest, prob) that have not been compacted into CSR form yet
+	private int mNumStagedTransitions;
+	private int[] mStagedRows = new int[INITIAL_STAGING_CAPACITY];
+	private int[] mStagedDests = new int[INITIAL_STAGING_CAPACITY];
+	private double[] mStagedProbs = new double[INITIAL_STAGING_CAPACITY];
+
 	public ExplicitMDP(int numStates, Set<String> actionNames, CostType costType, int numCostFunctions, int iniState,
 			Set<Integer> goalStates) {
 		int numActions = actionNames.size();
 		mNumStates = numStates;
 		mIndexedActions = sortActions(actionNames);
 		mCostType = costType;
-		mTransProbs = new double[numStates][numActions][numStates];
 		if (costType == CostType.TRANSITION_COST) {
 			mTransCosts = new double[numCostFunctions][numStates][numActions];
 		} else if (costType == CostType.STATE_COST) {
@@ -42,6 +93,98 @@ public class ExplicitMDP {
 		mGoalStates = goalStates;
 	}
 
+	/**
+	 * Create an objective overlay of the given MDP. The compacted transitions and their indices can be shared, because
+	 * they are never modified in place: adding a transition replaces them.
+	 * 
+	 * @param baseMDP
+	 *            : MDP to overlay
+	 */
+	private ExplicitMDP(ExplicitMDP baseMDP) {
+		int[] rowOffsets = baseMDP.getRowOffsets();
+
+		mNumStates = baseMDP.mNumStates;
+		mIndexedActions = baseMDP.mIndexedActions;
+		mCostType = baseMDP.mCostType;
+		mIniState = baseMDP.mIniState;
+		mGoalStates = baseMDP.mGoalStates;
+
+		mDestStates = baseMDP.mDestStates;
+		mProbs = baseMDP.mProbs;
+		mEnabledBits = baseMDP.mEnabledBits;
+		mEnabledActions = baseMDP.mEnabledActions;
+		mPairOffsets = baseMDP.mPairOffsets;
+		mPairActions = baseMDP.mPairActions;
+		mPredOffsets = baseMDP.mPredOffsets;
+		mPredSrcStates = baseMDP.mPredSrcStates;
+		mPredActions = baseMDP.mPredActions;
+		mPredPairs = baseMDP.mPredPairs;
+		mPredProbs = baseMDP.mPredProbs;
+		mStagedRows = new int[0];
+		mStagedDests = new int[0];
+		mStagedProbs = new double[0];
+		mRowOffsets = rowOffsets;
+
+		int numCostFunctions = baseMDP.getNumCostFunctions();
+		if (mCostType == CostType.TRANSITION_COST) {
+			mTransCosts = baseMDP.mTransCosts.clone();
+			mTransCosts[OBJECTIVE_FUNCTION_INDEX] = copyTransitionCosts(baseMDP.mTransCosts[OBJECTIVE_FUNCTION_INDEX]);
+		} else {
+			mStateCosts = baseMDP.mStateCosts.clone();
+			mStateCosts[OBJECTIVE_FUNCTION_INDEX] = baseMDP.mStateCosts[OBJECTIVE_FUNCTION_INDEX].clone();
+		}
+
+		mSharedCostFunctions = new boolean[numCostFunctions];
+		Arrays.fill(mSharedCostFunctions, true);
+		mSharedCostFunctions[OBJECTIVE_FUNCTION_INDEX] = false;
+	}
+
+	/**
+	 * Create a copy of this MDP with its own objective costs, initially the same as the objective costs of this MDP.
+	 * The copy shares the transition probabilities and the other cost functions with this MDP (copy-on-write), so it
+	 * only takes O(n * m) time and memory for the objective costs. This allows the same MDP to be solved for multiple
+	 * objective functions, independently.
+	 * 
+	 * @return Objective overlay of this MDP
+	 */
+	public synchronized ExplicitMDP createObjectiveOverlay() {
+		ExplicitMDP overlay = new ExplicitMDP(this);
+
+		// The non-objective cost functions of this MDP are now shared with the overlay
+		if (mSharedCostFunctions == null) {
+			mSharedCostFunctions = new boolean[getNumCostFunctions()];
+		}
+		Arrays.fill(mSharedCostFunctions, true);
+		mSharedCostFunctions[OBJECTIVE_FUNCTION_INDEX] = false;
+		return overlay;
+	}
+
+	private static double[][] copyTransitionCosts(double[][] transCosts) {
+		double[][] copy = new double[transCosts.length][];
+		for (int i = 0; i < transCosts.length; i++) {
+			copy[i] = transCosts[i].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Copy a shared cost function before it is written to, so that the write is not visible to the other MDPs that
+	 * share it.
+	 * 
+	 * @param costFuncIndex
+	 */
+	private void unshareCostFunction(int costFuncIndex) {
+		if (mSharedCostFunctions == null || !mSharedCostFunctions[costFuncIndex]) {
+			return;
+		}
+		if (mCostType == CostType.TRANSITION_COST) {
+			mTransCosts[costFuncIndex] = copyTransitionCosts(mTransCosts[costFuncIndex]);
+		} else {
+			mStateCosts[costFuncIndex] = mStateCosts[costFuncIndex].clone();
+		}
+		mSharedCostFunctions[costFuncIndex] = false;
+	}
+
 	/**
 	 * This is to ensure 2 instances of {@link ExplicitMDP} with the same structure are considered equal, by setting a
 	 * unique assignment of action names -> action indices.
@@ -65,7 +208,28 @@ public class ExplicitMDP {
 	 */
 	public void addTransitionProbability(int srcState, String actionName, int destState, double probability) {
 		int actionIndex = getActionIndex(actionName);
-		mTransProbs[srcState][actionIndex][destState] = probability;
+		addTransitionProbability(srcState, actionIndex, destState, probability);
+	}
+
+	public synchronized void addTransitionProbability(int srcState, int actionIndex, int destState,
+			double probability) {
+		if (mRowOffsets != null) {
+			// Transitions have already been compacted; move them back to staging before adding a new one
+			unstageCompactedTransitions();
+		}
+
+		if (mNumStagedTransitions == mStagedRows.length) {
+			int newCapacity = 2 * mStagedRows.length;
+			mStagedRows = Arrays.copyOf(mStagedRows, newCapacity);
+			mStagedDests = Arrays.copyOf(mStagedDests, newCapacity);
+			mStagedProbs = Arrays.copyOf(mStagedProbs, newCapacity);
+		}
+
+		mStagedRows[mNumStagedTransitions] = getRowIndex(srcState, actionIndex);
+		mStagedDests[mNumStagedTransitions] = destState;
+		mStagedProbs[mNumStagedTransitions] = probability;
+		mNumStagedTransitions++;
+		hashCode = 0;
 	}
 
 	/**
@@ -83,6 +247,7 @@ public class ExplicitMDP {
 
 	public void addTransitionCost(int costFuncIndex, int srcState, int actionIndex, double cost) {
 		checkTransitionCost();
+		unshareCostFunction(costFuncIndex);
 		mTransCosts[costFuncIndex][srcState][actionIndex] = cost;
 	}
 
@@ -95,6 +260,7 @@ public class ExplicitMDP {
 	 */
 	public void addStateCost(int costFuncIndex, int state, double cost) {
 		checkStateCost();
+		unshareCostFunction(costFuncIndex);
 		mStateCosts[costFuncIndex][state] = cost;
 	}
 
@@ -192,17 +358,103 @@ public class ExplicitMDP {
 	 * @return Whether the action at a given index is applicable in a given state.
 	 */
 	public boolean isActionApplicable(int srcState, int actionIndex) {
-		double[] transProbs = mTransProbs[srcState][actionIndex];
-		for (int j = 0; j < transProbs.length; j++) {
-			if (transProbs[j] > 0) {
-				return true;
-			}
-		}
-		return false;
+		getRowOffsets();
+		return mEnabledBits.get(getRowIndex(srcState, actionIndex));
+	}
+
+	/**
+	 * Get the actions applicable in a given state: A_i = { a : P(j|i,a) > 0 for some j }, in increasing order of action
+	 * index.
+	 * 
+	 * The returned array is a view of this MDP's index, and must not be modified.
+	 * 
+	 * @param srcState
+	 * @return Indices of the actions applicable in the given state
+	 */
+	public int[] getEnabledActions(int srcState) {
+		getRowOffsets();
+		return mEnabledActions[srcState];
 	}
 
 	public double getTransitionProbability(int srcState, int actionIndex, int destState) {
-		return mTransProbs[srcState][actionIndex][destState];
+		int[] rowOffsets = getRowOffsets();
+		int row = getRowIndex(srcState, actionIndex);
+		int k = Arrays.binarySearch(mDestStates, rowOffsets[row], rowOffsets[row + 1], destState);
+		return k >= 0 ? mProbs[k] : 0;
+	}
+
+	/**
+	 * @return Number of enabled (state, action) pairs P = sum_i |A_i|
+	 */
+	public int getNumStateActionPairs() {
+		getRowOffsets();
+		return mPairOffsets[mNumStates];
+	}
+
+	/**
+	 * The enabled (state, action) pairs of state i are numbered [offset(i), offset(i + 1)), in the same order as
+	 * {@link #getEnabledActions(int)}.
+	 * 
+	 * @param srcState
+	 *            : State i, where 0 <= i <= n
+	 * @return Index of the first enabled (state, action) pair of state i
+	 */
+	public int getStateActionPairOffset(int srcState) {
+		getRowOffsets();
+		return mPairOffsets[srcState];
+	}
+
+	/**
+	 * @param pairIndex
+	 *            : Index of an enabled (state, action) pair (i, a)
+	 * @return Action a of the pair
+	 */
+	public int getActionOfStateActionPair(int pairIndex) {
+		getRowOffsets();
+		return mPairActions[pairIndex];
+	}
+
+	/**
+	 * @param srcState
+	 * @param actionIndex
+	 * @return Index of the enabled (state, action) pair (i, a), or -1 if action a is not applicable in state i
+	 */
+	public int getStateActionPairIndex(int srcState, int actionIndex) {
+		getRowOffsets();
+		int k = Arrays.binarySearch(mEnabledActions[srcState], actionIndex);
+		return k >= 0 ? mPairOffsets[srcState] + k : -1;
+	}
+
+	/**
+	 * Iterate over the successor states j of (i, a), such that P(j|i,a) > 0, in increasing order of j.
+	 * 
+	 * @param srcState
+	 * @param actionIndex
+	 * @return Iterator over the non-zero transitions from a given state via a given action
+	 */
+	public SuccessorIterator successors(int srcState, int actionIndex) {
+		int[] rowOffsets = getRowOffsets();
+		int row = getRowIndex(srcState, actionIndex);
+		return new SuccessorIterator(mDestStates, mProbs, rowOffsets[row], rowOffsets[row + 1]);
+	}
+
+	/**
+	 * Iterate over the predecessors (j, a) of state i, such that P(i|j,a) > 0, in increasing order of (j, a).
+	 * 
+	 * @param destState
+	 * @return Iterator over the non-zero transitions entering a given state
+	 */
+	public PredecessorIterator predecessors(int destState) {
+		getRowOffsets();
+		return new PredecessorIterator(mPredSrcStates, mPredActions, mPredPairs, mPredProbs, mPredOffsets[destState],
+				mPredOffsets[destState + 1]);
+	}
+
+	/**
+	 * @return Number of non-zero transition probabilities P(j|i,a) of this MDP
+	 */
+	public int getNumTransitions() {
+		return getRowOffsets()[mNumStates * mIndexedActions.size()];
 	}
 
 	public double getTransitionCost(int costFuncIndex, int srcState, int actionIndex) {
@@ -229,6 +481,278 @@ public class ExplicitMDP {
 		return mIndexedActions.indexOf(actionName);
 	}
 
+	private int getRowIndex(int srcState, int actionIndex) {
+		return srcState * mIndexedActions.size() + actionIndex;
+	}
+
+	private int[] getRowOffsets() {
+		int[] rowOffsets = mRowOffsets;
+		if (rowOffsets == null) {
+			rowOffsets = compactStagedTransitions();
+		}
+		return rowOffsets;
+	}
+
+	/**
+	 * Compact the staged transitions into CSR form: bucket the transitions by (state, action) row, and order each row
+	 * by destination state. Zero probabilities are dropped, and if the same transition was added more than once, the
+	 * last probability added is kept.
+	 * 
+	 * @return Row offsets of the compacted transitions
+	 */
+	private synchronized int[] compactStagedTransitions() {
+		if (mRowOffsets != null) {
+			return mRowOffsets;
+		}
+
+		int numRows = mNumStates * mIndexedActions.size();
+		int numStaged = mNumStagedTransitions;
+
+		// Counting sort of the staged transitions by row (stable: preserves the order in which they were added)
+		int[] rowOffsets = new int[numRows + 1];
+		for (int t = 0; t < numStaged; t++) {
+			rowOffsets[mStagedRows[t] + 1]++;
+		}
+		for (int r = 0; r < numRows; r++) {
+			rowOffsets[r + 1] += rowOffsets[r];
+		}
+		int[] sortedIndices = new int[numStaged];
+		int[] nextSlot = Arrays.copyOf(rowOffsets, numRows);
+		for (int t = 0; t < numStaged; t++) {
+			sortedIndices[nextSlot[mStagedRows[t]]++] = t;
+		}
+
+		int[] destStates = new int[numStaged];
+		double[] probs = new double[numStaged];
+		int[] compactedRowOffsets = new int[numRows + 1];
+		int size = 0;
+
+		for (int r = 0; r < numRows; r++) {
+			int rowStart = size;
+
+			for (int k = rowOffsets[r]; k < rowOffsets[r + 1]; k++) {
+				int t = sortedIndices[k];
+				int dest = mStagedDests[t];
+				double prob = mStagedProbs[t];
+
+				// Insertion into the row, ordered by destination state -- rows are short
+				int pos = size;
+				while (pos > rowStart && destStates[pos - 1] > dest) {
+					pos--;
+				}
+
+				if (pos > rowStart && destStates[pos - 1] == dest) {
+					// Overwrite a duplicate transition
+					probs[pos - 1] = prob;
+				} else {
+					System.arraycopy(destStates, pos, destStates, pos + 1, size - pos);
+					System.arraycopy(probs, pos, probs, pos + 1, size - pos);
+					destStates[pos] = dest;
+					probs[pos] = prob;
+					size++;
+				}
+			}
+
+			// Drop zero probabilities
+			int rowEnd = rowStart;
+			for (int k = rowStart; k < size; k++) {
+				if (probs[k] > 0) {
+					destStates[rowEnd] = destStates[k];
+					probs[rowEnd] = probs[k];
+					rowEnd++;
+				}
+			}
+			size = rowEnd;
+			compactedRowOffsets[r + 1] = size;
+		}
+
+		mDestStates = Arrays.copyOf(destStates, size);
+		mProbs = Arrays.copyOf(probs, size);
+		indexEnabledActions(compactedRowOffsets);
+		indexPredecessors(compactedRowOffsets);
+
+		// Release staging arrays
+		mNumStagedTransitions = 0;
+		mStagedRows = new int[0];
+		mStagedDests = new int[0];
+		mStagedProbs = new double[0];
+
+		mRowOffsets = compactedRowOffsets;
+		return compactedRowOffsets;
+	}
+
+	/**
+	 * Build the enabled-action bitset and the per-state enabled-action lists from the compacted rows. Action a is
+	 * applicable in state i iff row (i, a) is non-empty.
+	 * 
+	 * @param rowOffsets
+	 *            : Row offsets of the compacted transitions
+	 */
+	private void indexEnabledActions(int[] rowOffsets) {
+		int numActions = mIndexedActions.size();
+		BitSet enabledBits = new BitSet(mNumStates * numActions);
+		int[][] enabledActions = new int[mNumStates][];
+		int[] pairOffsets = new int[mNumStates + 1];
+		int[] buffer = new int[numActions];
+
+		for (int i = 0; i < mNumStates; i++) {
+			int numEnabled = 0;
+			for (int a = 0; a < numActions; a++) {
+				int row = getRowIndex(i, a);
+				if (rowOffsets[row + 1] > rowOffsets[row]) {
+					enabledBits.set(row);
+					buffer[numEnabled++] = a;
+				}
+			}
+			enabledActions[i] = Arrays.copyOf(buffer, numEnabled);
+			pairOffsets[i + 1] = pairOffsets[i] + numEnabled;
+		}
+
+		int[] pairActions = new int[pairOffsets[mNumStates]];
+		for (int i = 0; i < mNumStates; i++) {
+			System.arraycopy(enabledActions[i], 0, pairActions, pairOffsets[i], enabledActions[i].length);
+		}
+
+		mEnabledBits = enabledBits;
+		mEnabledActions = enabledActions;
+		mPairOffsets = pairOffsets;
+		mPairActions = pairActions;
+	}
+
+	/**
+	 * Build the predecessor index from the compacted rows: for each state i, the (source state, action, probability)
+	 * triples of the transitions entering i.
+	 * 
+	 * @param rowOffsets
+	 *            : Row offsets of the compacted transitions
+	 */
+	private void indexPredecessors(int[] rowOffsets) {
+		int numActions = mIndexedActions.size();
+		int numRows = mNumStates * numActions;
+		int size = rowOffsets[numRows];
+
+		// Counting sort of the transitions by destination state
+		int[] predOffsets = new int[mNumStates + 1];
+		for (int k = 0; k < size; k++) {
+			predOffsets[mDestStates[k] + 1]++;
+		}
+		for (int i = 0; i < mNumStates; i++) {
+			predOffsets[i + 1] += predOffsets[i];
+		}
+
+		int[] predSrcStates = new int[size];
+		int[] predActions = new int[size];
+		int[] predPairs = new int[size];
+		double[] predProbs = new double[size];
+		int[] nextSlot = Arrays.copyOf(predOffsets, mNumStates);
+
+		// Rows are visited in increasing order of (j, a), so each predecessor list is ordered by (j, a), and the
+		// non-empty rows are the enabled (state, action) pairs in the order they are numbered
+		int pair = 0;
+		for (int row = 0; row < numRows; row++) {
+			if (rowOffsets[row + 1] == rowOffsets[row]) {
+				continue;
+			}
+			for (int k = rowOffsets[row]; k < rowOffsets[row + 1]; k++) {
+				int slot = nextSlot[mDestStates[k]]++;
+				predSrcStates[slot] = row / numActions;
+				predActions[slot] = row % numActions;
+				predPairs[slot] = pair;
+				predProbs[slot] = mProbs[k];
+			}
+			pair++;
+		}
+
+		mPredOffsets = predOffsets;
+		mPredSrcStates = predSrcStates;
+		mPredActions = predActions;
+		mPredPairs = predPairs;
+		mPredProbs = predProbs;
+	}
+
+	/**
+	 * Move the compacted transitions back to the staging arrays, so that more transitions can be added.
+	 */
+	private void unstageCompactedTransitions() {
+		int numRows = mNumStates * mIndexedActions.size();
+		int size = mRowOffsets[numRows];
+		int capacity = Math.max(INITIAL_STAGING_CAPACITY, 2 * size);
+		mStagedRows = new int[capacity];
+		mStagedDests = Arrays.copyOf(mDestStates, capacity);
+		mStagedProbs = Arrays.copyOf(mProbs, capacity);
+		for (int r = 0; r < numRows; r++) {
+			Arrays.fill(mStagedRows, mRowOffsets[r], mRowOffsets[r + 1], r);
+		}
+		mNumStagedTransitions = size;
+		mRowOffsets = null;
+		mDestStates = null;
+		mProbs = null;
+		mEnabledBits = null;
+		mEnabledActions = null;
+		mPairOffsets = null;
+		mPairActions = null;
+		mPredOffsets = null;
+		mPredSrcStates = null;
+		mPredActions = null;
+		mPredPairs = null;
+		mPredProbs = null;
+	}
+
+	/**
+	 * Compute a 64-bit fingerprint of the transition structure of this MDP: the states, actions, transition
+	 * probabilities, initial state, and goal states, but not the costs. Two MDPs with the same transition structure
+	 * have the same fingerprint; MDPs with different transition structures have different fingerprints with
+	 * overwhelming probability. This allows caching results that only depend on the transition structure (e.g., across
+	 * objective functions).
+	 * 
+	 * @return Fingerprint of the transition structure
+	 */
+	public long getTransitionStructureFingerprint() {
+		int[] rowOffsets = getRowOffsets();
+		long fingerprint = mixFingerprint(17, mNumStates);
+		fingerprint = mixFingerprint(fingerprint, mIndexedActions.hashCode());
+		fingerprint = mixFingerprint(fingerprint, mIniState);
+
+		// Goal states, in increasing order
+		int[] goals = new int[mGoalStates.size()];
+		int g = 0;
+		for (Integer goal : mGoalStates) {
+			goals[g++] = goal;
+		}
+		Arrays.sort(goals);
+		for (int goal : goals) {
+			fingerprint = mixFingerprint(fingerprint, goal);
+		}
+
+		// Transitions in CSR form
+		for (int rowOffset : rowOffsets) {
+			fingerprint = mixFingerprint(fingerprint, rowOffset);
+		}
+		int numTransitions = rowOffsets[rowOffsets.length - 1];
+		for (int t = 0; t < numTransitions; t++) {
+			fingerprint = mixFingerprint(fingerprint, mDestStates[t]);
+			fingerprint = mixFingerprint(fingerprint, Double.doubleToLongBits(mProbs[t]));
+		}
+		return finalizeFingerprint(fingerprint);
+	}
+
+	private static long mixFingerprint(long fingerprint, long value) {
+		return (fingerprint ^ value) * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L;
+	}
+
+	/**
+	 * Finalization mix of MurmurHash3, to spread the bits of the fingerprint.
+	 */
+	private static long finalizeFingerprint(long fingerprint) {
+		long h = fingerprint;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
 	private void checkTransitionCost() {
 		if (mCostType != CostType.TRANSITION_COST) {
 			throw new UnsupportedOperationException();
@@ -252,7 +776,8 @@ public class ExplicitMDP {
 		ExplicitMDP mdp = (ExplicitMDP) obj;
 		return mdp.mNumStates == mNumStates && mdp.mIndexedActions.equals(mIndexedActions) && mdp.mCostType == mCostType
 				&& mdp.mIniState == mIniState && mdp.mGoalStates.equals(mGoalStates)
-				&& Arrays.equals(mdp.mTransProbs, mTransProbs) && Arrays.equals(mdp.mTransCosts, mTransCosts)
+				&& Arrays.equals(mdp.getRowOffsets(), getRowOffsets()) && Arrays.equals(mdp.mDestStates, mDestStates)
+				&& Arrays.equals(mdp.mProbs, mProbs) && Arrays.equals(mdp.mTransCosts, mTransCosts)
 				&& Arrays.equals(mdp.mStateCosts, mStateCosts);
 	}
 
@@ -266,7 +791,9 @@ public class ExplicitMDP {
 			result = 31 * result + mCostType.hashCode();
 			result = 31 * result + mIniState;
 			result = 31 * result + mGoalStates.hashCode();
-			result = 31 * result + Arrays.hashCode(mTransProbs);
+			result = 31 * result + Arrays.hashCode(getRowOffsets());
+			result = 31 * result + Arrays.hashCode(mDestStates);
+			result = 31 * result + Arrays.hashCode(mProbs);
 			result = 31 * result + (mCostType == CostType.TRANSITION_COST ? Arrays.hashCode(mTransCosts) : 0);
 			result = 31 * result + (mCostType == CostType.STATE_COST ? Arrays.hashCode(mStateCosts) : 0);
 			hashCode = result;
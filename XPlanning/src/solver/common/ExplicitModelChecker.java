@@ -10,14 +10,14 @@ public class ExplicitModelChecker {
 	 * Compute occupancy cost: sum_i,a (x(i,a) * c_k(i,a)).
 	 * 
 	 * @param xResults
-	 *            : Occupation measure
+	 *            : Occupation measure, in the sparse (state, action) layout of the MDP
 	 * @param costFuncIndex
 	 *            : Index of the cost function to compute occupancy cost
 	 * @param explicitMDP
 	 *            : Explicit MDP
 	 * @return sum_i,a (x(i,a) * c_k(i,a))
 	 */
-	public static double computeOccupancyCost(double[][] xResults, int costFuncIndex, ExplicitMDP explicitMDP) {
+	public static double computeOccupancyCost(double[] xResults, int costFuncIndex, ExplicitMDP explicitMDP) {
 		return computeOccupancyCost(xResults, costFuncIndex, 0, 1, explicitMDP);
 	}
 
@@ -25,7 +25,7 @@ public class ExplicitModelChecker {
 	 * Compute transformed occupancy cost: sum_i,a (x(i,a) * (shift + multiplier * c_k(i,a))).
 	 * 
 	 * @param xResults
-	 *            : Occupation measure
+	 *            : Occupation measure, in the sparse (state, action) layout of the MDP
 	 * @param costFuncIndex
 	 *            : Index of the cost function to compute transformed occupancy cost
 	 * @param costShift
@@ -36,35 +36,116 @@ public class ExplicitModelChecker {
 	 *            : Explicit MDP
 	 * @return sum_i,a (x(i,a) * (shift + multiplier * c_k(i,a)))
 	 */
-	public static double computeOccupancyCost(double[][] xResults, int costFuncIndex, double costShift,
+	public static double computeOccupancyCost(double[] xResults, int costFuncIndex, double costShift,
 			double costMultiplier, ExplicitMDP explicitMDP) {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
 		double sum = 0;
 
 		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any x_ia term when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					// Transition k-cost: c^k_ia
-					// OR
-					// State k-cost: c^k_i
-					double stepCost = explicitMDP.getCostType() == CostType.TRANSITION_COST
-							? explicitMDP.getTransitionCost(costFuncIndex, i, a)
-							: explicitMDP.getStateCost(costFuncIndex, i);
+			// Only the enabled (state, action) pairs have x_ia values
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				int a = explicitMDP.getActionOfStateActionPair(ia);
 
-					// shift + multiplier * c^k_ia
-					// OR
-					// shift + multiplier * c^k_i
-					double transformedStepCost = costShift + costMultiplier * stepCost;
+				// Transition k-cost: c^k_ia
+				// OR
+				// State k-cost: c^k_i
+				double stepCost = explicitMDP.getCostType() == CostType.TRANSITION_COST
+						? explicitMDP.getTransitionCost(costFuncIndex, i, a)
+						: explicitMDP.getStateCost(costFuncIndex, i);
 
-					// (transformed c^k_ia) * x_ia
-					// OR
-					// (transformed c^k_i) * x_ia
-					sum += transformedStepCost * xResults[i][a];
-				}
+				// shift + multiplier * c^k_ia
+				// OR
+				// shift + multiplier * c^k_i
+				double transformedStepCost = costShift + costMultiplier * stepCost;
+
+				// (transformed c^k_ia) * x_ia
+				// OR
+				// (transformed c^k_i) * x_ia
+				sum += transformedStepCost * xResults[ia];
 			}
 		}
 		return sum;
 	}
+
+	/**
+	 * Compute occupancy costs of all cost functions in a single pass over the occupation measure: sum_i,a (x(i,a) *
+	 * c_k(i,a)), for all k. Only the (state, action) pairs with non-zero x(i,a) are visited.
+	 * 
+	 * @param xResults
+	 *            : Occupation measure, in the sparse (state, action) layout of the MDP
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return sum_i,a (x(i,a) * c_k(i,a)), for all k
+	 */
+	public static double[] computeOccupancyCosts(double[] xResults, ExplicitMDP explicitMDP) {
+		int numCostFunctions = explicitMDP.getNumCostFunctions();
+		double[] sums = new double[numCostFunctions];
+		accumulateOccupancyCosts(xResults, explicitMDP, sums);
+		return sums;
+	}
+
+	/**
+	 * Compute transformed occupancy costs of multiple cost functions in a single pass over the occupation measure:
+	 * sum_i,a (x(i,a) * (shift_j + multiplier_j * c_k_j(i,a))), for all j.
+	 * 
+	 * Since sum_i,a (x(i,a) * (shift + multiplier * c_k(i,a))) = shift * sum_i,a x(i,a) + multiplier * sum_i,a (x(i,a)
+	 * * c_k(i,a)), the occupancy costs of all cost functions and the total occupation measure are computed once, and
+	 * then transformed.
+	 * 
+	 * @param xResults
+	 *            : Occupation measure, in the sparse (state, action) layout of the MDP
+	 * @param costFuncIndices
+	 *            : Index of the cost function of each j
+	 * @param costShifts
+	 *            : Cost shift of each j
+	 * @param costMultipliers
+	 *            : Cost multiplier of each j
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return sum_i,a (x(i,a) * (shift_j + multiplier_j * c_k_j(i,a))), for all j
+	 */
+	public static double[] computeOccupancyCosts(double[] xResults, int[] costFuncIndices, double[] costShifts,
+			double[] costMultipliers, ExplicitMDP explicitMDP) {
+		int numCostFunctions = explicitMDP.getNumCostFunctions();
+		double[] sums = new double[numCostFunctions];
+		double totalOccupancy = accumulateOccupancyCosts(xResults, explicitMDP, sums);
+
+		double[] results = new double[costFuncIndices.length];
+		for (int j = 0; j < costFuncIndices.length; j++) {
+			results[j] = costShifts[j] * totalOccupancy + costMultipliers[j] * sums[costFuncIndices[j]];
+		}
+		return results;
+	}
+
+	/**
+	 * Add sum_i,a (x(i,a) * c_k(i,a)) to sums[k], for all k.
+	 * 
+	 * @return sum_i,a x(i,a)
+	 */
+	private static double accumulateOccupancyCosts(double[] xResults, ExplicitMDP explicitMDP, double[] sums) {
+		int n = explicitMDP.getNumStates();
+		int numCostFunctions = sums.length;
+		boolean transitionCost = explicitMDP.getCostType() == CostType.TRANSITION_COST;
+		double totalOccupancy = 0;
+
+		for (int i = 0; i < n; i++) {
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				double x = xResults[ia];
+				if (x == 0) {
+					continue;
+				}
+				totalOccupancy += x;
+				int a = explicitMDP.getActionOfStateActionPair(ia);
+
+				for (int k = 0; k < numCostFunctions; k++) {
+					double stepCost = transitionCost ? explicitMDP.getTransitionCost(k, i, a)
+							: explicitMDP.getStateCost(k, i);
+					sums[k] += stepCost * x;
+				}
+			}
+		}
+		return totalOccupancy;
+	}
 }
@@ -1,8 +1,19 @@
 package solver.common;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
+/**
+ * {@link LPSolution} holds the objective value and the variable values of a solved LP/MILP, or the equivalent
+ * occupation measure of a policy computed by {@link ValueIterationSolver}. The values of each family of (state, action)
+ * variables are kept in the sparse (state, action) layout of the {@link ExplicitMDP}, i.e., only for the enabled pairs.
+ * 
+ * The time to build the model and the time to solve it are reported separately. They are not part of the solution, and
+ * are therefore excluded from equals() and hashCode().
+ */
 public class LPSolution {
 
 	/*
@@ -12,19 +23,29 @@ public class LPSolution {
 
 	private boolean mExists;
 	private double mObjectiveValue;
-	private Map<String, double[][]> mSolutions = new HashMap<>();
+	private Map<String, double[]> mSolutions = new HashMap<>();
+	private double mBuildTime;
+	private double mSolveTime;
 
 	public LPSolution(boolean exists, double objectiveValue) {
 		mExists = exists;
 		mObjectiveValue = objectiveValue;
 	}
 
-	public void addSolution(String varName, double[][] solution) {
-		int n = solution.length;
-		int m = solution[0].length;
-		double[][] solutionCopy = new double[n][m];
-		System.arraycopy(solution, 0, solutionCopy, 0, solution.length);
-		mSolutions.put(varName, solutionCopy);
+	public void addSolution(String varName, double[] solution) {
+		mSolutions.put(varName, Arrays.copyOf(solution, solution.length));
+	}
+
+	/**
+	 * 
+	 * @param buildTime
+	 *            : Time to build the model, in milliseconds
+	 * @param solveTime
+	 *            : Time to solve the model, in milliseconds
+	 */
+	public void setRunningTimes(double buildTime, double solveTime) {
+		mBuildTime = buildTime;
+		mSolveTime = solveTime;
 	}
 
 	public boolean exists() {
@@ -35,10 +56,22 @@ public class LPSolution {
 		return mObjectiveValue;
 	}
 
-	public double[][] getSolution(String varName) {
+	public double[] getSolution(String varName) {
 		return mSolutions.get(varName);
 	}
 
+	public Set<String> getSolutionNames() {
+		return Collections.unmodifiableSet(mSolutions.keySet());
+	}
+
+	public double getBuildTime() {
+		return mBuildTime;
+	}
+
+	public double getSolveTime() {
+		return mSolveTime;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == this) {
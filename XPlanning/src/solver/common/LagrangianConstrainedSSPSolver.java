@@ -0,0 +1,387 @@
+package solver.common;
+
+import language.objectives.AttributeConstraint.BOUND_TYPE;
+
+/**
+ * {@link LagrangianConstrainedSSPSolver} solves an SSP with a single hard cost constraint, using Lagrangian relaxation
+ * instead of MILP. It does not require an LP/MILP solver.
+ *
+ * The constraint on the cost function k is moved into the objective with a multiplier lambda >= 0: for an upper-bound
+ * constraint, the relaxed step costs are c_0 + lambda * c_k, and for a lower-bound constraint, c_0 - lambda * c_k. The
+ * relaxed costs are divided by (1 + lambda), so that the values stay in the range of the original costs for large
+ * multipliers, and the convergence threshold of value iteration keeps its meaning. For each candidate multiplier, an
+ * optimal deterministic policy of the relaxed (unconstrained) SSP is computed by value iteration. The multiplier is
+ * bisected between a value whose relaxed policy violates the constraint and a value whose relaxed policy satisfies it.
+ * The best feasible relaxed policy is returned.
+ *
+ * Each relaxed solve also gives a lower bound on the optimal value of the constrained SSP over all (randomized)
+ * policies, i.e., the Lagrangian dual value. Since value iteration is only approximately optimal, the dual value is
+ * computed from a lower bound on the optimal relaxed value, rather than from the relaxed value of the relaxed policy
+ * (see {@link ValueIterationSolver#computeOptimalValueLowerBound()}). If the objective value of the returned policy
+ * reaches the best lower bound, then the policy is optimal among all policies, and thus the same as the MILP solution.
+ * Otherwise, there is a duality gap: an optimal policy of the constrained SSP randomizes between the relaxed policies
+ * on both sides of the optimal multiplier, and the best deterministic policy may not be a relaxed policy of any
+ * multiplier.
+ *
+ * The relaxed costs are written to the objective cost function of the MDP during a solve, and the original objective
+ * costs are restored afterwards. Therefore, the MDP must not be used by another solver at the same time.
+ */
+public class LagrangianConstrainedSSPSolver {
+
+	public static final int DEFAULT_MAX_ITERATIONS = 60;
+	public static final double DEFAULT_GAP_TOLERANCE = 1e-6;
+
+	private ExplicitMDP mExplicitMDP;
+	private int mCostFuncIndex;
+	private NonStrictConstraint mHardConstraint;
+	private double mValueIterationEpsilon;
+	private int mMaxIterations;
+	private double mGapTolerance;
+
+	// Sign of the constraint costs in the relaxed costs: +1 for upper bound, -1 for lower bound
+	private double mSign;
+
+	// Original objective costs, indexed by (state, action) pair for transition costs, or by state for state costs
+	private double[] mObjectiveCosts;
+
+	// Results of the last solve
+	private boolean mOptimal;
+	private boolean mRandomizationNeeded;
+	private double mMultiplier;
+	private double mDualBound;
+	private int mNumRelaxedSolves;
+
+	public LagrangianConstrainedSSPSolver(ExplicitMDP explicitMDP, int costFuncIndex,
+			NonStrictConstraint hardConstraint) {
+		this(explicitMDP, costFuncIndex, hardConstraint, ValueIterationSolver.DEFAULT_EPSILON, DEFAULT_MAX_ITERATIONS,
+				DEFAULT_GAP_TOLERANCE);
+	}
+
+	/**
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param costFuncIndex
+	 *            : Index of the constrained cost function k
+	 * @param hardConstraint
+	 *            : Upper-bound or lower-bound hard constraint on the expected total k-cost
+	 * @param valueIterationEpsilon
+	 *            : Convergence threshold of value iteration of each relaxed SSP
+	 * @param maxIterations
+	 *            : Maximum number of bisection steps on the multiplier
+	 * @param gapTolerance
+	 *            : Relative tolerance on the duality gap, under which the solution policy is considered optimal
+	 */
+	public LagrangianConstrainedSSPSolver(ExplicitMDP explicitMDP, int costFuncIndex,
+			NonStrictConstraint hardConstraint, double valueIterationEpsilon, int maxIterations, double gapTolerance) {
+		mExplicitMDP = explicitMDP;
+		mCostFuncIndex = costFuncIndex;
+		mHardConstraint = hardConstraint;
+		mValueIterationEpsilon = valueIterationEpsilon;
+		mMaxIterations = maxIterations;
+		mGapTolerance = gapTolerance;
+		mSign = hardConstraint.getBoundType() == BOUND_TYPE.UPPER_BOUND ? 1 : -1;
+	}
+
+	/**
+	 * Solve for the best deterministic policy, among the optimal policies of the relaxed SSPs, that satisfies the hard
+	 * constraint.
+	 *
+	 * @param outputPolicy
+	 *            : Return parameter of solution policy, in the sparse (state, action) layout of the MDP
+	 * @return Whether a feasible policy is found, its objective value, and its occupation measure "x"
+	 */
+	public LPSolution solveOptimalPolicy(double[] outputPolicy) {
+		mOptimal = false;
+		mRandomizationNeeded = false;
+		mMultiplier = 0;
+		mDualBound = Double.NEGATIVE_INFINITY;
+		mNumRelaxedSolves = 0;
+
+		mObjectiveCosts = saveObjectiveCosts();
+		try {
+			return solveByBisection(outputPolicy);
+		} finally {
+			setRelaxedCosts(0);
+		}
+	}
+
+	private LPSolution solveByBisection(double[] outputPolicy) {
+		// Relaxed costs must be non-negative for value iteration, which limits the multiplier
+		double maxMultiplier = computeMaxMultiplier();
+
+		// lambda = 0: if the unconstrained optimal policy satisfies the constraint, then it is optimal
+		RelaxedSolution lowSolution = solveRelaxed(0);
+		if (lowSolution == null) {
+			// There is no proper policy, or value iteration does not converge
+			return new LPSolution(false, -1);
+		}
+		if (lowSolution.isFeasible()) {
+			mOptimal = true;
+			return lowSolution.toLPSolution(outputPolicy);
+		}
+
+		// Increase the multiplier until its relaxed policy satisfies the constraint
+		double lowMultiplier = 0;
+		double highMultiplier = computeInitialMultiplier(lowSolution);
+		RelaxedSolution highSolution = null;
+		while (highSolution == null) {
+			highMultiplier = Math.min(highMultiplier, maxMultiplier);
+			RelaxedSolution solution = solveRelaxed(highMultiplier);
+			if (solution == null) {
+				return new LPSolution(false, -1);
+			}
+			if (solution.isFeasible()) {
+				highSolution = solution;
+			} else if (highMultiplier >= maxMultiplier || mNumRelaxedSolves > mMaxIterations) {
+				// No relaxed policy within the multiplier range satisfies the constraint
+				return new LPSolution(false, -1);
+			} else {
+				lowMultiplier = highMultiplier;
+				highMultiplier *= 2;
+			}
+		}
+
+		// Bisect the multiplier, keeping the best feasible relaxed policy
+		RelaxedSolution bestSolution = highSolution;
+		double bestMultiplier = highMultiplier;
+		for (int iter = 0; iter < mMaxIterations && !isWithinGapTolerance(bestSolution); iter++) {
+			double multiplier = (lowMultiplier + highMultiplier) / 2;
+			if (multiplier <= lowMultiplier || multiplier >= highMultiplier) {
+				break;
+			}
+			RelaxedSolution solution = solveRelaxed(multiplier);
+			if (solution == null) {
+				break;
+			}
+			if (solution.isFeasible()) {
+				highMultiplier = multiplier;
+				if (solution.mObjectiveValue < bestSolution.mObjectiveValue) {
+					bestSolution = solution;
+					bestMultiplier = multiplier;
+				}
+			} else {
+				lowMultiplier = multiplier;
+			}
+		}
+
+		mMultiplier = bestMultiplier;
+		mOptimal = isWithinGapTolerance(bestSolution);
+		mRandomizationNeeded = !mOptimal;
+		return bestSolution.toLPSolution(outputPolicy);
+	}
+
+	/**
+	 * Solve the relaxed SSP with the given multiplier, and update the best lower bound.
+	 *
+	 * @param multiplier
+	 *            : Lagrange multiplier lambda
+	 * @return Relaxed solution, or null if value iteration finds no solution
+	 */
+	private RelaxedSolution solveRelaxed(double multiplier) {
+		setRelaxedCosts(multiplier);
+		mNumRelaxedSolves++;
+
+		double[] policy = new double[mExplicitMDP.getNumStateActionPairs()];
+		ValueIterationSolver solver = new TopologicalValueIterationSolver(mExplicitMDP, mValueIterationEpsilon,
+				ValueIterationSolver.DEFAULT_MAX_ITERATIONS);
+		LPSolution solution = solver.solveOptimalPolicy(policy);
+		if (!solution.exists()) {
+			return null;
+		}
+
+		// Relaxed value, before the division by (1 + lambda)
+		double relaxedValue = (1 + multiplier) * solution.getObjectiveValue();
+
+		// Expected total k-cost, and the original objective value: relaxed value - (+/-) lambda * k-cost
+		double[] expectedTotalCosts = solver.getExpectedTotalCosts();
+		double constraintValue = expectedTotalCosts[mCostFuncIndex];
+		double objectiveValue = relaxedValue - mSign * multiplier * constraintValue;
+
+		// Lagrangian dual value: min_pi [J_0(pi) +/- lambda * (J_k(pi) - bound)]
+		// Value iteration is only approximately optimal, so the relaxed value of its policy may exceed the optimal
+		// relaxed value: use a lower bound on the optimal relaxed value instead
+		double relaxedLowerBound = (1 + multiplier) * solver.computeOptimalValueLowerBound();
+		double dualValue = relaxedLowerBound - mSign * multiplier * mHardConstraint.getBoundValue();
+		mDualBound = Math.max(mDualBound, dualValue);
+
+		return new RelaxedSolution(policy, solution.getSolution("x"), objectiveValue, constraintValue);
+	}
+
+	private boolean isWithinGapTolerance(RelaxedSolution solution) {
+		double gap = solution.mObjectiveValue - mDualBound;
+		return gap <= mGapTolerance * Math.max(1, Math.abs(solution.mObjectiveValue));
+	}
+
+	/**
+	 * Initial multiplier for the search of a feasible relaxed policy: the ratio of the objective value to the
+	 * constraint violation of the unconstrained optimal policy.
+	 *
+	 * @param unconstrainedSolution
+	 *            : Relaxed solution with lambda = 0
+	 * @return Positive initial multiplier
+	 */
+	private double computeInitialMultiplier(RelaxedSolution unconstrainedSolution) {
+		double violation = Math.abs(unconstrainedSolution.mConstraintValue - mHardConstraint.getBoundValue());
+		double ratio = Math.max(1, Math.abs(unconstrainedSolution.mObjectiveValue)) / Math.max(violation, 1e-9);
+		return ratio;
+	}
+
+	/**
+	 * The relaxed costs c_0 +/- lambda * c_k must be non-negative. This limits lambda wherever (+/-) c_k is negative.
+	 *
+	 * @return Maximum multiplier, or infinity if there is no limit
+	 */
+	private double computeMaxMultiplier() {
+		double maxMultiplier = Double.POSITIVE_INFINITY;
+		int n = mExplicitMDP.getNumStates();
+
+		if (mExplicitMDP.getCostType() == CostType.TRANSITION_COST) {
+			for (int i = 0; i < n; i++) {
+				for (int a : mExplicitMDP.getEnabledActions(i)) {
+					double signedCost = mSign * mExplicitMDP.getTransitionCost(mCostFuncIndex, i, a);
+					if (signedCost < 0) {
+						double objectiveCost = mObjectiveCosts[mExplicitMDP.getStateActionPairIndex(i, a)];
+						maxMultiplier = Math.min(maxMultiplier, Math.max(objectiveCost, 0) / -signedCost);
+					}
+				}
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				double signedCost = mSign * mExplicitMDP.getStateCost(mCostFuncIndex, i);
+				if (signedCost < 0) {
+					maxMultiplier = Math.min(maxMultiplier, Math.max(mObjectiveCosts[i], 0) / -signedCost);
+				}
+			}
+		}
+		return maxMultiplier;
+	}
+
+	private double[] saveObjectiveCosts() {
+		int n = mExplicitMDP.getNumStates();
+
+		if (mExplicitMDP.getCostType() == CostType.TRANSITION_COST) {
+			double[] objectiveCosts = new double[mExplicitMDP.getNumStateActionPairs()];
+			for (int i = 0; i < n; i++) {
+				for (int a : mExplicitMDP.getEnabledActions(i)) {
+					objectiveCosts[mExplicitMDP.getStateActionPairIndex(i, a)] = mExplicitMDP
+							.getObjectiveTransitionCost(i, a);
+				}
+			}
+			return objectiveCosts;
+		}
+
+		double[] objectiveCosts = new double[n];
+		for (int i = 0; i < n; i++) {
+			objectiveCosts[i] = mExplicitMDP.getObjectiveStateCost(i);
+		}
+		return objectiveCosts;
+	}
+
+	/**
+	 * Set the objective costs of the MDP to the relaxed costs: (c_0 +/- lambda * c_k) / (1 + lambda). With lambda = 0,
+	 * this restores the original objective costs.
+	 *
+	 * @param multiplier
+	 *            : Lagrange multiplier lambda
+	 */
+	private void setRelaxedCosts(double multiplier) {
+		int n = mExplicitMDP.getNumStates();
+
+		if (mExplicitMDP.getCostType() == CostType.TRANSITION_COST) {
+			for (int i = 0; i < n; i++) {
+				for (int a : mExplicitMDP.getEnabledActions(i)) {
+					double objectiveCost = mObjectiveCosts[mExplicitMDP.getStateActionPairIndex(i, a)];
+					double cost = mExplicitMDP.getTransitionCost(mCostFuncIndex, i, a);
+					double relaxedCost = multiplier == 0 ? objectiveCost
+							: (objectiveCost + mSign * multiplier * cost) / (1 + multiplier);
+					mExplicitMDP.addObjectiveTransitionCost(i, a, relaxedCost);
+				}
+			}
+		} else {
+			for (int i = 0; i < n; i++) {
+				double cost = mExplicitMDP.getStateCost(mCostFuncIndex, i);
+				double relaxedCost = multiplier == 0 ? mObjectiveCosts[i]
+						: (mObjectiveCosts[i] + mSign * multiplier * cost) / (1 + multiplier);
+				mExplicitMDP.addObjectiveStateCost(i, relaxedCost);
+			}
+		}
+	}
+
+	public ExplicitMDP getExplicitMDP() {
+		return mExplicitMDP;
+	}
+
+	/**
+	 *
+	 * @return Whether the solution policy of the last solve is optimal among all (randomized) policies, within the gap
+	 *         tolerance
+	 */
+	public boolean isOptimal() {
+		return mOptimal;
+	}
+
+	/**
+	 *
+	 * @return Whether a duality gap remains in the last solve: an optimal policy of the constrained SSP needs
+	 *         randomization, and the solution policy is only the best deterministic policy found
+	 */
+	public boolean isRandomizationNeeded() {
+		return mRandomizationNeeded;
+	}
+
+	/**
+	 *
+	 * @return Multiplier lambda of the solution policy of the last solve
+	 */
+	public double getMultiplier() {
+		return mMultiplier;
+	}
+
+	/**
+	 *
+	 * @return Best lower bound on the optimal value of the constrained SSP over all policies, from the last solve
+	 */
+	public double getDualBound() {
+		return mDualBound;
+	}
+
+	/**
+	 *
+	 * @return Number of relaxed SSPs solved by value iteration in the last solve
+	 */
+	public int getNumRelaxedSolves() {
+		return mNumRelaxedSolves;
+	}
+
+	/**
+	 * Optimal deterministic policy of a relaxed SSP, with its original objective value and its expected total k-cost.
+	 */
+	private class RelaxedSolution {
+
+		private double[] mPolicy;
+		private double[] mXResults;
+		private double mObjectiveValue;
+		private double mConstraintValue;
+
+		RelaxedSolution(double[] policy, double[] xResults, double objectiveValue, double constraintValue) {
+			mPolicy = policy;
+			mXResults = xResults;
+			mObjectiveValue = objectiveValue;
+			mConstraintValue = constraintValue;
+		}
+
+		boolean isFeasible() {
+			// Same tolerance as the consistency checks of the cost constraints
+			double tolerance = 1e-6 * Math.max(1, Math.abs(mHardConstraint.getBoundValue()));
+			return mSign * (mConstraintValue - mHardConstraint.getBoundValue()) <= tolerance;
+		}
+
+		LPSolution toLPSolution(double[] outputPolicy) {
+			System.arraycopy(mPolicy, 0, outputPolicy, 0, mPolicy.length);
+			LPSolution solution = new LPSolution(true, mObjectiveValue);
+			solution.addSolution("x", mXResults);
+			return solution;
+		}
+	}
+}
@@ -0,0 +1,17 @@
+package solver.common;
+
+/**
+ * {@link NonConvergenceException} is thrown when an iterative method does not converge within its maximum number of
+ * iterations.
+ */
+public class NonConvergenceException extends Exception {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = -4720571943260716842L;
+
+	public NonConvergenceException(String message) {
+		super(message);
+	}
+}
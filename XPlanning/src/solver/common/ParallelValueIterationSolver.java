@@ -0,0 +1,198 @@
+package solver.common;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * {@link ParallelValueIterationSolver} is a {@link TopologicalValueIterationSolver} that sweeps the states of each
+ * large block in parallel. The block is split into partitions, which are swept concurrently in a {@link ForkJoinPool}.
+ *
+ * Within a partition, values are updated in Gauss-Seidel fashion. Across partitions, the values of the previous sweep
+ * are read (Jacobi fashion), using a double buffer, so that the partitions never read values that are being written.
+ * The maximum residual of a sweep is reduced in parallel.
+ */
+public class ParallelValueIterationSolver extends TopologicalValueIterationSolver {
+
+	/**
+	 * Blocks smaller than this are swept sequentially.
+	 */
+	private static final int MIN_PARALLEL_BLOCK_SIZE = 4096;
+
+	/**
+	 * Minimum number of states in a partition.
+	 */
+	private static final int MIN_PARTITION_SIZE = 512;
+
+	/**
+	 * Number of partitions per thread, for load balancing.
+	 */
+	private static final int PARTITIONS_PER_THREAD = 4;
+
+	private int mNumThreads;
+
+	// Valid during a solve only
+	private ForkJoinPool mPool;
+	private int[] mPositionOfState;
+	private double[] mNextValues;
+
+	/**
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param epsilon
+	 *            : Convergence threshold on the maximum change of any state value in a sweep
+	 * @param maxIterations
+	 *            : Maximum number of sweeps, after which the values are considered not converging
+	 * @param numThreads
+	 *            : Number of worker threads
+	 */
+	public ParallelValueIterationSolver(ExplicitMDP explicitMDP, double epsilon, int maxIterations, int numThreads) {
+		super(explicitMDP, epsilon, maxIterations);
+		mNumThreads = numThreads;
+	}
+
+	@Override
+	public LPSolution solveOptimalPolicy(double[] outputPolicy) {
+		ForkJoinPool pool = new ForkJoinPool(mNumThreads);
+		mPool = pool;
+		mNextValues = new double[getExplicitMDP().getNumStates()];
+		try {
+			return super.solveOptimalPolicy(outputPolicy);
+		} finally {
+			pool.shutdown();
+			mPool = null;
+			mPositionOfState = null;
+			mNextValues = null;
+		}
+	}
+
+	@Override
+	protected StronglyConnectedComponents decomposeStates() {
+		StronglyConnectedComponents components = super.decomposeStates();
+
+		// Position of each state in the blocks, for identifying the partition of each state
+		int n = getExplicitMDP().getNumStates();
+		mPositionOfState = new int[n];
+		for (int k = 0; k < n; k++) {
+			mPositionOfState[components.getComponentState(k)] = k;
+		}
+		return components;
+	}
+
+	@Override
+	protected double runValueIterationSweep(int start, int end, double[] stateValues, boolean[] isGoal) {
+		int size = end - start;
+		if (size < MIN_PARALLEL_BLOCK_SIZE || mNumThreads <= 1) {
+			return super.runValueIterationSweep(start, end, stateValues, isGoal);
+		}
+
+		int numPartitions = Math.max(1, Math.min(size / MIN_PARTITION_SIZE, mNumThreads * PARTITIONS_PER_THREAD));
+		int partitionSize = (size + numPartitions - 1) / numPartitions;
+
+		SweepTask sweepTask = new SweepTask(start, end, partitionSize, 0, numPartitions, stateValues, isGoal);
+		double maxResidual = mPool.invoke(sweepTask);
+
+		// Values of the sweep become the current values
+		for (int k = start; k < end; k++) {
+			int i = getBlockState(k);
+			stateValues[i] = mNextValues[i];
+		}
+		return maxResidual;
+	}
+
+	/**
+	 * Sweep the states of a single partition: positions [partitionStart, partitionEnd). Values of the states in this
+	 * partition are read from, and written to, the next-value buffer. Values of all other states are read from the
+	 * current values.
+	 *
+	 * @return Maximum residual of the partition
+	 */
+	private double sweepPartition(int partitionStart, int partitionEnd, double[] stateValues, boolean[] isGoal) {
+		for (int k = partitionStart; k < partitionEnd; k++) {
+			int i = getBlockState(k);
+			mNextValues[i] = stateValues[i];
+		}
+
+		double maxResidual = 0;
+		for (int k = partitionStart; k < partitionEnd; k++) {
+			int i = getBlockState(k);
+			if (isGoal[i] || Double.isInfinite(stateValues[i])) {
+				continue;
+			}
+
+			// Starting from the upper-bound values, the values only decrease
+			double bestQValue = computeBestQValue(i, stateValues, partitionStart, partitionEnd);
+			maxResidual = Math.max(maxResidual, mNextValues[i] - bestQValue);
+			mNextValues[i] = bestQValue;
+		}
+		return maxResidual;
+	}
+
+	private double computeBestQValue(int i, double[] stateValues, int partitionStart, int partitionEnd) {
+		ExplicitMDP explicitMDP = getExplicitMDP();
+		double bestQValue = Double.POSITIVE_INFINITY;
+
+		for (int a : explicitMDP.getEnabledActions(i)) {
+			double qValue = computeStepCost(i, a);
+
+			SuccessorIterator succIter = explicitMDP.successors(i, a);
+			while (succIter.hasNext()) {
+				int j = succIter.next();
+				int position = mPositionOfState[j];
+				// Gauss-Seidel within the partition, Jacobi across partitions
+				double value = position >= partitionStart && position < partitionEnd ? mNextValues[j]
+						: stateValues[j];
+				qValue += succIter.getProbability() * value;
+			}
+
+			bestQValue = Math.min(bestQValue, qValue);
+		}
+		return bestQValue;
+	}
+
+	/**
+	 * Sweeps the partitions [fromPartition, toPartition) of a block, by recursively splitting them, and reduces their
+	 * maximum residuals.
+	 */
+	private class SweepTask extends RecursiveTask<Double> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int mBlockStart;
+		private final int mBlockEnd;
+		private final int mPartitionSize;
+		private final int mFromPartition;
+		private final int mToPartition;
+		private final transient double[] mStateValues;
+		private final transient boolean[] mIsGoal;
+
+		SweepTask(int blockStart, int blockEnd, int partitionSize, int fromPartition, int toPartition,
+				double[] stateValues, boolean[] isGoal) {
+			mBlockStart = blockStart;
+			mBlockEnd = blockEnd;
+			mPartitionSize = partitionSize;
+			mFromPartition = fromPartition;
+			mToPartition = toPartition;
+			mStateValues = stateValues;
+			mIsGoal = isGoal;
+		}
+
+		@Override
+		protected Double compute() {
+			if (mToPartition - mFromPartition == 1) {
+				int partitionStart = mBlockStart + mFromPartition * mPartitionSize;
+				int partitionEnd = Math.min(mBlockEnd, partitionStart + mPartitionSize);
+				return sweepPartition(partitionStart, partitionEnd, mStateValues, mIsGoal);
+			}
+
+			int midPartition = (mFromPartition + mToPartition) >>> 1;
+			SweepTask left = new SweepTask(mBlockStart, mBlockEnd, mPartitionSize, mFromPartition, midPartition,
+					mStateValues, mIsGoal);
+			SweepTask right = new SweepTask(mBlockStart, mBlockEnd, mPartitionSize, midPartition, mToPartition,
+					mStateValues, mIsGoal);
+			left.fork();
+			double rightResidual = right.compute();
+			return Math.max(left.join(), rightResidual);
+		}
+	}
+}
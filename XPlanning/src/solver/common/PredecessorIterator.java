@@ -0,0 +1,66 @@
+package solver.common;
+
+import java.util.NoSuchElementException;
+
+/**
+ * {@link PredecessorIterator} iterates over the non-zero transitions entering a single state i of an
+ * {@link ExplicitMDP}. Each call to {@link #next()} moves to the next predecessor (j, a), and {@link #getAction()} and
+ * {@link #getProbability()} return a and P(i|j,a) of the current predecessor.
+ * {@link #getStateActionPair()} returns the index of (j, a) in the sparse (state, action) layout of the MDP.
+ */
+public class PredecessorIterator {
+
+	private final int[] mSrcStates;
+	private final int[] mActions;
+	private final int[] mPairs;
+	private final double[] mProbs;
+	private final int mEnd;
+	private int mCurrent;
+
+	PredecessorIterator(int[] srcStates, int[] actions, int[] pairs, double[] probs, int start, int end) {
+		mSrcStates = srcStates;
+		mActions = actions;
+		mPairs = pairs;
+		mProbs = probs;
+		mEnd = end;
+		mCurrent = start - 1;
+	}
+
+	public boolean hasNext() {
+		return mCurrent + 1 < mEnd;
+	}
+
+	/**
+	 * Move to the next predecessor.
+	 * 
+	 * @return Source state j of the next predecessor (j, a)
+	 */
+	public int next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		mCurrent++;
+		return mSrcStates[mCurrent];
+	}
+
+	/**
+	 * @return Action a of the current predecessor (j, a)
+	 */
+	public int getAction() {
+		return mActions[mCurrent];
+	}
+
+	/**
+	 * @return Index of the enabled (state, action) pair (j, a) of the current predecessor
+	 */
+	public int getStateActionPair() {
+		return mPairs[mCurrent];
+	}
+
+	/**
+	 * @return P(i|j,a) of the current predecessor (j, a)
+	 */
+	public double getProbability() {
+		return mProbs[mCurrent];
+	}
+}
@@ -0,0 +1,337 @@
+package solver.common;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ReachabilityReduction} removes the states and actions of an SSP {@link ExplicitMDP} that cannot be part of any
+ * proper policy from the initial state, using graph-based (prob0/prob1) reachability:
+ *
+ * (1) Prob1E: the states from which the goal states can be reached with probability 1 under some policy. This is the
+ * greatest fixed point of: U = states that can reach the goal states, using only actions whose successors are all in
+ * U. The first round (U = S) removes the states from which the goal states cannot be reached at all (prob0).
+ *
+ * (2) Only the actions whose successors are all in Prob1E are kept, since a proper policy never takes any other action.
+ *
+ * (3) Forward reachability from the initial state, using only the kept actions.
+ *
+ * The occupation measure of any proper policy is zero outside the reduced MDP; therefore, solving the reduced MDP is
+ * exact. The states of the reduced MDP are renumbered, and the solution of the reduced MDP is lifted back to the
+ * original state indices. Action and cost function indices are preserved.
+ */
+public class ReachabilityReduction {
+
+	private ExplicitMDP mOriginalMDP;
+	private ExplicitMDP mReducedMDP;
+
+	// Original state of each reduced state
+	private int[] mOriginalStates;
+
+	// Reduced state of each original state, or -1 if the state is removed
+	private int[] mReducedStates;
+
+	private ReachabilityReduction(ExplicitMDP originalMDP, ExplicitMDP reducedMDP, int[] originalStates,
+			int[] reducedStates) {
+		mOriginalMDP = originalMDP;
+		mReducedMDP = reducedMDP;
+		mOriginalStates = originalStates;
+		mReducedStates = reducedStates;
+	}
+
+	/**
+	 * Reduce an SSP.
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP with goal states
+	 * @return Reduction of the MDP; the reduced MDP is null if the goal states cannot be reached with probability 1
+	 *         from the initial state
+	 */
+	public static ReachabilityReduction reduce(ExplicitMDP explicitMDP) {
+		int n = explicitMDP.getNumStates();
+		int iniState = explicitMDP.getInitialState();
+
+		boolean[] isGoal = new boolean[n];
+		for (Integer goal : explicitMDP.getGoalStates()) {
+			isGoal[goal] = true;
+		}
+
+		boolean[] inProb1E = computeProb1E(explicitMDP, isGoal);
+		if (!inProb1E[iniState]) {
+			return new ReachabilityReduction(explicitMDP, null, null, null);
+		}
+
+		boolean[] keptPairs = computePairsWithin(explicitMDP, inProb1E);
+
+		// Forward reachability from the initial state, using only the kept actions; goal states are absorbing
+		int[] reducedStates = new int[n];
+		Arrays.fill(reducedStates, -1);
+		int[] queue = new int[n];
+		int tail = 0;
+		reducedStates[iniState] = 0;
+		queue[tail++] = iniState;
+
+		for (int head = 0; head < tail; head++) {
+			int i = queue[head];
+			if (isGoal[i]) {
+				continue;
+			}
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				if (!keptPairs[ia]) {
+					continue;
+				}
+				SuccessorIterator succIter = explicitMDP.successors(i, explicitMDP.getActionOfStateActionPair(ia));
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					if (reducedStates[j] == -1) {
+						reducedStates[j] = 0;
+						queue[tail++] = j;
+					}
+				}
+			}
+		}
+
+		// Renumber the reduced states in the order of their original indices
+		int[] originalStates = Arrays.copyOf(queue, tail);
+		Arrays.sort(originalStates);
+		for (int r = 0; r < originalStates.length; r++) {
+			reducedStates[originalStates[r]] = r;
+		}
+
+		ExplicitMDP reducedMDP = buildReducedMDP(explicitMDP, originalStates, reducedStates, keptPairs, isGoal);
+		return new ReachabilityReduction(explicitMDP, reducedMDP, originalStates, reducedStates);
+	}
+
+	/**
+	 * Compute Prob1E: the greatest fixed point of U = states that can reach the goal states, using only actions whose
+	 * successors are all in U.
+	 *
+	 * @param explicitMDP
+	 * @param isGoal
+	 * @return Whether each state is in Prob1E
+	 */
+	private static boolean[] computeProb1E(ExplicitMDP explicitMDP, boolean[] isGoal) {
+		int n = explicitMDP.getNumStates();
+		boolean[] inU = new boolean[n];
+		Arrays.fill(inU, true);
+		int sizeU = n;
+
+		boolean[] reached = new boolean[n];
+		int[] queue = new int[n];
+
+		while (true) {
+			boolean[] pairsWithinU = computePairsWithin(explicitMDP, inU);
+
+			// Backward reachability from the goal states, using only the actions within U
+			Arrays.fill(reached, false);
+			int tail = 0;
+			for (int i = 0; i < n; i++) {
+				if (isGoal[i]) {
+					reached[i] = true;
+					queue[tail++] = i;
+				}
+			}
+			for (int head = 0; head < tail; head++) {
+				PredecessorIterator predIter = explicitMDP.predecessors(queue[head]);
+				while (predIter.hasNext()) {
+					int i = predIter.next();
+					if (!reached[i] && inU[i] && pairsWithinU[predIter.getStateActionPair()]) {
+						reached[i] = true;
+						queue[tail++] = i;
+					}
+				}
+			}
+
+			if (tail == sizeU) {
+				// U has reached its fixed point
+				return inU;
+			}
+			System.arraycopy(reached, 0, inU, 0, n);
+			sizeU = tail;
+		}
+	}
+
+	/**
+	 *
+	 * @param explicitMDP
+	 * @param states
+	 * @return Whether the successors of each (state, action) pair are all in the given states
+	 */
+	private static boolean[] computePairsWithin(ExplicitMDP explicitMDP, boolean[] states) {
+		int n = explicitMDP.getNumStates();
+		boolean[] pairsWithin = new boolean[explicitMDP.getNumStateActionPairs()];
+
+		for (int i = 0; i < n; i++) {
+			if (!states[i]) {
+				continue;
+			}
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				boolean within = true;
+				SuccessorIterator succIter = explicitMDP.successors(i, explicitMDP.getActionOfStateActionPair(ia));
+				while (succIter.hasNext() && within) {
+					within = states[succIter.next()];
+				}
+				pairsWithin[ia] = within;
+			}
+		}
+		return pairsWithin;
+	}
+
+	private static ExplicitMDP buildReducedMDP(ExplicitMDP explicitMDP, int[] originalStates, int[] reducedStates,
+			boolean[] keptPairs, boolean[] isGoal) {
+		int numReducedStates = originalStates.length;
+		int numActions = explicitMDP.getNumActions();
+		int numCostFunctions = explicitMDP.getNumCostFunctions();
+		CostType costType = explicitMDP.getCostType();
+
+		// Same set of action names, so that the action indices are preserved
+		Set<String> actionNames = new HashSet<>();
+		for (int a = 0; a < numActions; a++) {
+			actionNames.add(explicitMDP.getActionNameAtIndex(a));
+		}
+
+		Set<Integer> reducedGoals = new HashSet<>();
+		for (Integer goal : explicitMDP.getGoalStates()) {
+			if (reducedStates[goal] != -1) {
+				reducedGoals.add(reducedStates[goal]);
+			}
+		}
+
+		ExplicitMDP reducedMDP = new ExplicitMDP(numReducedStates, actionNames, costType, numCostFunctions,
+				reducedStates[explicitMDP.getInitialState()], reducedGoals);
+
+		for (int r = 0; r < numReducedStates; r++) {
+			int i = originalStates[r];
+
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				int a = explicitMDP.getActionOfStateActionPair(ia);
+				if (!keptPairs[ia] || (isGoal[i] && !hasAllSuccessorsKept(explicitMDP, i, a, reducedStates))) {
+					continue;
+				}
+
+				SuccessorIterator succIter = explicitMDP.successors(i, a);
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					reducedMDP.addTransitionProbability(r, a, reducedStates[j], succIter.getProbability());
+				}
+			}
+
+			// Costs of all cost functions, including the objective cost function
+			for (int k = 0; k < numCostFunctions; k++) {
+				if (costType == CostType.TRANSITION_COST) {
+					for (int a = 0; a < numActions; a++) {
+						reducedMDP.addTransitionCost(k, r, a, explicitMDP.getTransitionCost(k, i, a));
+					}
+				} else {
+					reducedMDP.addStateCost(k, r, explicitMDP.getStateCost(k, i));
+				}
+			}
+		}
+		return reducedMDP;
+	}
+
+	/**
+	 * Copy the current objective costs of the original MDP to the reduced MDP. The reduction only depends on the
+	 * transition structure of the original MDP, so it can be reused after the objective costs of the original MDP are
+	 * changed.
+	 */
+	public void updateObjectiveCosts() {
+		int numActions = mOriginalMDP.getNumActions();
+
+		for (int r = 0; r < mOriginalStates.length; r++) {
+			int i = mOriginalStates[r];
+
+			if (mOriginalMDP.getCostType() == CostType.TRANSITION_COST) {
+				for (int a = 0; a < numActions; a++) {
+					mReducedMDP.addObjectiveTransitionCost(r, a, mOriginalMDP.getObjectiveTransitionCost(i, a));
+				}
+			} else {
+				mReducedMDP.addObjectiveStateCost(r, mOriginalMDP.getObjectiveStateCost(i));
+			}
+		}
+	}
+
+	private static boolean hasAllSuccessorsKept(ExplicitMDP explicitMDP, int i, int a, int[] reducedStates) {
+		SuccessorIterator succIter = explicitMDP.successors(i, a);
+		while (succIter.hasNext()) {
+			if (reducedStates[succIter.next()] == -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public ExplicitMDP getOriginalMDP() {
+		return mOriginalMDP;
+	}
+
+	/**
+	 *
+	 * @return Reduced MDP, or null if the goal states cannot be reached with probability 1 from the initial state
+	 */
+	public ExplicitMDP getReducedMDP() {
+		return mReducedMDP;
+	}
+
+	/**
+	 *
+	 * @return Whether there is a proper policy from the initial state
+	 */
+	public boolean hasProperPolicy() {
+		return mReducedMDP != null;
+	}
+
+	public int getOriginalState(int reducedState) {
+		return mOriginalStates[reducedState];
+	}
+
+	/**
+	 *
+	 * @param originalState
+	 * @return Reduced state, or -1 if the state is removed
+	 */
+	public int getReducedState(int originalState) {
+		return mReducedStates[originalState];
+	}
+
+	/**
+	 * Lift values in the sparse (state, action) layout of the reduced MDP (e.g., occupation measure, or policy matrix)
+	 * to the layout of the original MDP. The values of the removed (state, action) pairs are 0.
+	 *
+	 * @param reducedValues
+	 *            : Values in the sparse (state, action) layout of the reduced MDP
+	 * @return Values in the sparse (state, action) layout of the original MDP
+	 */
+	public double[] liftStateActionValues(double[] reducedValues) {
+		double[] originalValues = new double[mOriginalMDP.getNumStateActionPairs()];
+
+		for (int r = 0; r < mOriginalStates.length; r++) {
+			int i = mOriginalStates[r];
+			for (int ra = mReducedMDP.getStateActionPairOffset(r); ra < mReducedMDP
+					.getStateActionPairOffset(r + 1); ra++) {
+				int a = mReducedMDP.getActionOfStateActionPair(ra);
+				originalValues[mOriginalMDP.getStateActionPairIndex(i, a)] = reducedValues[ra];
+			}
+		}
+		return originalValues;
+	}
+
+	/**
+	 * Lift all (state, action) values of a solution of the reduced MDP to the layout of the original MDP.
+	 *
+	 * @param reducedSolution
+	 *            : Solution of the reduced MDP
+	 * @return Solution with the same objective value and running times, in the layout of the original MDP
+	 */
+	public LPSolution liftSolution(LPSolution reducedSolution) {
+		LPSolution solution = new LPSolution(reducedSolution.exists(), reducedSolution.getObjectiveValue());
+		for (String varName : reducedSolution.getSolutionNames()) {
+			solution.addSolution(varName, liftStateActionValues(reducedSolution.getSolution(varName)));
+		}
+		solution.setRunningTimes(reducedSolution.getBuildTime(), reducedSolution.getSolveTime());
+		return solution;
+	}
+}
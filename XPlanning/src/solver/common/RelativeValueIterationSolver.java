@@ -0,0 +1,276 @@
+package solver.common;
+
+import java.util.Arrays;
+
+/**
+ * {@link RelativeValueIterationSolver} computes an optimal deterministic policy of an unconstrained average-cost MDP,
+ * using relative value iteration over an {@link ExplicitMDP}. It does not require an LP/MILP solver.
+ *
+ * To ensure convergence for periodic policies, value iteration is applied to the aperiodicity-transformed MDP, where
+ * P'(j|i,a) = tau * P(j|i,a) + (1 - tau) * [i = j], for some 0 < tau < 1. The transformed MDP has the same optimal
+ * average cost and the same optimal policies as the original MDP. Value iteration stops when the span seminorm of the
+ * change of the values, sp(h_k+1 - h_k) = max_i (h_k+1(i) - h_k(i)) - min_i (h_k+1(i) - h_k(i)), is below epsilon;
+ * the optimal average cost is between the min and the max.
+ *
+ * Relative value iteration assumes that the optimal average cost is the same from all states (e.g., the MDP is
+ * unichain or communicating). Otherwise, the span does not converge, and no solution is returned.
+ *
+ * The limiting state-action frequencies x_ia of the policy, starting from the uniform initial state distribution, are
+ * computed, so that the solution has the same form as that of the average-cost occupation-measure LP.
+ *
+ * If the solving thread is interrupted, the solve stops without a solution, and the interrupt status of the thread is
+ * kept.
+ */
+public class RelativeValueIterationSolver {
+
+	public static final double DEFAULT_EPSILON = 1e-8;
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+	public static final double DEFAULT_APERIODICITY_FACTOR = 0.5;
+
+	private ExplicitMDP mExplicitMDP;
+	private double mEpsilon;
+	private int mMaxIterations;
+	private double mTau;
+
+	// Results of the last solve
+	private double[] mRelativeValues;
+	private double[] mAverageCosts;
+	private int mNumIterations;
+
+	public RelativeValueIterationSolver(ExplicitMDP explicitMDP) {
+		this(explicitMDP, DEFAULT_EPSILON, DEFAULT_MAX_ITERATIONS, DEFAULT_APERIODICITY_FACTOR);
+	}
+
+	/**
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param epsilon
+	 *            : Convergence threshold on the span of the change of the values in an iteration
+	 * @param maxIterations
+	 *            : Maximum number of iterations, after which the values are considered not converging
+	 * @param tau
+	 *            : Aperiodicity factor, 0 < tau < 1; each transition is a self-loop with probability (1 - tau)
+	 */
+	public RelativeValueIterationSolver(ExplicitMDP explicitMDP, double epsilon, int maxIterations, double tau) {
+		mExplicitMDP = explicitMDP;
+		mEpsilon = epsilon;
+		mMaxIterations = maxIterations;
+		mTau = tau;
+	}
+
+	/**
+	 * Solve for an optimal deterministic policy for the average-cost MDP.
+	 *
+	 * @param outputPolicy
+	 *            : Return parameter of optimal policy, in the sparse (state, action) layout of the MDP
+	 * @return Whether a solution policy exists, its objective value, and its limiting state-action frequencies "x"
+	 */
+	public LPSolution solveOptimalPolicy(double[] outputPolicy) {
+		int n = mExplicitMDP.getNumStates();
+
+		mRelativeValues = null;
+		mAverageCosts = null;
+		mNumIterations = 0;
+
+		for (int i = 0; i < n; i++) {
+			if (mExplicitMDP.getStateActionPairOffset(i) == mExplicitMDP.getStateActionPairOffset(i + 1)) {
+				// Every state must have an action
+				return new LPSolution(false, -1);
+			}
+		}
+
+		double[] relativeValues = runRelativeValueIteration();
+		if (relativeValues == null) {
+			return new LPSolution(false, -1);
+		}
+		mRelativeValues = relativeValues;
+
+		// Policy: index of the chosen (state, action) pair of each state
+		int[] policyPairs = new int[n];
+		for (int i = 0; i < n; i++) {
+			policyPairs[i] = computeBestStateActionPair(i, relativeValues);
+		}
+
+		double[] stateFrequencies = computeLimitingStateFrequencies(policyPairs);
+		if (stateFrequencies == null) {
+			return new LPSolution(false, -1);
+		}
+
+		// Limiting state-action frequencies: x_ia = limiting frequency of state i, if pi(i) = a; 0, otherwise
+		// All states have positive initial probability, and therefore are in the policy, same as the LP solution
+		double[] xResults = new double[mExplicitMDP.getNumStateActionPairs()];
+		for (int i = 0; i < n; i++) {
+			int ia = policyPairs[i];
+			xResults[ia] = stateFrequencies[i];
+			outputPolicy[ia] = 1.0;
+		}
+
+		mAverageCosts = ExplicitModelChecker.computeOccupancyCosts(xResults, mExplicitMDP);
+
+		// Objective cost function is at index 0
+		LPSolution solution = new LPSolution(true, mAverageCosts[0]);
+		solution.addSolution("x", xResults);
+		return solution;
+	}
+
+	public ExplicitMDP getExplicitMDP() {
+		return mExplicitMDP;
+	}
+
+	/**
+	 *
+	 * @return Relative value of each state of the transformed MDP, with the initial state as the reference state (i.e.,
+	 *         its relative value is 0), from the last solve
+	 */
+	public double[] getRelativeValues() {
+		return mRelativeValues;
+	}
+
+	/**
+	 *
+	 * @return Average k-cost of the solution policy, for all k (objective cost function is at index 0), or null if
+	 *         there is no solution policy
+	 */
+	public double[] getAverageCosts() {
+		return mAverageCosts;
+	}
+
+	/**
+	 *
+	 * @return Number of iterations of relative value iteration in the last solve
+	 */
+	public int getNumIterations() {
+		return mNumIterations;
+	}
+
+	/**
+	 * Relative value iteration: h_k+1(i) = (T h_k)(i) - (T h_k)(s_ref), where T is the Bellman operator of the
+	 * transformed MDP. The values are updated synchronously (Jacobi), so that the span of the change of the values
+	 * bounds the optimal average cost.
+	 *
+	 * @return Converged relative values, or null if the values do not converge within the maximum number of iterations
+	 */
+	private double[] runRelativeValueIteration() {
+		int n = mExplicitMDP.getNumStates();
+		int refState = mExplicitMDP.getInitialState();
+		double[] relativeValues = new double[n];
+		double[] nextValues = new double[n];
+
+		while (mNumIterations < mMaxIterations && !Thread.currentThread().isInterrupted()) {
+			mNumIterations++;
+
+			double maxDiff = Double.NEGATIVE_INFINITY;
+			double minDiff = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < n; i++) {
+				nextValues[i] = computeBestQValue(i, relativeValues);
+				double diff = nextValues[i] - relativeValues[i];
+				maxDiff = Math.max(maxDiff, diff);
+				minDiff = Math.min(minDiff, diff);
+			}
+
+			// Subtract the value of the reference state, to keep the values bounded
+			double refValue = nextValues[refState];
+			for (int i = 0; i < n; i++) {
+				relativeValues[i] = nextValues[i] - refValue;
+			}
+
+			// Span seminorm stopping criterion
+			if (maxDiff - minDiff < mEpsilon) {
+				return relativeValues;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Compute the limiting state frequencies of the Markov chain induced by a deterministic policy, starting from the
+	 * uniform initial state distribution, by iterating the distribution over the transformed (aperiodic) chain:
+	 * d_t+1(j) = (1 - tau) * d_t(j) + tau * sum_i (d_t(i) * P(j|i,pi(i))). The transformed chain has the same limiting
+	 * frequencies as the original chain.
+	 *
+	 * @param policyPairs
+	 *            : Index of the chosen (state, action) pair of each state
+	 * @return Limiting frequency of each state, or null if the distribution does not converge within the maximum number
+	 *         of iterations
+	 */
+	private double[] computeLimitingStateFrequencies(int[] policyPairs) {
+		int n = mExplicitMDP.getNumStates();
+		double[] distribution = new double[n];
+		double[] nextDistribution = new double[n];
+		Arrays.fill(distribution, 1.0 / n);
+
+		for (int t = 0; t < mMaxIterations && !Thread.currentThread().isInterrupted(); t++) {
+			for (int j = 0; j < n; j++) {
+				nextDistribution[j] = (1 - mTau) * distribution[j];
+			}
+			for (int i = 0; i < n; i++) {
+				int a = mExplicitMDP.getActionOfStateActionPair(policyPairs[i]);
+				SuccessorIterator succIter = mExplicitMDP.successors(i, a);
+				while (succIter.hasNext()) {
+					int j = succIter.next();
+					nextDistribution[j] += mTau * distribution[i] * succIter.getProbability();
+				}
+			}
+
+			double change = 0;
+			for (int j = 0; j < n; j++) {
+				change += Math.abs(nextDistribution[j] - distribution[j]);
+			}
+
+			double[] temp = distribution;
+			distribution = nextDistribution;
+			nextDistribution = temp;
+
+			if (change < mEpsilon) {
+				return distribution;
+			}
+		}
+		return null;
+	}
+
+	private double computeBestQValue(int i, double[] relativeValues) {
+		double bestQValue = Double.POSITIVE_INFINITY;
+		for (int a : mExplicitMDP.getEnabledActions(i)) {
+			bestQValue = Math.min(bestQValue, computeQValue(i, a, relativeValues));
+		}
+		return bestQValue;
+	}
+
+	private int computeBestStateActionPair(int i, double[] relativeValues) {
+		double bestQValue = Double.POSITIVE_INFINITY;
+		int bestPair = -1;
+		for (int ia = mExplicitMDP.getStateActionPairOffset(i); ia < mExplicitMDP
+				.getStateActionPairOffset(i + 1); ia++) {
+			double qValue = computeQValue(i, mExplicitMDP.getActionOfStateActionPair(ia), relativeValues);
+			if (qValue < bestQValue) {
+				bestQValue = qValue;
+				bestPair = ia;
+			}
+		}
+		return bestPair;
+	}
+
+	/**
+	 * Q(i,a) = c(i,a) + tau * sum_j P(j|i,a) * h(j) + (1 - tau) * h(i), in the transformed MDP, where c(i,a) is the
+	 * objective transition cost c_ia, or the objective state cost c_i.
+	 *
+	 * @param i
+	 * @param a
+	 * @param relativeValues
+	 * @return Q(i,a)
+	 */
+	private double computeQValue(int i, int a, double[] relativeValues) {
+		double cost = mExplicitMDP.getCostType() == CostType.TRANSITION_COST
+				? mExplicitMDP.getObjectiveTransitionCost(i, a)
+				: mExplicitMDP.getObjectiveStateCost(i);
+
+		double expectedValue = 0;
+		SuccessorIterator succIter = mExplicitMDP.successors(i, a);
+		while (succIter.hasNext()) {
+			int j = succIter.next();
+			expectedValue += succIter.getProbability() * relativeValues[j];
+		}
+		return cost + mTau * expectedValue + (1 - mTau) * relativeValues[i];
+	}
+}
@@ -0,0 +1,193 @@
+package solver.common;
+
+import java.util.Arrays;
+
+/**
+ * {@link StronglyConnectedComponents} is a decomposition of the state graph of an {@link ExplicitMDP} into strongly
+ * connected components (SCCs), using Tarjan's algorithm. The state graph has an edge i -> j iff P(j|i,a) > 0 for some
+ * action a in A_i.
+ *
+ * The components are numbered 0, ..., C-1 in reverse topological order: any edge leaving a component enters a
+ * component with a smaller number. Therefore, backward computations (e.g., value iteration) can process the components
+ * in increasing order, and forward computations (e.g., expected state visits) in decreasing order.
+ */
+public class StronglyConnectedComponents {
+
+	private int mNumComponents;
+	private int[] mComponentOfState;
+
+	// States of component c are at [mComponentOffsets[c], mComponentOffsets[c + 1]) of mComponentStates
+	private int[] mComponentOffsets;
+	private int[] mComponentStates;
+
+	// Whether each component has a cycle, i.e., it has more than one state, or its only state has a self-loop
+	private boolean[] mCyclic;
+
+	private StronglyConnectedComponents(int numComponents, int[] componentOfState, int[] componentOffsets,
+			int[] componentStates, boolean[] cyclic) {
+		mNumComponents = numComponents;
+		mComponentOfState = componentOfState;
+		mComponentOffsets = componentOffsets;
+		mComponentStates = componentStates;
+		mCyclic = cyclic;
+	}
+
+	/**
+	 * Decompose the state graph of a given MDP into SCCs, using an iterative version of Tarjan's algorithm.
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return SCCs in reverse topological order
+	 */
+	public static StronglyConnectedComponents decompose(ExplicitMDP explicitMDP) {
+		int n = explicitMDP.getNumStates();
+
+		// Successors of state i (over all actions) are at [succOffsets[i], succOffsets[i + 1]) of succStates
+		int[] succOffsets = new int[n + 1];
+		int[] succStates = new int[explicitMDP.getNumTransitions()];
+		int numEdges = 0;
+		for (int i = 0; i < n; i++) {
+			succOffsets[i] = numEdges;
+			for (int a : explicitMDP.getEnabledActions(i)) {
+				SuccessorIterator succIter = explicitMDP.successors(i, a);
+				while (succIter.hasNext()) {
+					succStates[numEdges++] = succIter.next();
+				}
+			}
+		}
+		succOffsets[n] = numEdges;
+
+		int[] index = new int[n];
+		int[] lowLink = new int[n];
+		boolean[] onStack = new boolean[n];
+		Arrays.fill(index, -1);
+
+		// Tarjan's stack of visited states, and the DFS call stack with the next edge to explore of each state
+		int[] tarjanStack = new int[n];
+		int tarjanTop = 0;
+		int[] callStack = new int[n];
+		int[] nextEdge = new int[n];
+		int callTop = 0;
+
+		int[] componentOfState = new int[n];
+		int[] componentStates = new int[n];
+		int[] componentOffsets = new int[n + 1];
+		boolean[] cyclic = new boolean[n];
+		int numComponents = 0;
+		int numAssignedStates = 0;
+		int nextIndex = 0;
+
+		for (int root = 0; root < n; root++) {
+			if (index[root] != -1) {
+				continue;
+			}
+
+			// Visit root
+			index[root] = lowLink[root] = nextIndex++;
+			tarjanStack[tarjanTop++] = root;
+			onStack[root] = true;
+			callStack[callTop] = root;
+			nextEdge[callTop] = succOffsets[root];
+			callTop++;
+
+			while (callTop > 0) {
+				int i = callStack[callTop - 1];
+
+				if (nextEdge[callTop - 1] < succOffsets[i + 1]) {
+					int j = succStates[nextEdge[callTop - 1]++];
+
+					if (index[j] == -1) {
+						// Visit successor j
+						index[j] = lowLink[j] = nextIndex++;
+						tarjanStack[tarjanTop++] = j;
+						onStack[j] = true;
+						callStack[callTop] = j;
+						nextEdge[callTop] = succOffsets[j];
+						callTop++;
+					} else if (onStack[j]) {
+						lowLink[i] = Math.min(lowLink[i], index[j]);
+					}
+					continue;
+				}
+
+				// All successors of state i have been explored
+				callTop--;
+				if (callTop > 0) {
+					int parent = callStack[callTop - 1];
+					lowLink[parent] = Math.min(lowLink[parent], lowLink[i]);
+				}
+
+				if (lowLink[i] == index[i]) {
+					// State i is the root of a component: pop the component off Tarjan's stack
+					componentOffsets[numComponents] = numAssignedStates;
+					int j;
+					do {
+						j = tarjanStack[--tarjanTop];
+						onStack[j] = false;
+						componentOfState[j] = numComponents;
+						componentStates[numAssignedStates++] = j;
+					} while (j != i);
+
+					int size = numAssignedStates - componentOffsets[numComponents];
+					cyclic[numComponents] = size > 1 || hasSelfLoop(i, succOffsets, succStates);
+					numComponents++;
+				}
+			}
+		}
+		componentOffsets[numComponents] = numAssignedStates;
+
+		// Order the states of each component by state index
+		for (int c = 0; c < numComponents; c++) {
+			Arrays.sort(componentStates, componentOffsets[c], componentOffsets[c + 1]);
+		}
+
+		return new StronglyConnectedComponents(numComponents, componentOfState,
+				Arrays.copyOf(componentOffsets, numComponents + 1), componentStates,
+				Arrays.copyOf(cyclic, numComponents));
+	}
+
+	private static boolean hasSelfLoop(int i, int[] succOffsets, int[] succStates) {
+		for (int e = succOffsets[i]; e < succOffsets[i + 1]; e++) {
+			if (succStates[e] == i) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int getNumComponents() {
+		return mNumComponents;
+	}
+
+	public int getComponentOfState(int state) {
+		return mComponentOfState[state];
+	}
+
+	/**
+	 * The states of component c are getComponentState(k), for k in [getComponentOffset(c), getComponentOffset(c + 1)).
+	 *
+	 * @param component
+	 *            : Component index, or the number of components
+	 * @return Offset of the states of the component
+	 */
+	public int getComponentOffset(int component) {
+		return mComponentOffsets[component];
+	}
+
+	public int getComponentState(int k) {
+		return mComponentStates[k];
+	}
+
+	public int getComponentSize(int component) {
+		return mComponentOffsets[component + 1] - mComponentOffsets[component];
+	}
+
+	/**
+	 *
+	 * @param component
+	 * @return Whether the component has a cycle; if not, its only state needs to be computed only once
+	 */
+	public boolean isCyclic(int component) {
+		return mCyclic[component];
+	}
+}
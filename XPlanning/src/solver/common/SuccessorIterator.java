@@ -0,0 +1,47 @@
+package solver.common;
+
+import java.util.NoSuchElementException;
+
+/**
+ * {@link SuccessorIterator} iterates over the non-zero transitions of a single (state, action) row of an
+ * {@link ExplicitMDP}. Each call to {@link #next()} moves to the next successor state j, and
+ * {@link #getProbability()} returns P(j|i,a) of the current successor.
+ */
+public class SuccessorIterator {
+
+	private final int[] mDestStates;
+	private final double[] mProbs;
+	private final int mEnd;
+	private int mCurrent;
+
+	SuccessorIterator(int[] destStates, double[] probs, int start, int end) {
+		mDestStates = destStates;
+		mProbs = probs;
+		mEnd = end;
+		mCurrent = start - 1;
+	}
+
+	public boolean hasNext() {
+		return mCurrent + 1 < mEnd;
+	}
+
+	/**
+	 * Move to the next successor state.
+	 * 
+	 * @return Next successor state j
+	 */
+	public int next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		mCurrent++;
+		return mDestStates[mCurrent];
+	}
+
+	/**
+	 * @return P(j|i,a), where j is the current successor state
+	 */
+	public double getProbability() {
+		return mProbs[mCurrent];
+	}
+}
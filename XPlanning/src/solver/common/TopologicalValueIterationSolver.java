@@ -0,0 +1,24 @@
+package solver.common;
+
+/**
+ * {@link TopologicalValueIterationSolver} is a {@link ValueIterationSolver} that solves the strongly connected
+ * components (SCCs) of the state graph one after another, in reverse topological order. Only the states of cyclic
+ * components are iterated until convergence; every other state is computed once, after all of its successors.
+ *
+ * For an acyclic MDP (e.g., a finite-horizon model), the values converge in a single backward pass.
+ */
+public class TopologicalValueIterationSolver extends ValueIterationSolver {
+
+	public TopologicalValueIterationSolver(ExplicitMDP explicitMDP) {
+		super(explicitMDP);
+	}
+
+	public TopologicalValueIterationSolver(ExplicitMDP explicitMDP, double epsilon, int maxIterations) {
+		super(explicitMDP, epsilon, maxIterations);
+	}
+
+	@Override
+	protected StronglyConnectedComponents decomposeStates() {
+		return StronglyConnectedComponents.decompose(getExplicitMDP());
+	}
+}
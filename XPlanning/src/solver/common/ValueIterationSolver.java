@@ -0,0 +1,591 @@
+package solver.common;
+
+import java.util.Arrays;
+
+/**
+ * {@link ValueIterationSolver} computes an optimal deterministic policy of an unconstrained SSP, using Gauss-Seidel
+ * value iteration over an {@link ExplicitMDP}. It does not require an LP/MILP solver.
+ *
+ * Since the MDP may have zero-cost cycles, value iteration starts from the values of a proper policy (i.e., one that
+ * reaches the goal states with probability 1), which are an upper bound of the optimal values. From there, the values
+ * decrease monotonically to the optimal values over all proper policies. Among the greedy actions of the converged
+ * value function, a proper policy is then chosen, by assigning actions backwards from the goal states. The occupation
+ * measure x_ia of the policy is computed, so that the solution has the same form as that of the occupation-measure LP.
+ *
+ * If the solving thread is interrupted, the solve stops at the next sweep without a solution, and the interrupt status
+ * of the thread is kept.
+ */
+public class ValueIterationSolver {
+
+	public static final double DEFAULT_EPSILON = 1e-8;
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+
+	/**
+	 * Actions whose Q-values are within (this factor * epsilon) of the optimal Q-value of a state are considered
+	 * optimal, when choosing a proper policy among the greedy actions.
+	 */
+	private static final double TIE_TOLERANCE_FACTOR = 1e3;
+
+	private ExplicitMDP mExplicitMDP;
+	private double mEpsilon;
+	private int mMaxIterations;
+
+	// Blocks of states that are solved one after another, in reverse topological order (null: all states are solved
+	// together)
+	private StronglyConnectedComponents mComponents;
+
+	// Results of the last solve
+	private double[] mStateValues;
+	private double[] mExpectedTotalCosts;
+	private long mNumBackups;
+
+	public ValueIterationSolver(ExplicitMDP explicitMDP) {
+		this(explicitMDP, DEFAULT_EPSILON, DEFAULT_MAX_ITERATIONS);
+	}
+
+	/**
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param epsilon
+	 *            : Convergence threshold on the maximum change of any state value in a sweep
+	 * @param maxIterations
+	 *            : Maximum number of sweeps, after which the values are considered not converging
+	 */
+	public ValueIterationSolver(ExplicitMDP explicitMDP, double epsilon, int maxIterations) {
+		mExplicitMDP = explicitMDP;
+		mEpsilon = epsilon;
+		mMaxIterations = maxIterations;
+	}
+
+	/**
+	 * Solve for an optimal deterministic policy for the SSP.
+	 *
+	 * @param outputPolicy
+	 *            : Return parameter of optimal policy, in the sparse (state, action) layout of the MDP
+	 * @return Whether a solution policy exists, its objective value, and its occupation measure "x"
+	 */
+	public LPSolution solveOptimalPolicy(double[] outputPolicy) {
+		int n = mExplicitMDP.getNumStates();
+		int iniState = mExplicitMDP.getInitialState();
+
+		boolean[] isGoal = new boolean[n];
+		for (Integer goal : mExplicitMDP.getGoalStates()) {
+			isGoal[goal] = true;
+		}
+
+		mStateValues = null;
+		mExpectedTotalCosts = null;
+		mComponents = decomposeStates();
+
+		// States from which the goal states cannot be reached with probability 1 have infinite values
+		int[] properPolicyPairs = computeProperPolicy(isGoal);
+		if (!isGoal[iniState] && properPolicyPairs[iniState] == -1) {
+			return new LPSolution(false, -1);
+		}
+
+		// Values of the proper policy are the initial (upper-bound) values
+		double[] stateValues = evaluatePolicy(properPolicyPairs, isGoal);
+		if (stateValues == null) {
+			return new LPSolution(false, -1);
+		}
+		mStateValues = stateValues;
+
+		boolean converged = runValueIteration(stateValues, isGoal);
+		if (!converged) {
+			return new LPSolution(false, -1);
+		}
+
+		// Policy: index of the chosen (state, action) pair of each state, or -1 if there is none
+		int[] policyPairs = computeProperGreedyPolicy(stateValues, isGoal);
+
+		double[] stateVisits = computeExpectedStateVisits(policyPairs, isGoal);
+		if (stateVisits == null) {
+			// The policy does not reach the goal states with probability 1
+			return new LPSolution(false, -1);
+		}
+
+		// Occupation measure: x_ia = expected number of visits to state i, if pi(i) = a; 0, otherwise
+		// Goal states are absorbing, and have no occupation measure
+		double[] xResults = new double[mExplicitMDP.getNumStateActionPairs()];
+		for (int i = 0; i < n; i++) {
+			if (stateVisits[i] > 0 && !isGoal[i]) {
+				int ia = policyPairs[i];
+				xResults[ia] = stateVisits[i];
+				// Only the states reachable under the policy are in the policy, same as the LP solution
+				outputPolicy[ia] = 1.0;
+			}
+		}
+
+		mExpectedTotalCosts = ExplicitModelChecker.computeOccupancyCosts(xResults, mExplicitMDP);
+
+		// Objective cost function is at index 0
+		LPSolution solution = new LPSolution(true, mExpectedTotalCosts[0]);
+		solution.addSolution("x", xResults);
+		return solution;
+	}
+
+	public ExplicitMDP getExplicitMDP() {
+		return mExplicitMDP;
+	}
+
+	/**
+	 *
+	 * @return Optimal value of each state, from the last solve
+	 */
+	public double[] getStateValues() {
+		return mStateValues;
+	}
+
+	/**
+	 *
+	 * @return Expected total k-cost of the solution policy from the initial state, for all k (objective cost function
+	 *         is at index 0), or null if there is no solution policy
+	 */
+	public double[] getExpectedTotalCosts() {
+		return mExpectedTotalCosts;
+	}
+
+	/**
+	 * Compute a lower bound on the optimal value of the initial state, from the last solve. Value iteration stops when
+	 * the values change by less than epsilon in a sweep, so the values, and the value J(s0) of the solution policy, are
+	 * only upper bounds of the optimal values.
+	 * 
+	 * For any proper policy pi, J_pi(s0) = V(s0) + E_pi[sum_t (c(s_t,pi(s_t)) + sum_j P(j|s_t,pi(s_t)) * V(j) -
+	 * V(s_t))], where each term of the sum is at least -delta, and delta = max_i (V(i) - min_a Q(i,a)) is the Bellman
+	 * residual of the values. If every step cost is at least c_min > 0, then an optimal policy takes at most J*(s0) /
+	 * c_min <= J(s0) / c_min steps in expectation. Therefore, J*(s0) >= V(s0) - delta * J(s0) / c_min.
+	 *
+	 * @return Lower bound on the optimal value of the initial state, or negative infinity if there is no solution
+	 *         policy, or if the values are not exact and some step cost is not positive
+	 */
+	public double computeOptimalValueLowerBound() {
+		if (mExpectedTotalCosts == null) {
+			return Double.NEGATIVE_INFINITY;
+		}
+
+		int n = mExplicitMDP.getNumStates();
+		boolean[] isGoal = new boolean[n];
+		for (Integer goal : mExplicitMDP.getGoalStates()) {
+			isGoal[goal] = true;
+		}
+
+		double maxResidual = 0;
+		double minStepCost = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			if (isGoal[i] || Double.isInfinite(mStateValues[i])) {
+				// An optimal policy never visits a state that cannot reach goal with probability 1
+				continue;
+			}
+			maxResidual = Math.max(maxResidual, mStateValues[i] - computeBestQValue(i, mStateValues));
+			for (int a : mExplicitMDP.getEnabledActions(i)) {
+				minStepCost = Math.min(minStepCost, computeStepCost(i, a));
+			}
+		}
+
+		double iniValue = mStateValues[mExplicitMDP.getInitialState()];
+		if (maxResidual == 0) {
+			return iniValue;
+		} else if (minStepCost <= 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		return iniValue - maxResidual * mExpectedTotalCosts[0] / minStepCost;
+	}
+
+	/**
+	 *
+	 * @return Number of Bellman backups (i.e., state-value updates) by value iteration in the last solve
+	 */
+	public long getNumBackups() {
+		return mNumBackups;
+	}
+
+	/**
+	 * Decompose the states into blocks that are solved one after another. By default, all states are solved together,
+	 * as a single block.
+	 *
+	 * @return SCCs of the state graph, or null to solve all states together
+	 */
+	protected StronglyConnectedComponents decomposeStates() {
+		return null;
+	}
+
+	private int getNumBlocks() {
+		return mComponents == null ? 1 : mComponents.getNumComponents();
+	}
+
+	private int getBlockOffset(int block) {
+		if (mComponents == null) {
+			return block == 0 ? 0 : mExplicitMDP.getNumStates();
+		}
+		return mComponents.getComponentOffset(block);
+	}
+
+	/**
+	 *
+	 * @param k
+	 *            : Position in the blocks
+	 * @return State at the position
+	 */
+	protected int getBlockState(int k) {
+		return mComponents == null ? k : mComponents.getComponentState(k);
+	}
+
+	private boolean isCyclicBlock(int block) {
+		return mComponents == null || mComponents.isCyclic(block);
+	}
+
+	/**
+	 * Compute the set of states from which the goal states can be reached with probability 1, and a proper policy from
+	 * those states, using the fixed-point algorithm: starting with U = S, repeatedly restrict U to the states that can
+	 * reach the goal states using only actions whose successors are all in U.
+	 *
+	 * In the last round, the states are assigned actions backwards from the goal states, such that each state moves to
+	 * an already-assigned state with positive probability, and never leaves U. Therefore, the policy is proper.
+	 *
+	 * @param isGoal
+	 * @return Index of the chosen (state, action) pair of each state, or -1 if the state is a goal state or if the goal
+	 *         states cannot be reached from the state with probability 1
+	 */
+	private int[] computeProperPolicy(boolean[] isGoal) {
+		int n = mExplicitMDP.getNumStates();
+		boolean[] inU = new boolean[n];
+		Arrays.fill(inU, true);
+		int sizeU = n;
+
+		int[] policyPairs = new int[n];
+		boolean[] assigned = new boolean[n];
+		int[] queue = new int[n];
+
+		while (true) {
+			Arrays.fill(policyPairs, -1);
+			Arrays.fill(assigned, false);
+			int head = 0;
+			int tail = 0;
+
+			for (int i = 0; i < n; i++) {
+				if (isGoal[i]) {
+					assigned[i] = true;
+					queue[tail++] = i;
+				}
+			}
+
+			while (head < tail) {
+				int j = queue[head++];
+				PredecessorIterator predIter = mExplicitMDP.predecessors(j);
+				while (predIter.hasNext()) {
+					int i = predIter.next();
+					if (!assigned[i] && inU[i] && hasAllSuccessorsIn(i, predIter.getAction(), inU)) {
+						policyPairs[i] = predIter.getStateActionPair();
+						assigned[i] = true;
+						queue[tail++] = i;
+					}
+				}
+			}
+
+			if (tail == sizeU) {
+				// U has reached its fixed point
+				return policyPairs;
+			}
+
+			// Restrict U to the assigned states
+			System.arraycopy(assigned, 0, inU, 0, n);
+			sizeU = tail;
+		}
+	}
+
+	private boolean hasAllSuccessorsIn(int i, int a, boolean[] states) {
+		SuccessorIterator succIter = mExplicitMDP.successors(i, a);
+		while (succIter.hasNext()) {
+			if (!states[succIter.next()]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gauss-Seidel policy evaluation: V(i) = c(i,pi(i)) + sum_j P(j|i,pi(i)) * V(j), for all i in S \ G, and V(sg) = 0.
+	 *
+	 * @param policyPairs
+	 *            : Index of the chosen (state, action) pair of each state, or -1 if there is none
+	 * @param isGoal
+	 * @return Values of the policy, which are infinite for the non-goal states without action, or null if the values do
+	 *         not converge within the maximum number of sweeps
+	 */
+	private double[] evaluatePolicy(int[] policyPairs, boolean[] isGoal) {
+		int n = mExplicitMDP.getNumStates();
+		double[] stateValues = new double[n];
+		for (int i = 0; i < n; i++) {
+			if (!isGoal[i] && policyPairs[i] == -1) {
+				stateValues[i] = Double.POSITIVE_INFINITY;
+			}
+		}
+
+		// Values only depend on the successor states: solve the blocks in reverse topological order
+		for (int b = 0; b < getNumBlocks(); b++) {
+			double maxResidual;
+			int numSweeps = 0;
+
+			do {
+				if (numSweeps++ == mMaxIterations || Thread.currentThread().isInterrupted()) {
+					return null;
+				}
+				maxResidual = 0;
+
+				for (int k = getBlockOffset(b); k < getBlockOffset(b + 1); k++) {
+					int i = getBlockState(k);
+					if (isGoal[i] || policyPairs[i] == -1) {
+						continue;
+					}
+
+					double qValue = computeQValue(i, mExplicitMDP.getActionOfStateActionPair(policyPairs[i]),
+							stateValues);
+					maxResidual = Math.max(maxResidual, Math.abs(qValue - stateValues[i]));
+					stateValues[i] = qValue;
+				}
+			} while (isCyclicBlock(b) && maxResidual >= mEpsilon);
+		}
+		return stateValues;
+	}
+
+	/**
+	 * Gauss-Seidel value iteration: V(i) = min_a [c(i,a) + sum_j P(j|i,a) * V(j)], for all i in S \ G, and V(sg) = 0.
+	 *
+	 * @param stateValues
+	 *            : Initial state values, updated in place
+	 * @param isGoal
+	 * @return Whether the values of every block converge within the maximum number of sweeps
+	 */
+	private boolean runValueIteration(double[] stateValues, boolean[] isGoal) {
+		mNumBackups = 0;
+
+		// Values only depend on the successor states: solve the blocks in reverse topological order
+		for (int b = 0; b < getNumBlocks(); b++) {
+			double maxResidual;
+			int numSweeps = 0;
+
+			do {
+				if (numSweeps++ == mMaxIterations || Thread.currentThread().isInterrupted()) {
+					return false;
+				}
+				maxResidual = runValueIterationSweep(getBlockOffset(b), getBlockOffset(b + 1), stateValues, isGoal);
+			} while (isCyclicBlock(b) && maxResidual >= mEpsilon);
+
+			mNumBackups += (long) numSweeps * (getBlockOffset(b + 1) - getBlockOffset(b));
+		}
+		return true;
+	}
+
+	/**
+	 * One Gauss-Seidel sweep of value iteration over the states at positions [start, end) of the blocks.
+	 *
+	 * @param start
+	 *            : Start position (inclusive)
+	 * @param end
+	 *            : End position (exclusive)
+	 * @param stateValues
+	 *            : State values, updated in place
+	 * @param isGoal
+	 * @return Maximum residual of the sweep
+	 */
+	protected double runValueIterationSweep(int start, int end, double[] stateValues, boolean[] isGoal) {
+		double maxResidual = 0;
+
+		for (int k = start; k < end; k++) {
+			int i = getBlockState(k);
+			if (isGoal[i] || Double.isInfinite(stateValues[i])) {
+				// Goal states have 0 values, and states that cannot reach goal with probability 1 have infinite
+				// values
+				continue;
+			}
+
+			// Starting from the upper-bound values, the values only decrease
+			double bestQValue = computeBestQValue(i, stateValues);
+			maxResidual = Math.max(maxResidual, stateValues[i] - bestQValue);
+			stateValues[i] = bestQValue;
+		}
+		return maxResidual;
+	}
+
+	/**
+	 * Choose a proper policy among the greedy actions: starting from the goal states, a state i is assigned a greedy
+	 * action a only if a leads to an already-assigned state with positive probability. Therefore, from every assigned
+	 * state, the policy makes progress towards the goal states with positive probability.
+	 *
+	 * Any state that cannot be assigned this way (e.g., when the greedy actions are not within the tie tolerance due to
+	 * slow convergence) is assigned an action with the best Q-value.
+	 *
+	 * @param stateValues
+	 *            : Converged state values
+	 * @param isGoal
+	 * @return Index of the chosen (state, action) pair of each state, or -1 if there is none
+	 */
+	private int[] computeProperGreedyPolicy(double[] stateValues, boolean[] isGoal) {
+		int n = mExplicitMDP.getNumStates();
+		double tieTolerance = TIE_TOLERANCE_FACTOR * mEpsilon;
+
+		int[] policyPairs = new int[n];
+		Arrays.fill(policyPairs, -1);
+
+		double[] bestQValues = new double[n];
+		boolean[] assigned = new boolean[n];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+
+		for (int i = 0; i < n; i++) {
+			if (isGoal[i]) {
+				// Goal states are absorbing; there is no action to choose
+				assigned[i] = true;
+				queue[tail++] = i;
+			} else if (!Double.isInfinite(stateValues[i])) {
+				bestQValues[i] = computeBestQValue(i, stateValues);
+			} else {
+				// Skip -- there is no proper policy from state i
+				assigned[i] = true;
+			}
+		}
+
+		while (head < tail) {
+			int j = queue[head++];
+			PredecessorIterator predIter = mExplicitMDP.predecessors(j);
+			while (predIter.hasNext()) {
+				int i = predIter.next();
+				if (assigned[i]) {
+					continue;
+				}
+
+				double qValue = computeQValue(i, predIter.getAction(), stateValues);
+				if (qValue <= bestQValues[i] + tieTolerance) {
+					policyPairs[i] = predIter.getStateActionPair();
+					assigned[i] = true;
+					queue[tail++] = i;
+				}
+			}
+		}
+
+		for (int i = 0; i < n; i++) {
+			if (!assigned[i]) {
+				policyPairs[i] = computeBestStateActionPair(i, stateValues);
+			}
+		}
+		return policyPairs;
+	}
+
+	/**
+	 * Compute the expected number of visits to each state under a deterministic policy, starting from the initial
+	 * state, using Gauss-Seidel iteration: visits(i) = [i = s0] + sum_j (visits(j) * P(i|j,pi(j))), for all j in S \ G.
+	 *
+	 * @param policyPairs
+	 *            : Index of the chosen (state, action) pair of each state, or -1 if there is none
+	 * @param isGoal
+	 * @return Expected number of visits to each state, or null if the policy does not reach the goal states with
+	 *         probability 1
+	 */
+	private double[] computeExpectedStateVisits(int[] policyPairs, boolean[] isGoal) {
+		int n = mExplicitMDP.getNumStates();
+		int iniState = mExplicitMDP.getInitialState();
+		double[] stateVisits = new double[n];
+
+		// Visits only depend on the predecessor states: solve the blocks in topological order
+		for (int b = getNumBlocks() - 1; b >= 0; b--) {
+			double maxResidual;
+			int numSweeps = 0;
+
+			do {
+				if (numSweeps++ == mMaxIterations || Thread.currentThread().isInterrupted()) {
+					return null;
+				}
+				maxResidual = 0;
+
+				for (int k = getBlockOffset(b); k < getBlockOffset(b + 1); k++) {
+					int i = getBlockState(k);
+					double visits = i == iniState ? 1 : 0;
+
+					// Only the flows from non-goal states along the policy enter state i
+					PredecessorIterator predIter = mExplicitMDP.predecessors(i);
+					while (predIter.hasNext()) {
+						int j = predIter.next();
+						if (!isGoal[j] && predIter.getStateActionPair() == policyPairs[j]) {
+							visits += stateVisits[j] * predIter.getProbability();
+						}
+					}
+
+					maxResidual = Math.max(maxResidual, Math.abs(visits - stateVisits[i]));
+					stateVisits[i] = visits;
+				}
+			} while (isCyclicBlock(b) && maxResidual >= mEpsilon);
+		}
+		return checkProperPolicy(stateVisits, policyPairs, isGoal) ? stateVisits : null;
+	}
+
+	/**
+	 *
+	 * @param stateVisits
+	 * @param policyPairs
+	 * @param isGoal
+	 * @return Whether every non-goal state visited under the policy has an action
+	 */
+	private static boolean checkProperPolicy(double[] stateVisits, int[] policyPairs, boolean[] isGoal) {
+		for (int i = 0; i < stateVisits.length; i++) {
+			if (stateVisits[i] > 0 && !isGoal[i] && policyPairs[i] == -1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double computeBestQValue(int i, double[] stateValues) {
+		double bestQValue = Double.POSITIVE_INFINITY;
+		for (int a : mExplicitMDP.getEnabledActions(i)) {
+			bestQValue = Math.min(bestQValue, computeQValue(i, a, stateValues));
+		}
+		return bestQValue;
+	}
+
+	private int computeBestStateActionPair(int i, double[] stateValues) {
+		double bestQValue = Double.POSITIVE_INFINITY;
+		int bestPair = -1;
+		for (int ia = mExplicitMDP.getStateActionPairOffset(i); ia < mExplicitMDP
+				.getStateActionPairOffset(i + 1); ia++) {
+			double qValue = computeQValue(i, mExplicitMDP.getActionOfStateActionPair(ia), stateValues);
+			if (qValue < bestQValue) {
+				bestQValue = qValue;
+				bestPair = ia;
+			}
+		}
+		return bestPair;
+	}
+
+	/**
+	 * Q(i,a) = c(i,a) + sum_j P(j|i,a) * V(j), where c(i,a) is the objective transition cost c_ia, or the objective
+	 * state cost c_i.
+	 *
+	 * @param i
+	 * @param a
+	 * @param stateValues
+	 * @return Q(i,a)
+	 */
+	private double computeQValue(int i, int a, double[] stateValues) {
+		double qValue = computeStepCost(i, a);
+
+		SuccessorIterator succIter = mExplicitMDP.successors(i, a);
+		while (succIter.hasNext()) {
+			int j = succIter.next();
+			qValue += succIter.getProbability() * stateValues[j];
+		}
+		return qValue;
+	}
+
+	/**
+	 *
+	 * @param i
+	 * @param a
+	 * @return Objective transition cost c_ia, or objective state cost c_i
+	 */
+	protected double computeStepCost(int i, int a) {
+		return mExplicitMDP.getCostType() == CostType.TRANSITION_COST ? mExplicitMDP.getObjectiveTransitionCost(i, a)
+				: mExplicitMDP.getObjectiveStateCost(i);
+	}
+}
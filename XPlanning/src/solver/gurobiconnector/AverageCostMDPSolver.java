@@ -2,15 +2,14 @@ package solver.gurobiconnector;
 
 import java.util.Arrays;
 
-import gurobi.GRB;
-import gurobi.GRBEnv;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
 import solver.common.ExplicitMDP;
 import solver.common.LPSolution;
 import solver.common.NonStrictConstraint;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.LPTermBuffer;
+import solver.lpsolver.VarType;
 
 public class AverageCostMDPSolver {
 
@@ -58,19 +57,19 @@ public class AverageCostMDPSolver {
 	 * Solve for an optimal policy for the average-cost MDP.
 	 * 
 	 * @param outputPolicy
-	 *            : Return parameter of optimal policy
+	 *            : Return parameter of optimal policy, in the sparse (state, action) layout of the MDP
 	 * @return Whether a solution policy exists, its objective value, and the solution
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	public LPSolution solveOptimalPolicy(double[][] outputPolicy) throws GRBException {
+	public LPSolution solveOptimalPolicy(double[] outputPolicy) throws LPSolverException {
 		double feasTol = mSettings.getFeasibilityTolerance();
 		double roundOff = mSettings.getRoundOff();
 
 		int n = mExplicitMDP.getNumStates();
-		int m = mExplicitMDP.getNumActions();
+		int numPairs = mExplicitMDP.getNumStateActionPairs();
 
-		double[][] xResults = new double[n][m];
-		double[][] yResults = new double[n][m];
+		double[] xResults = new double[numPairs];
+		double[] yResults = new double[numPairs];
 		LPSolution solution = solve(xResults, yResults);
 
 		if (solution.exists()) {
@@ -89,7 +88,7 @@ public class AverageCostMDPSolver {
 				}
 			}
 
-			assert GRBSolverUtils.consistencyCheckDeterministicPolicy(outputPolicy, mExplicitMDP, feasTol);
+			assert GRBSolverUtils.consistencyCheckDeterministicPolicy(outputPolicy, feasTol);
 		}
 
 		return solution;
@@ -101,7 +100,7 @@ public class AverageCostMDPSolver {
 	 * It is guaranteed that, for any state i, v*_ia > 0 for only one a in A_i. Therefore, the policy is deterministic.
 	 * 
 	 * @param policyMatrix
-	 *            : Policy matrix (return parameter)
+	 *            : Policy matrix, in the sparse (state, action) layout of the MDP (return parameter)
 	 * @param i
 	 *            : State
 	 * @param vResults
@@ -109,20 +108,17 @@ public class AverageCostMDPSolver {
 	 * @param vDenom
 	 *            : sum_a (v_ia)
 	 */
-	private void fillPolicyMatrix(double[][] policyMatrix, int i, double[][] vResults, double vDenom) {
-		int m = mExplicitMDP.getNumActions();
-
+	private void fillPolicyMatrix(double[] policyMatrix, int i, double[] vResults, double vDenom) {
 		// Interpret x_ia as the limiting probability under a stationary (deterministic) policy that the
 		// system occupies state i and chooses action a when the initial state distribution is alpha.
 
-		for (int a = 0; a < m; a++) {
-			// Exclude any v_ia value when action a is not applicable in state i
-			if (mExplicitMDP.isActionApplicable(i, a)) {
-				// pi_ia = x_ia / sum_a (x_ia) for recurrent states
-				// OR
-				// pi_ia = y_ia / sum_a (y_ia) for transient states
-				policyMatrix[i][a] = vResults[i][a] / vDenom;
-			}
+		// Only the enabled (state, action) pairs have v_ia values
+		for (int ia = mExplicitMDP.getStateActionPairOffset(i); ia < mExplicitMDP
+				.getStateActionPairOffset(i + 1); ia++) {
+			// pi_ia = x_ia / sum_a (x_ia) for recurrent states
+			// OR
+			// pi_ia = y_ia / sum_a (y_ia) for transient states
+			policyMatrix[ia] = vResults[ia] / vDenom;
 		}
 	}
 
@@ -156,109 +152,109 @@ public class AverageCostMDPSolver {
 	 * out_v(i) = sum_a (v_ia).
 	 * 
 	 * @param xResults
-	 *            : Return parameter of x*_ia results
+	 *            : Return parameter of x*_ia results, in the sparse (state, action) layout of the MDP
 	 * @param yResults
-	 *            : Return parameter of y*_ia results
+	 *            : Return parameter of y*_ia results, in the sparse (state, action) layout of the MDP
 	 * @return Whether a feasible solution exists, its objective value, and the solution
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	public LPSolution solve(double[][] xResults, double[][] yResults) throws GRBException {
-		double intFeasTol = mSettings.getIntegralityTolerance();
+	public LPSolution solve(double[] xResults, double[] yResults) throws LPSolverException {
 		double feasTol = mSettings.getFeasibilityTolerance();
 
-		GRBEnv env = new GRBEnv();
-		GRBModel model = new GRBModel(env);
-
-		GRBSolverUtils.configureToleranceParameters(model, intFeasTol, feasTol);
+		// Variables and constraints are added to the model in bulk
+		LPModel model = GRBSolverUtils.createModel(mSettings);
+		try {
+			int n = mExplicitMDP.getNumStates();
+
+			// Initial state distribution
+			double[] alpha = new double[n];
+			Arrays.fill(alpha, 1.0 / n);
+
+			// Create variables: x_ia, for all enabled (i, a)
+			// Lower bound on variables: x_ia >= 0
+			int[] xVars = GRBSolverUtils.createOptimizationVars("x", VarType.CONTINUOUS, mExplicitMDP, 0.0,
+					Double.POSITIVE_INFINITY, model);
+
+			// Create variables: y_ia, for all enabled (i, a)
+			// Lower bound on variables: y_ia >= 0
+			int[] yVars = GRBSolverUtils.createOptimizationVars("y", VarType.CONTINUOUS, mExplicitMDP, 0.0,
+					Double.POSITIVE_INFINITY, model);
+
+			// Create variables: Deltax_ia (binary), for all enabled (i, a)
+			String deltaxVarName = "Deltax";
+			int[] deltaxVars = GRBSolverUtils.createOptimizationVars(deltaxVarName, VarType.BINARY, mExplicitMDP,
+					0.0, 1.0, model);
+
+			// Create variables: Deltay_ia (binary), for all enabled (i, a)
+			String deltayVarName = "Deltay";
+			int[] deltayVars = GRBSolverUtils.createOptimizationVars(deltayVarName, VarType.BINARY, mExplicitMDP,
+					0.0, 1.0, model);
+
+			// Set optimization objective
+			GRBSolverUtils.setOptimizationObjective(mExplicitMDP, xVars, model);
+
+			// Add constraints
+			addC1Constraints(xVars, model);
+			addC2Constraints(alpha, xVars, yVars, model);
+
+			// Add constraints to ensure deterministic solution policy
+			GRBSolverUtils.addDeltaConstraints(mExplicitMDP, deltaxVarName, deltaxVars, model);
+			GRBSolverUtils.addDeltaConstraints(mExplicitMDP, deltayVarName, deltayVars, model);
+
+			// For average-cost MDP, sum_i,a (x_ia) = 1; therefore, we can use X = 1
+			GRBSolverUtils.addVarDeltaConstraints(1.0, mExplicitMDP, "x", xVars, deltaxVarName, deltaxVars, model);
+
+			// Similarly, we use Y = 1
+			GRBSolverUtils.addVarDeltaConstraints(1.0, mExplicitMDP, "y", yVars, deltayVarName, deltayVars, model);
+
+			// Add (upper/lower bound) cost constraints, if any
+			if (mSoftConstraints != null) {
+				// Soft constraints
+				CostConstraintUtils.addSoftCostConstraints(mSoftConstraints, mHardConstraints, mExplicitMDP, xVars,
+						model);
+			} else if (mHardConstraints != null) {
+				// Hard constraints
+				CostConstraintUtils.addHardCostConstraints(mHardConstraints, mExplicitMDP, xVars, model);
+			}
 
-		int n = mExplicitMDP.getNumStates();
-		int m = mExplicitMDP.getNumActions();
-
-		// Initial state distribution
-		double[] alpha = new double[n];
-		Arrays.fill(alpha, 1.0 / n);
-
-		// Create variables: x_ia
-		// Lower bound on variables: x_ia >= 0
-		GRBVar[][] xVars = GRBSolverUtils.createOptimizationVars("x", GRB.CONTINUOUS, n, m, 0.0,
-				Double.POSITIVE_INFINITY, model);
-
-		// Create variables: y_ia
-		// Lower bound on variables: y_ia >= 0
-		GRBVar[][] yVars = GRBSolverUtils.createOptimizationVars("y", GRB.CONTINUOUS, n, m, 0.0,
-				Double.POSITIVE_INFINITY, model);
-
-		// Create variables: Deltax_ia (binary)
-		String deltaxVarName = "Deltax";
-		GRBVar[][] deltaxVars = GRBSolverUtils.createOptimizationVars(deltaxVarName, GRB.BINARY, n, m, 0.0, 1.0, model);
-
-		// Create variables: Deltay_ia (binary)
-		String deltayVarName = "Deltay";
-		GRBVar[][] deltayVars = GRBSolverUtils.createOptimizationVars(deltayVarName, GRB.BINARY, n, m, 0.0, 1.0, model);
-
-		// Set optimization objective
-		GRBSolverUtils.setOptimizationObjective(mExplicitMDP, xVars, model);
-
-		// Add constraints
-		addC1Constraints(xVars, model);
-		addC2Constraints(alpha, xVars, yVars, model);
-
-		// Add constraints to ensure deterministic solution policy
-		GRBSolverUtils.addDeltaConstraints(mExplicitMDP, deltaxVarName, deltaxVars, model);
-		GRBSolverUtils.addDeltaConstraints(mExplicitMDP, deltayVarName, deltayVars, model);
-
-		// For average-cost MDP, sum_i,a (x_ia) = 1; therefore, we can use X = 1
-		GRBSolverUtils.addVarDeltaConstraints(1.0, mExplicitMDP, "x", xVars, deltaxVarName, deltaxVars, model);
-
-		// Similarly, we use Y = 1
-		GRBSolverUtils.addVarDeltaConstraints(1.0, mExplicitMDP, "y", yVars, deltayVarName, deltayVars, model);
-
-		// Add (upper/lower bound) cost constraints, if any
-		if (mSoftConstraints != null) {
-			// Soft constraints
-			CostConstraintUtils.addSoftCostConstraints(mSoftConstraints, mHardConstraints, mExplicitMDP, xVars, model);
-		} else if (mHardConstraints != null) {
-			// Hard constraints
-			CostConstraintUtils.addHardCostConstraints(mHardConstraints, mExplicitMDP, xVars, model);
-		}
+			// Solve optimization problem for x_ia, y_ia, and Delta_ia
+			model.optimize();
 
-		// Solve optimization problem for x_ia, y_ia, and Delta_ia
-		model.optimize();
+			boolean hasSolution = GRBSolverUtils.hasSolution(model);
+			double objectiveValue = -1;
 
-		int numSolutions = model.get(GRB.IntAttr.SolCount);
-		double objectiveValue = -1;
+			if (hasSolution) {
+				// Solution found
 
-		if (numSolutions > 0) {
-			// Solution found
+				// Objective value: sum_i,a (c_ia * x_ia)
+				objectiveValue = model.getObjectiveValue();
 
-			// Objective value: sum_i,a (c_ia * x_ia)
-			objectiveValue = model.get(GRB.DoubleAttr.ObjVal);
+				// Query results: optimal values of x_ia, y_ia, and Delta_ia
+				double[] lpXResults = model.getValues(xVars);
+				double[] lpYResults = model.getValues(yVars);
+				double[] lpDeltaxResults = model.getValues(deltaxVars);
+				double[] lpDeltayResults = model.getValues(deltayVars);
 
-			// Query results: optimal values of x_ia, y_ia, and Delta_ia
-			double[][] grbXResults = model.get(GRB.DoubleAttr.X, xVars);
-			double[][] grbYResults = model.get(GRB.DoubleAttr.X, yVars);
-			double[][] grbDeltaxResults = model.get(GRB.DoubleAttr.X, deltaxVars);
-			double[][] grbDeltayResults = model.get(GRB.DoubleAttr.X, deltayVars);
+				// Copy x_ia and y_ia results to the return parameters
+				System.arraycopy(lpXResults, 0, xResults, 0, lpXResults.length);
+				System.arraycopy(lpYResults, 0, yResults, 0, lpYResults.length);
 
-			// Copy x_ia and y_ia results to the return parameters
-			System.arraycopy(grbXResults, 0, xResults, 0, grbXResults.length);
-			System.arraycopy(grbYResults, 0, yResults, 0, grbYResults.length);
+				// Consistency checks
+				verifyAllConstraints(lpXResults, lpYResults, lpDeltaxResults, lpDeltayResults, alpha);
+				assert GRBSolverUtils.consistencyCheckResults(lpXResults, lpDeltaxResults, mExplicitMDP, feasTol);
+				assert GRBSolverUtils.consistencyCheckResults(lpYResults, lpDeltayResults, mExplicitMDP, feasTol);
+			}
 
-			// Consistency checks
-			verifyAllConstraints(grbXResults, grbYResults, grbDeltaxResults, grbDeltayResults, alpha);
-			assert GRBSolverUtils.consistencyCheckResults(grbXResults, grbDeltaxResults, mExplicitMDP, feasTol);
-			assert GRBSolverUtils.consistencyCheckResults(grbYResults, grbDeltayResults, mExplicitMDP, feasTol);
+			// LP solution
+			LPSolution solution = new LPSolution(hasSolution, objectiveValue);
+			solution.addSolution("x", xResults);
+			solution.addSolution("y", yResults);
+			solution.setRunningTimes(model.getBuildTime(), model.getSolveTime());
+			return solution;
+		} finally {
+			// Dispose of model, also on failure
+			model.dispose();
 		}
-
-		// Dispose of model and environment
-		model.dispose();
-		env.dispose();
-
-		// LP solution
-		LPSolution solution = new LPSolution(numSolutions > 0, objectiveValue);
-		solution.addSolution("x", xResults);
-		solution.addSolution("y", yResults);
-		return solution;
 	}
 
 	/**
@@ -267,25 +263,26 @@ public class AverageCostMDPSolver {
 	 * @param xVars
 	 *            : Optimization x variables
 	 * @param model
-	 *            : GRB model to which to add the constraints
-	 * @throws GRBException
+	 *            : LP model to which to add the constraints
+	 * @throws LPSolverException
 	 */
-	private void addC1Constraints(GRBVar[][] xVars, GRBModel model) throws GRBException {
+	private void addC1Constraints(int[] xVars, LPModel model) throws LPSolverException {
 		int n = mExplicitMDP.getNumStates();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		for (int i = 0; i < n; i++) {
-			String constraintName = "constraintC1_" + i;
+			String constraintName = model.createName("constraintC1", i);
 			// out_x(i) - in_x(i) = 0
-			GRBLinExpr constraintLinExpr = new GRBLinExpr();
 
 			// Expression += out_x(i)
-			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, xVars, constraintTerms);
 
 			// Expression -= in_x(i)
-			GRBSolverUtils.addInTerm(i, -1, mExplicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addInTerm(i, -1, mExplicitMDP, xVars, constraintTerms);
 
 			// Add constraint
-			model.addConstr(constraintLinExpr, GRB.EQUAL, 0, constraintName);
+			model.addConstr(constraintTerms, ConstraintSense.EQUAL, 0, constraintName);
+			constraintTerms.clear();
 		}
 	}
 
@@ -299,42 +296,43 @@ public class AverageCostMDPSolver {
 	 * @param yVars
 	 *            : Optimization y variables
 	 * @param model
-	 *            : GRB model to which to add the constraints
-	 * @throws GRBException
+	 *            : LP model to which to add the constraints
+	 * @throws LPSolverException
 	 */
-	private void addC2Constraints(double[] alpha, GRBVar[][] xVars, GRBVar[][] yVars, GRBModel model)
-			throws GRBException {
+	private void addC2Constraints(double[] alpha, int[] xVars, int[] yVars,
+			LPModel model) throws LPSolverException {
 		int n = mExplicitMDP.getNumStates();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		for (int i = 0; i < n; i++) {
-			String constraintName = "constraintC2_" + i;
+			String constraintName = model.createName("constraintC2", i);
 			// out_x(i) + out_y(i) - in_y(i) = alpha_i
-			GRBLinExpr constraintLinExpr = new GRBLinExpr();
 
 			// Expression += out_x(i)
-			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, xVars, constraintTerms);
 
 			// Expression += out_y(i)
-			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, yVars, constraintLinExpr);
+			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, yVars, constraintTerms);
 
 			// Expression -= in_y(i)
-			GRBSolverUtils.addInTerm(i, -1, mExplicitMDP, yVars, constraintLinExpr);
+			GRBSolverUtils.addInTerm(i, -1, mExplicitMDP, yVars, constraintTerms);
 
 			// Add constraint
-			model.addConstr(constraintLinExpr, GRB.EQUAL, alpha[i], constraintName);
+			model.addConstr(constraintTerms, ConstraintSense.EQUAL, alpha[i], constraintName);
+			constraintTerms.clear();
 		}
 	}
 
-	private void verifyAllConstraints(double[][] xResults, double[][] yResults, double[][] deltaxResults,
-			double[][] deltayResults, double[] alpha) {
+	private void verifyAllConstraints(double[] xResults, double[] yResults, double[] deltaxResults,
+			double[] deltayResults, double[] alpha) {
 		double feasTol = mSettings.getFeasibilityTolerance();
 
 		assert consistencyCheckC1Constraints(xResults);
 		assert consistencyCheckC2Constraints(xResults, yResults, alpha);
 		assert GRBSolverUtils.consistencyCheckDeltaConstraints(deltaxResults, mExplicitMDP);
-		assert GRBSolverUtils.consistencyCheckVarDeltaConstraints(xResults, deltaxResults, 1.0, mExplicitMDP, feasTol);
+		assert GRBSolverUtils.consistencyCheckVarDeltaConstraints(xResults, deltaxResults, 1.0, feasTol);
 		assert GRBSolverUtils.consistencyCheckDeltaConstraints(deltayResults, mExplicitMDP);
-		assert GRBSolverUtils.consistencyCheckVarDeltaConstraints(yResults, deltayResults, 1.0, mExplicitMDP, feasTol);
+		assert GRBSolverUtils.consistencyCheckVarDeltaConstraints(yResults, deltayResults, 1.0, feasTol);
 		if (mHardConstraints != null) {
 			assert GRBSolverUtils.consistencyCheckCostConstraints(xResults, mHardConstraints, mExplicitMDP, feasTol);
 		}
@@ -346,7 +344,7 @@ public class AverageCostMDPSolver {
 	 * @param xResults
 	 * @return Whether (C1) is satisfied
 	 */
-	private boolean consistencyCheckC1Constraints(double[][] xResults) {
+	private boolean consistencyCheckC1Constraints(double[] xResults) {
 		int n = mExplicitMDP.getNumStates();
 
 		for (int i = 0; i < n; i++) {
@@ -370,7 +368,7 @@ public class AverageCostMDPSolver {
 	 * @param alpha
 	 * @return Whether (C2) is satisfied
 	 */
-	private boolean consistencyCheckC2Constraints(double[][] xResults, double[][] yResults, double[] alpha) {
+	private boolean consistencyCheckC2Constraints(double[] xResults, double[] yResults, double[] alpha) {
 		int n = mExplicitMDP.getNumStates();
 
 		for (int i = 0; i < n; i++) {
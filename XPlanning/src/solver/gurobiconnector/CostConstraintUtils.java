@@ -4,11 +4,6 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
-import gurobi.GRB;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
 import language.domain.metrics.IQFunction;
 import language.exceptions.QFunctionNotFoundException;
 import language.objectives.AttributeConstraint;
@@ -17,6 +12,11 @@ import language.objectives.IPenaltyFunction;
 import solver.common.CostType;
 import solver.common.ExplicitMDP;
 import solver.common.NonStrictConstraint;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.LPTermBuffer;
+import solver.lpsolver.VarType;
 import solver.prismconnector.QFunctionEncodingScheme;
 
 public class CostConstraintUtils {
@@ -93,11 +93,11 @@ public class CostConstraintUtils {
 	 * @param xVars
 	 *            : Occupation measure variables: x_ia
 	 * @param model
-	 *            : GRB model to which to add the constraints
-	 * @throws GRBException
+	 *            : LP model to which to add the constraints
+	 * @throws LPSolverException
 	 */
 	public static void addHardCostConstraints(NonStrictConstraint[] hardConstraints, ExplicitMDP explicitMDP,
-			GRBVar[][] xVars, GRBModel model) throws GRBException {
+			int[] xVars, LPModel model) throws LPSolverException {
 		// Constraints: sum_i,a(c^k_ia * x_ia) <= HUB_k (or >= HLB_k), for all k
 		// OR
 		// sum_i,a(c^k_i * x_ia) <= HUB_k (or >= HLB_k), for all k
@@ -125,12 +125,24 @@ public class CostConstraintUtils {
 	 * @param xVars
 	 *            : Occupation measure variables
 	 * @param model
-	 *            : GRB model to which to add the constraint
-	 * @throws GRBException
+	 *            : LP model to which to add the constraint
+	 * @return Index of the constraint in the model
+	 * @throws LPSolverException
 	 */
-	public static void addHardCostConstraint(int costFuncIndex, NonStrictConstraint hardConstraint,
-			ExplicitMDP explicitMDP, GRBVar[][] xVars, GRBModel model) throws GRBException {
-		addCostConstraint(costFuncIndex, hardConstraint, explicitMDP, xVars, null, model);
+	public static int addHardCostConstraint(int costFuncIndex, NonStrictConstraint hardConstraint,
+			ExplicitMDP explicitMDP, int[] xVars, LPModel model) throws LPSolverException {
+		return addCostConstraint(costFuncIndex, hardConstraint, explicitMDP, xVars, -1, model);
+	}
+
+	/**
+	 * 
+	 * @param constraint
+	 *            : Non-strict (hard or soft) constraint
+	 * @return LESS_EQUAL for upper-bound constraint, or GREATER_EQUAL for lower-bound constraint
+	 */
+	public static ConstraintSense getConstraintSense(NonStrictConstraint constraint) {
+		return constraint.getBoundType() == BOUND_TYPE.UPPER_BOUND ? ConstraintSense.LESS_EQUAL
+				: ConstraintSense.GREATER_EQUAL;
 	}
 
 	/**
@@ -145,12 +157,12 @@ public class CostConstraintUtils {
 	 * @param xVars
 	 *            : Occupation measure variables
 	 * @param model
-	 *            : GRB model to which to add the constraint
-	 * @throws GRBException
+	 *            : LP model to which to add the constraint
+	 * @throws LPSolverException
 	 */
 	public static void addSoftCostConstraints(NonStrictConstraint[] softConstraints,
-			NonStrictConstraint[] hardConstraints, ExplicitMDP explicitMDP, GRBVar[][] xVars, GRBModel model)
-			throws GRBException {
+			NonStrictConstraint[] hardConstraints, ExplicitMDP explicitMDP, int[] xVars,
+			LPModel model) throws LPSolverException {
 		for (int k = 0; k < softConstraints.length; k++) {
 			if (softConstraints[k] == null) {
 				// Skip -- there is no soft constraint on the k-th cost function
@@ -181,17 +193,17 @@ public class CostConstraintUtils {
 	 * @param xVars
 	 *            : Occupation measure variables: x_ia
 	 * @param model
-	 *            : GRB model to which to add the constraint
-	 * @throws GRBException
+	 *            : LP model to which to add the constraint
+	 * @throws LPSolverException
 	 */
 	public static void addSoftCostConstraint(int costFuncIndex, NonStrictConstraint softConstraint,
-			NonStrictConstraint hardConstraint, ExplicitMDP explicitMDP, GRBVar[][] xVars, GRBModel model)
-			throws GRBException {
+			NonStrictConstraint hardConstraint, ExplicitMDP explicitMDP, int[] xVars, LPModel model)
+			throws LPSolverException {
 		// Maximum violation
 		double vMax = Math.abs(hardConstraint.getBoundValue() - softConstraint.getBoundValue());
 
 		// Violation variable
-		GRBVar vVar = model.addVar(0.0, vMax, 0.0, GRB.CONTINUOUS, "v_" + costFuncIndex);
+		int vVar = model.addVar(0.0, vMax, VarType.CONTINUOUS, "v_" + costFuncIndex);
 
 		// Soft constraint
 		addCostConstraint(costFuncIndex, softConstraint, explicitMDP, xVars, vVar, model);
@@ -212,12 +224,12 @@ public class CostConstraintUtils {
 
 			// alpha_i variables, i = 1...m
 			// alpha_0 is not used
-			GRBVar[] alphaVars = GRBSolverUtils.createOptimizationVars("alpha_" + costFuncIndex, GRB.CONTINUOUS, m + 1,
+			int[] alphaVars = GRBSolverUtils.createOptimizationVars("alpha_" + costFuncIndex, VarType.CONTINUOUS, m + 1,
 					0.0, 1.0, model);
 
 			// h_i variables, i = 0...m
 			// h_0 and h_m are treated as constant 0
-			GRBVar[] hVars = GRBSolverUtils.createOptimizationVars("h_" + costFuncIndex, GRB.BINARY, m + 1, 0.0, 1.0,
+			int[] hVars = GRBSolverUtils.createOptimizationVars("h_" + costFuncIndex, VarType.BINARY, m + 1, 0.0, 1.0,
 					model);
 
 			// Violation and penalty samples
@@ -255,58 +267,60 @@ public class CostConstraintUtils {
 	 * @param xVars
 	 *            : Occupation measure variables: x_ia
 	 * @param vVar
-	 *            : Violation variable: v (null for hard constraint)
+	 *            : Violation variable: v (-1 for hard constraint)
 	 * @param model
-	 *            : GRB model to which to add the constraint
-	 * @throws GRBException
+	 *            : LP model to which to add the constraint
+	 * @return Index of the constraint in the model
+	 * @throws LPSolverException
 	 */
-	private static void addCostConstraint(int costFuncIndex, NonStrictConstraint constraint, ExplicitMDP explicitMDP,
-			GRBVar[][] xVars, GRBVar vVar, GRBModel model) throws GRBException {
+	private static int addCostConstraint(int costFuncIndex, NonStrictConstraint constraint, ExplicitMDP explicitMDP,
+			int[] xVars, int vVar, LPModel model) throws LPSolverException {
 		// Expression: sum_i,a (x_ia * C_k(i,a))
-		GRBLinExpr constraintLinExpr = createCostTerm(costFuncIndex, explicitMDP, xVars);
+		LPTermBuffer constraintTerms = createCostTerm(costFuncIndex, explicitMDP, xVars);
 
 		if (constraint.isSoftConstraint() && constraint.getBoundType() == BOUND_TYPE.UPPER_BOUND) {
 			// For upper-bound soft constraint: sum_i,a (x_ia * C_k(i,a)) - v
-			constraintLinExpr.addTerm(-1, vVar);
+			constraintTerms.addTerm(-1, vVar);
 		} else if (constraint.isSoftConstraint() && constraint.getBoundType() == BOUND_TYPE.LOWER_BOUND) {
 			// For lower-bound soft constraint: sum_i,a (x_ia * C_k(i,a)) + v
-			constraintLinExpr.addTerm(1, vVar);
+			constraintTerms.addTerm(1, vVar);
 		}
 
-		String constraintName = "constraintC_" + costFuncIndex + (constraint.isSoftConstraint() ? "_soft" : "_hard");
+		String constraintName = model.createName(
+				"constraintC_" + costFuncIndex + (constraint.isSoftConstraint() ? "_soft" : "_hard"));
 
 		// Add constraint: [...] <= UB_k or >= LB_k
-		char sense = constraint.getBoundType() == BOUND_TYPE.UPPER_BOUND ? GRB.LESS_EQUAL : GRB.GREATER_EQUAL;
-		model.addConstr(constraintLinExpr, sense, constraint.getBoundValue(), constraintName);
+		return model.addConstr(constraintTerms, getConstraintSense(constraint), constraint.getBoundValue(),
+				constraintName);
 	}
 
-	private static GRBLinExpr createCostTerm(int costFuncIndex, ExplicitMDP explicitMDP, GRBVar[][] xVars) {
+	private static LPTermBuffer createCostTerm(int costFuncIndex, ExplicitMDP explicitMDP, int[] xVars) {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
 
-		// Expression: sum_i,a (x_ia * C_k(i,a))
-		GRBLinExpr constraintLinExpr = new GRBLinExpr();
+		// Coefficients are indexed by the sparse (state, action) layout, same as x_ia
+		double[] stepCosts = new double[xVars.length];
 
 		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any x_ia term when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					// Transition k-cost: c^k_ia
-					// OR
-					// State k-cost: c^k_i
-					double stepCost = explicitMDP.getCostType() == CostType.TRANSITION_COST
-							? explicitMDP.getTransitionCost(costFuncIndex, i, a)
-							: explicitMDP.getStateCost(costFuncIndex, i);
-
-					// c^k_ia * x_ia
-					// OR
-					// c^k_i * x_ia
-					constraintLinExpr.addTerm(stepCost, xVars[i][a]);
-				}
+			// Only the enabled (state, action) pairs have x_ia variables
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				int a = explicitMDP.getActionOfStateActionPair(ia);
+
+				// Transition k-cost: c^k_ia
+				// OR
+				// State k-cost: c^k_i
+				double stepCost = explicitMDP.getCostType() == CostType.TRANSITION_COST
+						? explicitMDP.getTransitionCost(costFuncIndex, i, a)
+						: explicitMDP.getStateCost(costFuncIndex, i);
+
+				stepCosts[ia] = stepCost;
 			}
 		}
 
-		return constraintLinExpr;
+		// Expression: sum_i,a (x_ia * C_k(i,a))
+		LPTermBuffer constraintTerms = new LPTermBuffer();
+		constraintTerms.addTerms(stepCosts, xVars);
+		return constraintTerms;
 	}
 
 	/**
@@ -317,12 +331,14 @@ public class CostConstraintUtils {
 	 * @param vVar
 	 *            : Violation variable
 	 * @param model
-	 *            : GRB model to add the penalty term to its objective function
-	 * @throws GRBException
+	 *            : LP model to add the penalty term to its objective function
+	 * @throws LPSolverException
 	 */
-	private static void addLinearPenaltyTerm(double scalingConst, GRBVar vVar, GRBModel model) throws GRBException {
-		// Primary objective is at index 0
-		model.getObjective(0).addTerm(scalingConst, vVar);
+	private static void addLinearPenaltyTerm(double scalingConst, int vVar, LPModel model)
+			throws LPSolverException {
+		LPTermBuffer penaltyTerms = new LPTermBuffer();
+		penaltyTerms.addTerm(scalingConst, vVar);
+		model.addObjectiveTerms(penaltyTerms);
 	}
 
 	/**
@@ -338,15 +354,20 @@ public class CostConstraintUtils {
 	 * @param alphaVars
 	 *            : [ alpha_0 (not used), alpha_1, ..., alpha_m ]
 	 * @param model
-	 *            : GRB model to add the penalty term to its objective function
-	 * @throws GRBException
+	 *            : LP model to add the penalty term to its objective function
+	 * @throws LPSolverException
 	 */
 	private static void addNonlinearPenaltyTerm(int numSamples, Double[] penaltySamples, double scalingConst,
-			GRBVar[] alphaVars, GRBModel model) throws GRBException {
+			int[] alphaVars, LPModel model) throws LPSolverException {
+		// Coefficients are aligned to the sample indices, same as alpha_i
+		double[] penaltyCoeffs = new double[numSamples + 1];
 		for (int i = 1; i <= numSamples; i++) {
-			// Primary objective is at index 0
-			model.getObjective(0).addTerm(penaltySamples[i] * scalingConst, alphaVars[i]);
+			penaltyCoeffs[i] = penaltySamples[i] * scalingConst;
 		}
+
+		LPTermBuffer penaltyTerms = new LPTermBuffer();
+		penaltyTerms.addTerms(penaltyCoeffs, alphaVars, 1, numSamples);
+		model.addObjectiveTerms(penaltyTerms);
 	}
 
 	/**
@@ -374,11 +395,11 @@ public class CostConstraintUtils {
 	 * @param vVar
 	 *            : Violation variable
 	 * @param model
-	 *            : GRB model to which to add the constraints
-	 * @throws GRBException
+	 *            : LP model to which to add the constraints
+	 * @throws LPSolverException
 	 */
 	private static void addNonlinearPenaltyConstraints(int costFuncIndex, int numSamples, Double[] vSamples,
-			GRBVar[] hVars, GRBVar[] alphaVars, GRBVar vVar, GRBModel model) throws GRBException {
+			int[] hVars, int[] alphaVars, int vVar, LPModel model) throws LPSolverException {
 		addHConstraint(costFuncIndex, numSamples, hVars, model);
 		addAlphaHConstraints(costFuncIndex, numSamples, hVars, alphaVars, model);
 		addAlphaConstraint(costFuncIndex, numSamples, alphaVars, model);
@@ -395,20 +416,21 @@ public class CostConstraintUtils {
 	 * @param numSamples
 	 * @param hVars
 	 * @param model
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	private static void addHConstraint(int costFuncIndex, int numSamples, GRBVar[] hVars, GRBModel model)
-			throws GRBException {
+	private static void addHConstraint(int costFuncIndex, int numSamples, int[] hVars, LPModel model)
+			throws LPSolverException {
 		// Constraint: sum_{i=1 to m-1} h_i = 1
 
 		// Expression: sum_{i=1 to m-1} h_i
-		GRBLinExpr hConstraintLinExpr = new GRBLinExpr();
-		for (int i = 1; i <= numSamples - 1; i++) {
-			hConstraintLinExpr.addTerm(1, hVars[i]);
-		}
+		double[] ones = new double[numSamples];
+		Arrays.fill(ones, 1);
+		LPTermBuffer hConstraintTerms = new LPTermBuffer();
+		hConstraintTerms.addTerms(ones, hVars, 1, numSamples - 1);
 
 		// Add constraint: sum_{i=1 to m-1} h_i = 1
-		model.addConstr(hConstraintLinExpr, GRB.EQUAL, 1, "constraint_h_" + costFuncIndex);
+		model.addConstr(hConstraintTerms, ConstraintSense.EQUAL, 1,
+				model.createName("constraint_h", costFuncIndex));
 	}
 
 	/**
@@ -422,32 +444,33 @@ public class CostConstraintUtils {
 	 * @param hVars
 	 * @param alphaVars
 	 * @param model
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	private static void addAlphaHConstraints(int costFuncIndex, int numSamples, GRBVar[] hVars, GRBVar[] alphaVars,
-			GRBModel model) throws GRBException {
+	private static void addAlphaHConstraints(int costFuncIndex, int numSamples, int[] hVars, int[] alphaVars,
+			LPModel model) throws LPSolverException {
 		// Constraints: alpha_i <= h_{i-1} + h_i, for i = 1,...,m
 
+		LPTermBuffer constraintTerms = new LPTermBuffer();
+
 		for (int i = 1; i <= numSamples; i++) {
-			String constraintName = "constraint_alphah_" + costFuncIndex + "_" + i;
+			String constraintName = model.createName("constraint_alphah_" + costFuncIndex, i);
 
 			// LHS expression: alpha_i
-			GRBLinExpr alphaLinExpr = new GRBLinExpr();
-			alphaLinExpr.addTerm(1, alphaVars[i]);
+			constraintTerms.addTerm(1, alphaVars[i]);
 
-			// RHS expression: h_{i-1} + h_i
-			GRBLinExpr hLinExpr = new GRBLinExpr();
+			// RHS expression: h_{i-1} + h_i, moved to LHS
 
 			if (i > 1) {
-				hLinExpr.addTerm(1, hVars[i - 1]);
+				constraintTerms.addTerm(-1, hVars[i - 1]);
 			} // Dummy variable: h_0 = 0
 
 			if (i < numSamples) {
-				hLinExpr.addTerm(1, hVars[i]);
+				constraintTerms.addTerm(-1, hVars[i]);
 			} // Dummy variable: h_m = 0
 
-			// Add constraint: alpha_i <= h_{i-1} + h_i
-			model.addConstr(alphaLinExpr, GRB.LESS_EQUAL, hLinExpr, constraintName);
+			// Add constraint: alpha_i - (h_{i-1} + h_i) <= 0
+			model.addConstr(constraintTerms, ConstraintSense.LESS_EQUAL, 0, constraintName);
+			constraintTerms.clear();
 		}
 	}
 
@@ -461,20 +484,21 @@ public class CostConstraintUtils {
 	 * @param numSamples
 	 * @param alphaVars
 	 * @param model
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	private static void addAlphaConstraint(int costFuncIndex, int numSamples, GRBVar[] alphaVars, GRBModel model)
-			throws GRBException {
+	private static void addAlphaConstraint(int costFuncIndex, int numSamples, int[] alphaVars,
+			LPModel model) throws LPSolverException {
 		// Constraint: sum_{i=1 to m} alpha_i = 1
 
 		// Expression: sum_{i=1 to m} alpha_i
-		GRBLinExpr alphaConstraintLinExpr = new GRBLinExpr();
-		for (int i = 1; i <= numSamples; i++) {
-			alphaConstraintLinExpr.addTerm(1, alphaVars[i]);
-		}
+		double[] ones = new double[numSamples + 1];
+		Arrays.fill(ones, 1);
+		LPTermBuffer alphaConstraintTerms = new LPTermBuffer();
+		alphaConstraintTerms.addTerms(ones, alphaVars, 1, numSamples);
 
 		// Add constraint: sum_{i=1 to m} alpha_i = 1
-		model.addConstr(alphaConstraintLinExpr, GRB.EQUAL, 1, "constraint_alpha_" + costFuncIndex);
+		model.addConstr(alphaConstraintTerms, ConstraintSense.EQUAL, 1,
+				model.createName("constraint_alpha", costFuncIndex));
 	}
 
 	/**
@@ -489,23 +513,23 @@ public class CostConstraintUtils {
 	 * @param alphaVars
 	 * @param vVar
 	 * @param model
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	private static void addAlphaVConstraint(int costFuncIndex, int numSamples, Double[] vSamples, GRBVar[] alphaVars,
-			GRBVar vVar, GRBModel model) throws GRBException {
+	private static void addAlphaVConstraint(int costFuncIndex, int numSamples, Double[] vSamples, int[] alphaVars,
+			int vVar, LPModel model) throws LPSolverException {
 		// Constraint: v = sum_{i=1 to m} alpha_i * v_i
 
 		// LHS expression: v
-		GRBLinExpr vLinExpr = new GRBLinExpr();
-		vLinExpr.addTerm(1, vVar);
+		LPTermBuffer constraintTerms = new LPTermBuffer();
+		constraintTerms.addTerm(1, vVar);
 
-		// RHS expression: sum_{i=1 to m} alpha_i * v_i
-		GRBLinExpr alphavLinExpr = new GRBLinExpr();
+		// RHS expression: sum_{i=1 to m} alpha_i * v_i, moved to LHS
 		for (int i = 1; i <= numSamples; i++) {
-			alphavLinExpr.addTerm(vSamples[i], alphaVars[i]);
+			constraintTerms.addTerm(-vSamples[i], alphaVars[i]);
 		}
 
-		// Add constraint: v = sum_{i=1 to m} alpha_i * v_i
-		model.addConstr(vLinExpr, GRB.EQUAL, alphavLinExpr, "constraint_alphav_" + costFuncIndex);
+		// Add constraint: v - sum_{i=1 to m} alpha_i * v_i = 0
+		model.addConstr(constraintTerms, ConstraintSense.EQUAL, 0,
+				model.createName("constraint_alphav", costFuncIndex));
 	}
 }
@@ -1,15 +1,20 @@
 package solver.gurobiconnector;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import explanation.analysis.PolicyInfo;
-import gurobi.GRBException;
 import language.domain.metrics.IQFunction;
 import language.exceptions.QFunctionNotFoundException;
+import language.exceptions.VarNotFoundException;
 import language.exceptions.XMDPException;
 import language.mdp.XMDP;
 import language.objectives.AttributeConstraint;
@@ -18,16 +23,32 @@ import language.objectives.CostCriterion;
 import language.objectives.CostFunction;
 import language.objectives.IAdditiveCostFunction;
 import language.policy.Policy;
+import solver.common.BisimulationQuotient;
 import solver.common.ExplicitMDP;
 import solver.common.ExplicitModelChecker;
 import solver.common.LPSolution;
+import solver.common.LagrangianConstrainedSSPSolver;
 import solver.common.NonStrictConstraint;
+import solver.common.ParallelValueIterationSolver;
+import solver.common.ReachabilityReduction;
+import solver.common.RelativeValueIterationSolver;
+import solver.common.TopologicalValueIterationSolver;
+import solver.common.ValueIterationSolver;
+import solver.lpsolver.LPSolverException;
 import solver.prismconnector.QFunctionEncodingScheme;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.explicitmodel.ExplicitMDPReader;
 import solver.prismconnector.explicitmodel.PrismExplicitModelReader;
 
-public class GRBConnector {
+/**
+ * {@link GRBConnector} solves XMDPs from their PRISM explicit model files, using value iteration or LP/MILP. A
+ * connector may keep a persistent solver session across solves; it should be closed when it is no longer used. The LP
+ * solver environments are pooled by the LP solver backend, and shared across connectors.
+ *
+ * A connector can be used by multiple threads at the same time. The persistent solver session serves one solve at a
+ * time; a solve that is started while the session is busy builds its own explicit MDP and model instead.
+ */
+public class GRBConnector implements AutoCloseable {
 
 	private XMDP mXMDP;
 	private CostCriterion mCostCriterion;
@@ -36,14 +57,23 @@ public class GRBConnector {
 	private ExplicitMDPReader mExplicitMDPReader;
 	private GRBPolicyReader mPolicyReader;
 
-	// Explicit MDP corresponding to the given XMDP but with empty slots for objective costs (unused)
+	// Explicit MDP corresponding to the given XMDP but with empty slots for objective costs (unused, except by the
+	// persistent solver session)
 	private ExplicitMDP mExplicitMDP;
 
+	// Persistent solver session for constrained total-cost problems, on the reduction of mExplicitMDP; created on
+	// demand, and disposed of when this connector is closed. The reduction is also reused by re-weighted solves.
+	private ReachabilityReduction mReduction;
+	private SSPSolverSession mSSPSolverSession;
+
+	// Guards mExplicitMDP objective costs, mReduction, and mSSPSolverSession
+	private final ReentrantLock mSessionLock = new ReentrantLock();
+
 	// Keep track of LP solution corresponding to each policy computed by GRBSolver
-	private Map<Policy, LPSolution> mPolicyToLPSolution = new HashMap<>();
+	private Map<Policy, LPSolution> mPolicyToLPSolution = new ConcurrentHashMap<>();
 
 	public GRBConnector(XMDP xmdp, CostCriterion costCriterion, GRBConnectorSettings settings)
-			throws IOException, ExplicitModelParsingException {
+			throws IOException, ExplicitModelParsingException, VarNotFoundException {
 		mXMDP = xmdp;
 		mCostCriterion = costCriterion;
 		mSettings = settings;
@@ -64,18 +94,75 @@ public class GRBConnector {
 	 * @throws IOException
 	 * @throws ExplicitModelParsingException
 	 * @throws XMDPException
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
 	public PolicyInfo generateOptimalPolicy()
-			throws IOException, ExplicitModelParsingException, XMDPException, GRBException {
-		// Create a new ExplicitMDP for every new objective function, because this method will fill in the
-		// ExplicitMDP with the objective costs
+			throws IOException, ExplicitModelParsingException, XMDPException, LPSolverException {
+		// Create a new ExplicitMDP (objective overlay) for every new objective function, because this method will
+		// fill in the ExplicitMDP with the objective costs
 		ExplicitMDP explicitMDP = mExplicitMDPReader.readExplicitMDP(mXMDP.getCostFunction());
 
 		// Compute optimal policy, without any cost constraint
 		return generateOptimalPolicy(explicitMDP, null, null);
 	}
 
+	/**
+	 * Generate an optimal policy for this unconstrained MDP with the given cost function, which must be over the same
+	 * attribute cost functions as the cost function of the XMDP, but may have different scaling constants. This is the
+	 * fast path for sweeps over the scaling constants: the explicit MDP and its reachability reduction are reused, and
+	 * only the objective costs are recomputed before re-solving.
+	 * 
+	 * @param costFunction
+	 *            : Re-weighted cost function of the XMDP
+	 * @return Optimal policy, whose policy information is with respect to the given cost function
+	 * @throws XMDPException
+	 * @throws IOException
+	 * @throws LPSolverException
+	 */
+	public PolicyInfo generateOptimalPolicy(CostFunction costFunction)
+			throws XMDPException, IOException, LPSolverException {
+		XMDP reweightedXMDP = new XMDP(mXMDP.getStateSpace(), mXMDP.getActionSpace(), mXMDP.getInitialState(),
+				mXMDP.getGoal(), mXMDP.getTransitionFunction(), mXMDP.getQSpace(), costFunction);
+
+		mSessionLock.lock();
+		try {
+			mExplicitMDPReader.setObjectiveFunction(mExplicitMDP, costFunction);
+
+			double[] policyMatrix;
+			LPSolution solution;
+
+			if (mCostCriterion == CostCriterion.TOTAL_COST) {
+				ReachabilityReduction reduction = getReduction();
+				if (!reduction.hasProperPolicy()) {
+					return null;
+				}
+				reduction.updateObjectiveCosts();
+
+				ExplicitMDP reducedMDP = reduction.getReducedMDP();
+				double[] reducedPolicyMatrix = new double[reducedMDP.getNumStateActionPairs()];
+				LPSolution reducedSolution = solveUnconstrainedSSP(reducedMDP, reducedPolicyMatrix);
+
+				// Map the solution back to the states of the original MDP
+				policyMatrix = reduction.liftStateActionValues(reducedPolicyMatrix);
+				solution = reduction.liftSolution(reducedSolution);
+			} else {
+				policyMatrix = new double[mExplicitMDP.getNumStateActionPairs()];
+				solution = solveUnconstrainedAverageCostMDP(mExplicitMDP, policyMatrix);
+			}
+
+			if (!solution.exists()) {
+				return null;
+			}
+			Policy policy = mPolicyReader.readPolicyFromPolicyMatrix(policyMatrix, mExplicitMDP);
+			mPolicyToLPSolution.put(policy, solution);
+
+			// The objective costs of mExplicitMDP are those of the given cost function, while the session lock is held
+			return buildPolicyInfo(policy, reweightedXMDP, ExplicitMDP.OBJECTIVE_FUNCTION_INDEX);
+		} finally {
+			mSessionLock.unlock();
+		}
+	}
+
 	/**
 	 * Generate an optimal policy for this MDP with the given objective function and hard constraint.
 	 * 
@@ -87,11 +174,11 @@ public class GRBConnector {
 	 * @throws XMDPException
 	 * @throws IOException
 	 * @throws ExplicitModelParsingException
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
 	public PolicyInfo generateOptimalPolicy(IAdditiveCostFunction objectiveFunction,
 			AttributeConstraint<IQFunction<?, ?>> attrHardConstraint)
-			throws XMDPException, IOException, ExplicitModelParsingException, GRBException {
+			throws XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
 		Set<AttributeConstraint<IQFunction<?, ?>>> attrHardConstraints = new HashSet<>();
 		attrHardConstraints.add(attrHardConstraint);
 		return generateOptimalPolicy(objectiveFunction, attrHardConstraints);
@@ -111,12 +198,12 @@ public class GRBConnector {
 	 * @throws XMDPException
 	 * @throws IOException
 	 * @throws ExplicitModelParsingException
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
 	public PolicyInfo generateOptimalPolicy(IAdditiveCostFunction objectiveFunction,
 			AttributeConstraint<IQFunction<?, ?>> attrSoftConstraint,
 			AttributeConstraint<IQFunction<?, ?>> attrHardConstraint)
-			throws XMDPException, IOException, ExplicitModelParsingException, GRBException {
+			throws XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
 		Set<AttributeConstraint<IQFunction<?, ?>>> attrSoftConstraints = new HashSet<>();
 		Set<AttributeConstraint<IQFunction<?, ?>>> attrHardConstraints = new HashSet<>();
 		attrSoftConstraints.add(attrSoftConstraint);
@@ -126,15 +213,25 @@ public class GRBConnector {
 
 	public PolicyInfo generateOptimalPolicy(IAdditiveCostFunction objectiveFunction,
 			Set<AttributeConstraint<IQFunction<?, ?>>> attrHardConstraints)
-			throws IOException, ExplicitModelParsingException, XMDPException, GRBException {
-		// Create a new ExplicitMDP for every new objective function, because this method will fill in the
-		// ExplicitMDP with the objective costs
-		ExplicitMDP explicitMDP = mExplicitMDPReader.readExplicitMDP(objectiveFunction);
-
+			throws IOException, ExplicitModelParsingException, XMDPException, LPSolverException {
 		// Explicit hard (upper or lower) bounds
 		NonStrictConstraint[] indexedHardConstraints = CostConstraintUtils
 				.createIndexedNonStrictConstraints(attrHardConstraints, mQFunctionEncoding);
 
+		if (isIncrementalSolveApplicable() && mSessionLock.tryLock()) {
+			try {
+				// Reuse the ExplicitMDP and the model of the persistent solver session, with the new objective costs
+				mExplicitMDPReader.setObjectiveFunction(mExplicitMDP, objectiveFunction);
+				return generateOptimalPolicyIncrementally(indexedHardConstraints);
+			} finally {
+				mSessionLock.unlock();
+			}
+		}
+
+		// Create a new ExplicitMDP (objective overlay) for every new objective function, because this method will
+		// fill in the ExplicitMDP with the objective costs
+		ExplicitMDP explicitMDP = mExplicitMDPReader.readExplicitMDP(objectiveFunction);
+
 		// Compute optimal policy, with the cost constraints
 		return generateOptimalPolicy(explicitMDP, null, indexedHardConstraints);
 	}
@@ -142,9 +239,9 @@ public class GRBConnector {
 	public PolicyInfo generateOptimalPolicy(IAdditiveCostFunction objectiveFunction,
 			Set<AttributeConstraint<IQFunction<?, ?>>> attrSoftConstraints,
 			Set<AttributeConstraint<IQFunction<?, ?>>> attrHardConstraints)
-			throws XMDPException, IOException, ExplicitModelParsingException, GRBException {
-		// Create a new ExplicitMDP for every new objective function, because this method will fill in the
-		// ExplicitMDP with the objective costs
+			throws XMDPException, IOException, ExplicitModelParsingException, LPSolverException {
+		// Create a new ExplicitMDP (objective overlay) for every new objective function, because this method will
+		// fill in the ExplicitMDP with the objective costs
 		ExplicitMDP explicitMDP = mExplicitMDPReader.readExplicitMDP(objectiveFunction);
 
 		// Explicit soft (upper or lower) bounds
@@ -160,21 +257,201 @@ public class GRBConnector {
 	}
 
 	private PolicyInfo generateOptimalPolicy(ExplicitMDP explicitMDP, NonStrictConstraint[] softConstraints,
-			NonStrictConstraint[] hardConstraints) throws GRBException, XMDPException, IOException {
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
-		double[][] policyMatrix = new double[n][m];
+			NonStrictConstraint[] hardConstraints) throws LPSolverException, XMDPException, IOException {
+		// Policy matrix in the sparse (state, action) layout of the MDP
+		double[] policyMatrix = new double[explicitMDP.getNumStateActionPairs()];
 		LPSolution solution = null;
 
 		if (mCostCriterion == CostCriterion.TOTAL_COST) {
-			SSPSolver solver = new SSPSolver(explicitMDP, softConstraints, hardConstraints, mSettings);
-			solution = solver.solveOptimalPolicy(policyMatrix);
+			// Remove the states and actions that cannot be part of any proper policy from the initial state
+			ReachabilityReduction reduction = ReachabilityReduction.reduce(explicitMDP);
+			if (!reduction.hasProperPolicy()) {
+				return null;
+			}
+			ExplicitMDP reducedMDP = reduction.getReducedMDP();
+
+			// Merge bisimilar states
+			BisimulationQuotient quotient = null;
+			if (mSettings.isBisimulationMinimizationEnabled()) {
+				quotient = BisimulationQuotient.compute(reducedMDP);
+				reducedMDP = quotient.getQuotientMDP();
+			}
+
+			double[] reducedPolicyMatrix = new double[reducedMDP.getNumStateActionPairs()];
+			LPSolution reducedSolution;
+
+			if (softConstraints == null && hardConstraints == null) {
+				// Unconstrained SSP does not require MILP
+				reducedSolution = solveUnconstrainedSSP(reducedMDP, reducedPolicyMatrix);
+			} else {
+				// Single-constraint SSP may not require MILP
+				reducedSolution = softConstraints == null
+						? solveByLagrangianRelaxation(reducedMDP, hardConstraints, reducedPolicyMatrix)
+						: null;
+
+				if (reducedSolution == null) {
+					SSPSolver solver = new SSPSolver(reducedMDP, softConstraints, hardConstraints, mSettings);
+					reducedSolution = solver.solveOptimalPolicy(reducedPolicyMatrix);
+				}
+			}
+
+			// Map the solution back to the states of the original MDP
+			if (quotient != null) {
+				reducedPolicyMatrix = quotient.liftPolicyMatrix(reducedPolicyMatrix);
+				reducedSolution = quotient.liftSolution(reducedSolution, reducedPolicyMatrix);
+			}
+			policyMatrix = reduction.liftStateActionValues(reducedPolicyMatrix);
+			solution = reduction.liftSolution(reducedSolution);
+		} else if (mCostCriterion == CostCriterion.AVERAGE_COST && softConstraints == null && hardConstraints == null) {
+			solution = solveUnconstrainedAverageCostMDP(explicitMDP, policyMatrix);
 		} else if (mCostCriterion == CostCriterion.AVERAGE_COST) {
 			AverageCostMDPSolver solver = new AverageCostMDPSolver(explicitMDP, softConstraints, hardConstraints,
 					mSettings);
 			solution = solver.solveOptimalPolicy(policyMatrix);
 		}
 
+		return createPolicyInfo(policyMatrix, solution, explicitMDP);
+	}
+
+	private LPSolution solveUnconstrainedSSP(ExplicitMDP explicitMDP, double[] outputPolicy) throws LPSolverException {
+		if (mSettings.isUnconstrainedLPSolveEnabled()) {
+			// LP without the binary variables Delta_ia, solved for a basic solution
+			SSPSolver solver = new SSPSolver(explicitMDP, mSettings);
+			return solver.solveOptimalPolicy(outputPolicy);
+		}
+		return createValueIterationSolver(explicitMDP).solveOptimalPolicy(outputPolicy);
+	}
+
+	private ValueIterationSolver createValueIterationSolver(ExplicitMDP explicitMDP) {
+		int numThreads = mSettings.getValueIterationThreads();
+		return numThreads > 1
+				? new ParallelValueIterationSolver(explicitMDP, mSettings.getValueIterationEpsilon(),
+						ValueIterationSolver.DEFAULT_MAX_ITERATIONS, numThreads)
+				: new TopologicalValueIterationSolver(explicitMDP, mSettings.getValueIterationEpsilon(),
+						ValueIterationSolver.DEFAULT_MAX_ITERATIONS);
+	}
+
+	private LPSolution solveUnconstrainedAverageCostMDP(ExplicitMDP explicitMDP, double[] outputPolicy)
+			throws LPSolverException {
+		// Unconstrained average-cost MDP does not require MILP
+		RelativeValueIterationSolver solver = new RelativeValueIterationSolver(explicitMDP,
+				mSettings.getValueIterationEpsilon(), RelativeValueIterationSolver.DEFAULT_MAX_ITERATIONS,
+				RelativeValueIterationSolver.DEFAULT_APERIODICITY_FACTOR);
+		LPSolution solution = solver.solveOptimalPolicy(outputPolicy);
+
+		if (!solution.exists()) {
+			// Relative value iteration does not converge if the optimal average cost differs across states
+			Arrays.fill(outputPolicy, 0);
+			AverageCostMDPSolver milpSolver = new AverageCostMDPSolver(explicitMDP, mSettings);
+			solution = milpSolver.solveOptimalPolicy(outputPolicy);
+		}
+		return solution;
+	}
+
+	private ReachabilityReduction getReduction() {
+		if (mReduction == null) {
+			// The reduction only depends on the transition structure of the MDP
+			mReduction = ReachabilityReduction.reduce(mExplicitMDP);
+		}
+		return mReduction;
+	}
+
+	private boolean isIncrementalSolveApplicable() {
+		// The bisimulation quotient depends on the objective costs, so it cannot be reused across objective functions
+		return mCostCriterion == CostCriterion.TOTAL_COST && mSettings.isIncrementalSolveEnabled()
+				&& !mSettings.isBisimulationMinimizationEnabled();
+	}
+
+	/**
+	 * Generate an optimal policy for the current objective costs of mExplicitMDP and the given hard constraints, using
+	 * the persistent solver session. The session is created on the first call. The caller must hold the session lock.
+	 * 
+	 * @param hardConstraints
+	 *            : Indexed hard constraints
+	 * @return Optimal policy, or null if there is no solution
+	 * @throws LPSolverException
+	 * @throws XMDPException
+	 * @throws IOException
+	 */
+	private PolicyInfo generateOptimalPolicyIncrementally(NonStrictConstraint[] hardConstraints)
+			throws LPSolverException, XMDPException, IOException {
+		ReachabilityReduction reduction = getReduction();
+		if (!reduction.hasProperPolicy()) {
+			return null;
+		}
+		if (mSSPSolverSession == null) {
+			mSSPSolverSession = new SSPSolverSession(reduction.getReducedMDP(), mSettings);
+		}
+
+		reduction.updateObjectiveCosts();
+
+		ExplicitMDP reducedMDP = reduction.getReducedMDP();
+		double[] reducedPolicyMatrix = new double[reducedMDP.getNumStateActionPairs()];
+
+		// Single-constraint SSP may not require MILP
+		LPSolution reducedSolution = solveByLagrangianRelaxation(reducedMDP, hardConstraints, reducedPolicyMatrix);
+		if (reducedSolution == null) {
+			reducedSolution = mSSPSolverSession.solveOptimalPolicy(hardConstraints, reducedPolicyMatrix);
+		}
+
+		// Map the solution back to the states of the original MDP
+		double[] policyMatrix = reduction.liftStateActionValues(reducedPolicyMatrix);
+		LPSolution solution = reduction.liftSolution(reducedSolution);
+		return createPolicyInfo(policyMatrix, solution, mExplicitMDP);
+	}
+
+	/**
+	 * Solve an SSP with a single hard constraint by Lagrangian relaxation, if it is enabled. The solution is only
+	 * returned if it is optimal among all policies, and therefore the same as the MILP solution.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP of the SSP
+	 * @param hardConstraints
+	 *            : Indexed hard constraints
+	 * @param outputPolicy
+	 *            : Return parameter of optimal policy, in the sparse (state, action) layout of the MDP
+	 * @return Optimal solution, or null if the SSP has to be solved by MILP
+	 */
+	private LPSolution solveByLagrangianRelaxation(ExplicitMDP explicitMDP, NonStrictConstraint[] hardConstraints,
+			double[] outputPolicy) {
+		if (!mSettings.isLagrangianSolveEnabled() || hardConstraints == null) {
+			return null;
+		}
+
+		// Index of the single constrained cost function
+		int costFuncIndex = -1;
+		for (int k = 0; k < hardConstraints.length; k++) {
+			if (hardConstraints[k] != null && costFuncIndex != -1) {
+				return null;
+			} else if (hardConstraints[k] != null) {
+				costFuncIndex = k;
+			}
+		}
+		if (costFuncIndex == -1) {
+			return null;
+		}
+
+		LagrangianConstrainedSSPSolver solver = new LagrangianConstrainedSSPSolver(explicitMDP, costFuncIndex,
+				hardConstraints[costFuncIndex], mSettings.getValueIterationEpsilon(),
+				LagrangianConstrainedSSPSolver.DEFAULT_MAX_ITERATIONS,
+				LagrangianConstrainedSSPSolver.DEFAULT_GAP_TOLERANCE);
+		double[] policy = new double[explicitMDP.getNumStateActionPairs()];
+		LPSolution solution = solver.solveOptimalPolicy(policy);
+
+		// Without a provably optimal policy (e.g., when randomization would be needed), fall back to MILP
+		if (!solution.exists() || !solver.isOptimal()) {
+			return null;
+		}
+		System.arraycopy(policy, 0, outputPolicy, 0, policy.length);
+		return solution;
+	}
+
+	private PolicyInfo createPolicyInfo(double[] policyMatrix, LPSolution solution, ExplicitMDP explicitMDP)
+			throws XMDPException, IOException {
+		if (Thread.currentThread().isInterrupted()) {
+			// An interrupted solve stops without a solution: it does not mean that there is no solution policy
+			throw new InterruptedIOException("Solving the policy was interrupted");
+		}
 		if (solution != null && solution.exists()) {
 			Policy policy = mPolicyReader.readPolicyFromPolicyMatrix(policyMatrix, explicitMDP);
 			// Keep track of LP solution corresponding to each policy computed by GRBSolver
@@ -185,20 +462,75 @@ public class GRBConnector {
 		return null;
 	}
 
+	/**
+	 * Release the resources of the persistent solver session, if any, after any solve in progress on the session. The
+	 * session is re-created if this connector is used again.
+	 * 
+	 * @throws LPSolverException
+	 */
+	@Override
+	public void close() throws LPSolverException {
+		mSessionLock.lock();
+		try {
+			if (mSSPSolverSession != null) {
+				mSSPSolverSession.dispose();
+			}
+			mReduction = null;
+			mSSPSolverSession = null;
+		} finally {
+			mSessionLock.unlock();
+		}
+	}
+
 	public PolicyInfo buildPolicyInfo(Policy policy) throws QFunctionNotFoundException {
-		double objectiveCost = computeCost(policy);
-		PolicyInfo policyInfo = new PolicyInfo(mXMDP, policy, objectiveCost);
-		CostFunction costFunction = mXMDP.getCostFunction();
+		int costFuncIndex = mQFunctionEncoding.getRewardStructureIndex(mXMDP.getCostFunction());
+		return buildPolicyInfo(policy, mXMDP, costFuncIndex);
+	}
+
+	private PolicyInfo buildPolicyInfo(Policy policy, XMDP xmdp, int costFuncIndex) throws QFunctionNotFoundException {
+		CostFunction costFunction = xmdp.getCostFunction();
+
+		List<IQFunction<?, ?>> qFunctions = new ArrayList<>();
+		for (IQFunction<?, ?> qFunction : xmdp.getQSpace()) {
+			qFunctions.add(qFunction);
+		}
+		int numQFunctions = qFunctions.size();
+
+		// Evaluations: [cost, QA value of each QA, non-scaled QA cost of each QA]
+		int numEvaluations = 1 + 2 * numQFunctions;
+		int[] costFuncIndices = new int[numEvaluations];
+		double[] costShifts = new double[numEvaluations];
+		double[] costMultipliers = new double[numEvaluations];
+		Arrays.fill(costMultipliers, 1);
+
+		costFuncIndices[0] = costFuncIndex;
+		for (int q = 0; q < numQFunctions; q++) {
+			IQFunction<?, ?> qFunction = qFunctions.get(q);
+			AttributeCostFunction<?> attrCostFunction = costFunction.getAttributeCostFunction(qFunction);
+			int qaFuncIndex = mQFunctionEncoding.getRewardStructureIndex(qFunction);
+			costFuncIndices[1 + q] = qaFuncIndex;
+			costFuncIndices[1 + numQFunctions + q] = qaFuncIndex;
+			costShifts[1 + numQFunctions + q] = attrCostFunction.getIntercept();
+			costMultipliers[1 + numQFunctions + q] = attrCostFunction.getSlope();
+		}
+
+		// All evaluations in a single pass over the occupation measure
+		double[] xResults = mPolicyToLPSolution.get(policy).getSolution("x");
+		double[] results = ExplicitModelChecker.computeOccupancyCosts(xResults, costFuncIndices, costShifts,
+				costMultipliers, mExplicitMDP);
+
+		PolicyInfo policyInfo = new PolicyInfo(xmdp, policy, results[0]);
+
+		for (int q = 0; q < numQFunctions; q++) {
+			IQFunction<?, ?> qFunction = qFunctions.get(q);
 
-		for (IQFunction<?, ?> qFunction : mXMDP.getQSpace()) {
 			// QA value
-			double qaValue = computeQAValue(policy, qFunction);
-			policyInfo.putQAValue(qFunction, qaValue);
+			policyInfo.putQAValue(qFunction, results[1 + q]);
 
-			// Scaled QA cost
+			// Non-scaled and scaled QA costs
 			AttributeCostFunction<?> attrCostFunction = costFunction.getAttributeCostFunction(qFunction);
-			double nonScaledQACost = computeQACost(policy, qFunction);
-			double scaledQACost = nonScaledQACost * costFunction.getScalingConstant(attrCostFunction);
+			policyInfo.putQACost(qFunction, results[1 + numQFunctions + q]);
+			double scaledQACost = results[1 + numQFunctions + q] * costFunction.getScalingConstant(attrCostFunction);
 			policyInfo.putScaledQACost(qFunction, scaledQACost);
 
 			// TODO: compute event-based QA values
@@ -226,7 +558,7 @@ public class GRBConnector {
 
 	private double computeOccupancyCost(Policy policy, int costFuncIndex, double costShift, double costMultiplier) {
 		LPSolution solution = mPolicyToLPSolution.get(policy);
-		double[][] xResults = solution.getSolution("x");
+		double[] xResults = solution.getSolution("x");
 		return ExplicitModelChecker.computeOccupancyCost(xResults, costFuncIndex, costShift, costMultiplier,
 				mExplicitMDP);
 	}
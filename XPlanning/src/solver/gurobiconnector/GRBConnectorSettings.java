@@ -1,5 +1,9 @@
 package solver.gurobiconnector;
 
+import java.util.Objects;
+
+import solver.common.LagrangianConstrainedSSPSolver;
+import solver.common.ValueIterationSolver;
 import solver.prismconnector.explicitmodel.PrismExplicitModelReader;
 
 public class GRBConnectorSettings {
@@ -13,6 +17,14 @@ public class GRBConnectorSettings {
 	private double mIntFeasTol;
 	private double mFeasibilityTol;
 	private double mRoundOff;
+	private boolean mModelNamingEnabled;
+	private double mValueIterationEpsilon = ValueIterationSolver.DEFAULT_EPSILON;
+	private int mValueIterationThreads = 1;
+	private boolean mBisimulationMinimizationEnabled;
+	private String mLPSolverBackendName;
+	private boolean mIncrementalSolveEnabled = true;
+	private boolean mLagrangianSolveEnabled = true;
+	private boolean mUnconstrainedLPSolveEnabled;
 
 	public GRBConnectorSettings(PrismExplicitModelReader prismExplicitModelReader) {
 		this(prismExplicitModelReader, GRBSolverUtils.DEFAULT_INT_FEAS_TOL, GRBSolverUtils.DEFAULT_FEASIBILITY_TOL,
@@ -39,6 +51,142 @@ public class GRBConnectorSettings {
 		return mIntFeasTol;
 	}
 
+	/**
+	 * Variable and constraint names are only needed for debugging (e.g., when writing the model to a file). Naming is
+	 * disabled by default.
+	 * 
+	 * @param modelNamingEnabled
+	 *            : Whether to name the variables and constraints of GRB models
+	 */
+	public void setModelNamingEnabled(boolean modelNamingEnabled) {
+		mModelNamingEnabled = modelNamingEnabled;
+		hashCode = 0;
+	}
+
+	public boolean isModelNamingEnabled() {
+		return mModelNamingEnabled;
+	}
+
+	/**
+	 * Unconstrained SSPs are solved by value iteration (unless LP solving is enabled by
+	 * {@link #setUnconstrainedLPSolveEnabled(boolean)}), and unconstrained average-cost MDPs by relative value
+	 * iteration, instead of MILP.
+	 * 
+	 * @param valueIterationEpsilon
+	 *            : Convergence threshold of (relative) value iteration
+	 */
+	public void setValueIterationEpsilon(double valueIterationEpsilon) {
+		mValueIterationEpsilon = valueIterationEpsilon;
+		hashCode = 0;
+	}
+
+	public double getValueIterationEpsilon() {
+		return mValueIterationEpsilon;
+	}
+
+	/**
+	 * Large cyclic components are swept in parallel when more than 1 thread is used. By default, 1 thread is used, and
+	 * the components are solved sequentially in topological order.
+	 * 
+	 * @param valueIterationThreads
+	 *            : Number of worker threads of value iteration
+	 */
+	public void setValueIterationThreads(int valueIterationThreads) {
+		mValueIterationThreads = valueIterationThreads;
+		hashCode = 0;
+	}
+
+	public int getValueIterationThreads() {
+		return mValueIterationThreads;
+	}
+
+	/**
+	 * Total-cost problems are solved on the bisimulation quotient of the MDP, and the solution policy is lifted back to
+	 * the original states. This is exact for unconstrained problems. For constrained problems, the deterministic
+	 * solution policy is restricted to choosing the same action at bisimilar states. Minimization is disabled by
+	 * default.
+	 * 
+	 * @param bisimulationMinimizationEnabled
+	 *            : Whether to solve total-cost problems on the bisimulation quotient of the MDP
+	 */
+	public void setBisimulationMinimizationEnabled(boolean bisimulationMinimizationEnabled) {
+		mBisimulationMinimizationEnabled = bisimulationMinimizationEnabled;
+		hashCode = 0;
+	}
+
+	public boolean isBisimulationMinimizationEnabled() {
+		return mBisimulationMinimizationEnabled;
+	}
+
+	/**
+	 * LP/MILP models are solved by the named backend (e.g., "gurobi" or "simplex"). By default (null), the available
+	 * backend with the highest priority is used, e.g., Gurobi if it is installed. The pure-Java simplex backend is only
+	 * used when it is named.
+	 * 
+	 * @param lpSolverBackendName
+	 *            : Name of the LP solver backend, or null for the default backend
+	 */
+	public void setLPSolverBackendName(String lpSolverBackendName) {
+		mLPSolverBackendName = lpSolverBackendName;
+		hashCode = 0;
+	}
+
+	public String getLPSolverBackendName() {
+		return mLPSolverBackendName;
+	}
+
+	/**
+	 * Constrained total-cost problems are solved in a persistent {@link SSPSolverSession}: the explicit MDP and the
+	 * model are built once, and only the objective and the cost constraints are changed between solves. This is not
+	 * used when bisimulation minimization is enabled, since the quotient depends on the objective costs. Incremental
+	 * solving is enabled by default.
+	 * 
+	 * @param incrementalSolveEnabled
+	 *            : Whether to re-solve constrained total-cost problems incrementally
+	 */
+	public void setIncrementalSolveEnabled(boolean incrementalSolveEnabled) {
+		mIncrementalSolveEnabled = incrementalSolveEnabled;
+		hashCode = 0;
+	}
+
+	public boolean isIncrementalSolveEnabled() {
+		return mIncrementalSolveEnabled;
+	}
+
+	/**
+	 * Total-cost problems with a single hard constraint (and no soft constraint) are first solved by
+	 * {@link LagrangianConstrainedSSPSolver}. Its solution is only used if it is provably optimal; otherwise, the
+	 * problem is solved by MILP. Lagrangian solving is enabled by default.
+	 * 
+	 * @param lagrangianSolveEnabled
+	 *            : Whether to try Lagrangian relaxation before MILP for single-constraint total-cost problems
+	 */
+	public void setLagrangianSolveEnabled(boolean lagrangianSolveEnabled) {
+		mLagrangianSolveEnabled = lagrangianSolveEnabled;
+		hashCode = 0;
+	}
+
+	public boolean isLagrangianSolveEnabled() {
+		return mLagrangianSolveEnabled;
+	}
+
+	/**
+	 * Unconstrained total-cost problems are solved as an LP by {@link SSPSolver}, with a basic (vertex) solution, instead
+	 * of by value iteration. The LP gives an exactly optimal policy, while value iteration is usually faster. LP solving
+	 * is disabled by default.
+	 * 
+	 * @param unconstrainedLPSolveEnabled
+	 *            : Whether to solve unconstrained total-cost problems as an LP
+	 */
+	public void setUnconstrainedLPSolveEnabled(boolean unconstrainedLPSolveEnabled) {
+		mUnconstrainedLPSolveEnabled = unconstrainedLPSolveEnabled;
+		hashCode = 0;
+	}
+
+	public boolean isUnconstrainedLPSolveEnabled() {
+		return mUnconstrainedLPSolveEnabled;
+	}
+
 	/**
 	 * Any value smaller than the round-off value will be considered zero. This is used for determining if occupation
 	 * measure, x_ia of state i and action a, is positive.
@@ -61,7 +209,15 @@ public class GRBConnectorSettings {
 		return settings.mPrismExplicitModelReader.equals(mPrismExplicitModelReader)
 				&& Double.compare(settings.mFeasibilityTol, mFeasibilityTol) == 0
 				&& Double.compare(settings.mIntFeasTol, mIntFeasTol) == 0
-				&& Double.compare(settings.mRoundOff, mRoundOff) == 0;
+				&& Double.compare(settings.mRoundOff, mRoundOff) == 0
+				&& settings.mModelNamingEnabled == mModelNamingEnabled
+				&& Double.compare(settings.mValueIterationEpsilon, mValueIterationEpsilon) == 0
+				&& settings.mValueIterationThreads == mValueIterationThreads
+				&& settings.mBisimulationMinimizationEnabled == mBisimulationMinimizationEnabled
+				&& Objects.equals(settings.mLPSolverBackendName, mLPSolverBackendName)
+				&& settings.mIncrementalSolveEnabled == mIncrementalSolveEnabled
+				&& settings.mLagrangianSolveEnabled == mLagrangianSolveEnabled
+				&& settings.mUnconstrainedLPSolveEnabled == mUnconstrainedLPSolveEnabled;
 	}
 
 	@Override
@@ -73,6 +229,14 @@ public class GRBConnectorSettings {
 			result = 31 * result + Double.hashCode(mFeasibilityTol);
 			result = 31 * result + Double.hashCode(mIntFeasTol);
 			result = 31 * result + Double.hashCode(mRoundOff);
+			result = 31 * result + Boolean.hashCode(mModelNamingEnabled);
+			result = 31 * result + Double.hashCode(mValueIterationEpsilon);
+			result = 31 * result + mValueIterationThreads;
+			result = 31 * result + Boolean.hashCode(mBisimulationMinimizationEnabled);
+			result = 31 * result + Objects.hashCode(mLPSolverBackendName);
+			result = 31 * result + Boolean.hashCode(mIncrementalSolveEnabled);
+			result = 31 * result + Boolean.hashCode(mLagrangianSolveEnabled);
+			result = 31 * result + Boolean.hashCode(mUnconstrainedLPSolveEnabled);
 			hashCode = result;
 		}
 		return hashCode;
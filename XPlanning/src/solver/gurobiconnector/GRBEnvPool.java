@@ -0,0 +1,83 @@
+package solver.gurobiconnector;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+
+/**
+ * {@link GRBEnvPool} is a thread-safe pool of {@link GRBEnv}s. Starting an environment checks the Gurobi license, which
+ * adds latency to every solve if each model has its own environment. A model acquires an environment from the pool,
+ * and releases it when the model is disposed of, so that subsequent models reuse it.
+ *
+ * A Gurobi environment must not be used by multiple threads at the same time; therefore, an environment is only lent
+ * to one model at a time, and concurrent models each get their own environment. The pool grows to the maximum number
+ * of concurrent models. The idle environments are disposed of when the pool is cleared.
+ */
+public class GRBEnvPool {
+
+	private final Deque<GRBEnv> mIdleEnvs = new ArrayDeque<>();
+	private int mNumCreatedEnvs;
+
+	/**
+	 * Acquire an idle environment, or start a new one if there is none.
+	 *
+	 * @return Environment for the exclusive use of the caller, until it is released
+	 * @throws GRBException
+	 */
+	public GRBEnv acquire() throws GRBException {
+		synchronized (this) {
+			GRBEnv env = mIdleEnvs.pollFirst();
+			if (env != null) {
+				return env;
+			}
+		}
+
+		// Start a new environment outside of the lock, since it may take a while
+		GRBEnv env = new GRBEnv();
+		synchronized (this) {
+			mNumCreatedEnvs++;
+		}
+		return env;
+	}
+
+	/**
+	 * Return an environment to the pool. All models of the environment must have been disposed of.
+	 *
+	 * @param env
+	 *            : Environment acquired from this pool
+	 */
+	public synchronized void release(GRBEnv env) {
+		mIdleEnvs.addFirst(env);
+	}
+
+	/**
+	 * Dispose of all idle environments. Environments that are currently acquired are returned to the pool when they
+	 * are released, and new environments are started on demand.
+	 *
+	 * @throws GRBException
+	 */
+	public void clear() throws GRBException {
+		Deque<GRBEnv> idleEnvs;
+		synchronized (this) {
+			idleEnvs = new ArrayDeque<>(mIdleEnvs);
+			mIdleEnvs.clear();
+		}
+		for (GRBEnv env : idleEnvs) {
+			env.dispose();
+		}
+	}
+
+	public synchronized int getNumIdleEnvs() {
+		return mIdleEnvs.size();
+	}
+
+	/**
+	 *
+	 * @return Total number of environments started by this pool
+	 */
+	public synchronized int getNumCreatedEnvs() {
+		return mNumCreatedEnvs;
+	}
+}
@@ -0,0 +1,400 @@
+package solver.gurobiconnector;
+
+import java.util.Arrays;
+
+import gurobi.GRB;
+import gurobi.GRBCallback;
+import gurobi.GRBConstr;
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+import gurobi.GRBLinExpr;
+import gurobi.GRBModel;
+import gurobi.GRBVar;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolutionStatus;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.LPTermBuffer;
+import solver.lpsolver.ObjectiveSense;
+import solver.lpsolver.VarType;
+
+/**
+ * {@link GRBLPModel} is an {@link LPModel} backed by a {@link GRBModel}. Variables are added with a single addVars call
+ * per family, and constraints are queued and added with addConstrs in batches, instead of one JNI call per constraint.
+ * The objective is kept on the Java side, and set on the model before it is optimized.
+ *
+ * The environment of the model is acquired from a {@link GRBEnvPool}, and released to the pool when the model is
+ * disposed of.
+ *
+ * When the model is re-optimized after changes to its objective or constraint bounds, Gurobi reuses the previous basis
+ * (for LP) or the previous solution (for MILP) as a warm start.
+ */
+public class GRBLPModel implements LPModel {
+
+	/**
+	 * Maximum number of queued constraints before they are added to the model.
+	 */
+	private static final int CONSTRAINT_BATCH_SIZE = 4096;
+
+	private GRBEnvPool mEnvPool;
+	private GRBEnv mEnv;
+	private GRBModel mModel;
+	private boolean mNamingEnabled;
+
+	// Variables, indexed by the variable indices of LPModel
+	private GRBVar[] mVars = new GRBVar[CONSTRAINT_BATCH_SIZE];
+	private int mNumVars;
+
+	// Objective coefficients, indexed by the variable indices of LPModel
+	private double[] mObjCoeffs = new double[CONSTRAINT_BATCH_SIZE];
+	private int mObjSense = GRB.MINIMIZE;
+
+	// Constraints that have been added to the model, indexed by the constraint indices of LPModel
+	private GRBConstr[] mConstrs = new GRBConstr[CONSTRAINT_BATCH_SIZE];
+	private int mNumConstrs;
+
+	// Queued constraints, following the added constraints: lhs expression, sense, rhs, and name (if naming is enabled)
+	private GRBLinExpr[] mQueuedExprs = new GRBLinExpr[CONSTRAINT_BATCH_SIZE];
+	private char[] mQueuedSenses = new char[CONSTRAINT_BATCH_SIZE];
+	private double[] mQueuedRhs = new double[CONSTRAINT_BATCH_SIZE];
+	private String[] mQueuedNames = new String[CONSTRAINT_BATCH_SIZE];
+	private int mNumQueued;
+
+	private long mBuildStartTime;
+	private long mBuildTime;
+	private long mSolveTime;
+
+	public GRBLPModel(GRBEnvPool envPool, boolean namingEnabled) throws LPSolverException {
+		mEnvPool = envPool;
+		try {
+			mEnv = envPool.acquire();
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to create GRB environment", e);
+		}
+		try {
+			mModel = new GRBModel(mEnv);
+		} catch (GRBException e) {
+			envPool.release(mEnv);
+			throw new LPSolverException("Failed to create GRB model", e);
+		}
+		mNamingEnabled = namingEnabled;
+		mBuildStartTime = System.nanoTime();
+	}
+
+	@Override
+	public boolean isNamingEnabled() {
+		return mNamingEnabled;
+	}
+
+	@Override
+	public void setTolerances(double intFeasTol, double feasibilityTol, double optimalityTol)
+			throws LPSolverException {
+		try {
+			mModel.set(GRB.DoubleParam.IntFeasTol, intFeasTol);
+			mModel.set(GRB.DoubleParam.FeasibilityTol, feasibilityTol);
+			mModel.set(GRB.DoubleParam.OptimalityTol, optimalityTol);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to set GRB tolerance parameters", e);
+		}
+	}
+
+	@Override
+	public void setBasicSolutionRequired() throws LPSolverException {
+		try {
+			mModel.set(GRB.IntParam.Method, GRB.METHOD_DUAL);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to set GRB method parameter", e);
+		}
+	}
+
+	@Override
+	public int[] addVars(int numVars, double lowerBound, double upperBound, VarType varType, String[] names)
+			throws LPSolverException {
+		double lb = getGRBValue(lowerBound);
+		double ub = getGRBValue(upperBound);
+
+		double[] lbs = new double[numVars];
+		double[] ubs = new double[numVars];
+		char[] types = new char[numVars];
+		Arrays.fill(lbs, lb);
+		Arrays.fill(ubs, ub);
+		Arrays.fill(types, getGRBVarType(varType));
+
+		GRBVar[] grbVars;
+		try {
+			grbVars = mModel.addVars(lbs, ubs, null, types, mNamingEnabled ? names : null);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to add GRB variables", e);
+		}
+
+		int[] vars = new int[numVars];
+		for (int v = 0; v < numVars; v++) {
+			vars[v] = registerVar(grbVars[v]);
+		}
+		return vars;
+	}
+
+	@Override
+	public int addVar(double lowerBound, double upperBound, VarType varType, String name) throws LPSolverException {
+		try {
+			return registerVar(mModel.addVar(getGRBValue(lowerBound), getGRBValue(upperBound), 0.0,
+					getGRBVarType(varType), createName(name)));
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to add GRB variable", e);
+		}
+	}
+
+	private int registerVar(GRBVar grbVar) {
+		if (mNumVars == mVars.length) {
+			mVars = Arrays.copyOf(mVars, 2 * mNumVars);
+			mObjCoeffs = Arrays.copyOf(mObjCoeffs, 2 * mNumVars);
+		}
+		mVars[mNumVars] = grbVar;
+		return mNumVars++;
+	}
+
+	@Override
+	public void setObjective(LPTermBuffer terms, ObjectiveSense sense) {
+		Arrays.fill(mObjCoeffs, 0);
+		mObjSense = sense == ObjectiveSense.MINIMIZE ? GRB.MINIMIZE : GRB.MAXIMIZE;
+		addObjectiveTerms(terms);
+	}
+
+	@Override
+	public void addObjectiveTerms(LPTermBuffer terms) {
+		for (int t = 0; t < terms.size(); t++) {
+			mObjCoeffs[terms.getVar(t)] += terms.getCoeff(t);
+		}
+	}
+
+	@Override
+	public int addConstr(LPTermBuffer terms, ConstraintSense sense, double rhs, String name)
+			throws LPSolverException {
+		if (mNumQueued == CONSTRAINT_BATCH_SIZE) {
+			flushConstraints();
+		}
+		mQueuedExprs[mNumQueued] = toLinExpr(terms);
+		mQueuedSenses[mNumQueued] = getGRBSense(sense);
+		mQueuedRhs[mNumQueued] = getGRBValue(rhs);
+		mQueuedNames[mNumQueued] = mNamingEnabled ? name : null;
+		return mNumConstrs + mNumQueued++;
+	}
+
+	@Override
+	public void setConstrSense(int constr, ConstraintSense sense) throws LPSolverException {
+		if (constr >= mNumConstrs) {
+			mQueuedSenses[constr - mNumConstrs] = getGRBSense(sense);
+			return;
+		}
+		try {
+			mConstrs[constr].set(GRB.CharAttr.Sense, getGRBSense(sense));
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to set GRB constraint sense", e);
+		}
+	}
+
+	@Override
+	public void setConstrRHS(int constr, double rhs) throws LPSolverException {
+		if (constr >= mNumConstrs) {
+			mQueuedRhs[constr - mNumConstrs] = getGRBValue(rhs);
+			return;
+		}
+		try {
+			mConstrs[constr].set(GRB.DoubleAttr.RHS, getGRBValue(rhs));
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to set GRB constraint RHS", e);
+		}
+	}
+
+	/**
+	 * Add all queued constraints to the model, in a single call.
+	 *
+	 * @throws LPSolverException
+	 */
+	private void flushConstraints() throws LPSolverException {
+		if (mNumQueued == 0) {
+			return;
+		}
+		GRBConstr[] grbConstrs;
+		try {
+			grbConstrs = mModel.addConstrs(mQueuedExprs, mQueuedSenses, mQueuedRhs,
+					mNamingEnabled ? mQueuedNames : null, 0, mNumQueued);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to add GRB constraints", e);
+		}
+		if (mNumConstrs + mNumQueued > mConstrs.length) {
+			mConstrs = Arrays.copyOf(mConstrs, Math.max(2 * mConstrs.length, mNumConstrs + mNumQueued));
+		}
+		System.arraycopy(grbConstrs, 0, mConstrs, mNumConstrs, mNumQueued);
+		mNumConstrs += mNumQueued;
+		Arrays.fill(mQueuedExprs, 0, mNumQueued, null);
+		Arrays.fill(mQueuedNames, 0, mNumQueued, null);
+		mNumQueued = 0;
+	}
+
+	private GRBLinExpr toLinExpr(LPTermBuffer terms) throws LPSolverException {
+		int size = terms.size();
+		double[] coeffs = new double[size];
+		GRBVar[] vars = new GRBVar[size];
+		for (int t = 0; t < size; t++) {
+			coeffs[t] = terms.getCoeff(t);
+			vars[t] = mVars[terms.getVar(t)];
+		}
+
+		GRBLinExpr linExpr = new GRBLinExpr();
+		if (size > 0) {
+			try {
+				linExpr.addTerms(coeffs, vars);
+			} catch (GRBException e) {
+				throw new LPSolverException("Failed to create GRB linear expression", e);
+			}
+		}
+		return linExpr;
+	}
+
+	@Override
+	public void optimize() throws LPSolverException {
+		flushConstraints();
+		try {
+			GRBLinExpr objectiveLinExpr = new GRBLinExpr();
+			objectiveLinExpr.addTerms(Arrays.copyOf(mObjCoeffs, mNumVars), Arrays.copyOf(mVars, mNumVars));
+			mModel.setObjective(objectiveLinExpr, mObjSense);
+
+			// Abort the optimization if the solving thread is interrupted
+			mModel.setCallback(new InterruptCallback(Thread.currentThread()));
+
+			long solveStartTime = System.nanoTime();
+			mBuildTime = solveStartTime - mBuildStartTime;
+			mModel.optimize();
+
+			if (mModel.get(GRB.IntAttr.Status) == GRB.Status.INF_OR_UNBD) {
+				// Presolve could not tell infeasible from unbounded: re-solve without dual reductions to find out
+				mModel.set(GRB.IntParam.DualReductions, 0);
+				mModel.optimize();
+				mModel.set(GRB.IntParam.DualReductions, 1);
+			}
+			mSolveTime = System.nanoTime() - solveStartTime;
+			mBuildStartTime = System.nanoTime();
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to optimize GRB model", e);
+		}
+	}
+
+	@Override
+	public LPSolutionStatus getStatus() throws LPSolverException {
+		int status;
+		try {
+			status = mModel.get(GRB.IntAttr.Status);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to query GRB optimization status", e);
+		}
+		if (status == GRB.Status.OPTIMAL) {
+			return LPSolutionStatus.OPTIMAL;
+		} else if (status == GRB.Status.INFEASIBLE) {
+			return LPSolutionStatus.INFEASIBLE;
+		} else if (status == GRB.Status.UNBOUNDED) {
+			return LPSolutionStatus.UNBOUNDED;
+		} else if (status == GRB.Status.NODE_LIMIT) {
+			return LPSolutionStatus.NODE_LIMIT;
+		} else if (status == GRB.Status.INTERRUPTED) {
+			return LPSolutionStatus.INTERRUPTED;
+		}
+		return LPSolutionStatus.OTHER;
+	}
+
+	@Override
+	public boolean hasSolution() throws LPSolverException {
+		try {
+			return mModel.get(GRB.IntAttr.SolCount) > 0;
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to query GRB solution count", e);
+		}
+	}
+
+	@Override
+	public double getObjectiveValue() throws LPSolverException {
+		try {
+			return mModel.get(GRB.DoubleAttr.ObjVal);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to query GRB objective value", e);
+		}
+	}
+
+	@Override
+	public double[] getValues(int[] vars) throws LPSolverException {
+		GRBVar[] grbVars = new GRBVar[vars.length];
+		for (int i = 0; i < vars.length; i++) {
+			grbVars[i] = mVars[vars[i]];
+		}
+		try {
+			return mModel.get(GRB.DoubleAttr.X, grbVars);
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to query GRB variable values", e);
+		}
+	}
+
+	@Override
+	public double getBuildTime() {
+		return mBuildTime / 1e6;
+	}
+
+	@Override
+	public double getSolveTime() {
+		return mSolveTime / 1e6;
+	}
+
+	@Override
+	public void dispose() {
+		if (mModel == null) {
+			// Already disposed of
+			return;
+		}
+		// Dispose of model, and return the environment to the pool
+		mModel.dispose();
+		mModel = null;
+		mEnvPool.release(mEnv);
+		mEnv = null;
+	}
+
+	private static char getGRBVarType(VarType varType) {
+		return varType == VarType.BINARY ? GRB.BINARY : GRB.CONTINUOUS;
+	}
+
+	private static double getGRBValue(double value) {
+		if (Double.isInfinite(value)) {
+			return value > 0 ? GRB.INFINITY : -1 * GRB.INFINITY;
+		}
+		return value;
+	}
+
+	private static char getGRBSense(ConstraintSense sense) {
+		switch (sense) {
+		case LESS_EQUAL:
+			return GRB.LESS_EQUAL;
+		case GREATER_EQUAL:
+			return GRB.GREATER_EQUAL;
+		default:
+			return GRB.EQUAL;
+		}
+	}
+
+	/**
+	 * {@link InterruptCallback} aborts the optimization when the thread that started it is interrupted. The callback is
+	 * called from Gurobi's threads, and therefore the solving thread is captured when the callback is created.
+	 */
+	private static class InterruptCallback extends GRBCallback {
+
+		private Thread mSolvingThread;
+
+		InterruptCallback(Thread solvingThread) {
+			mSolvingThread = solvingThread;
+		}
+
+		@Override
+		protected void callback() {
+			if (mSolvingThread.isInterrupted()) {
+				abort();
+			}
+		}
+	}
+}
@@ -15,27 +15,43 @@ public class GRBPolicyReader {
 
 	private PrismExplicitModelReader mPrismExplicitModelReader;
 
-	public GRBPolicyReader(PrismExplicitModelReader prismExplicitModelReader) {
-		mPrismExplicitModelReader = prismExplicitModelReader;
-	}
+	// Mapping from integer values indexing states to the corresponding states; read once from the .sta file, and
+	// reused by all policies read
+	private Map<Integer, StateVarTuple> mStateIndices;
 
-	public Policy readPolicyFromPolicyMatrix(double[][] policyMatrix, ExplicitMDP explicitMDP)
+	public GRBPolicyReader(PrismExplicitModelReader prismExplicitModelReader)
 			throws VarNotFoundException, IOException {
-		Map<Integer, StateVarTuple> stateIndices = mPrismExplicitModelReader.readStatesFromFile();
+		mPrismExplicitModelReader = prismExplicitModelReader;
+		mStateIndices = prismExplicitModelReader.readStatesFromFile();
+	}
 
+	/**
+	 * Read a policy from a policy matrix pi_ia.
+	 * 
+	 * @param policyMatrix
+	 *            : Policy matrix, in the sparse (state, action) layout of the MDP
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return Policy
+	 * @throws VarNotFoundException
+	 */
+	public Policy readPolicyFromPolicyMatrix(double[] policyMatrix, ExplicitMDP explicitMDP)
+			throws VarNotFoundException {
 		Policy policy = new Policy();
 
-		for (int i = 0; i < policyMatrix.length; i++) {
-			for (int a = 0; a < policyMatrix[i].length; a++) {
+		for (int i = 0; i < explicitMDP.getNumStates(); i++) {
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				int a = explicitMDP.getActionOfStateActionPair(ia);
 				String sanitizedActionName = explicitMDP.getActionNameAtIndex(a);
 
-				if (policyMatrix[i][a] > 0 && !PrismExplicitModelReader.isAuxiliaryAction(sanitizedActionName)) {
+				if (policyMatrix[ia] > 0 && !PrismExplicitModelReader.isAuxiliaryAction(sanitizedActionName)) {
 					// Probability of taking action a in state i is non-zero
 					// Skip any helper action
 
 					String actionName = PrismTranslatorUtils.desanitizeNameString(sanitizedActionName);
 
-					StateVarTuple sourceState = stateIndices.get(i);
+					StateVarTuple sourceState = mStateIndices.get(i);
 					IAction action = mPrismExplicitModelReader.getValueEncodingScheme().getActionSpace()
 							.getAction(actionName);
 					policy.put(sourceState, action);
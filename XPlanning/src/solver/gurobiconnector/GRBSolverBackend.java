@@ -0,0 +1,74 @@
+package solver.gurobiconnector;
+
+import gurobi.GRBEnv;
+import gurobi.GRBException;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolverBackend;
+import solver.lpsolver.LPSolverException;
+
+/**
+ * {@link GRBSolverBackend} provides {@link GRBLPModel}s. It is preferred over the pure-Java backend when Gurobi is
+ * installed. The Gurobi native library is only loaded when the availability of this backend is first checked.
+ *
+ * The models share a {@link GRBEnvPool}, so that the Gurobi environments (and their license checks) are reused across
+ * solves, while concurrent models each get their own environment.
+ */
+public class GRBSolverBackend implements LPSolverBackend {
+
+	public static final String NAME = "gurobi";
+
+	// Availability is checked once, on demand
+	private volatile Boolean mAvailable;
+
+	private final GRBEnvPool mEnvPool = new GRBEnvPool();
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public int getPriority() {
+		return 100;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		Boolean available = mAvailable;
+		if (available == null) {
+			available = checkAvailability();
+			mAvailable = available;
+		}
+		return available;
+	}
+
+	private boolean checkAvailability() {
+		try {
+			// Creating an environment loads the native library and checks the license
+			// Keep the environment for the first model
+			GRBEnv env = mEnvPool.acquire();
+			mEnvPool.release(env);
+			return true;
+		} catch (GRBException | LinkageError e) {
+			return false;
+		}
+	}
+
+	@Override
+	public LPModel createModel(boolean namingEnabled) throws LPSolverException {
+		return new GRBLPModel(mEnvPool, namingEnabled);
+	}
+
+	@Override
+	public void releaseResources() throws LPSolverException {
+		try {
+			mEnvPool.clear();
+		} catch (GRBException e) {
+			throw new LPSolverException("Failed to dispose of GRB environments", e);
+		}
+	}
+
+	public GRBEnvPool getEnvPool() {
+		return mEnvPool;
+	}
+}
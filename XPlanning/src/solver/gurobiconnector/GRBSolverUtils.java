@@ -1,15 +1,21 @@
 package solver.gurobiconnector;
 
-import gurobi.GRB;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
+import java.util.Arrays;
+
 import language.objectives.AttributeConstraint.BOUND_TYPE;
 import solver.common.CostType;
 import solver.common.ExplicitMDP;
 import solver.common.ExplicitModelChecker;
 import solver.common.NonStrictConstraint;
+import solver.common.PredecessorIterator;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolutionStatus;
+import solver.lpsolver.LPSolverBackends;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.LPTermBuffer;
+import solver.lpsolver.ObjectiveSense;
+import solver.lpsolver.VarType;
 
 public class GRBSolverUtils {
 
@@ -23,11 +29,11 @@ public class GRBSolverUtils {
 	}
 
 	/**
-	 * Create n-array of optimization variables, and add the variables to the model.
+	 * Create n-array of optimization variables, and add the variables to the model in bulk.
 	 * 
 	 * @param varName
 	 *            : Variable name prefix
-	 * @param grbVarType
+	 * @param varType
 	 *            : Variable type (continuous or binary)
 	 * @param n
 	 *            : Number of variables
@@ -36,58 +42,62 @@ public class GRBSolverUtils {
 	 * @param upperBound
 	 *            : Upper bound of the variables
 	 * @param model
-	 *            : GRB model to which to add the variables
+	 *            : LP model to which to add the variables
 	 * @return n-array of optimization variables
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	public static GRBVar[] createOptimizationVars(String varName, char grbVarType, int n, double lowerBound,
-			double upperBound, GRBModel model) throws GRBException {
-		double lb = Double.isInfinite(lowerBound) ? -1 * GRB.INFINITY : lowerBound;
-		double ub = Double.isInfinite(upperBound) ? GRB.INFINITY : upperBound;
-
-		GRBVar[] vars = new GRBVar[n];
-		for (int i = 0; i < n; i++) {
-			String variName = varName + "_" + i;
-			vars[i] = model.addVar(lb, ub, 0.0, grbVarType, variName);
+	public static int[] createOptimizationVars(String varName, VarType varType, int n, double lowerBound,
+			double upperBound, LPModel model) throws LPSolverException {
+		String[] varNames = null;
+		if (model.isNamingEnabled()) {
+			varNames = new String[n];
+			for (int i = 0; i < n; i++) {
+				varNames[i] = model.createName(varName, i);
+			}
 		}
-		return vars;
+		return model.addVars(n, lowerBound, upperBound, varType, varNames);
 	}
 
 	/**
-	 * Create n x m matrix of optimization variables, and add the variables to the model.
+	 * Create optimization variables var_ia for all enabled (state, action) pairs of a given MDP, and add the variables
+	 * to the model in bulk. The variables are indexed by the sparse (state, action) layout of the MDP: var_ia is at
+	 * explicitMDP.getStateActionPairIndex(i, a).
+	 * 
+	 * No variable is created for any action a that is not applicable in state i.
 	 * 
 	 * @param varName
 	 *            : Variable name prefix
-	 * @param grbVarType
+	 * @param varType
 	 *            : Variable type (continuous or binary)
-	 * @param n
-	 *            : Number of rows (typically number of states)
-	 * @param m
-	 *            : Number of columns (typically number of actions)
+	 * @param explicitMDP
+	 *            : Explicit MDP
 	 * @param lowerBound
 	 *            : Lower bound of the variables
 	 * @param upperBound
 	 *            : Upper bound of the variables
 	 * @param model
-	 *            : GRB model to which to add the variables
-	 * @return n x m matrix of optimization variables
-	 * @throws GRBException
+	 *            : LP model to which to add the variables
+	 * @return Optimization variables of all enabled (state, action) pairs
+	 * @throws LPSolverException
 	 */
-	public static GRBVar[][] createOptimizationVars(String varName, char grbVarType, int n, int m, double lowerBound,
-			double upperBound, GRBModel model) throws GRBException {
-		double lb = Double.isInfinite(lowerBound) ? -1 * GRB.INFINITY : lowerBound;
-		double ub = Double.isInfinite(upperBound) ? GRB.INFINITY : upperBound;
-
-		GRBVar[][] vars = new GRBVar[n][m];
-		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Add all variables var_ia to the model, but for action a that is not applicable in state i, the
-				// variable var_ia will be excluded from the objective and constraints
-				String variaName = varName + "_" + i + "_" + a;
-				vars[i][a] = model.addVar(lb, ub, 0.0, grbVarType, variaName);
+	public static int[] createOptimizationVars(String varName, VarType varType, ExplicitMDP explicitMDP,
+			double lowerBound, double upperBound, LPModel model) throws LPSolverException {
+		int n = explicitMDP.getNumStates();
+		int numPairs = explicitMDP.getNumStateActionPairs();
+
+		// Variable names are only created for debugging
+		String[] varNames = null;
+		if (model.isNamingEnabled()) {
+			varNames = new String[numPairs];
+			for (int i = 0; i < n; i++) {
+				for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+						.getStateActionPairOffset(i + 1); ia++) {
+					int a = explicitMDP.getActionOfStateActionPair(ia);
+					varNames[ia] = model.createName(varName, i, a);
+				}
 			}
 		}
-		return vars;
+		return model.addVars(numPairs, lowerBound, upperBound, varType, varNames);
 	}
 
 	/**
@@ -97,16 +107,14 @@ public class GRBSolverUtils {
 	 * 
 	 * For state costs: minimize sum_i,a(x_ia * c_i).
 	 * 
-	 * @param n
-	 * @param m
+	 * @param explicitMDP
 	 * @param xVars
 	 * @param model
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	public static void setOptimizationObjective(ExplicitMDP explicitMDP, GRBVar[][] xVars, GRBModel model)
-			throws GRBException {
+	public static void setOptimizationObjective(ExplicitMDP explicitMDP, int[] xVars, LPModel model)
+			throws LPSolverException {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
 
 		// Objective: minimize sum_i,a(x_ia * c_ia)
 		// OR
@@ -115,24 +123,25 @@ public class GRBSolverUtils {
 		// In this case, c_ia is an objective cost: c_0[i][a]
 		// OR
 		// c_i is an objective cost: c_0[i]
-		GRBLinExpr objectiveLinExpr = new GRBLinExpr();
+		// Objective coefficients are indexed by the sparse (state, action) layout, same as x_ia
+		double[] objectiveCoeffs = new double[xVars.length];
 		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any x_ia term when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					// Objective cost: c_ia
-					// OR
-					// c_i
-					double objectiveCost = explicitMDP.getCostType() == CostType.TRANSITION_COST
-							? explicitMDP.getObjectiveTransitionCost(i, a)
-							: explicitMDP.getObjectiveStateCost(i);
-					objectiveLinExpr.addTerm(objectiveCost, xVars[i][a]);
-				}
+			// Only the enabled (state, action) pairs have x_ia variables
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				// Objective cost: c_ia
+				// OR
+				// c_i
+				objectiveCoeffs[ia] = explicitMDP.getCostType() == CostType.TRANSITION_COST
+						? explicitMDP.getObjectiveTransitionCost(i, explicitMDP.getActionOfStateActionPair(ia))
+						: explicitMDP.getObjectiveStateCost(i);
 			}
 		}
+		LPTermBuffer objectiveTerms = new LPTermBuffer();
+		objectiveTerms.addTerms(objectiveCoeffs, xVars);
 
 		// Set objective
-		model.setObjective(objectiveLinExpr, GRB.MINIMIZE);
+		model.setObjective(objectiveTerms, ObjectiveSense.MINIMIZE);
 	}
 
 	/**
@@ -142,28 +151,23 @@ public class GRBSolverUtils {
 	 * @param deltaVarName
 	 * @param deltaVars
 	 * @param model
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	public static void addDeltaConstraints(ExplicitMDP explicitMDP, String deltaVarName, GRBVar[][] deltaVars,
-			GRBModel model) throws GRBException {
+	public static void addDeltaConstraints(ExplicitMDP explicitMDP, String deltaVarName, int[] deltaVars,
+			LPModel model) throws LPSolverException {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		// Constraints: sum_a (Delta_ia) <= 1, for all i
 		for (int i = 0; i < n; i++) {
-			String constraintName = "constraint_" + deltaVarName + "_" + i;
-			GRBLinExpr constraintLinExpr = new GRBLinExpr();
+			String constraintName = model.createName("constraint_" + deltaVarName, i);
 
 			// sum_a (Delta_ia)
-			for (int a = 0; a < m; a++) {
-				// Exclude any Delta_ia term when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					constraintLinExpr.addTerm(1.0, deltaVars[i][a]);
-				}
-			}
+			addOutTerm(i, 1.0, explicitMDP, deltaVars, constraintTerms);
 
 			// Add constraint: [...] <= 1
-			model.addConstr(constraintLinExpr, GRB.LESS_EQUAL, 1, constraintName);
+			model.addConstr(constraintTerms, ConstraintSense.LESS_EQUAL, 1, constraintName);
+			constraintTerms.clear();
 		}
 	}
 
@@ -183,40 +187,67 @@ public class GRBSolverUtils {
 	 * @param deltavVars
 	 *            : Binary variables
 	 * @param model
-	 *            : GRB model
-	 * @throws GRBException
+	 *            : LP model
+	 * @throws LPSolverException
 	 */
 	public static void addVarDeltaConstraints(double vUpperBound, ExplicitMDP explicitMDP, String vVarName,
-			GRBVar[][] vVars, String deltavVarName, GRBVar[][] deltavVars, GRBModel model) throws GRBException {
+			int[] vVars, String deltavVarName, int[] deltavVars, LPModel model)
+			throws LPSolverException {
+		double[] vUpperBounds = new double[vVars.length];
+		Arrays.fill(vUpperBounds, vUpperBound);
+		addVarDeltaConstraints(vUpperBounds, explicitMDP, vVarName, vVars, deltavVarName, deltavVars, model);
+	}
+
+	/**
+	 * Add {var}-Delta{var} constraints with individual big-M coefficients: {var}_ia / V_ia <= Delta{var}_ia, for all i,
+	 * a.
+	 * 
+	 * @param vUpperBounds
+	 *            : Positive constants V_ia >= {var}_ia, in the sparse (state, action) layout of the MDP
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param vVarName
+	 *            : Continuous variable name
+	 * @param vVars
+	 *            : Continuous variables
+	 * @param deltavVarName
+	 *            : Binary variable name
+	 * @param deltavVars
+	 *            : Binary variables
+	 * @param model
+	 *            : LP model
+	 * @throws LPSolverException
+	 */
+	public static void addVarDeltaConstraints(double[] vUpperBounds, ExplicitMDP explicitMDP, String vVarName,
+			int[] vVars, String deltavVarName, int[] deltavVars, LPModel model) throws LPSolverException {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
-		// Constraints: x_ia / X <= Deltax_ia, for all i, a
+		// Constraints: x_ia / X_ia <= Deltax_ia, for all i, a
 		// OR
-		// y_ia / Y <= Deltay_ia, for all i, a
+		// y_ia / Y_ia <= Deltay_ia, for all i, a
 		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any v_ia and Deltav_ia terms when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					String constaintName = "constraint_" + vVarName + "_" + deltavVarName + "_" + i + "_" + a;
-
-					// v_ia / V
-					GRBLinExpr lhsConstraintLinExpr = new GRBLinExpr();
-					lhsConstraintLinExpr.addTerm(1.0 / vUpperBound, vVars[i][a]);
-
-					// Deltav_ia
-					GRBLinExpr rhsConstraintLinExpr = new GRBLinExpr();
-					rhsConstraintLinExpr.addTerm(1.0, deltavVars[i][a]);
-
-					// Add constraint
-					model.addConstr(lhsConstraintLinExpr, GRB.LESS_EQUAL, rhsConstraintLinExpr, constaintName);
-				}
+			// Only the enabled (state, action) pairs have v_ia and Deltav_ia variables
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				String constaintName = model.isNamingEnabled()
+						? model.createName("constraint_" + vVarName + "_" + deltavVarName, i,
+								explicitMDP.getActionOfStateActionPair(ia))
+						: null;
+
+				// v_ia / V_ia - Deltav_ia
+				constraintTerms.addTerm(1.0 / vUpperBounds[ia], vVars[ia]);
+				constraintTerms.addTerm(-1.0, deltavVars[ia]);
+
+				// Add constraint: [...] <= 0
+				model.addConstr(constraintTerms, ConstraintSense.LESS_EQUAL, 0, constaintName);
+				constraintTerms.clear();
 			}
 		}
 	}
 
 	/**
-	 * Add coeff * in_v(i) term to a given linear expression, where in_v(i) = sum_j,a (v_ja * P(i|j,a)), for all i in S.
+	 * Add coeff * in_v(i) term to a given term buffer, where in_v(i) = sum_j,a (v_ja * P(i|j,a)), for all i in S.
 	 * 
 	 * @param i
 	 *            : State i
@@ -226,28 +257,24 @@ public class GRBSolverUtils {
 	 *            : ExplicitMDP
 	 * @param vVars
 	 *            : Variables of in_v(i) term
-	 * @param linExpr
-	 *            : Linear expression to which to add in_v(i) term
+	 * @param terms
+	 *            : Term buffer to which to add in_v(i) term
 	 */
-	public static void addInTerm(int i, double coeff, ExplicitMDP explicitMDP, GRBVar[][] vVars, GRBLinExpr linExpr) {
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
-
+	public static void addInTerm(int i, double coeff, ExplicitMDP explicitMDP, int[] vVars, LPTermBuffer terms) {
 		// in_v(i) = sum_j,a (v_ja * P(i|j,a))
 		// Expression += coeff * in_v(i)
-		for (int j = 0; j < n; j++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any v_ja term when action a is not applicable in state j
-				if (explicitMDP.isActionApplicable(j, a)) {
-					double prob = explicitMDP.getTransitionProbability(j, a, i);
-					linExpr.addTerm(coeff * prob, vVars[j][a]);
-				}
-			}
+		// Only visit the predecessors (j, a) of i, i.e., P(i|j,a) > 0
+		PredecessorIterator predIter = explicitMDP.predecessors(i);
+		while (predIter.hasNext()) {
+			predIter.next();
+			int ja = predIter.getStateActionPair();
+			double prob = predIter.getProbability();
+			terms.addTerm(coeff * prob, vVars[ja]);
 		}
 	}
 
 	/**
-	 * Add coeff * out_v(i) term to a given linear expression, where out_v(i) = sum_a (v_ia), for all i in S \ G (if G
+	 * Add coeff * out_v(i) term to a given term buffer, where out_v(i) = sum_a (v_ia), for all i in S \ G (if G
 	 * exists).
 	 * 
 	 * @param i
@@ -258,27 +285,63 @@ public class GRBSolverUtils {
 	 *            : ExplicitMDP
 	 * @param vVars
 	 *            : Variables of out_v(i) term
-	 * @param linExpr
-	 *            : Linear expression to which to add out_v(i) term
+	 * @param terms
+	 *            : Term buffer to which to add out_v(i) term
 	 */
-	public static void addOutTerm(int i, double coeff, ExplicitMDP explicitMDP, GRBVar[][] vVars, GRBLinExpr linExpr) {
-		int m = explicitMDP.getNumActions();
-
+	public static void addOutTerm(int i, double coeff, ExplicitMDP explicitMDP, int[] vVars, LPTermBuffer terms) {
 		// out_v(i) = sum_a (v_ia)
 		// Expression += coeff * out_v(i)
-		for (int a = 0; a < m; a++) {
-			// Exclude any v_ia term when action a is not applicable in state i
-			if (explicitMDP.isActionApplicable(i, a)) {
-				linExpr.addTerm(coeff, vVars[i][a]);
-			}
+		// Only the enabled (state, action) pairs have v_ia variables
+		for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP.getStateActionPairOffset(i + 1); ia++) {
+			terms.addTerm(coeff, vVars[ia]);
 		}
 	}
 
-	public static void configureToleranceParameters(GRBModel model, double intFeasTol, double feasibilityTol)
-			throws GRBException {
-		model.set(GRB.DoubleParam.IntFeasTol, intFeasTol);
-		model.set(GRB.DoubleParam.FeasibilityTol, feasibilityTol);
-		model.set(GRB.DoubleParam.OptimalityTol, DEFAULT_OPT_TOL);
+	/**
+	 * Create an empty model, using the LP solver backend of the settings, and configure its tolerance parameters.
+	 * 
+	 * @param settings
+	 *            : GRBConnector settings, containing the LP solver backend name and tolerance parameters
+	 * @return Empty model
+	 * @throws LPSolverException
+	 */
+	public static LPModel createModel(GRBConnectorSettings settings) throws LPSolverException {
+		LPModel model = LPSolverBackends.getBackend(settings.getLPSolverBackendName())
+				.createModel(settings.isModelNamingEnabled());
+		configureToleranceParameters(model, settings.getIntegralityTolerance(), settings.getFeasibilityTolerance());
+		return model;
+	}
+
+	public static void configureToleranceParameters(LPModel model, double intFeasTol, double feasibilityTol)
+			throws LPSolverException {
+		model.setTolerances(intFeasTol, feasibilityTol, DEFAULT_OPT_TOL);
+	}
+
+	/**
+	 * Check the status of the last optimization of a model. The model has a solution if it is optimal, or if the solver
+	 * stopped early (e.g., at a time or node limit, or with a suboptimal status) with a feasible incumbent solution. A
+	 * model without any solution must be proven infeasible; otherwise, "no solution" could not be told apart from "no
+	 * solution found".
+	 * 
+	 * @param model
+	 *            : Optimized model
+	 * @return Whether the model has a solution, or false if the model is infeasible
+	 * @throws LPSolverException
+	 *             if the model is unbounded, the optimization was interrupted, or the solver stopped without any
+	 *             solution and without proving infeasibility
+	 */
+	public static boolean hasSolution(LPModel model) throws LPSolverException {
+		LPSolutionStatus status = model.getStatus();
+		if (status == LPSolutionStatus.OPTIMAL) {
+			return true;
+		} else if (status == LPSolutionStatus.INFEASIBLE) {
+			return false;
+		} else if (status != LPSolutionStatus.UNBOUNDED && status != LPSolutionStatus.INTERRUPTED
+				&& model.hasSolution()) {
+			// Best solution found before the solver stopped
+			return true;
+		}
+		throw new LPSolverException("Optimization ended without a solution or proof of infeasibility: " + status);
 	}
 
 	/**
@@ -288,16 +351,14 @@ public class GRBSolverUtils {
 	 * @param explicitMDP
 	 * @return Whether the results of Delta_ia satisfy: sum_a (Delta_ia) <= 1, for all i
 	 */
-	static boolean consistencyCheckDeltaConstraints(double[][] deltaResults, ExplicitMDP explicitMDP) {
+	static boolean consistencyCheckDeltaConstraints(double[] deltaResults, ExplicitMDP explicitMDP) {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
 
 		for (int i = 0; i < n; i++) {
 			double sum = 0;
-			for (int a = 0; a < m; a++) {
-				if (explicitMDP.isActionApplicable(i, a)) {
-					sum += deltaResults[i][a];
-				}
+			for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				sum += deltaResults[ia];
 			}
 			if (sum > 1) {
 				return false;
@@ -312,26 +373,34 @@ public class GRBSolverUtils {
 	 * @param vResults
 	 * @param deltavResults
 	 * @param vUpperBound
-	 * @param explicitMDP
 	 * @param feasibilityTol
 	 * @return Whether the results of v_ia and Deltav_ia satisfy: v_ia / V <= Deltav_ia, for all i, a
 	 */
-	static boolean consistencyCheckVarDeltaConstraints(double[][] vResults, double[][] deltavResults,
-			double vUpperBound, ExplicitMDP explicitMDP, double feasibilityTol) {
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
+	static boolean consistencyCheckVarDeltaConstraints(double[] vResults, double[] deltavResults, double vUpperBound,
+			double feasibilityTol) {
+		double[] vUpperBounds = new double[vResults.length];
+		Arrays.fill(vUpperBounds, vUpperBound);
+		return consistencyCheckVarDeltaConstraints(vResults, deltavResults, vUpperBounds, feasibilityTol);
+	}
 
-		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				if (explicitMDP.isActionApplicable(i, a)) {
-					double vResult = vResults[i][a];
-					double deltavResult = deltavResults[i][a];
-					boolean satisfiedConstraint = vResult / vUpperBound <= deltavResult + feasibilityTol;
+	/**
+	 * Check whether the results of v_ia and Deltav_ia satisfy the constraints: v_ia / V_ia <= Deltav_ia, for all i, a.
+	 * 
+	 * @param vResults
+	 * @param deltavResults
+	 * @param vUpperBounds
+	 * @param feasibilityTol
+	 * @return Whether the results of v_ia and Deltav_ia satisfy: v_ia / V_ia <= Deltav_ia, for all i, a
+	 */
+	static boolean consistencyCheckVarDeltaConstraints(double[] vResults, double[] deltavResults,
+			double[] vUpperBounds, double feasibilityTol) {
+		for (int ia = 0; ia < vResults.length; ia++) {
+			double vResult = vResults[ia];
+			double deltavResult = deltavResults[ia];
+			boolean satisfiedConstraint = vResult / vUpperBounds[ia] <= deltavResult + feasibilityTol;
 
-					if (!satisfiedConstraint) {
-						return false;
-					}
-				}
+			if (!satisfiedConstraint) {
+				return false;
 			}
 		}
 		return true;
@@ -348,8 +417,10 @@ public class GRBSolverUtils {
 	 * @param feasibilityTol
 	 * @return Whether the results of x_ia satisfies: sum_i,a(c^k_ia * x_ia) <= upper bound of c^k, for all k
 	 */
-	static boolean consistencyCheckCostConstraints(double[][] xResults, NonStrictConstraint[] hardConstraints,
+	static boolean consistencyCheckCostConstraints(double[] xResults, NonStrictConstraint[] hardConstraints,
 			ExplicitMDP explicitMDP, double feasibilityTol) {
+		double[] occupancyCosts = ExplicitModelChecker.computeOccupancyCosts(xResults, explicitMDP);
+
 		for (int k = 1; k < hardConstraints.length; k++) {
 			if (hardConstraints[k] == null) {
 				// Skip -- there is no constraint on this cost function k
@@ -357,7 +428,7 @@ public class GRBSolverUtils {
 			}
 
 			NonStrictConstraint hardConstraint = hardConstraints[k];
-			double occupancyCost = ExplicitModelChecker.computeOccupancyCost(xResults, k, explicitMDP);
+			double occupancyCost = occupancyCosts[k];
 			boolean satisfiedConstraint = hardConstraint.getBoundType() == BOUND_TYPE.UPPER_BOUND
 					? occupancyCost <= hardConstraint.getBoundValue() + feasibilityTol
 					: occupancyCost >= hardConstraint.getBoundValue() - feasibilityTol;
@@ -378,10 +449,9 @@ public class GRBSolverUtils {
 	 * @param feasibilityTol
 	 * @return Whether the property Deltav_ia = 1 <=> v_ia > 0 holds for all states i such that sum_a(v_ia) > 0
 	 */
-	static boolean consistencyCheckResults(double[][] vResults, double[][] deltavResults, ExplicitMDP explicitMDP,
+	static boolean consistencyCheckResults(double[] vResults, double[] deltavResults, ExplicitMDP explicitMDP,
 			double feasibilityTol) {
 		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
 
 		for (int i = 0; i < n; i++) {
 			// For x: sum_a(x_ia) = probability of state i being visited
@@ -389,16 +459,15 @@ public class GRBSolverUtils {
 
 			// For all states i such that sum_a(v_ia) > 0
 			if (outValue > 0 + feasibilityTol) {
-				for (int a = 0; a < m; a++) {
-					// Exclude any v_ia and Deltav_ia terms when action a is not applicable in state i
-					if (explicitMDP.isActionApplicable(i, a)) {
-						double deltavResult = deltavResults[i][a];
-						double vResult = vResults[i][a];
-						boolean consistent = checkResultsConsistency(deltavResult, vResult, feasibilityTol);
-
-						if (!consistent) {
-							return false;
-						}
+				// Only the enabled (state, action) pairs have v_ia and Deltav_ia variables
+				for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP
+						.getStateActionPairOffset(i + 1); ia++) {
+					double deltavResult = deltavResults[ia];
+					double vResult = vResults[ia];
+					boolean consistent = checkResultsConsistency(deltavResult, vResult, feasibilityTol);
+
+					if (!consistent) {
+						return false;
 					}
 				}
 			}
@@ -424,25 +493,19 @@ public class GRBSolverUtils {
 	 * Check whether the policy is deterministic.
 	 * 
 	 * @param policy
-	 * @param explicitMDP
+	 *            : Policy pi_ia, in the sparse (state, action) layout of the MDP
 	 * @param feasibilityTol
 	 * @return Whether the policy is deterministic
 	 */
-	static boolean consistencyCheckDeterministicPolicy(double[][] policy, ExplicitMDP explicitMDP,
-			double feasibilityTol) {
-		for (int i = 0; i < policy.length; i++) {
-			for (int a = 0; a < policy[0].length; a++) {
-				// Exclude any pi_ia term when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					double pi = policy[i][a];
-					boolean isDeterministic = approximatelyEqual(pi, 0, feasibilityTol)
-							|| approximatelyEqual(pi, 1, feasibilityTol);
-
-					// Check for any randomized decision
-					if (!isDeterministic) {
-						return false;
-					}
-				}
+	static boolean consistencyCheckDeterministicPolicy(double[] policy, double feasibilityTol) {
+		for (int ia = 0; ia < policy.length; ia++) {
+			double pi = policy[ia];
+			boolean isDeterministic = approximatelyEqual(pi, 0, feasibilityTol)
+					|| approximatelyEqual(pi, 1, feasibilityTol);
+
+			// Check for any randomized decision
+			if (!isDeterministic) {
+				return false;
 			}
 		}
 		return true;
@@ -457,20 +520,17 @@ public class GRBSolverUtils {
 	 * @param explicitMDP
 	 * @return in_v(i) = sum_j,a (v_ja * P(i|j,a))
 	 */
-	static double getInValue(int i, double[][] vResults, ExplicitMDP explicitMDP) {
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
+	static double getInValue(int i, double[] vResults, ExplicitMDP explicitMDP) {
 		double inValue = 0;
 
 		// in_v(i) = sum_j,a (v_ja * P(i|j,a))
-		for (int j = 0; j < n; j++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any v_ja term when action a is not applicable in state j
-				if (explicitMDP.isActionApplicable(j, a)) {
-					double prob = explicitMDP.getTransitionProbability(j, a, i);
-					inValue += prob * vResults[j][a];
-				}
-			}
+		// Only visit the predecessors (j, a) of i, i.e., P(i|j,a) > 0
+		PredecessorIterator predIter = explicitMDP.predecessors(i);
+		while (predIter.hasNext()) {
+			predIter.next();
+			int ja = predIter.getStateActionPair();
+			double prob = predIter.getProbability();
+			inValue += prob * vResults[ja];
 		}
 		return inValue;
 	}
@@ -484,16 +544,13 @@ public class GRBSolverUtils {
 	 * @param explicitMDP
 	 * @return out_v(i) = sum_a (v_ia)
 	 */
-	static double getOutValue(int i, double[][] vResults, ExplicitMDP explicitMDP) {
-		int m = explicitMDP.getNumActions();
+	static double getOutValue(int i, double[] vResults, ExplicitMDP explicitMDP) {
 		double outValue = 0;
 
 		// out_v(i) = sum_a (v_ia)
-		for (int a = 0; a < m; a++) {
-			// Exclude any v_ia term when action a is not applicable in state i
-			if (explicitMDP.isActionApplicable(i, a)) {
-				outValue += vResults[i][a];
-			}
+		// Only the enabled (state, action) pairs have v_ia values
+		for (int ia = explicitMDP.getStateActionPairOffset(i); ia < explicitMDP.getStateActionPairOffset(i + 1); ia++) {
+			outValue += vResults[ia];
 		}
 		return outValue;
 	}
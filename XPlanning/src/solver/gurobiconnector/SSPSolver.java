@@ -2,15 +2,14 @@ package solver.gurobiconnector;
 
 import java.util.Set;
 
-import gurobi.GRB;
-import gurobi.GRBEnv;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
 import solver.common.ExplicitMDP;
 import solver.common.LPSolution;
 import solver.common.NonStrictConstraint;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.LPTermBuffer;
+import solver.lpsolver.VarType;
 
 public class SSPSolver {
 
@@ -54,51 +53,69 @@ public class SSPSolver {
 		mSettings = settings;
 	}
 
-	public LPSolution solveOptimalPolicy(double[][] outputPolicy) throws GRBException {
+	/**
+	 * Solve for an optimal policy for the SSP.
+	 * 
+	 * @param outputPolicy
+	 *            : Return parameter of optimal policy, in the sparse (state, action) layout of the MDP
+	 * @return Whether a solution policy exists, its objective value, and the solution
+	 * @throws LPSolverException
+	 */
+	public LPSolution solveOptimalPolicy(double[] outputPolicy) throws LPSolverException {
+		double[] xResults = new double[mExplicitMDP.getNumStateActionPairs()];
+		LPSolution solution = solve(xResults);
+
+		if (solution.exists()) {
+			fillPolicy(xResults, outputPolicy);
+		}
+
+		return solution;
+	}
+
+	/**
+	 * Derive the deterministic policy of the occupation measure: pi_ia = x_ia / sum_a (x_ia), for all reachable i.
+	 * 
+	 * @param xResults
+	 *            : Occupation measure x*_ia, in the sparse (state, action) layout of the MDP
+	 * @param outputPolicy
+	 *            : Return parameter of the policy, in the sparse (state, action) layout of the MDP
+	 */
+	void fillPolicy(double[] xResults, double[] outputPolicy) {
 		double feasTol = mSettings.getFeasibilityTolerance();
 		double roundOff = mSettings.getRoundOff();
 
 		int n = mExplicitMDP.getNumStates();
-		int m = mExplicitMDP.getNumActions();
-
-		double[][] xResults = new double[n][m];
-		LPSolution solution = solve(xResults);
 
-		if (solution.exists()) {
-			for (int i = 0; i < n; i++) {
-				// out(i) = sum_a (x_ia)
-				double denom = GRBSolverUtils.getOutValue(i, xResults, mExplicitMDP);
-
-				if (denom > roundOff) {
-					// Interpret occupation measure x_ia as the total expected discounted number of times action a is
-					// executed in state i.
-					// When sum_a (x_ia) > 0, it means state i is reachable.
-
-					for (int a = 0; a < m; a++) {
-						// Exclude any x_ia value when action a is not applicable in state i
-						if (mExplicitMDP.isActionApplicable(i, a)) {
-							// pi_ia = x_ia / sum_a (x_ia)
-							fillStateActionProbability(outputPolicy, xResults, denom, i, a);
-						}
-					}
+		for (int i = 0; i < n; i++) {
+			// out(i) = sum_a (x_ia)
+			double denom = GRBSolverUtils.getOutValue(i, xResults, mExplicitMDP);
+
+			if (denom > roundOff) {
+				// Interpret occupation measure x_ia as the total expected discounted number of times action a is
+				// executed in state i.
+				// When sum_a (x_ia) > 0, it means state i is reachable.
+
+				// Only the enabled (state, action) pairs have x_ia values
+				for (int ia = mExplicitMDP.getStateActionPairOffset(i); ia < mExplicitMDP
+						.getStateActionPairOffset(i + 1); ia++) {
+					// pi_ia = x_ia / sum_a (x_ia)
+					fillStateActionProbability(outputPolicy, xResults, denom, ia);
 				}
 			}
-
-			assert GRBSolverUtils.consistencyCheckDeterministicPolicy(outputPolicy, mExplicitMDP, feasTol);
 		}
 
-		return solution;
+		assert GRBSolverUtils.consistencyCheckDeterministicPolicy(outputPolicy, feasTol);
 	}
 
-	private void fillStateActionProbability(double[][] outputPolicy, double[][] xResults, double denom, int i, int a) {
+	private void fillStateActionProbability(double[] outputPolicy, double[] xResults, double denom, int ia) {
 		// pi_ia = x_ia / sum_a (x_ia)
-		double prob = xResults[i][a] / denom;
+		double prob = xResults[ia] / denom;
 
 		// Some x_ia value may be very small due to floating-point arithmetic error
 		// Round-off very small prob value to 0 -- to ensure that outputPolicy: pi_ia doesn't
 		// contain the floating-point arithmetic error
 		double roundOff = mSettings.getRoundOff();
-		outputPolicy[i][a] = prob > roundOff ? prob : 0.0;
+		outputPolicy[ia] = prob > roundOff ? prob : 0.0;
 	}
 
 	/**
@@ -114,7 +131,7 @@ public class SSPSolver {
 	 * 
 	 * (C5) sum_a (Delta_ia) <= 1, for all i in S
 	 * 
-	 * (C6) x_ia / X <= Delta_ia, for all i, a, where X >= x_ia
+	 * (C6) x_ia / X_ia <= Delta_ia, for all i, a, where X_ia >= x_ia
 	 * 
 	 * and optionally,
 	 * 
@@ -132,89 +149,210 @@ public class SSPSolver {
 	 * 
 	 * out(i) = sum_a (x_ia).
 	 * 
+	 * Without any cost constraint, only the LP of C1-C4 is solved (see {@link #solveUnconstrainedLP(double[])}).
+	 * 
 	 * @param xResults
-	 *            : Return parameter of x*_ia results
+	 *            : Return parameter of x*_ia results, in the sparse (state, action) layout of the MDP
 	 * @return Whether a feasible solution exists, its objective value, and the solution
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	public LPSolution solve(double[][] xResults) throws GRBException {
-		double intFeasTol = mSettings.getIntegralityTolerance();
+	public LPSolution solve(double[] xResults) throws LPSolverException {
+		if (!hasCostConstraints()) {
+			// Unconstrained SSP has a deterministic optimal policy at a vertex of the LP
+			return solveUnconstrainedLP(xResults);
+		}
+
 		double feasTol = mSettings.getFeasibilityTolerance();
 
-		GRBEnv env = new GRBEnv();
-		GRBModel model = new GRBModel(env);
+		// For SSP, X_ia is an upper-bound on occupation measure of each (i, a)
+		// This is computed separately (and cached), before building the model
+		double[] upperBoundsOM = UpperBoundOccupationMeasureSolver.getUpperBoundsOccupationMeasure(mExplicitMDP);
+
+		// Variables and constraints are added to the model in bulk
+		LPModel model = GRBSolverUtils.createModel(mSettings);
+		try {
+			// Create variables: x_ia, for all enabled (i, a)
+			// Lower bound on variables: x_ia >= 0
+			int[] xVars = GRBSolverUtils.createOptimizationVars("x", VarType.CONTINUOUS, mExplicitMDP, 0.0,
+					Double.POSITIVE_INFINITY, model);
+
+			// Create variables: Delta_ia (binary), for all enabled (i, a)
+			String deltaxVarName = "Deltax";
+			int[] deltaVars = GRBSolverUtils.createOptimizationVars(deltaxVarName, VarType.BINARY, mExplicitMDP, 0.0,
+					1.0, model);
+
+			// Set optimization objective
+			GRBSolverUtils.setOptimizationObjective(mExplicitMDP, xVars, model);
+
+			// Add constraints C1-C6
+			addPolicyConstraints(upperBoundsOM, xVars, deltaxVarName, deltaVars, model);
+
+			// Add (upper/lower bound) cost constraints, if any
+			if (mSoftConstraints != null) {
+				// Soft constraints
+				CostConstraintUtils.addSoftCostConstraints(mSoftConstraints, mHardConstraints, mExplicitMDP, xVars,
+						model);
+			} else if (mHardConstraints != null) {
+				// Hard constraints
+				CostConstraintUtils.addHardCostConstraints(mHardConstraints, mExplicitMDP, xVars, model);
+			}
 
-		GRBSolverUtils.configureToleranceParameters(model, intFeasTol, feasTol);
+			// Solve optimization problem for x_ia and Delta_ia
+			model.optimize();
 
-		int n = mExplicitMDP.getNumStates();
-		int m = mExplicitMDP.getNumActions();
+			boolean hasSolution = GRBSolverUtils.hasSolution(model);
+			double objectiveValue = -1;
 
-		// Create variables: x_ia
-		// Lower bound on variables: x_ia >= 0
-		GRBVar[][] xVars = GRBSolverUtils.createOptimizationVars("x", GRB.CONTINUOUS, n, m, 0.0,
-				Double.POSITIVE_INFINITY, model);
+			if (hasSolution) {
+				// Solution found
 
-		// Create variables: Delta_ia (binary)
-		String deltaxVarName = "Deltax";
-		GRBVar[][] deltaVars = GRBSolverUtils.createOptimizationVars(deltaxVarName, GRB.BINARY, n, m, 0.0, 1.0, model);
+				// Objective value: sum_i,a (c_ia * x_ia)
+				objectiveValue = model.getObjectiveValue();
 
-		// Set optimization objective
-		GRBSolverUtils.setOptimizationObjective(mExplicitMDP, xVars, model);
+				// Query results: optimal values of x_ia and Delta_ia
+				double[] lpXResults = model.getValues(xVars);
+				double[] lpDeltaResults = model.getValues(deltaVars);
 
-		// Add constraints
-		addFlowConservationConstraints(xVars, model);
-		addSourceFlowConstraint(xVars, model);
-		addSinksFlowConstraint(xVars, model);
+				// Copy x_ia results to the return parameters
+				System.arraycopy(lpXResults, 0, xResults, 0, lpXResults.length);
 
-		// Add constraints to ensure deterministic solution policy
-		GRBSolverUtils.addDeltaConstraints(mExplicitMDP, deltaxVarName, deltaVars, model);
-
-		// For SSP, X is an upper-bound on occupation measure
-		double upperBoundOM = UpperBoundOccupationMeasureSolver.computeUpperBoundOccupationMeasure(mExplicitMDP,
-				feasTol);
-		GRBSolverUtils.addVarDeltaConstraints(upperBoundOM, mExplicitMDP, "x", xVars, deltaxVarName, deltaVars, model);
+				// Consistency checks
+				verifyAllConstraints(lpXResults, lpDeltaResults, upperBoundsOM, mHardConstraints);
+				assert GRBSolverUtils.consistencyCheckResults(lpXResults, lpDeltaResults, mExplicitMDP, feasTol);
+			}
 
-		// Add (upper/lower bound) cost constraints, if any
-		if (mSoftConstraints != null) {
-			// Soft constraints
-			CostConstraintUtils.addSoftCostConstraints(mSoftConstraints, mHardConstraints, mExplicitMDP, xVars, model);
-		} else if (mHardConstraints != null) {
-			// Hard constraints
-			CostConstraintUtils.addHardCostConstraints(mHardConstraints, mExplicitMDP, xVars, model);
+			// LP solution
+			LPSolution solution = new LPSolution(hasSolution, objectiveValue);
+			solution.addSolution("x", xResults);
+			solution.setRunningTimes(model.getBuildTime(), model.getSolveTime());
+			return solution;
+		} finally {
+			// Dispose of model, also on failure
+			model.dispose();
 		}
+	}
+
+	/**
+	 * Solve: minimize_x sum_i,a (x_ia * c_ia) subject to the constraints C1-C4 only.
+	 * 
+	 * Without cost constraints, the basic solutions of this LP correspond to deterministic policies. Therefore, the
+	 * binary variables Delta_ia and the constraints C5-C6 are not needed, as long as the LP is solved by a simplex
+	 * method. The policy is extracted from x_ia in the same way as from the MILP solution.
+	 * 
+	 * @param xResults
+	 *            : Return parameter of x*_ia results, in the sparse (state, action) layout of the MDP
+	 * @return Whether a feasible solution exists, its objective value, and the solution
+	 * @throws LPSolverException
+	 */
+	private LPSolution solveUnconstrainedLP(double[] xResults) throws LPSolverException {
+		LPModel model = GRBSolverUtils.createModel(mSettings);
+		try {
+			// Basic solution is required for the solution policy to be deterministic
+			model.setBasicSolutionRequired();
+
+			// Create variables: x_ia, for all enabled (i, a)
+			// Lower bound on variables: x_ia >= 0
+			int[] xVars = GRBSolverUtils.createOptimizationVars("x", VarType.CONTINUOUS, mExplicitMDP, 0.0,
+					Double.POSITIVE_INFINITY, model);
+
+			// Set optimization objective
+			GRBSolverUtils.setOptimizationObjective(mExplicitMDP, xVars, model);
 
-		// Solve optimization problem for x_ia and Delta_ia
-		model.optimize();
+			// Add constraints C1-C3
+			addFlowConstraints(xVars, model);
 
-		int numSolutions = model.get(GRB.IntAttr.SolCount);
-		double objectiveValue = -1;
+			// Solve optimization problem for x_ia
+			model.optimize();
 
-		if (numSolutions > 0) {
-			// Solution found
+			boolean hasSolution = GRBSolverUtils.hasSolution(model);
+			double objectiveValue = -1;
 
-			// Objective value: sum_i,a (c_ia * x_ia)
-			objectiveValue = model.get(GRB.DoubleAttr.ObjVal);
+			if (hasSolution) {
+				// Solution found
 
-			// Query results: optimal values of x_ia and Delta_ia
-			double[][] grbXResults = model.get(GRB.DoubleAttr.X, xVars);
-			double[][] grbDeltaResults = model.get(GRB.DoubleAttr.X, deltaVars);
+				// Objective value: sum_i,a (c_ia * x_ia)
+				objectiveValue = model.getObjectiveValue();
 
-			// Copy x_ia results to the return parameters
-			System.arraycopy(grbXResults, 0, xResults, 0, grbXResults.length);
+				// Query results: optimal values of x_ia
+				double[] lpXResults = model.getValues(xVars);
 
-			// Consistency checks
-			verifyAllConstraints(grbXResults, grbDeltaResults, upperBoundOM);
-			assert GRBSolverUtils.consistencyCheckResults(grbXResults, grbDeltaResults, mExplicitMDP, feasTol);
+				// Copy x_ia results to the return parameters
+				System.arraycopy(lpXResults, 0, xResults, 0, lpXResults.length);
+
+				// Consistency checks
+				verifyFlowConstraints(lpXResults);
+			}
+
+			// LP solution
+			LPSolution solution = new LPSolution(hasSolution, objectiveValue);
+			solution.addSolution("x", xResults);
+			solution.setRunningTimes(model.getBuildTime(), model.getSolveTime());
+			return solution;
+		} finally {
+			// Dispose of model, also on failure
+			model.dispose();
 		}
+	}
 
-		// Dispose of model and environment
-		model.dispose();
-		env.dispose();
+	/**
+	 * 
+	 * @return Whether there is any soft or hard cost constraint
+	 */
+	private boolean hasCostConstraints() {
+		if (mSoftConstraints != null) {
+			return true;
+		}
+		if (mHardConstraints != null) {
+			// Non-objective cost functions start at index 1 in ExplicitMDP
+			for (int k = 1; k < mHardConstraints.length; k++) {
+				if (mHardConstraints[k] != null) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
 
-		// LP solution
-		LPSolution solution = new LPSolution(numSolutions > 0, objectiveValue);
-		solution.addSolution("x", xResults);
-		return solution;
+	/**
+	 * Add the constraints C1-C6, which only depend on the transition structure of the MDP: the flow constraints, and
+	 * the constraints to ensure deterministic solution policy.
+	 * 
+	 * @param upperBoundsOM
+	 *            : Upper bounds X_ia on occupation measure, in the sparse (state, action) layout of the MDP
+	 * @param xVars
+	 *            : Occupation measure variables
+	 * @param deltaVarName
+	 *            : Name of Delta variables
+	 * @param deltaVars
+	 *            : Delta variables
+	 * @param model
+	 *            : LP model to which to add the constraints
+	 * @throws LPSolverException
+	 */
+	void addPolicyConstraints(double[] upperBoundsOM, int[] xVars, String deltaVarName, int[] deltaVars, LPModel model)
+			throws LPSolverException {
+		// Add constraints
+		addFlowConstraints(xVars, model);
+
+		// Add constraints to ensure deterministic solution policy
+		GRBSolverUtils.addDeltaConstraints(mExplicitMDP, deltaVarName, deltaVars, model);
+
+		GRBSolverUtils.addVarDeltaConstraints(upperBoundsOM, mExplicitMDP, "x", xVars, deltaVarName, deltaVars, model);
+	}
+
+	/**
+	 * Add the flow constraints C1-C3.
+	 * 
+	 * @param xVars
+	 *            : Occupation measure variables
+	 * @param model
+	 *            : LP model to which to add the flow constraints
+	 * @throws LPSolverException
+	 */
+	private void addFlowConstraints(int[] xVars, LPModel model) throws LPSolverException {
+		addFlowConservationConstraints(xVars, model);
+		addSourceFlowConstraint(xVars, model);
+		addSinksFlowConstraint(xVars, model);
 	}
 
 	/**
@@ -223,13 +361,14 @@ public class SSPSolver {
 	 * @param xVars
 	 *            : Occupation measure variables
 	 * @param model
-	 *            : GRB model to which to add the flow-conservation constraints
-	 * @throws GRBException
+	 *            : LP model to which to add the flow-conservation constraints
+	 * @throws LPSolverException
 	 */
-	private void addFlowConservationConstraints(GRBVar[][] xVars, GRBModel model) throws GRBException {
+	private void addFlowConservationConstraints(int[] xVars, LPModel model) throws LPSolverException {
 		int n = mExplicitMDP.getNumStates();
 		Set<Integer> goals = mExplicitMDP.getGoalStates();
 		int iniState = mExplicitMDP.getInitialState();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		for (int i = 0; i < n; i++) {
 			if (goals.contains(Integer.valueOf(i)) || iniState == i) {
@@ -237,18 +376,18 @@ public class SSPSolver {
 				continue;
 			}
 
-			String constraintName = "constraintC1_" + i;
+			String constraintName = model.createName("constraintC1", i);
 			// out(i) - in(i) = 0
-			GRBLinExpr constraintLinExpr = new GRBLinExpr();
 
 			// Expression += out(i)
-			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addOutTerm(i, 1, mExplicitMDP, xVars, constraintTerms);
 
 			// Expression -= in(i)
-			GRBSolverUtils.addInTerm(i, -1, mExplicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addInTerm(i, -1, mExplicitMDP, xVars, constraintTerms);
 
 			// Add constraint
-			model.addConstr(constraintLinExpr, GRB.EQUAL, 0, constraintName);
+			model.addConstr(constraintTerms, ConstraintSense.EQUAL, 0, constraintName);
+			constraintTerms.clear();
 		}
 	}
 
@@ -258,24 +397,24 @@ public class SSPSolver {
 	 * @param xVars
 	 *            : Occupation measure variables
 	 * @param model
-	 *            : GRB model to which to add the source flow constraint
-	 * @throws GRBException
+	 *            : LP model to which to add the source flow constraint
+	 * @throws LPSolverException
 	 */
-	private void addSourceFlowConstraint(GRBVar[][] xVars, GRBModel model) throws GRBException {
+	private void addSourceFlowConstraint(int[] xVars, LPModel model) throws LPSolverException {
 		int iniState = mExplicitMDP.getInitialState();
 
-		String constraintName = "constraintC3";
+		String constraintName = model.createName("constraintC3");
 		// out(s0) - in(s0) = 1
-		GRBLinExpr constraintLinExpr = new GRBLinExpr();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		// Expression += out(s0)
-		GRBSolverUtils.addOutTerm(iniState, 1, mExplicitMDP, xVars, constraintLinExpr);
+		GRBSolverUtils.addOutTerm(iniState, 1, mExplicitMDP, xVars, constraintTerms);
 
 		// Expression -= in(s0)
-		GRBSolverUtils.addInTerm(iniState, -1, mExplicitMDP, xVars, constraintLinExpr);
+		GRBSolverUtils.addInTerm(iniState, -1, mExplicitMDP, xVars, constraintTerms);
 
 		// Add constraint
-		model.addConstr(constraintLinExpr, GRB.EQUAL, 1, constraintName);
+		model.addConstr(constraintTerms, ConstraintSense.EQUAL, 1, constraintName);
 	}
 
 	/**
@@ -284,38 +423,42 @@ public class SSPSolver {
 	 * @param xVars
 	 *            : Occupation measure variables
 	 * @param model
-	 *            : GRB model to which to add the sinks flow constraint
-	 * @throws GRBException
+	 *            : LP model to which to add the sinks flow constraint
+	 * @throws LPSolverException
 	 */
-	private void addSinksFlowConstraint(GRBVar[][] xVars, GRBModel model) throws GRBException {
-		String constraintName = "constraintC4";
+	private void addSinksFlowConstraint(int[] xVars, LPModel model) throws LPSolverException {
+		String constraintName = model.createName("constraintC4");
 		// sum_{sg in G} (in(sg)) = 1
-		GRBLinExpr constraintLinExpr = new GRBLinExpr();
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		for (Integer goal : mExplicitMDP.getGoalStates()) {
 			// Expression += in(sg)
-			GRBSolverUtils.addInTerm(goal, 1, mExplicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addInTerm(goal, 1, mExplicitMDP, xVars, constraintTerms);
 		}
 
 		// Add constraint
-		model.addConstr(constraintLinExpr, GRB.EQUAL, 1, constraintName);
+		model.addConstr(constraintTerms, ConstraintSense.EQUAL, 1, constraintName);
 	}
 
-	private void verifyAllConstraints(double[][] xResults, double[][] deltaResults, double upperBoundOM) {
+	void verifyAllConstraints(double[] xResults, double[] deltaResults, double[] upperBoundsOM,
+			NonStrictConstraint[] hardConstraints) {
 		double feasTol = mSettings.getFeasibilityTolerance();
 
+		verifyFlowConstraints(xResults);
+		assert GRBSolverUtils.consistencyCheckDeltaConstraints(deltaResults, mExplicitMDP);
+		assert GRBSolverUtils.consistencyCheckVarDeltaConstraints(xResults, deltaResults, upperBoundsOM, feasTol);
+		if (hardConstraints != null) {
+			assert GRBSolverUtils.consistencyCheckCostConstraints(xResults, hardConstraints, mExplicitMDP, feasTol);
+		}
+	}
+
+	private void verifyFlowConstraints(double[] xResults) {
 		assert consistencyCheckFlowConservationConstraints(xResults);
 		assert consistencyCheckSourceFlowConstraint(xResults);
 		assert consistencyCheckSinksFlowConstraint(xResults);
-		assert GRBSolverUtils.consistencyCheckDeltaConstraints(deltaResults, mExplicitMDP);
-		assert GRBSolverUtils.consistencyCheckVarDeltaConstraints(xResults, deltaResults, upperBoundOM, mExplicitMDP,
-				feasTol);
-		if (mHardConstraints != null) {
-			assert GRBSolverUtils.consistencyCheckCostConstraints(xResults, mHardConstraints, mExplicitMDP, feasTol);
-		}
 	}
 
-	private boolean consistencyCheckFlowConservationConstraints(double[][] xResults) {
+	private boolean consistencyCheckFlowConservationConstraints(double[] xResults) {
 		int n = mExplicitMDP.getNumStates();
 		Set<Integer> goals = mExplicitMDP.getGoalStates();
 		int iniState = mExplicitMDP.getInitialState();
@@ -338,14 +481,14 @@ public class SSPSolver {
 		return true;
 	}
 
-	private boolean consistencyCheckSourceFlowConstraint(double[][] xResults) {
+	private boolean consistencyCheckSourceFlowConstraint(double[] xResults) {
 		int iniState = mExplicitMDP.getInitialState();
 		double outValue = GRBSolverUtils.getOutValue(iniState, xResults, mExplicitMDP);
 		double inValue = GRBSolverUtils.getInValue(iniState, xResults, mExplicitMDP);
 		return GRBSolverUtils.approximatelyEqual(outValue - inValue, 1, mSettings.getFeasibilityTolerance());
 	}
 
-	private boolean consistencyCheckSinksFlowConstraint(double[][] xResults) {
+	private boolean consistencyCheckSinksFlowConstraint(double[] xResults) {
 		double sum = 0;
 		for (Integer goal : mExplicitMDP.getGoalStates()) {
 			double inValue = GRBSolverUtils.getInValue(goal, xResults, mExplicitMDP);
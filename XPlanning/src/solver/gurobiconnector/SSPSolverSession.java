@@ -0,0 +1,194 @@
+package solver.gurobiconnector;
+
+import java.util.Arrays;
+
+import solver.common.ExplicitMDP;
+import solver.common.LPSolution;
+import solver.common.NonStrictConstraint;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.VarType;
+
+/**
+ * {@link SSPSolverSession} is a persistent {@link SSPSolver} for solving the same SSP repeatedly, with different
+ * objective costs and hard cost constraints (e.g., when exploring alternative policies).
+ *
+ * The model is built once: the occupation measure bounds X_ia, the variables x_ia and Delta_ia, and the constraints
+ * C1-C6 only depend on the transition structure of the MDP. For each solve, only the objective coefficients are
+ * replaced and the senses and right-hand sides of the cost constraints Ck are changed, so that the LP solver can reuse
+ * its presolve and warm-start from the previous solution. The cost constraint on each cost function k is added to the
+ * model the first time it is needed; when it is not needed, it is made inactive by setting its right-hand side to
+ * infinity.
+ *
+ * The objective costs of the MDP are read at each solve, so the caller can change them between solves. The session
+ * must be disposed of when it is no longer used.
+ */
+public class SSPSolverSession {
+
+	private ExplicitMDP mExplicitMDP;
+	private GRBConnectorSettings mSettings;
+	private SSPSolver mSSPSolver;
+
+	private LPModel mModel;
+	private int[] mXVars;
+	private int[] mDeltaVars;
+	private double[] mUpperBoundsOM;
+
+	// Index of the cost constraint on each cost function k in the model, or -1 if it has not been added
+	private int[] mCostConstrs;
+
+	/**
+	 * Build the model of the SSP, without objective and cost constraints.
+	 *
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param settings
+	 *            : GRBConnector settings, containing tolerance parameters
+	 * @throws LPSolverException
+	 */
+	public SSPSolverSession(ExplicitMDP explicitMDP, GRBConnectorSettings settings) throws LPSolverException {
+		mExplicitMDP = explicitMDP;
+		mSettings = settings;
+		mSSPSolver = new SSPSolver(explicitMDP, settings);
+
+		// For SSP, X_ia is an upper-bound on occupation measure of each (i, a)
+		// This is computed separately (and cached), before building the model
+		mUpperBoundsOM = UpperBoundOccupationMeasureSolver.getUpperBoundsOccupationMeasure(explicitMDP);
+
+		mModel = GRBSolverUtils.createModel(settings);
+
+		// Create variables: x_ia, for all enabled (i, a)
+		// Lower bound on variables: x_ia >= 0
+		mXVars = GRBSolverUtils.createOptimizationVars("x", VarType.CONTINUOUS, explicitMDP, 0.0,
+				Double.POSITIVE_INFINITY, mModel);
+
+		// Create variables: Delta_ia (binary), for all enabled (i, a)
+		String deltaxVarName = "Deltax";
+		mDeltaVars = GRBSolverUtils.createOptimizationVars(deltaxVarName, VarType.BINARY, explicitMDP, 0.0, 1.0,
+				mModel);
+
+		// Add constraints C1-C6
+		mSSPSolver.addPolicyConstraints(mUpperBoundsOM, mXVars, deltaxVarName, mDeltaVars, mModel);
+
+		mCostConstrs = new int[explicitMDP.getNumCostFunctions()];
+		Arrays.fill(mCostConstrs, -1);
+	}
+
+	/**
+	 * Solve for an optimal policy for the SSP, with the current objective costs of the MDP and the given hard
+	 * constraints.
+	 *
+	 * @param hardConstraints
+	 *            : Indexed hard constraints; null iff unconstrained
+	 * @param outputPolicy
+	 *            : Return parameter of optimal policy, in the sparse (state, action) layout of the MDP
+	 * @return Whether a solution policy exists, its objective value, and the solution
+	 * @throws LPSolverException
+	 */
+	public LPSolution solveOptimalPolicy(NonStrictConstraint[] hardConstraints, double[] outputPolicy)
+			throws LPSolverException {
+		double[] xResults = new double[mExplicitMDP.getNumStateActionPairs()];
+		LPSolution solution = solve(hardConstraints, xResults);
+
+		if (solution.exists()) {
+			mSSPSolver.fillPolicy(xResults, outputPolicy);
+		}
+
+		return solution;
+	}
+
+	/**
+	 * Solve: minimize_x sum_i,a (x_ia * c_ia) subject to the constraints C1-C6 of {@link SSPSolver}, and the given
+	 * upper-bound or lower-bound cost constraints Ck.
+	 *
+	 * @param hardConstraints
+	 *            : Indexed hard constraints; null iff unconstrained
+	 * @param xResults
+	 *            : Return parameter of x*_ia results, in the sparse (state, action) layout of the MDP
+	 * @return Whether a feasible solution exists, its objective value, and the solution
+	 * @throws LPSolverException
+	 */
+	public LPSolution solve(NonStrictConstraint[] hardConstraints, double[] xResults) throws LPSolverException {
+		double feasTol = mSettings.getFeasibilityTolerance();
+
+		// Replace optimization objective
+		GRBSolverUtils.setOptimizationObjective(mExplicitMDP, mXVars, mModel);
+
+		// Update (upper/lower bound) cost constraints
+		updateCostConstraints(hardConstraints);
+
+		// Solve optimization problem for x_ia and Delta_ia
+		mModel.optimize();
+
+		boolean hasSolution = GRBSolverUtils.hasSolution(mModel);
+		double objectiveValue = -1;
+
+		if (hasSolution) {
+			// Solution found
+
+			// Objective value: sum_i,a (c_ia * x_ia)
+			objectiveValue = mModel.getObjectiveValue();
+
+			// Query results: optimal values of x_ia and Delta_ia
+			double[] lpXResults = mModel.getValues(mXVars);
+			double[] lpDeltaResults = mModel.getValues(mDeltaVars);
+
+			// Copy x_ia results to the return parameters
+			System.arraycopy(lpXResults, 0, xResults, 0, lpXResults.length);
+
+			// Consistency checks
+			mSSPSolver.verifyAllConstraints(lpXResults, lpDeltaResults, mUpperBoundsOM, hardConstraints);
+			assert GRBSolverUtils.consistencyCheckResults(lpXResults, lpDeltaResults, mExplicitMDP, feasTol);
+		}
+
+		// LP solution
+		LPSolution solution = new LPSolution(hasSolution, objectiveValue);
+		solution.addSolution("x", xResults);
+		solution.setRunningTimes(mModel.getBuildTime(), mModel.getSolveTime());
+		return solution;
+	}
+
+	/**
+	 * Add, change, or deactivate the cost constraint on each cost function k, to match the given hard constraints.
+	 *
+	 * @param hardConstraints
+	 *            : Indexed hard constraints; null iff unconstrained
+	 * @throws LPSolverException
+	 */
+	private void updateCostConstraints(NonStrictConstraint[] hardConstraints) throws LPSolverException {
+		// Non-objective cost functions start at index 1 in ExplicitMDP
+		for (int k = 1; k < mCostConstrs.length; k++) {
+			NonStrictConstraint hardConstraint = hardConstraints != null && k < hardConstraints.length
+					? hardConstraints[k]
+					: null;
+
+			if (hardConstraint == null && mCostConstrs[k] != -1) {
+				// Deactivate the constraint: sum_i,a (x_ia * C_k(i,a)) <= infinity
+				mModel.setConstrSense(mCostConstrs[k], ConstraintSense.LESS_EQUAL);
+				mModel.setConstrRHS(mCostConstrs[k], Double.POSITIVE_INFINITY);
+			} else if (hardConstraint != null && mCostConstrs[k] == -1) {
+				// Add the constraint the first time it is needed
+				mCostConstrs[k] = CostConstraintUtils.addHardCostConstraint(k, hardConstraint, mExplicitMDP, mXVars,
+						mModel);
+			} else if (hardConstraint != null) {
+				// Change the bound of the constraint: [...] <= HUB_k or >= HLB_k
+				mModel.setConstrSense(mCostConstrs[k], CostConstraintUtils.getConstraintSense(hardConstraint));
+				mModel.setConstrRHS(mCostConstrs[k], hardConstraint.getBoundValue());
+			}
+		}
+	}
+
+	public ExplicitMDP getExplicitMDP() {
+		return mExplicitMDP;
+	}
+
+	/**
+	 * Release the resources of the model.
+	 *
+	 * @throws LPSolverException
+	 */
+	public void dispose() throws LPSolverException {
+		mModel.dispose();
+	}
+}
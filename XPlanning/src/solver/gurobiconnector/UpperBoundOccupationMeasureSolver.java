@@ -1,23 +1,368 @@
 package solver.gurobiconnector;
 
 import java.nio.channels.IllegalSelectorException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import gurobi.GRB;
-import gurobi.GRBEnv;
-import gurobi.GRBException;
-import gurobi.GRBLinExpr;
-import gurobi.GRBModel;
-import gurobi.GRBVar;
 import solver.common.ExplicitMDP;
+import solver.common.StronglyConnectedComponents;
+import solver.common.SuccessorIterator;
+import solver.lpsolver.ConstraintSense;
+import solver.lpsolver.LPModel;
+import solver.lpsolver.LPSolverBackend;
+import solver.lpsolver.LPSolverBackends;
+import solver.lpsolver.LPSolverException;
+import solver.lpsolver.LPTermBuffer;
+import solver.lpsolver.ObjectiveSense;
+import solver.lpsolver.VarType;
 
 public class UpperBoundOccupationMeasureSolver {
 
 	private static final double DEFAULT_DISCOUNT_FACTOR = 0.99;
 
+	/**
+	 * Maximum error of the upper bound computed by value iteration.
+	 */
+	public static final double DEFAULT_EPSILON = 1e-9;
+	public static final int DEFAULT_MAX_ITERATIONS = 100000;
+
+	/**
+	 * Maximum size of a strongly connected component, up to which the return probabilities of its states are computed
+	 * to tighten the upper bounds of their occupation measures.
+	 */
+	public static final int MAX_COMPONENT_SIZE = 500;
+
+	/**
+	 * Maximum number of sweeps of value iteration of the return probability of each state.
+	 */
+	public static final int MAX_RETURN_PROB_ITERATIONS = 1000;
+
+	/**
+	 * Maximum number of transition structures whose upper bounds are cached.
+	 */
+	private static final int CACHE_CAPACITY = 64;
+
+	// Upper bounds of occupation measure of each transition structure fingerprint, in least-recently-used order
+	private static final Map<Long, Double> UPPER_BOUND_CACHE = createCache();
+	private static final Map<Long, double[]> UPPER_BOUNDS_CACHE = createCache();
+
 	private UpperBoundOccupationMeasureSolver() {
 		throw new IllegalSelectorException();
 	}
 
+	/**
+	 * Get X >= x_ia for all i, a, where x_ia is the occupation measure corresponding to a policy of a given MDP. The
+	 * upper bound only depends on the transition structure of the MDP; it is computed by value iteration, and cached by
+	 * the transition structure fingerprint of the MDP.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return Upper bound of occupation measure
+	 */
+	public static double getUpperBoundOccupationMeasure(ExplicitMDP explicitMDP) {
+		Long fingerprint = explicitMDP.getTransitionStructureFingerprint();
+		synchronized (UPPER_BOUND_CACHE) {
+			Double upperBoundX = UPPER_BOUND_CACHE.get(fingerprint);
+			if (upperBoundX != null) {
+				return upperBoundX;
+			}
+		}
+
+		double upperBoundX = computeUpperBoundOccupationMeasureByValueIteration(explicitMDP, DEFAULT_EPSILON,
+				DEFAULT_MAX_ITERATIONS);
+		synchronized (UPPER_BOUND_CACHE) {
+			UPPER_BOUND_CACHE.put(fingerprint, upperBoundX);
+		}
+		return upperBoundX;
+	}
+
+	/**
+	 * Get X_ia >= x_ia for each (i, a), where x_ia is the occupation measure corresponding to a policy of a given MDP.
+	 * The upper bounds are computed by {@link #computeUpperBoundsOccupationMeasure(ExplicitMDP, double)}, and cached by
+	 * the transition structure fingerprint of the MDP.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return Upper bounds of occupation measure, in the sparse (state, action) layout of the MDP
+	 */
+	public static double[] getUpperBoundsOccupationMeasure(ExplicitMDP explicitMDP) {
+		Long fingerprint = explicitMDP.getTransitionStructureFingerprint();
+		synchronized (UPPER_BOUNDS_CACHE) {
+			double[] upperBounds = UPPER_BOUNDS_CACHE.get(fingerprint);
+			if (upperBounds != null) {
+				return upperBounds.clone();
+			}
+		}
+
+		double upperBoundX = getUpperBoundOccupationMeasure(explicitMDP);
+		double[] upperBounds = computeUpperBoundsOccupationMeasure(explicitMDP, upperBoundX);
+		synchronized (UPPER_BOUNDS_CACHE) {
+			UPPER_BOUNDS_CACHE.put(fingerprint, upperBounds.clone());
+		}
+		return upperBounds;
+	}
+
+	/**
+	 * Clear the cached upper bounds.
+	 */
+	public static void clearCache() {
+		synchronized (UPPER_BOUND_CACHE) {
+			UPPER_BOUND_CACHE.clear();
+		}
+		synchronized (UPPER_BOUNDS_CACHE) {
+			UPPER_BOUNDS_CACHE.clear();
+		}
+	}
+
+	private static <V> Map<Long, V> createCache() {
+		return new LinkedHashMap<Long, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, V> eldest) {
+				return size() > CACHE_CAPACITY;
+			}
+		};
+	}
+
+	/**
+	 * Compute X_ia >= x_ia for each (i, a), where x_ia is the occupation measure corresponding to a proper policy of a
+	 * given SSP, i.e., the expected number of times action a is taken in state i. These are used as individual big-M
+	 * coefficients, which give a much tighter relaxation than the global bound X.
+	 * 
+	 * The expected number of visits to a state i is at most 1 / (1 - r_i), where r_i is the maximum probability of
+	 * returning to i after leaving it. Therefore, a state that is not on any cycle is visited at most once. For a state
+	 * on a cycle, an upper bound of r_i is computed by value iteration from above, within the strongly connected
+	 * component of the state, since any path from i back to i stays in that component.
+	 * 
+	 * All bounds are capped at the global bound X. Goal states, and the states of components larger than
+	 * {@link #MAX_COMPONENT_SIZE}, get X.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param upperBoundX
+	 *            : Global upper bound X of occupation measure
+	 * @return Upper bounds of occupation measure, in the sparse (state, action) layout of the MDP
+	 */
+	public static double[] computeUpperBoundsOccupationMeasure(ExplicitMDP explicitMDP, double upperBoundX) {
+		int n = explicitMDP.getNumStates();
+		Set<Integer> goals = explicitMDP.getGoalStates();
+		StronglyConnectedComponents sccs = StronglyConnectedComponents.decompose(explicitMDP);
+
+		double[] upperBounds = new double[explicitMDP.getNumStateActionPairs()];
+		// Probabilities of reaching the current state i, from the states of its component
+		double[] reachProbs = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			int component = sccs.getComponentOfState(i);
+			double upperBoundI;
+
+			if (goals.contains(i) || sccs.getComponentSize(component) > MAX_COMPONENT_SIZE) {
+				upperBoundI = upperBoundX;
+			} else if (!sccs.isCyclic(component)) {
+				// State i is visited at most once
+				upperBoundI = Math.min(1, upperBoundX);
+			} else {
+				double returnProb = computeUpperBoundReturnProbability(explicitMDP, sccs, i, reachProbs);
+				upperBoundI = returnProb < 1 ? Math.min(1 / (1 - returnProb), upperBoundX) : upperBoundX;
+			}
+
+			// Only the enabled (state, action) pairs have x_ia values
+			Arrays.fill(upperBounds, explicitMDP.getStateActionPairOffset(i),
+					explicitMDP.getStateActionPairOffset(i + 1), upperBoundI);
+		}
+		return upperBounds;
+	}
+
+	/**
+	 * Compute an upper bound of the maximum probability of returning to a given state i, by value iteration of the
+	 * maximum probabilities of reaching i from the states of its component. The probabilities start from 1 and
+	 * decrease monotonically; therefore, they remain upper bounds even if value iteration is stopped early.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param sccs
+	 *            : Strongly connected components of the MDP
+	 * @param i
+	 *            : State i
+	 * @param reachProbs
+	 *            : Work array of the probabilities of reaching i, indexed by state
+	 * @return Upper bound of the maximum probability of returning to i
+	 */
+	private static double computeUpperBoundReturnProbability(ExplicitMDP explicitMDP, StronglyConnectedComponents sccs,
+			int i, double[] reachProbs) {
+		int component = sccs.getComponentOfState(i);
+		int start = sccs.getComponentOffset(component);
+		int end = sccs.getComponentOffset(component + 1);
+
+		// Target state i has reachability probability 1
+		for (int k = start; k < end; k++) {
+			reachProbs[sccs.getComponentState(k)] = 1;
+		}
+
+		// Gauss-Seidel value iteration, from above
+		for (int iter = 0; iter < MAX_RETURN_PROB_ITERATIONS; iter++) {
+			double maxDiff = 0;
+
+			for (int k = start; k < end; k++) {
+				int j = sccs.getComponentState(k);
+				if (j == i) {
+					continue;
+				}
+				double reachProb = computeMaxReachProbability(explicitMDP, sccs, component, j, reachProbs);
+				maxDiff = Math.max(maxDiff, reachProbs[j] - reachProb);
+				reachProbs[j] = reachProb;
+			}
+
+			if (maxDiff <= DEFAULT_EPSILON) {
+				break;
+			}
+		}
+
+		// Return to i: leave i, and reach i again
+		return computeMaxReachProbability(explicitMDP, sccs, component, i, reachProbs);
+	}
+
+	/**
+	 * 
+	 * @return max_a sum_k (P(k|j,a) * reachProbs(k)), where the states outside of the component have probability 0
+	 */
+	private static double computeMaxReachProbability(ExplicitMDP explicitMDP, StronglyConnectedComponents sccs,
+			int component, int j, double[] reachProbs) {
+		double maxReachProb = 0;
+		for (int a : explicitMDP.getEnabledActions(j)) {
+			double reachProb = 0;
+			SuccessorIterator succIter = explicitMDP.successors(j, a);
+			while (succIter.hasNext()) {
+				int k = succIter.next();
+				if (sccs.getComponentOfState(k) == component) {
+					reachProb += succIter.getProbability() * reachProbs[k];
+				}
+			}
+			maxReachProb = Math.max(maxReachProb, reachProb);
+		}
+		return maxReachProb;
+	}
+
+	/**
+	 * Compute the same upper bound X as {@link #computeUpperBoundOccupationMeasure(ExplicitMDP, double)}, without an
+	 * LP.
+	 * 
+	 * By LP duality, max_x sum_i,a (x_ia) subject to the discounted flow-conservation constraints is the maximum
+	 * expected discounted number of steps from the initial state: V(i) = 0 if A_i is empty, and otherwise V(i) = max_a
+	 * (1 + gamma * sum_j (P(j|i,a) * V(j))).
+	 * 
+	 * First, V(i) = 1 / (1 - gamma) exactly for all states from which some policy never reaches a state without any
+	 * action (the greatest fixed point of: Z = states with an action whose successors are all in Z). Then, value
+	 * iteration is run on the remaining states, starting from 1 / (1 - gamma). The values decrease monotonically and
+	 * remain upper bounds of V; therefore, the result is a valid upper bound even if value iteration is stopped early.
+	 * 
+	 * Unlike the LP, which has no feasible solution if states without any action cannot be avoided, value iteration
+	 * treats such states as terminal.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param epsilon
+	 *            : Maximum error of the upper bound
+	 * @param maxIterations
+	 *            : Maximum number of sweeps of value iteration
+	 * @return Upper bound of occupation measure
+	 */
+	public static double computeUpperBoundOccupationMeasureByValueIteration(ExplicitMDP explicitMDP, double epsilon,
+			int maxIterations) {
+		int n = explicitMDP.getNumStates();
+		double gamma = DEFAULT_DISCOUNT_FACTOR;
+		double maxValue = 1 / (1 - gamma);
+
+		boolean[] canStayForever = computeStatesThatCanStayForever(explicitMDP);
+		int iniState = explicitMDP.getInitialState();
+		if (canStayForever[iniState]) {
+			return maxValue;
+		}
+
+		// Value of each state: 1 / (1 - gamma) for states that can stay forever, 0 for states without any action
+		double[] values = new double[n];
+		List<Integer> updatedStates = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			if (canStayForever[i]) {
+				values[i] = maxValue;
+			} else if (explicitMDP.getEnabledActions(i).length > 0) {
+				values[i] = maxValue;
+				updatedStates.add(i);
+			}
+		}
+
+		// Gauss-Seidel value iteration, from above
+		for (int iter = 0; iter < maxIterations; iter++) {
+			double maxDiff = 0;
+
+			for (int i : updatedStates) {
+				double value = 0;
+				for (int a : explicitMDP.getEnabledActions(i)) {
+					double qValue = 1;
+					SuccessorIterator succIter = explicitMDP.successors(i, a);
+					while (succIter.hasNext()) {
+						int j = succIter.next();
+						qValue += gamma * succIter.getProbability() * values[j];
+					}
+					value = Math.max(value, qValue);
+				}
+				maxDiff = Math.max(maxDiff, values[i] - value);
+				values[i] = value;
+			}
+
+			// Error bound of a gamma-contraction
+			if (maxDiff * gamma / (1 - gamma) <= epsilon) {
+				break;
+			}
+		}
+		return values[iniState];
+	}
+
+	/**
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @return Greatest fixed point of: Z = states with an action whose successors are all in Z
+	 */
+	private static boolean[] computeStatesThatCanStayForever(ExplicitMDP explicitMDP) {
+		int n = explicitMDP.getNumStates();
+		boolean[] inZ = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			inZ[i] = explicitMDP.getEnabledActions(i).length > 0;
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = 0; i < n; i++) {
+				if (inZ[i] && !hasActionWithin(explicitMDP, i, inZ)) {
+					inZ[i] = false;
+					changed = true;
+				}
+			}
+		}
+		return inZ;
+	}
+
+	private static boolean hasActionWithin(ExplicitMDP explicitMDP, int i, boolean[] states) {
+		for (int a : explicitMDP.getEnabledActions(i)) {
+			boolean allSuccessorsWithin = true;
+			SuccessorIterator succIter = explicitMDP.successors(i, a);
+			while (succIter.hasNext() && allSuccessorsWithin) {
+				allSuccessorsWithin = states[succIter.next()];
+			}
+			if (allSuccessorsWithin) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Solve for X >= x_ia for all i, a, where x_ia is the occupation measure corresponding to a policy of a given MDP.
 	 * 
@@ -26,22 +371,33 @@ public class UpperBoundOccupationMeasureSolver {
 	 * @param feasibilityTol
 	 *            : Feasibility tolerance
 	 * @return Upper bound of occupation measure
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
 	public static double computeUpperBoundOccupationMeasure(ExplicitMDP explicitMDP, double feasibilityTol)
-			throws GRBException {
-		double[][] xResults = solveMaximumOccupationMeasure(explicitMDP, feasibilityTol);
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
+			throws LPSolverException {
+		return computeUpperBoundOccupationMeasure(explicitMDP, feasibilityTol, LPSolverBackends.getDefaultBackend());
+	}
+
+	/**
+	 * Solve for X >= x_ia for all i, a, where x_ia is the occupation measure corresponding to a policy of a given MDP.
+	 * 
+	 * @param explicitMDP
+	 *            : Explicit MDP
+	 * @param feasibilityTol
+	 *            : Feasibility tolerance
+	 * @param backend
+	 *            : LP solver backend
+	 * @return Upper bound of occupation measure
+	 * @throws LPSolverException
+	 */
+	public static double computeUpperBoundOccupationMeasure(ExplicitMDP explicitMDP, double feasibilityTol,
+			LPSolverBackend backend) throws LPSolverException {
+		double[] xResults = solveMaximumOccupationMeasure(explicitMDP, feasibilityTol, backend);
 		// From the constraint: x_ia >=0 for all i, a
+		// Only the enabled (state, action) pairs have x_ia values
 		double upperBoundX = 0;
-		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any x_ia value when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					upperBoundX += xResults[i][a];
-				}
-			}
+		for (double xResult : xResults) {
+			upperBoundX += xResult;
 		}
 		return upperBoundX;
 	}
@@ -63,38 +419,38 @@ public class UpperBoundOccupationMeasureSolver {
 	 *            : Explicit MDP
 	 * @param feasibilityTol
 	 *            : Feasibility tolerance
-	 * @return Occupation measure
-	 * @throws GRBException
+	 * @param backend
+	 *            : LP solver backend
+	 * @return Occupation measure, in the sparse (state, action) layout of the MDP
+	 * @throws LPSolverException
 	 */
-	public static double[][] solveMaximumOccupationMeasure(ExplicitMDP explicitMDP, double feasibilityTol)
-			throws GRBException {
-		GRBEnv env = new GRBEnv();
-		GRBModel model = new GRBModel(env);
-
-		GRBSolverUtils.configureToleranceParameters(model, GRBSolverUtils.DEFAULT_INT_FEAS_TOL, feasibilityTol);
-
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
-
-		// Create variables: x_ia
-		// Lower bound on variables: x_ia >= 0
-		GRBVar[][] xVars = GRBSolverUtils.createOptimizationVars("x", GRB.CONTINUOUS, n, m, 0.0,
-				Double.POSITIVE_INFINITY, model);
+	public static double[] solveMaximumOccupationMeasure(ExplicitMDP explicitMDP, double feasibilityTol,
+			LPSolverBackend backend) throws LPSolverException {
+		// Variables and constraints are added to the model in bulk, without names
+		LPModel model = backend.createModel(false);
+		double[] xResults;
+		try {
+			GRBSolverUtils.configureToleranceParameters(model, GRBSolverUtils.DEFAULT_INT_FEAS_TOL, feasibilityTol);
 
-		// Set optimization objective
-		setOptimizationObjective(xVars, model, explicitMDP);
+			// Create variables: x_ia, for all enabled (i, a)
+			// Lower bound on variables: x_ia >= 0
+			int[] xVars = GRBSolverUtils.createOptimizationVars("x", VarType.CONTINUOUS, explicitMDP, 0.0,
+					Double.POSITIVE_INFINITY, model);
 
-		// Add constraints
-		addDiscountedFlowConservationConstraints(explicitMDP, xVars, model);
+			// Set optimization objective
+			setOptimizationObjective(xVars, model);
 
-		// Solve optimization problem for x_ia
-		model.optimize();
+			// Add constraints
+			addDiscountedFlowConservationConstraints(explicitMDP, xVars, model);
 
-		double[][] xResults = model.get(GRB.DoubleAttr.X, xVars);
+			// Solve optimization problem for x_ia
+			model.optimize();
 
-		// Dispose of model and environment
-		model.dispose();
-		env.dispose();
+			xResults = model.getValues(xVars);
+		} finally {
+			// Dispose of model, also on failure
+			model.dispose();
+		}
 
 		assert consistencyCheckDiscountedFlowConservationConstraints(xResults, explicitMDP, feasibilityTol);
 
@@ -106,27 +462,18 @@ public class UpperBoundOccupationMeasureSolver {
 	 * 
 	 * @param xVars
 	 * @param model
-	 * @param explicitMDP
-	 * @throws GRBException
+	 * @throws LPSolverException
 	 */
-	private static void setOptimizationObjective(GRBVar[][] xVars, GRBModel model, ExplicitMDP explicitMDP)
-			throws GRBException {
-		int n = explicitMDP.getNumStates();
-		int m = explicitMDP.getNumActions();
-
+	private static void setOptimizationObjective(int[] xVars, LPModel model) throws LPSolverException {
 		// Objective: maximize sum_i,a(x_ia)
-		GRBLinExpr objectiveLinExpr = new GRBLinExpr();
-		for (int i = 0; i < n; i++) {
-			for (int a = 0; a < m; a++) {
-				// Exclude any x_ia term when action a is not applicable in state i
-				if (explicitMDP.isActionApplicable(i, a)) {
-					objectiveLinExpr.addTerm(1.0, xVars[i][a]);
-				}
-			}
-		}
+		// Only the enabled (state, action) pairs have x_ia variables
+		double[] ones = new double[xVars.length];
+		Arrays.fill(ones, 1.0);
+		LPTermBuffer objectiveTerms = new LPTermBuffer();
+		objectiveTerms.addTerms(ones, xVars);
 
 		// Set objective
-		model.setObjective(objectiveLinExpr, GRB.MAXIMIZE);
+		model.setObjective(objectiveTerms, ObjectiveSense.MAXIMIZE);
 	}
 
 	/**
@@ -139,11 +486,11 @@ public class UpperBoundOccupationMeasureSolver {
 	 * @param xVars
 	 *            : Occupation measure variables
 	 * @param model
-	 *            : GRB model to which to add the constraints
-	 * @throws GRBException
+	 *            : LP model to which to add the constraints
+	 * @throws LPSolverException
 	 */
-	private static void addDiscountedFlowConservationConstraints(ExplicitMDP explicitMDP, GRBVar[][] xVars,
-			GRBModel model) throws GRBException {
+	private static void addDiscountedFlowConservationConstraints(ExplicitMDP explicitMDP, int[] xVars,
+			LPModel model) throws LPSolverException {
 		int n = explicitMDP.getNumStates();
 
 		// Initial state distribution
@@ -152,21 +499,22 @@ public class UpperBoundOccupationMeasureSolver {
 		alpha[iniState] = 1.0;
 
 		double gamma = DEFAULT_DISCOUNT_FACTOR;
+		LPTermBuffer constraintTerms = new LPTermBuffer();
 
 		// Constraints: sum_a (x_ia) - gamma * sum_j,a (x_ja * P(i|j,a)) = alpha_j, for all i in S
 		for (int i = 0; i < n; i++) {
-			String constraintName = "constraint_" + i;
-			GRBLinExpr constraintLinExpr = new GRBLinExpr();
+			String constraintName = model.createName("constraint", i);
 
-			GRBSolverUtils.addOutTerm(i, 1, explicitMDP, xVars, constraintLinExpr);
-			GRBSolverUtils.addInTerm(i, -1 * gamma, explicitMDP, xVars, constraintLinExpr);
+			GRBSolverUtils.addOutTerm(i, 1, explicitMDP, xVars, constraintTerms);
+			GRBSolverUtils.addInTerm(i, -1 * gamma, explicitMDP, xVars, constraintTerms);
 
 			// Add constraint
-			model.addConstr(constraintLinExpr, GRB.EQUAL, alpha[i], constraintName);
+			model.addConstr(constraintTerms, ConstraintSense.EQUAL, alpha[i], constraintName);
+			constraintTerms.clear();
 		}
 	}
 
-	private static boolean consistencyCheckDiscountedFlowConservationConstraints(double[][] xResults,
+	private static boolean consistencyCheckDiscountedFlowConservationConstraints(double[] xResults,
 			ExplicitMDP explicitMDP, double feasibilityTol) {
 		int n = explicitMDP.getNumStates();
 
@@ -0,0 +1,5 @@
+package solver.lpsolver;
+
+public enum ConstraintSense {
+	LESS_EQUAL, EQUAL, GREATER_EQUAL
+}
@@ -0,0 +1,184 @@
+package solver.lpsolver;
+
+/**
+ * {@link LPModel} is an LP/MILP model of an {@link LPSolverBackend}. Variables are referred to by the indices returned
+ * when they are added to the model. Variables are added in bulk, one call per family, and constraints may be queued and
+ * added in batches by the backend.
+ *
+ * Naming of variables and constraints is optional (for debugging only). When naming is disabled, no name is created:
+ * callers should use {@link #createName(String, int)} and its overloads, which return null when naming is disabled.
+ *
+ * A model can be optimized repeatedly: between optimizations, the objective and the senses and right-hand sides of the
+ * constraints can be changed, and new variables and constraints can be added. Backends may then warm-start from the
+ * previous solution.
+ *
+ * The model measures the build time (from its creation, or from its previous optimization, until it is optimized)
+ * separately from the solve time.
+ */
+public interface LPModel {
+
+	boolean isNamingEnabled();
+
+	default String createName(String prefix) {
+		return isNamingEnabled() ? prefix : null;
+	}
+
+	default String createName(String prefix, int index) {
+		return isNamingEnabled() ? prefix + "_" + index : null;
+	}
+
+	default String createName(String prefix, int index1, int index2) {
+		return isNamingEnabled() ? prefix + "_" + index1 + "_" + index2 : null;
+	}
+
+	/**
+	 * Set the tolerance parameters of the solver.
+	 *
+	 * @param intFeasTol
+	 *            : Integer feasibility tolerance
+	 * @param feasibilityTol
+	 *            : Primal feasibility tolerance
+	 * @param optimalityTol
+	 *            : Dual feasibility tolerance
+	 * @throws LPSolverException
+	 */
+	void setTolerances(double intFeasTol, double feasibilityTol, double optimalityTol) throws LPSolverException;
+
+	/**
+	 * Require a basic (vertex) optimal solution of the LP, by solving it with a simplex method (e.g., instead of an
+	 * interior-point method).
+	 *
+	 * @throws LPSolverException
+	 */
+	void setBasicSolutionRequired() throws LPSolverException;
+
+	/**
+	 * Add numVars variables of the same type and bounds to the model, in a single call.
+	 *
+	 * @param numVars
+	 *            : Number of variables
+	 * @param lowerBound
+	 *            : Lower bound of the variables
+	 * @param upperBound
+	 *            : Upper bound of the variables
+	 * @param varType
+	 *            : Variable type (continuous or binary)
+	 * @param names
+	 *            : Variable names, or null if naming is disabled
+	 * @return Indices of the variables
+	 * @throws LPSolverException
+	 */
+	int[] addVars(int numVars, double lowerBound, double upperBound, VarType varType, String[] names)
+			throws LPSolverException;
+
+	int addVar(double lowerBound, double upperBound, VarType varType, String name) throws LPSolverException;
+
+	/**
+	 * Set the objective function.
+	 *
+	 * @param terms
+	 *            : Terms of the objective function
+	 * @param sense
+	 *            : Minimize or maximize
+	 * @throws LPSolverException
+	 */
+	void setObjective(LPTermBuffer terms, ObjectiveSense sense) throws LPSolverException;
+
+	/**
+	 * Add terms to the objective function (e.g., penalty terms).
+	 *
+	 * @param terms
+	 *            : Additional terms of the objective function
+	 * @throws LPSolverException
+	 */
+	void addObjectiveTerms(LPTermBuffer terms) throws LPSolverException;
+
+	/**
+	 * Add a constraint: sum of terms (sense) rhs. The terms are copied, so the buffer can be reused.
+	 *
+	 * @param terms
+	 *            : Terms of the left-hand-side expression
+	 * @param sense
+	 *            : Constraint sense
+	 * @param rhs
+	 *            : Right-hand-side constant
+	 * @param name
+	 *            : Constraint name, or null
+	 * @return Index of the constraint
+	 * @throws LPSolverException
+	 */
+	int addConstr(LPTermBuffer terms, ConstraintSense sense, double rhs, String name) throws LPSolverException;
+
+	/**
+	 * Change the sense of a constraint.
+	 *
+	 * @param constr
+	 *            : Index of the constraint
+	 * @param sense
+	 *            : New constraint sense
+	 * @throws LPSolverException
+	 */
+	void setConstrSense(int constr, ConstraintSense sense) throws LPSolverException;
+
+	/**
+	 * Change the right-hand side of a constraint. An infinite right-hand side (positive for LESS_EQUAL, negative for
+	 * GREATER_EQUAL) makes the constraint inactive.
+	 *
+	 * @param constr
+	 *            : Index of the constraint
+	 * @param rhs
+	 *            : New right-hand-side constant
+	 * @throws LPSolverException
+	 */
+	void setConstrRHS(int constr, double rhs) throws LPSolverException;
+
+	/**
+	 * Add all queued constraints to the model, and optimize the model.
+	 *
+	 * @throws LPSolverException
+	 */
+	void optimize() throws LPSolverException;
+
+	/**
+	 *
+	 * @return Status of the last optimization
+	 * @throws LPSolverException
+	 */
+	LPSolutionStatus getStatus() throws LPSolverException;
+
+	/**
+	 *
+	 * @return Whether a feasible solution is found; the solution is optimal only if {@link #getStatus()} is
+	 *         {@link LPSolutionStatus#OPTIMAL}
+	 * @throws LPSolverException
+	 */
+	boolean hasSolution() throws LPSolverException;
+
+	double getObjectiveValue() throws LPSolverException;
+
+	/**
+	 *
+	 * @param vars
+	 *            : Indices of the variables
+	 * @return Values of the variables in the solution
+	 * @throws LPSolverException
+	 */
+	double[] getValues(int[] vars) throws LPSolverException;
+
+	/**
+	 * @return Time to build the model, in milliseconds
+	 */
+	double getBuildTime();
+
+	/**
+	 * @return Time to solve the model, in milliseconds
+	 */
+	double getSolveTime();
+
+	/**
+	 * Release the resources of the model.
+	 *
+	 * @throws LPSolverException
+	 */
+	void dispose() throws LPSolverException;
+}
@@ -0,0 +1,10 @@
+package solver.lpsolver;
+
+/**
+ * Status of the last optimization of an {@link LPModel}. Only {@link #OPTIMAL} and {@link #INFEASIBLE} are conclusive;
+ * with any other status, the model may still have a (better) solution than the one found, if any.
+ * {@link #INTERRUPTED} means that the optimization was stopped because the solving thread was interrupted.
+ */
+public enum LPSolutionStatus {
+	OPTIMAL, INFEASIBLE, UNBOUNDED, NODE_LIMIT, INTERRUPTED, OTHER
+}
@@ -0,0 +1,51 @@
+package solver.lpsolver;
+
+/**
+ * {@link LPSolverBackend} is a provider of {@link LPModel}s. Backends are discovered by {@link LPSolverBackends} via
+ * {@link java.util.ServiceLoader}; an implementation must have a public no-argument constructor that does not load any
+ * native library, and must be listed in META-INF/services/solver.lpsolver.LPSolverBackend.
+ */
+public interface LPSolverBackend {
+
+	/**
+	 *
+	 * @return Unique name of the backend
+	 */
+	String getName();
+
+	/**
+	 * Backends with higher priority are preferred when no backend is specified.
+	 *
+	 * @return Priority of the backend
+	 */
+	int getPriority();
+
+	/**
+	 * Check whether the backend can be used in this JVM (e.g., its native library and license are available). This may
+	 * load a native library.
+	 *
+	 * @return Whether the backend is available
+	 */
+	boolean isAvailable();
+
+	/**
+	 * Create an empty model.
+	 *
+	 * @param namingEnabled
+	 *            : Whether to name the variables and constraints
+	 * @return Empty model
+	 * @throws LPSolverException
+	 */
+	LPModel createModel(boolean namingEnabled) throws LPSolverException;
+
+	/**
+	 * Release the resources that the backend keeps for reuse across models (e.g., pooled solver environments). Models
+	 * that have not been disposed of are not affected, and the backend remains usable: resources are re-created on
+	 * demand.
+	 *
+	 * @throws LPSolverException
+	 */
+	default void releaseResources() throws LPSolverException {
+		// No pooled resources by default
+	}
+}
@@ -0,0 +1,110 @@
+package solver.lpsolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * {@link LPSolverBackends} discovers the {@link LPSolverBackend}s on the classpath via {@link ServiceLoader}, the first
+ * time a backend is requested. The availability of each backend (e.g., whether its native library can be loaded) is
+ * only checked when the backend is selected. The pure-Java {@link SimplexSolverBackend} is always available, but it is
+ * only used when it is selected by name: its dense tableau has no iteration limit, so it is not a silent substitute for
+ * a backend that failed to load (e.g., Gurobi without a license) on large models.
+ */
+public class LPSolverBackends {
+
+	private LPSolverBackends() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * Backends are discovered when this holder class is first accessed -- initialization-on-demand holder idiom.
+	 */
+	private static class Holder {
+		private static final List<LPSolverBackend> BACKENDS = discoverBackends();
+	}
+
+	private static List<LPSolverBackend> discoverBackends() {
+		List<LPSolverBackend> backends = new ArrayList<>();
+		boolean hasSimplexBackend = false;
+		Iterator<LPSolverBackend> iter = ServiceLoader.load(LPSolverBackend.class).iterator();
+		while (iter.hasNext()) {
+			try {
+				LPSolverBackend backend = iter.next();
+				backends.add(backend);
+				hasSimplexBackend |= backend instanceof SimplexSolverBackend;
+			} catch (ServiceConfigurationError e) {
+				// Skip any backend that cannot be instantiated (e.g., its classes are not on the classpath)
+			}
+		}
+		if (!hasSimplexBackend) {
+			backends.add(new SimplexSolverBackend());
+		}
+
+		// Highest priority first
+		backends.sort(Comparator.comparingInt(LPSolverBackend::getPriority).reversed());
+		return Collections.unmodifiableList(backends);
+	}
+
+	/**
+	 *
+	 * @return All discovered backends, in decreasing order of priority
+	 */
+	public static List<LPSolverBackend> getBackends() {
+		return Holder.BACKENDS;
+	}
+
+	/**
+	 *
+	 * @return Available backend with the highest priority, other than the pure-Java simplex backend
+	 * @throws LPSolverException
+	 *             if no such backend is available
+	 */
+	public static LPSolverBackend getDefaultBackend() throws LPSolverException {
+		for (LPSolverBackend backend : Holder.BACKENDS) {
+			if (!(backend instanceof SimplexSolverBackend) && backend.isAvailable()) {
+				return backend;
+			}
+		}
+		throw new LPSolverException("No native LP solver backend is available; select the \""
+				+ SimplexSolverBackend.NAME + "\" backend by name to use the pure-Java simplex implementation");
+	}
+
+	/**
+	 *
+	 * @param backendName
+	 *            : Name of the backend, or null for the default backend
+	 * @return Backend with the given name, or the default backend if the name is null
+	 * @throws LPSolverException
+	 *             if the backend is not found or not available
+	 */
+	public static LPSolverBackend getBackend(String backendName) throws LPSolverException {
+		if (backendName == null) {
+			return getDefaultBackend();
+		}
+		for (LPSolverBackend backend : Holder.BACKENDS) {
+			if (backend.getName().equals(backendName)) {
+				if (!backend.isAvailable()) {
+					throw new LPSolverException("LP solver backend is not available: " + backendName);
+				}
+				return backend;
+			}
+		}
+		throw new LPSolverException("LP solver backend not found: " + backendName);
+	}
+
+	/**
+	 * Release the pooled resources of all backends (e.g., at the end of an application). The backends remain usable.
+	 *
+	 * @throws LPSolverException
+	 */
+	public static void releaseResources() throws LPSolverException {
+		for (LPSolverBackend backend : Holder.BACKENDS) {
+			backend.releaseResources();
+		}
+	}
+}
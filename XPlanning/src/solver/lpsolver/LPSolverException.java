@@ -0,0 +1,21 @@
+package solver.lpsolver;
+
+/**
+ * {@link LPSolverException} is thrown when an LP/MILP backend fails to build or solve a model, or when no backend is
+ * available.
+ */
+public class LPSolverException extends Exception {
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 2853012707352374391L;
+
+	public LPSolverException(String message) {
+		super(message);
+	}
+
+	public LPSolverException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
@@ -0,0 +1,68 @@
+package solver.lpsolver;
+
+import java.util.Arrays;
+
+/**
+ * {@link LPTermBuffer} assembles the terms of a linear expression into parallel coefficient and variable arrays, so
+ * that they can be added to an {@link LPModel} in a single call. Variables are the indices returned by
+ * {@link LPModel#addVars(int, double, double, VarType, String[])}. The buffer can be cleared and reused for the next
+ * expression.
+ */
+public class LPTermBuffer {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private double[] mCoeffs = new double[INITIAL_CAPACITY];
+	private int[] mVars = new int[INITIAL_CAPACITY];
+	private int mSize;
+
+	/**
+	 * Add a term: coeff * var.
+	 *
+	 * @param coeff
+	 * @param var
+	 */
+	public void addTerm(double coeff, int var) {
+		if (mSize == mCoeffs.length) {
+			mCoeffs = Arrays.copyOf(mCoeffs, 2 * mSize);
+			mVars = Arrays.copyOf(mVars, 2 * mSize);
+		}
+		mCoeffs[mSize] = coeff;
+		mVars[mSize] = var;
+		mSize++;
+	}
+
+	/**
+	 * Add terms: sum_{i = start to start + len - 1} coeffs[i] * vars[i].
+	 *
+	 * @param coeffs
+	 * @param vars
+	 * @param start
+	 * @param len
+	 */
+	public void addTerms(double[] coeffs, int[] vars, int start, int len) {
+		for (int i = start; i < start + len; i++) {
+			addTerm(coeffs[i], vars[i]);
+		}
+	}
+
+	public void addTerms(double[] coeffs, int[] vars) {
+		addTerms(coeffs, vars, 0, vars.length);
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public double getCoeff(int index) {
+		return mCoeffs[index];
+	}
+
+	public int getVar(int index) {
+		return mVars[index];
+	}
+
+	public void clear() {
+		mSize = 0;
+	}
+}
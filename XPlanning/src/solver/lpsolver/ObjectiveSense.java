@@ -0,0 +1,5 @@
+package solver.lpsolver;
+
+public enum ObjectiveSense {
+	MINIMIZE, MAXIMIZE
+}
@@ -0,0 +1,652 @@
+package solver.lpsolver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.math3.exception.TooManyIterationsException;
+import org.apache.commons.math3.optim.MaxIter;
+import org.apache.commons.math3.optim.PointValuePair;
+import org.apache.commons.math3.optim.linear.LinearConstraint;
+import org.apache.commons.math3.optim.linear.LinearConstraintSet;
+import org.apache.commons.math3.optim.linear.LinearObjectiveFunction;
+import org.apache.commons.math3.optim.linear.NoFeasibleSolutionException;
+import org.apache.commons.math3.optim.linear.NonNegativeConstraint;
+import org.apache.commons.math3.optim.linear.PivotSelectionRule;
+import org.apache.commons.math3.optim.linear.Relationship;
+import org.apache.commons.math3.optim.linear.SimplexSolver;
+import org.apache.commons.math3.optim.linear.UnboundedSolutionException;
+import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
+
+/**
+ * {@link SimplexLPModel} is a pure-Java {@link LPModel}. The LP (relaxation) is solved by the dense
+ * {@link SimplexSolver} of commons-math3, with Bland's pivot selection rule to avoid cycling on the degenerate
+ * flow-conservation constraints. Binary variables are handled by depth-first branch and bound: at each node, the most
+ * fractional binary variable is fixed to 0 or 1, and the branch closer to its relaxed value is explored first. Fixed
+ * variables are substituted by their values, so the LP of each node shrinks with its depth.
+ *
+ * When the model is re-optimized, the previous solution is used as the initial incumbent if it is still feasible, so
+ * that the nodes that cannot improve on it are pruned.
+ *
+ * {@link SimplexSolver} cannot tell apart the basic variable among identical columns (e.g., the occupation measures of
+ * actions with the same transitions), and may report the value of the wrong one. Therefore, among the unbounded-above
+ * variables with identical constraint coefficients, only the one with the best objective coefficient is kept in the LP.
+ *
+ * This backend is intended for small models (e.g., tests, or runs without a Gurobi license); the size of the simplex
+ * tableau is (number of constraints) x (number of variables).
+ */
+public class SimplexLPModel implements LPModel {
+
+	/**
+	 * Maximum number of branch-and-bound nodes, after which the search stops with status
+	 * {@link LPSolutionStatus#NODE_LIMIT}. The best solution found so far, if any, is kept but not proven optimal.
+	 */
+	public static final int MAX_NODES = 100000;
+
+	/**
+	 * Relative optimality gap, under which a branch-and-bound node is pruned.
+	 */
+	public static final double MIP_GAP = 1e-6;
+
+	private static final int MAX_SIMPLEX_ITERATIONS = Integer.MAX_VALUE;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private boolean mNamingEnabled;
+
+	// Variables
+	private int mNumVars;
+	private double[] mLowerBounds = new double[INITIAL_CAPACITY];
+	private double[] mUpperBounds = new double[INITIAL_CAPACITY];
+	private boolean[] mIsBinary = new boolean[INITIAL_CAPACITY];
+
+	// Objective
+	private double[] mObjCoeffs = new double[INITIAL_CAPACITY];
+	private ObjectiveSense mObjSense = ObjectiveSense.MINIMIZE;
+
+	// Constraints
+	private List<Row> mRows = new ArrayList<>();
+
+	// Tolerances
+	private double mIntFeasTol = 1e-7;
+	private double mEpsilon = 1e-6;
+
+	// Solution
+	private double[] mSolution;
+	private double mObjectiveValue;
+	private LPSolutionStatus mStatus;
+	private int mNumNodes;
+
+	private long mBuildStartTime;
+	private long mBuildTime;
+	private long mSolveTime;
+
+	public SimplexLPModel(boolean namingEnabled) {
+		mNamingEnabled = namingEnabled;
+		mBuildStartTime = System.nanoTime();
+	}
+
+	@Override
+	public boolean isNamingEnabled() {
+		return mNamingEnabled;
+	}
+
+	@Override
+	public void setTolerances(double intFeasTol, double feasibilityTol, double optimalityTol) {
+		mIntFeasTol = intFeasTol;
+		// Simplex pivoting tolerance; the default of SimplexSolver is 1e-6
+		mEpsilon = Math.max(feasibilityTol, optimalityTol);
+	}
+
+	@Override
+	public void setBasicSolutionRequired() {
+		// The simplex method always returns a basic solution
+	}
+
+	@Override
+	public int[] addVars(int numVars, double lowerBound, double upperBound, VarType varType, String[] names) {
+		int[] vars = new int[numVars];
+		for (int v = 0; v < numVars; v++) {
+			vars[v] = addVar(lowerBound, upperBound, varType, null);
+		}
+		return vars;
+	}
+
+	@Override
+	public int addVar(double lowerBound, double upperBound, VarType varType, String name) {
+		if (mNumVars == mLowerBounds.length) {
+			int newCapacity = 2 * mNumVars;
+			mLowerBounds = Arrays.copyOf(mLowerBounds, newCapacity);
+			mUpperBounds = Arrays.copyOf(mUpperBounds, newCapacity);
+			mIsBinary = Arrays.copyOf(mIsBinary, newCapacity);
+			mObjCoeffs = Arrays.copyOf(mObjCoeffs, newCapacity);
+		}
+		boolean isBinary = varType == VarType.BINARY;
+		mLowerBounds[mNumVars] = isBinary ? Math.max(lowerBound, 0) : lowerBound;
+		mUpperBounds[mNumVars] = isBinary ? Math.min(upperBound, 1) : upperBound;
+		mIsBinary[mNumVars] = isBinary;
+		return mNumVars++;
+	}
+
+	@Override
+	public void setObjective(LPTermBuffer terms, ObjectiveSense sense) {
+		Arrays.fill(mObjCoeffs, 0);
+		mObjSense = sense;
+		addObjectiveTerms(terms);
+	}
+
+	@Override
+	public void addObjectiveTerms(LPTermBuffer terms) {
+		for (int t = 0; t < terms.size(); t++) {
+			mObjCoeffs[terms.getVar(t)] += terms.getCoeff(t);
+		}
+	}
+
+	@Override
+	public int addConstr(LPTermBuffer terms, ConstraintSense sense, double rhs, String name) {
+		int[] vars = new int[terms.size()];
+		double[] coeffs = new double[terms.size()];
+		for (int t = 0; t < terms.size(); t++) {
+			vars[t] = terms.getVar(t);
+			coeffs[t] = terms.getCoeff(t);
+		}
+		mRows.add(new Row(vars, coeffs, sense, rhs));
+		return mRows.size() - 1;
+	}
+
+	@Override
+	public void setConstrSense(int constr, ConstraintSense sense) {
+		mRows.get(constr).mSense = sense;
+	}
+
+	@Override
+	public void setConstrRHS(int constr, double rhs) {
+		mRows.get(constr).mRhs = rhs;
+	}
+
+	@Override
+	public void optimize() throws LPSolverException {
+		long solveStartTime = System.nanoTime();
+		mBuildTime = solveStartTime - mBuildStartTime;
+
+		double[] prevSolution = mSolution;
+		mSolution = null;
+		mStatus = null;
+		mNumNodes = 0;
+		double sign = mObjSense == ObjectiveSense.MINIMIZE ? 1 : -1;
+		double incumbentObj = Double.POSITIVE_INFINITY;
+
+		if (prevSolution != null && prevSolution.length == mNumVars && isFeasible(prevSolution)) {
+			// Warm start: the previous solution is the initial incumbent
+			mSolution = prevSolution;
+			mObjectiveValue = computeObjectiveValue(prevSolution);
+			incumbentObj = sign * mObjectiveValue;
+		}
+
+		// Depth-first branch and bound; a node is a chain of binary variable fixings from the root
+		Deque<Node> nodes = new ArrayDeque<>();
+		nodes.push(new Node(null, -1, 0));
+
+		try {
+			branchAndBound(nodes, sign, incumbentObj);
+		} catch (UnboundedSolutionException e) {
+			// The relaxation of a node, and therefore of the root, is unbounded: so is the model, if it is feasible
+			mSolution = null;
+			mStatus = LPSolutionStatus.UNBOUNDED;
+		}
+
+		mSolveTime = System.nanoTime() - solveStartTime;
+		mBuildStartTime = System.nanoTime();
+	}
+
+	/**
+	 * Explore the branch-and-bound nodes depth-first, until all nodes are explored or pruned, or the node limit is
+	 * reached. The best integer-feasible solution is kept as the incumbent.
+	 *
+	 * @param nodes
+	 *            : Stack of open nodes
+	 * @param sign
+	 *            : 1 for minimization, or -1 for maximization
+	 * @param incumbentObj
+	 *            : Signed objective value of the initial incumbent, or +infinity if there is none
+	 * @throws LPSolverException
+	 * @throws UnboundedSolutionException
+	 *             if the relaxation of a node is unbounded
+	 */
+	private void branchAndBound(Deque<Node> nodes, double sign, double incumbentObj) throws LPSolverException {
+		double[] lowerBounds = new double[mNumVars];
+		double[] upperBounds = new double[mNumVars];
+
+		while (!nodes.isEmpty() && mNumNodes < MAX_NODES) {
+			if (Thread.currentThread().isInterrupted()) {
+				// Stop the search, and keep the interrupt status of the thread
+				mStatus = LPSolutionStatus.INTERRUPTED;
+				return;
+			}
+
+			Node node = nodes.pop();
+			mNumNodes++;
+
+			System.arraycopy(mLowerBounds, 0, lowerBounds, 0, mNumVars);
+			System.arraycopy(mUpperBounds, 0, upperBounds, 0, mNumVars);
+			for (Node n = node; n.mParent != null; n = n.mParent) {
+				lowerBounds[n.mVar] = n.mValue;
+				upperBounds[n.mVar] = n.mValue;
+			}
+
+			double[] values = new double[mNumVars];
+			Double relaxedObj = solveRelaxation(lowerBounds, upperBounds, values);
+			if (relaxedObj == null) {
+				// Infeasible node
+				continue;
+			}
+
+			double bound = sign * relaxedObj;
+			if (bound >= incumbentObj - MIP_GAP * Math.max(1, Math.abs(incumbentObj))) {
+				// Node cannot improve on the incumbent
+				continue;
+			}
+
+			int branchVar = selectBranchingVariable(values);
+			if (branchVar == -1) {
+				// Integer feasible: new incumbent
+				for (int v = 0; v < mNumVars; v++) {
+					if (mIsBinary[v]) {
+						values[v] = Math.rint(values[v]);
+					}
+				}
+				incumbentObj = bound;
+				mSolution = values;
+				mObjectiveValue = relaxedObj;
+				continue;
+			}
+
+			// Explore the branch closer to the relaxed value first
+			double nearValue = Math.rint(values[branchVar]);
+			nodes.push(new Node(node, branchVar, 1 - nearValue));
+			nodes.push(new Node(node, branchVar, nearValue));
+		}
+
+		if (!nodes.isEmpty()) {
+			// Search is incomplete: the incumbent, if any, is not proven optimal
+			mStatus = LPSolutionStatus.NODE_LIMIT;
+		} else {
+			mStatus = mSolution != null ? LPSolutionStatus.OPTIMAL : LPSolutionStatus.INFEASIBLE;
+		}
+	}
+
+	/**
+	 *
+	 * @param values
+	 *            : Values of all variables
+	 * @return Whether the values satisfy the bounds of the variables and all active constraints
+	 */
+	private boolean isFeasible(double[] values) {
+		for (int v = 0; v < mNumVars; v++) {
+			if (values[v] < mLowerBounds[v] - mEpsilon || values[v] > mUpperBounds[v] + mEpsilon) {
+				return false;
+			}
+		}
+		for (Row row : mRows) {
+			if (row.isInactive()) {
+				continue;
+			}
+			double lhs = 0;
+			for (int t = 0; t < row.mVars.length; t++) {
+				lhs += row.mCoeffs[t] * values[row.mVars[t]];
+			}
+			double violation;
+			switch (row.mSense) {
+			case LESS_EQUAL:
+				violation = lhs - row.mRhs;
+				break;
+			case GREATER_EQUAL:
+				violation = row.mRhs - lhs;
+				break;
+			default:
+				violation = Math.abs(lhs - row.mRhs);
+				break;
+			}
+			if (violation > mEpsilon) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double computeObjectiveValue(double[] values) {
+		double objectiveValue = 0;
+		for (int v = 0; v < mNumVars; v++) {
+			objectiveValue += mObjCoeffs[v] * values[v];
+		}
+		return objectiveValue;
+	}
+
+	/**
+	 *
+	 * @param values
+	 *            : Values of the LP relaxation
+	 * @return Binary variable whose value is the most fractional, or -1 if all binary variables are integral
+	 */
+	private int selectBranchingVariable(double[] values) {
+		int branchVar = -1;
+		double maxFraction = mIntFeasTol;
+		for (int v = 0; v < mNumVars; v++) {
+			if (mIsBinary[v]) {
+				double fraction = Math.abs(values[v] - Math.rint(values[v]));
+				if (fraction > maxFraction) {
+					maxFraction = fraction;
+					branchVar = v;
+				}
+			}
+		}
+		return branchVar;
+	}
+
+	/**
+	 * Solve the LP relaxation with the given variable bounds. Each variable x_v is substituted by non-negative simplex
+	 * columns: x_v = lb_v + x'_v for a finite lower bound; x_v = ub_v - x'_v for an infinite lower bound and a finite
+	 * upper bound; x_v = x+_v - x-_v for a free variable; and x_v = lb_v (no column) for a fixed variable.
+	 *
+	 * @param lowerBounds
+	 * @param upperBounds
+	 * @param values
+	 *            : Return parameter of the values of the variables
+	 * @return Objective value, or null if the LP is infeasible
+	 * @throws LPSolverException
+	 * @throws UnboundedSolutionException
+	 *             if the LP is unbounded
+	 */
+	private Double solveRelaxation(double[] lowerBounds, double[] upperBounds, double[] values)
+			throws LPSolverException {
+		int[] posCols = new int[mNumVars];
+		int[] negCols = new int[mNumVars];
+		double[] offsets = new double[mNumVars];
+		int numCols = 0;
+		boolean[] dominated = findDominatedDuplicateVars(lowerBounds, upperBounds);
+
+		for (int v = 0; v < mNumVars; v++) {
+			double lb = lowerBounds[v];
+			double ub = upperBounds[v];
+			posCols[v] = -1;
+			negCols[v] = -1;
+
+			if (lb > ub) {
+				return null;
+			} else if (lb == ub || dominated[v]) {
+				// Dominated variable stays at its lower bound
+				offsets[v] = lb;
+			} else if (!Double.isInfinite(lb)) {
+				offsets[v] = lb;
+				posCols[v] = numCols++;
+			} else if (!Double.isInfinite(ub)) {
+				offsets[v] = ub;
+				negCols[v] = numCols++;
+			} else {
+				posCols[v] = numCols++;
+				negCols[v] = numCols++;
+			}
+		}
+
+		List<LinearConstraint> constraints = new ArrayList<>();
+
+		// Upper bounds of the variables with finite lower and upper bounds
+		for (int v = 0; v < mNumVars; v++) {
+			if (posCols[v] != -1 && negCols[v] == -1 && !Double.isInfinite(upperBounds[v])) {
+				double[] coeffs = new double[numCols];
+				coeffs[posCols[v]] = 1;
+				constraints.add(new LinearConstraint(coeffs, Relationship.LEQ, upperBounds[v] - lowerBounds[v]));
+			}
+		}
+
+		for (Row row : mRows) {
+			if (row.isInactive()) {
+				continue;
+			}
+			double[] coeffs = new double[numCols];
+			double rhs = row.mRhs;
+			for (int t = 0; t < row.mVars.length; t++) {
+				int v = row.mVars[t];
+				double coeff = row.mCoeffs[t];
+				rhs -= coeff * offsets[v];
+				if (posCols[v] != -1) {
+					coeffs[posCols[v]] += coeff;
+				}
+				if (negCols[v] != -1) {
+					coeffs[negCols[v]] -= coeff;
+				}
+			}
+			constraints.add(new LinearConstraint(coeffs, getRelationship(row.mSense), rhs));
+		}
+
+		double[] objCoeffs = new double[numCols];
+		double objConstant = 0;
+		for (int v = 0; v < mNumVars; v++) {
+			objConstant += mObjCoeffs[v] * offsets[v];
+			if (posCols[v] != -1) {
+				objCoeffs[posCols[v]] += mObjCoeffs[v];
+			}
+			if (negCols[v] != -1) {
+				objCoeffs[negCols[v]] -= mObjCoeffs[v];
+			}
+		}
+
+		if (numCols == 0) {
+			// All variables are fixed: check feasibility of the constraints directly
+			for (LinearConstraint constraint : constraints) {
+				if (!isSatisfiedByZero(constraint)) {
+					return null;
+				}
+			}
+			System.arraycopy(offsets, 0, values, 0, mNumVars);
+			return objConstant;
+		}
+
+		SimplexSolver simplexSolver = new SimplexSolver(mEpsilon);
+		PointValuePair optimum;
+		try {
+			optimum = simplexSolver.optimize(new MaxIter(MAX_SIMPLEX_ITERATIONS),
+					new LinearObjectiveFunction(objCoeffs, objConstant), new LinearConstraintSet(constraints),
+					mObjSense == ObjectiveSense.MINIMIZE ? GoalType.MINIMIZE : GoalType.MAXIMIZE,
+					new NonNegativeConstraint(true), PivotSelectionRule.BLAND);
+		} catch (NoFeasibleSolutionException e) {
+			return null;
+		} catch (TooManyIterationsException e) {
+			throw new LPSolverException("Simplex solver exceeded the maximum number of iterations", e);
+		}
+
+		double[] point = optimum.getPoint();
+		for (int v = 0; v < mNumVars; v++) {
+			values[v] = offsets[v] + (posCols[v] != -1 ? point[posCols[v]] : 0)
+					- (negCols[v] != -1 ? point[negCols[v]] : 0);
+		}
+		return optimum.getValue();
+	}
+
+	/**
+	 * Find the variables with finite lower bounds and infinite upper bounds that have the same coefficients in all
+	 * active constraints as another such variable, with a better or equal objective coefficient. Any solution can be
+	 * changed, without loss, to have the dominated variables at their lower bounds.
+	 *
+	 * @param lowerBounds
+	 *            : Lower bounds of all variables
+	 * @param upperBounds
+	 *            : Upper bounds of all variables
+	 * @return Whether each variable is dominated
+	 */
+	private boolean[] findDominatedDuplicateVars(double[] lowerBounds, double[] upperBounds) {
+		// Column of each candidate variable: (row, coefficient) pairs of the active constraints
+		List<List<Double>> columns = new ArrayList<>(mNumVars);
+		for (int v = 0; v < mNumVars; v++) {
+			boolean candidate = !Double.isInfinite(lowerBounds[v]) && upperBounds[v] == Double.POSITIVE_INFINITY;
+			columns.add(candidate ? new ArrayList<>() : null);
+		}
+
+		for (int r = 0; r < mRows.size(); r++) {
+			Row row = mRows.get(r);
+			if (row.isInactive()) {
+				continue;
+			}
+			for (int t = 0; t < row.mVars.length; t++) {
+				List<Double> column = columns.get(row.mVars[t]);
+				if (column == null) {
+					continue;
+				}
+				int size = column.size();
+				if (size > 0 && column.get(size - 2) == r) {
+					// Repeated term of the variable in the same row
+					column.set(size - 1, column.get(size - 1) + row.mCoeffs[t]);
+				} else {
+					column.add((double) r);
+					column.add(row.mCoeffs[t]);
+				}
+			}
+		}
+
+		boolean[] dominated = new boolean[mNumVars];
+		Map<List<Double>, Integer> bestVars = new HashMap<>();
+		double sign = mObjSense == ObjectiveSense.MINIMIZE ? 1 : -1;
+
+		for (int v = 0; v < mNumVars; v++) {
+			List<Double> column = columns.get(v);
+			if (column == null) {
+				continue;
+			}
+			Integer bestVar = bestVars.get(column);
+			if (bestVar == null) {
+				bestVars.put(column, v);
+			} else if (sign * mObjCoeffs[v] < sign * mObjCoeffs[bestVar]) {
+				dominated[bestVar] = true;
+				bestVars.put(column, v);
+			} else {
+				dominated[v] = true;
+			}
+		}
+		return dominated;
+	}
+
+	private boolean isSatisfiedByZero(LinearConstraint constraint) {
+		double rhs = constraint.getValue();
+		switch (constraint.getRelationship()) {
+		case LEQ:
+			return 0 <= rhs + mEpsilon;
+		case GEQ:
+			return 0 >= rhs - mEpsilon;
+		default:
+			return Math.abs(rhs) <= mEpsilon;
+		}
+	}
+
+	private static Relationship getRelationship(ConstraintSense sense) {
+		switch (sense) {
+		case LESS_EQUAL:
+			return Relationship.LEQ;
+		case GREATER_EQUAL:
+			return Relationship.GEQ;
+		default:
+			return Relationship.EQ;
+		}
+	}
+
+	@Override
+	public LPSolutionStatus getStatus() throws LPSolverException {
+		if (mStatus == null) {
+			throw new LPSolverException("Model has not been optimized");
+		}
+		return mStatus;
+	}
+
+	@Override
+	public boolean hasSolution() {
+		return mSolution != null;
+	}
+
+	@Override
+	public double getObjectiveValue() throws LPSolverException {
+		if (mSolution == null) {
+			throw new LPSolverException("Model has no solution");
+		}
+		return mObjectiveValue;
+	}
+
+	@Override
+	public double[] getValues(int[] vars) throws LPSolverException {
+		if (mSolution == null) {
+			throw new LPSolverException("Model has no solution");
+		}
+		double[] values = new double[vars.length];
+		for (int i = 0; i < vars.length; i++) {
+			values[i] = mSolution[vars[i]];
+		}
+		return values;
+	}
+
+	/**
+	 *
+	 * @return Number of branch-and-bound nodes explored in the last optimization
+	 */
+	public int getNumNodes() {
+		return mNumNodes;
+	}
+
+	@Override
+	public double getBuildTime() {
+		return mBuildTime / 1e6;
+	}
+
+	@Override
+	public double getSolveTime() {
+		return mSolveTime / 1e6;
+	}
+
+	@Override
+	public void dispose() {
+		mRows.clear();
+		mSolution = null;
+		mStatus = null;
+	}
+
+	/**
+	 * Constraint: sum_t (coeffs[t] * x_vars[t]) (sense) rhs. The sense and rhs can be changed between optimizations.
+	 */
+	private static final class Row {
+		private final int[] mVars;
+		private final double[] mCoeffs;
+		private ConstraintSense mSense;
+		private double mRhs;
+
+		Row(int[] vars, double[] coeffs, ConstraintSense sense, double rhs) {
+			mVars = vars;
+			mCoeffs = coeffs;
+			mSense = sense;
+			mRhs = rhs;
+		}
+
+		/**
+		 *
+		 * @return Whether the constraint is trivially satisfied: its rhs is +infinity (for <=) or -infinity (for >=)
+		 */
+		boolean isInactive() {
+			return (mSense == ConstraintSense.LESS_EQUAL && mRhs == Double.POSITIVE_INFINITY)
+					|| (mSense == ConstraintSense.GREATER_EQUAL && mRhs == Double.NEGATIVE_INFINITY);
+		}
+	}
+
+	/**
+	 * Branch-and-bound node: binary variable var is fixed to value, in addition to the fixings of the parent node.
+	 */
+	private static final class Node {
+		private final Node mParent;
+		private final int mVar;
+		private final double mValue;
+
+		Node(Node parent, int var, double value) {
+			mParent = parent;
+			mVar = var;
+			mValue = value;
+		}
+	}
+}
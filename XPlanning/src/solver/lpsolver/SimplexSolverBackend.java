@@ -0,0 +1,30 @@
+package solver.lpsolver;
+
+/**
+ * {@link SimplexSolverBackend} provides the pure-Java {@link SimplexLPModel}. It does not require any native library
+ * or license, and is therefore always available.
+ */
+public class SimplexSolverBackend implements LPSolverBackend {
+
+	public static final String NAME = "simplex";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public int getPriority() {
+		return 0;
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return true;
+	}
+
+	@Override
+	public LPModel createModel(boolean namingEnabled) {
+		return new SimplexLPModel(namingEnabled);
+	}
+}
@@ -0,0 +1,5 @@
+package solver.lpsolver;
+
+public enum VarType {
+	CONTINUOUS, BINARY
+}
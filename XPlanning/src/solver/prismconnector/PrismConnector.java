@@ -4,7 +4,10 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -28,7 +31,14 @@ import language.objectives.CostFunction;
 import language.objectives.IAdditiveCostFunction;
 import language.policy.Policy;
 import prism.PrismException;
+import solver.common.ExplicitDTMCEvaluator;
+import solver.common.ExplicitMDP;
+import solver.common.ExplicitModelChecker;
+import solver.common.NonConvergenceException;
+import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.ResultParsingException;
+import solver.prismconnector.explicitmodel.ExplicitMDPReader;
+import solver.prismconnector.explicitmodel.ExplicitPolicyEncoder;
 import solver.prismconnector.explicitmodel.PrismExplicitModelPointer;
 import solver.prismconnector.explicitmodel.PrismExplicitModelReader;
 
@@ -46,6 +56,12 @@ public class PrismConnector {
 	private Map<Policy, Map<IQFunction<?, ?>, Double>> mCachedQACosts = new HashMap<>();
 	private Map<PrismExplicitModelPointer, Policy> mExplicitModelPtrToPolicy = new HashMap<>();
 
+	// In-JVM policy evaluation over the explicit model (false, by default: policies are evaluated by PRISM)
+	// If it is enabled in the settings, the evaluator is created when the first policy is evaluated
+	private boolean mExplicitPolicyEvaluation;
+	private ExplicitDTMCEvaluator mExplicitDTMCEvaluator;
+	private ExplicitPolicyEncoder mExplicitPolicyEncoder;
+
 	public PrismConnector(XMDP xmdp, CostCriterion costCriterion, PrismConnectorSettings settings)
 			throws PrismException {
 		this(xmdp, null, costCriterion, settings);
@@ -58,6 +74,7 @@ public class PrismConnector {
 		mMDPTranslator = new PrismMDPTranslator(xmdp, queryStates);
 		mSettings = settings;
 		mPrismAPI = new PrismAPIWrapper();
+		mExplicitPolicyEvaluation = settings.isExplicitPolicyEvaluationEnabled();
 
 		if (costCriterion == CostCriterion.AVERAGE_COST) {
 			mPrismAPI.configureForSteadySteadProperty();
@@ -105,6 +122,79 @@ public class PrismConnector {
 		return outputExplicitModelPointer;
 	}
 
+	/**
+	 * Evaluate policies (i.e., compute their costs, QA values, and QA costs) in the JVM over the explicit model of this
+	 * XMDP, instead of building and model-checking a PRISM DTMC of each policy. The explicit model files are exported
+	 * once.
+	 * 
+	 * This can also be enabled in {@link PrismConnectorSettings}: the explicit model files are then exported to the
+	 * model output path when the first policy is evaluated. Event-based QA values and reachability probabilities are
+	 * still computed by PRISM, and so is any policy whose in-JVM evaluation does not converge.
+	 * 
+	 * @throws XMDPException
+	 * @throws PrismException
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
+	 */
+	public void enableExplicitPolicyEvaluation()
+			throws XMDPException, PrismException, IOException, ExplicitModelParsingException {
+		PrismExplicitModelPointer explicitModelPtr = exportExplicitModelFiles();
+		PrismExplicitModelReader explicitModelReader = new PrismExplicitModelReader(explicitModelPtr,
+				mMDPTranslator.getValueEncodingScheme());
+		enableExplicitPolicyEvaluation(explicitModelReader);
+	}
+
+	/**
+	 * Evaluate policies in the JVM over already-exported explicit model files of this XMDP.
+	 * 
+	 * @param prismExplicitModelReader
+	 *            : Reader of the explicit model files of this XMDP
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
+	 * @throws XMDPException
+	 */
+	public void enableExplicitPolicyEvaluation(PrismExplicitModelReader prismExplicitModelReader)
+			throws IOException, ExplicitModelParsingException, XMDPException {
+		ExplicitMDPReader explicitMDPReader = new ExplicitMDPReader(prismExplicitModelReader, mCostCriterion);
+		ExplicitMDP explicitMDP = explicitMDPReader.readExplicitMDP();
+		mExplicitPolicyEvaluation = true;
+		mExplicitDTMCEvaluator = new ExplicitDTMCEvaluator(explicitMDP, mCostCriterion);
+		mExplicitPolicyEncoder = new ExplicitPolicyEncoder(prismExplicitModelReader, explicitMDP);
+	}
+
+	/**
+	 * Evaluate policies by PRISM (e.g., to cross-check the in-JVM evaluation). Values that are already cached are
+	 * kept.
+	 */
+	public void disableExplicitPolicyEvaluation() {
+		mExplicitPolicyEvaluation = false;
+		mExplicitDTMCEvaluator = null;
+		mExplicitPolicyEncoder = null;
+	}
+
+	public boolean isExplicitPolicyEvaluationEnabled() {
+		return mExplicitPolicyEvaluation;
+	}
+
+	/**
+	 * Create the in-JVM policy evaluator, if explicit policy evaluation is enabled but the evaluator is not yet
+	 * created.
+	 * 
+	 * @return Whether policies are evaluated in the JVM
+	 * @throws XMDPException
+	 * @throws PrismException
+	 */
+	private boolean useExplicitPolicyEvaluation() throws XMDPException, PrismException {
+		if (mExplicitPolicyEvaluation && mExplicitDTMCEvaluator == null) {
+			try {
+				enableExplicitPolicyEvaluation();
+			} catch (IOException | ExplicitModelParsingException e) {
+				throw new PrismException("Failed to read explicit model for policy evaluation: " + e.getMessage());
+			}
+		}
+		return mExplicitPolicyEvaluation;
+	}
+
 	/**
 	 * Generate an optimal policy (the objective is the cost function) of the MDP. Compute its QA values. Cache its
 	 * expected total cost and QA values.
@@ -279,9 +369,10 @@ public class PrismConnector {
 			double qaValue = computeQAValue(policy, qFunction);
 			policyInfo.putQAValue(qFunction, qaValue);
 
-			// Scaled QA cost
+			// Non-scaled and scaled QA costs
 			AttributeCostFunction<?> attrCostFunction = costFunction.getAttributeCostFunction(qFunction);
 			double nonScaledQACost = computeQACost(policy, qFunction);
+			policyInfo.putQACost(qFunction, nonScaledQACost);
 			double scaledQACost = nonScaledQACost * costFunction.getScalingConstant(attrCostFunction);
 			policyInfo.putScaledQACost(qFunction, scaledQACost);
 
@@ -314,6 +405,10 @@ public class PrismConnector {
 	}
 
 	private void computeAndCacheCost(Policy policy) throws XMDPException, PrismException, ResultParsingException {
+		if (useExplicitPolicyEvaluation() && computeAndCacheAllValuesExplicitly(policy)) {
+			return;
+		}
+
 		XDTMC xdtmc = new XDTMC(mXMDP, policy);
 		PrismDTMCTranslator dtmcTranslator = new PrismDTMCTranslator(xdtmc);
 		String dtmc = dtmcTranslator.getDTMCTranslation(false, false);
@@ -348,6 +443,10 @@ public class PrismConnector {
 
 	private void computeAndCacheAllQAValues(Policy policy)
 			throws XMDPException, PrismException, ResultParsingException {
+		if (useExplicitPolicyEvaluation() && computeAndCacheAllValuesExplicitly(policy)) {
+			return;
+		}
+
 		XDTMC xdtmc = new XDTMC(mXMDP, policy);
 		PrismDTMCTranslator dtmcTranslator = new PrismDTMCTranslator(xdtmc);
 		String dtmcWithQAs = dtmcTranslator.getDTMCTranslation(true, false);
@@ -385,6 +484,10 @@ public class PrismConnector {
 	}
 
 	private void computeAndCacheAllQACosts(Policy policy) throws XMDPException, ResultParsingException, PrismException {
+		if (useExplicitPolicyEvaluation() && computeAndCacheAllValuesExplicitly(policy)) {
+			return;
+		}
+
 		XDTMC xdtmc = new XDTMC(mXMDP, policy);
 		PrismDTMCTranslator dtmcTranslator = new PrismDTMCTranslator(xdtmc);
 		String dtmcWithQACosts = dtmcTranslator.getDTMCTranslation(false, true);
@@ -401,6 +504,77 @@ public class PrismConnector {
 		mCachedQACosts.put(policy, qaCosts);
 	}
 
+	/**
+	 * Compute the cost, all QA values, and all QA costs of a given policy from its occupation measure in the explicit
+	 * model, which is computed only once. Cache all of the values.
+	 * 
+	 * @param policy
+	 *            : Policy
+	 * @return Whether the occupation measure converged; if not, no value is cached, and the policy should be evaluated
+	 *         by PRISM instead
+	 * @throws XMDPException
+	 */
+	private boolean computeAndCacheAllValuesExplicitly(Policy policy) throws XMDPException {
+		ExplicitMDP explicitMDP = mExplicitDTMCEvaluator.getExplicitMDP();
+		ValueEncodingScheme encodings = mMDPTranslator.getValueEncodingScheme();
+		CostFunction costFunction = mXMDP.getCostFunction();
+
+		List<IQFunction<?, ?>> qFunctions = new ArrayList<>();
+		for (IQFunction<?, ?> qFunction : mXMDP.getQSpace()) {
+			qFunctions.add(qFunction);
+		}
+		int numQFunctions = qFunctions.size();
+
+		// Evaluations: [cost, QA value of each QA, QA cost of each QA]
+		int numEvaluations = 1 + 2 * numQFunctions;
+		int[] costFuncIndices = new int[numEvaluations];
+		double[] costShifts = new double[numEvaluations];
+		double[] costMultipliers = new double[numEvaluations];
+		Arrays.fill(costMultipliers, 1);
+
+		costFuncIndices[0] = encodings.getRewardStructureIndex(costFunction);
+		for (int q = 0; q < numQFunctions; q++) {
+			IQFunction<?, ?> qFunction = qFunctions.get(q);
+			AttributeCostFunction<?> attrCostFunction = costFunction.getAttributeCostFunction(qFunction);
+			int qaFuncIndex = encodings.getRewardStructureIndex(qFunction);
+			costFuncIndices[1 + q] = qaFuncIndex;
+			costFuncIndices[1 + numQFunctions + q] = qaFuncIndex;
+			costShifts[1 + numQFunctions + q] = attrCostFunction.getIntercept();
+			costMultipliers[1 + numQFunctions + q] = attrCostFunction.getSlope();
+		}
+
+		int[] policyPairs = mExplicitPolicyEncoder.encodePolicy(policy);
+		double[] xResults;
+		try {
+			xResults = mExplicitDTMCEvaluator.computeOccupationMeasure(policyPairs);
+		} catch (NonConvergenceException e) {
+			return false;
+		}
+
+		double[] results = new double[numEvaluations];
+		if (xResults == null) {
+			// The policy does not reach the goal states with probability 1
+			Arrays.fill(results, Double.POSITIVE_INFINITY);
+		} else {
+			// All evaluations in a single pass over the occupation measure
+			results = ExplicitModelChecker.computeOccupancyCosts(xResults, costFuncIndices, costShifts,
+					costMultipliers, explicitMDP);
+		}
+
+		mCachedCosts.put(policy, results[0]);
+
+		Map<IQFunction<?, ?>, Double> qaValues = new HashMap<>();
+		Map<IQFunction<?, ?>, Double> qaCosts = new HashMap<>();
+		for (int q = 0; q < numQFunctions; q++) {
+			IQFunction<?, ?> qFunction = qFunctions.get(q);
+			qaValues.put(qFunction, results[1 + q]);
+			qaCosts.put(qFunction, results[1 + numQFunctions + q]);
+		}
+		mCachedQAValues.put(policy, qaValues);
+		mCachedQACosts.put(policy, qaCosts);
+		return true;
+	}
+
 	private <E> Map<E, Double> computeValues(String dtmcModelStr, Map<E, String> queryProperties)
 			throws ResultParsingException, PrismException {
 		// Build a string containing all properties to be computed (1 property/line)
@@ -9,10 +9,26 @@ public class PrismConnectorSettings {
 
 	private String mModelOutputPath;
 	private String mAdvOutputPath;
+	private boolean mExplicitPolicyEvaluation;
 
 	public PrismConnectorSettings(String modelOutputPath, String advOutputPath) {
+		this(modelOutputPath, advOutputPath, false);
+	}
+
+	/**
+	 * 
+	 * @param modelOutputPath
+	 *            : Output path for PRISM explicit model files
+	 * @param advOutputPath
+	 *            : Output path for PRISM explicit model files, including adversary (.adv) file
+	 * @param explicitPolicyEvaluation
+	 *            : Whether to evaluate policies in the JVM over the explicit model, or by building and model-checking a
+	 *            PRISM DTMC of each policy (default)
+	 */
+	public PrismConnectorSettings(String modelOutputPath, String advOutputPath, boolean explicitPolicyEvaluation) {
 		mModelOutputPath = modelOutputPath;
 		mAdvOutputPath = advOutputPath;
+		mExplicitPolicyEvaluation = explicitPolicyEvaluation;
 	}
 
 	public String getModelOutputPath() {
@@ -23,6 +39,10 @@ public class PrismConnectorSettings {
 		return mAdvOutputPath;
 	}
 
+	public boolean isExplicitPolicyEvaluationEnabled() {
+		return mExplicitPolicyEvaluation;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == this) {
@@ -32,7 +52,8 @@ public class PrismConnectorSettings {
 			return false;
 		}
 		PrismConnectorSettings settings = (PrismConnectorSettings) obj;
-		return settings.mModelOutputPath.equals(mModelOutputPath) && settings.mAdvOutputPath.equals(mAdvOutputPath);
+		return settings.mModelOutputPath.equals(mModelOutputPath) && settings.mAdvOutputPath.equals(mAdvOutputPath)
+				&& settings.mExplicitPolicyEvaluation == mExplicitPolicyEvaluation;
 	}
 
 	@Override
@@ -42,6 +63,7 @@ public class PrismConnectorSettings {
 			result = 17;
 			result = 31 * result + mModelOutputPath.hashCode();
 			result = 31 * result + mAdvOutputPath.hashCode();
+			result = 31 * result + Boolean.hashCode(mExplicitPolicyEvaluation);
 			hashCode = result;
 		}
 		return hashCode;
@@ -5,8 +5,11 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -25,6 +28,7 @@ import solver.prismconnector.QFunctionEncodingScheme;
 import solver.prismconnector.exceptions.ExplicitModelParsingException;
 import solver.prismconnector.exceptions.GoalStatesParsingException;
 import solver.prismconnector.exceptions.InitialStateParsingException;
+import solver.prismconnector.explicitmodel.ExplicitModelFileScanner.TokenTable;
 
 public class ExplicitMDPReader {
 
@@ -35,6 +39,9 @@ public class ExplicitMDPReader {
 	private QFunctionEncodingScheme mQFunctionEncoding;
 	private CostCriterion mCostCriterion;
 
+	// ExplicitMDP read from the explicit model files, without objective costs; read on demand, and never modified
+	private ExplicitMDP mBaseExplicitMDP;
+
 	public ExplicitMDPReader(PrismExplicitModelReader prismExplicitModelReader, CostCriterion costCriterion) {
 		mPrismModelPointer = prismExplicitModelReader.getPrismExplicitModelPointer();
 		mQFunctionEncoding = prismExplicitModelReader.getValueEncodingScheme().getQFunctionEncodingScheme();
@@ -42,29 +49,42 @@ public class ExplicitMDPReader {
 	}
 
 	/**
-	 * Read an {@link ExplicitMDP} from PRISM explicit model files.
+	 * Read an {@link ExplicitMDP} from PRISM explicit model files. The files are only parsed on the first call; every
+	 * returned ExplicitMDP is an objective overlay of the same base ExplicitMDP, so its objective costs can be set
+	 * independently, without any file I/O.
 	 * 
 	 * @return ExplicitMDP without objective costs
 	 * @throws IOException
 	 * @throws ExplicitModelParsingException
 	 */
 	public ExplicitMDP readExplicitMDP() throws IOException, ExplicitModelParsingException {
-		File traFile = mPrismModelPointer.getTransitionsFile();
-		File labFile = mPrismModelPointer.getLabelsFile();
-		List<String> traAllLines = readLinesFromFile(traFile);
-		List<String> labAllLines = readLinesFromFile(labFile);
-		String traHeader = readFirstLineFromFile(traFile);
+		return getBaseExplicitMDP().createObjectiveOverlay();
+	}
 
-		int numStates = readNumStates(traHeader);
-		Set<String> actionNames = readActionNames(traAllLines);
+	private synchronized ExplicitMDP getBaseExplicitMDP() throws IOException, ExplicitModelParsingException {
+		if (mBaseExplicitMDP == null) {
+			mBaseExplicitMDP = parseExplicitMDP();
+		}
+		return mBaseExplicitMDP;
+	}
 
-		// Assume a single initial state
-		int iniState = readInitialState(labAllLines);
+	private ExplicitMDP parseExplicitMDP() throws IOException, ExplicitModelParsingException {
+		// Single pass over .tra file
+		TransitionRows transitionRows = readTransitionRows(mPrismModelPointer.getTransitionsFile());
+		TokenTable actionNameTable = transitionRows.mActionNames;
+		Set<String> actionNames = new HashSet<>();
+		for (int id = 0; id < actionNameTable.size(); id++) {
+			actionNames.add(actionNameTable.getToken(id));
+		}
 
 		// SSP must have at least one goal state
 		// Average-cost MDP does not have a goal state (there is no goal-reachability guarantee)
-		Set<Integer> goalStates = mCostCriterion == CostCriterion.TOTAL_COST ? readGoalStates(labAllLines)
-				: new HashSet<>();
+		Set<Integer> goalStates = new HashSet<>();
+
+		// Single pass over .lab file
+		// Assume a single initial state
+		int iniState = readStateLabels(mPrismModelPointer.getLabelsFile(),
+				mCostCriterion == CostCriterion.TOTAL_COST ? goalStates : null);
 
 		// Create an additional slot for cost function to:
 		// (1) Align the indices of the cost functions (starts at 0) to the PRISM reward indices (starts at 1), and
@@ -76,12 +96,12 @@ public class ExplicitMDPReader {
 				? CostType.STATE_COST
 				: CostType.TRANSITION_COST;
 
-		ExplicitMDP explicitMDP = new ExplicitMDP(numStates, actionNames, costType, numCostFunctions, iniState,
-				goalStates);
-		readTransitionProbabilities(traAllLines, explicitMDP);
+		ExplicitMDP explicitMDP = new ExplicitMDP(transitionRows.mNumStates, actionNames, costType, numCostFunctions,
+				iniState, goalStates);
+		int[] rowActionIndices = addTransitionProbabilities(transitionRows, explicitMDP);
 
 		if (costType == CostType.TRANSITION_COST) {
-			readAllTransitionCosts(traAllLines, explicitMDP);
+			readAllTransitionCosts(transitionRows, rowActionIndices, explicitMDP);
 		} else if (costType == CostType.STATE_COST) {
 			readAllStateCosts(explicitMDP);
 		}
@@ -89,8 +109,8 @@ public class ExplicitMDPReader {
 	}
 
 	/**
-	 * Read an {@link ExplicitMDP} from PRISM explicit model files, and set its objective costs according to the given
-	 * objective function.
+	 * Read an {@link ExplicitMDP} from PRISM explicit model files (see {@link #readExplicitMDP()}), and set its
+	 * objective costs according to the given objective function.
 	 * 
 	 * @param objectiveFunction
 	 *            : Optimization objective function
@@ -102,7 +122,23 @@ public class ExplicitMDPReader {
 	public ExplicitMDP readExplicitMDP(IAdditiveCostFunction objectiveFunction)
 			throws IOException, ExplicitModelParsingException, QFunctionNotFoundException {
 		ExplicitMDP explicitMDP = readExplicitMDP();
+		setObjectiveFunction(explicitMDP, objectiveFunction);
+		return explicitMDP;
+	}
 
+	/**
+	 * Set the objective costs of an {@link ExplicitMDP} read by this reader according to the given objective function,
+	 * replacing its previous objective costs. This allows an ExplicitMDP to be reused for multiple objective functions,
+	 * without re-reading the explicit model files.
+	 * 
+	 * @param explicitMDP
+	 *            : ExplicitMDP read by this reader
+	 * @param objectiveFunction
+	 *            : Optimization objective function
+	 * @throws QFunctionNotFoundException
+	 */
+	public void setObjectiveFunction(ExplicitMDP explicitMDP, IAdditiveCostFunction objectiveFunction)
+			throws QFunctionNotFoundException {
 		if (mQFunctionEncoding.contains(objectiveFunction)) {
 			// The given objective function has a corresponding cost function (already in explicitMDP).
 			// Set that cost function to be the objective function of explicitMDP.
@@ -113,158 +149,188 @@ public class ExplicitMDPReader {
 			// Compute the objective costs according to the function and add them to explicitMDP.
 			setObjectiveFunctionOfExplicitMDP(explicitMDP, objectiveFunction);
 		}
-
-		return explicitMDP;
-	}
-
-	/**
-	 * Read the number of states from a header of .tra file: "{#states} {#choices} {#transitions}".
-	 * 
-	 * @param traHeader
-	 *            : First line of .tra file
-	 * @return Number of states
-	 */
-	private int readNumStates(String traHeader) {
-		String[] headerArray = traHeader.split(" ");
-		return Integer.parseInt(headerArray[0]);
 	}
 
 	/**
-	 * Read the initial state from .lab file.
+	 * Read the initial state, and the goal states (labeled "end") if required, from .lab file in a single pass.
 	 * 
-	 * @param labAllLines
-	 *            : All lines from .lab file
+	 * @param labFile
+	 *            : .lab file
+	 * @param outputGoalStates
+	 *            : Return parameter of goal states, or null if goal states are not required
 	 * @return Initial state
-	 * @throws InitialStateParsingException
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
 	 */
-	private int readInitialState(List<String> labAllLines) throws InitialStateParsingException {
+	private int readStateLabels(File labFile, Set<Integer> outputGoalStates)
+			throws IOException, ExplicitModelParsingException {
+		ExplicitModelFileScanner scanner = new ExplicitModelFileScanner(labFile);
+
 		// Header format: 0="init" 1="deadlock" ... {n}="end" ...
-		String labHeader = labAllLines.get(0);
-		Pattern pattern = Pattern.compile(INIT_LAB_HEADER_PATTERN);
-		Matcher matcher = pattern.matcher(labHeader);
-		if (!matcher.find()) {
+		String labHeader = scanner.nextLine();
+		int initLabel = readLabelIndex(labHeader, INIT_LAB_HEADER_PATTERN);
+		if (initLabel == -1) {
 			throw new InitialStateParsingException(labHeader);
 		}
-		String initLabel = matcher.group(1);
-		List<String> labBody = labAllLines.subList(1, labAllLines.size());
-		for (String line : labBody) {
+		int endLabel = -1;
+		if (outputGoalStates != null) {
+			endLabel = readLabelIndex(labHeader, END_LAB_HEADER_PATTERN);
+			if (endLabel == -1) {
+				throw new GoalStatesParsingException(labHeader);
+			}
+		}
+
+		int iniState = -1;
+		while (scanner.hasNextLine()) {
 			// Line format: "{state}: {label} {label} ..."
-			String[] pair = line.split(":");
-			String[] labels = pair[1].trim().split(" ");
-			if (labels[0].equals(initLabel)) {
-				return Integer.parseInt(pair[0]);
+			int state = scanner.nextInt();
+			scanner.skip(':');
+			boolean firstLabel = true;
+			while (!scanner.isEndOfLine()) {
+				int label = scanner.nextInt();
+				if (firstLabel && label == initLabel && iniState == -1) {
+					iniState = state;
+				}
+				if (label == endLabel) {
+					outputGoalStates.add(state);
+				}
+				firstLabel = false;
 			}
+			scanner.skipToNextLine();
+		}
+
+		if (iniState == -1) {
+			throw new InitialStateParsingException(labHeader, readLabBody(labFile));
 		}
-		throw new InitialStateParsingException(labHeader, labBody);
+		if (outputGoalStates != null && outputGoalStates.isEmpty()) {
+			throw new GoalStatesParsingException(labHeader, readLabBody(labFile));
+		}
+		return iniState;
 	}
 
 	/**
-	 * Read the goal states (labeled "end") from .lab file.
 	 * 
-	 * @param labAllLines
-	 *            : All lines from .lab file
-	 * @return Goal states
-	 * @throws GoalStatesParsingException
+	 * @param labHeader
+	 *            : First line of .lab file
+	 * @param labelHeaderPattern
+	 *            : Pattern of a label in the header, whose group 1 is the label index
+	 * @return Index of the label, or -1 if the label is not in the header
 	 */
-	private Set<Integer> readGoalStates(List<String> labAllLines) throws GoalStatesParsingException {
-		Set<Integer> goalStates = new HashSet<>();
-		// Header format: 0="init" 1="deadlock" ... {n}="end" ...
-		String labHeader = labAllLines.get(0);
-		Pattern pattern = Pattern.compile(END_LAB_HEADER_PATTERN);
+	private int readLabelIndex(String labHeader, String labelHeaderPattern) {
+		Pattern pattern = Pattern.compile(labelHeaderPattern);
 		Matcher matcher = pattern.matcher(labHeader);
-		if (!matcher.find()) {
-			throw new GoalStatesParsingException(labHeader);
-		}
-		String endLabel = matcher.group(1);
-		List<String> labBody = labAllLines.subList(1, labAllLines.size());
-		for (String line : labBody) {
-			// Line format: "{state}: {label} {label} ..."
-			String[] pair = line.split(":");
-			String[] labels = pair[1].trim().split(" ");
-			for (String label : labels) {
-				if (label.equals(endLabel)) {
-					Integer goalState = Integer.parseInt(pair[0]);
-					goalStates.add(goalState);
-					break;
-				}
-			}
-		}
-		if (goalStates.isEmpty()) {
-			throw new GoalStatesParsingException(labHeader, labBody);
-		}
-		return goalStates;
+		return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+	}
+
+	private List<String> readLabBody(File labFile) throws IOException {
+		List<String> labAllLines = readLinesFromFile(labFile);
+		return labAllLines.subList(1, labAllLines.size());
 	}
 
 	/**
-	 * Read all of the action names from .tra file.
+	 * Read all choices and their transition probabilities from .tra file in a single pass, interning the action names.
 	 * 
 	 * Each line has the format: "{src} {prob}:{dest} {prob}:{dest} ... {action name}". Assume that every command in
-	 * PRISM MDP model has an action label.
+	 * PRISM MDP model has an action label, and that the choices of each state are ordered.
 	 * 
-	 * @param traAllLines
-	 *            : All lines from .tra file
-	 * @return All action names
+	 * @param traFile
+	 *            : .tra file
+	 * @return All choices in .tra file
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
 	 */
-	private Set<String> readActionNames(List<String> traAllLines) {
-		List<String> body = traAllLines.subList(1, traAllLines.size());
-		Set<String> actionNames = new HashSet<>();
-		for (String line : body) {
+	private TransitionRows readTransitionRows(File traFile) throws IOException, ExplicitModelParsingException {
+		ExplicitModelFileScanner scanner = new ExplicitModelFileScanner(traFile);
+
+		// Header format: "{#states} {#choices} {#transitions}"
+		int numStates = scanner.nextInt();
+		int numChoices = scanner.nextInt();
+		int numTransitions = scanner.nextInt();
+		scanner.skipToNextLine();
+
+		TransitionRows rows = new TransitionRows(numStates, numChoices, numTransitions);
+		int prevSrcState = -1;
+
+		while (scanner.hasNextLine()) {
 			// Line format: "{src} {prob}:{dest} {prob}:{dest} ... {action name}"
-			String[] tokens = line.split(" ");
-			String actionName = tokens[tokens.length - 1];
-			actionNames.add(actionName);
+			int srcState = scanner.nextInt();
+			while (scanner.isNextTokenFollowedBy(':')) {
+				double probability = scanner.nextDouble();
+				scanner.skip(':');
+				int destState = scanner.nextInt();
+				rows.addTransition(destState, probability);
+			}
+			int actionNameId = scanner.nextToken(rows.mActionNames);
+			if (srcState < 0 || srcState >= numStates) {
+				throw scanner.createParsingException("source state in [0, " + numStates + ")");
+			}
+
+			// Choice index 0 of a new state
+			if (srcState != prevSrcState) {
+				rows.mFirstRows[srcState] = rows.mNumRows;
+			}
+			rows.addRow(srcState, actionNameId);
+
+			prevSrcState = srcState;
+			scanner.skipToNextLine();
 		}
-		return actionNames;
+		return rows;
 	}
 
 	/**
-	 * Read transition probabilities from .tra file.
-	 * 
-	 * Each line has the format: "{src} {prob}:{dest} {prob}:{dest} ... {action name}". Assume that every command in
-	 * PRISM MDP model has an action label.
+	 * Add the transition probabilities of all choices to the explicit MDP.
 	 * 
-	 * @param traAllLines
-	 *            : All lines from .tra file
+	 * @param rows
+	 *            : All choices in .tra file
 	 * @param explicitMDP
 	 *            : Add probabilistic transitions to this explicit MDP
+	 * @return Action index of each choice in the explicit MDP
 	 */
-	private void readTransitionProbabilities(List<String> traAllLines, ExplicitMDP explicitMDP) {
-		List<String> body = traAllLines.subList(1, traAllLines.size());
-		for (String line : body) {
-			// Line format: "{src} {prob}:{dest} {prob}:{dest} ... {action name}"
-			String[] tokens = line.split(" ");
-			int srcState = Integer.parseInt(tokens[0]);
-			String actionName = tokens[tokens.length - 1];
-			for (int i = 1; i < tokens.length - 1; i++) {
-				String token = tokens[i];
-				String[] pair = token.split(":");
-				double probability = Double.parseDouble(pair[0]);
-				int destState = Integer.parseInt(pair[1]);
-				explicitMDP.addTransitionProbability(srcState, actionName, destState, probability);
+	private int[] addTransitionProbabilities(TransitionRows rows, ExplicitMDP explicitMDP) {
+		// Map interned action names to action indices of the explicit MDP
+		Map<String, Integer> actionIndices = new HashMap<>();
+		for (int a = 0; a < explicitMDP.getNumActions(); a++) {
+			actionIndices.put(explicitMDP.getActionNameAtIndex(a), a);
+		}
+		int[] actionIndicesOfNames = new int[rows.mActionNames.size()];
+		for (int id = 0; id < actionIndicesOfNames.length; id++) {
+			actionIndicesOfNames[id] = actionIndices.get(rows.mActionNames.getToken(id));
+		}
+
+		int[] rowActionIndices = new int[rows.mNumRows];
+		int rowStart = 0;
+		for (int r = 0; r < rows.mNumRows; r++) {
+			int srcState = rows.mSrcStates[r];
+			int actionIndex = actionIndicesOfNames[rows.mActionNameIds[r]];
+			for (int t = rowStart; t < rows.mRowEnds[r]; t++) {
+				explicitMDP.addTransitionProbability(srcState, actionIndex, rows.mDestStates[t], rows.mProbs[t]);
 			}
+			rowActionIndices[r] = actionIndex;
+			rowStart = rows.mRowEnds[r];
 		}
+		return rowActionIndices;
 	}
 
 	/**
 	 * Read transition costs from all .trew files into all cost function indices -- except the 0th index, which is
 	 * reserved for the optimization objective function.
 	 * 
-	 * @param traAllLines
-	 *            : All lines from .tra file
+	 * @param rows
+	 *            : All choices in .tra file
+	 * @param rowActionIndices
+	 *            : Action index of each choice in the explicit MDP
 	 * @param explicitMDP
 	 * @throws IOException
+	 * @throws ExplicitModelParsingException
 	 */
-	private void readAllTransitionCosts(List<String> traAllLines, ExplicitMDP explicitMDP) throws IOException {
-		int numStates = explicitMDP.getNumStates();
-		int numActions = explicitMDP.getNumActions();
-		String[][] choicesToActions = readChoicesToActions(traAllLines, numStates, numActions);
+	private void readAllTransitionCosts(TransitionRows rows, int[] rowActionIndices, ExplicitMDP explicitMDP)
+			throws IOException, ExplicitModelParsingException {
 		int numRewardStructs = mQFunctionEncoding.getNumRewardStructures();
 
 		// Reserve 0-slot for the optimization objective function
 		for (int k = 1; k <= numRewardStructs; k++) {
 			File trewFile = mPrismModelPointer.getIndexedTransitionRewardsFile(k);
-			List<String> trewAllLines = readLinesFromFile(trewFile);
-			readTransitionCosts(k, trewAllLines, choicesToActions, explicitMDP);
+			readTransitionCosts(k, trewFile, rows, rowActionIndices, explicitMDP);
 		}
 	}
 
@@ -273,62 +339,38 @@ public class ExplicitMDPReader {
 	 * 
 	 * @param costFuncIndex
 	 *            : Cost function index
-	 * @param trewAllLines
-	 *            : All lines from .trew file.
-	 * @param choicesToActions
+	 * @param trewFile
+	 *            : .trew file
+	 * @param rows
+	 *            : All choices in .tra file
+	 * @param rowActionIndices
+	 *            : Action index of each choice in the explicit MDP
 	 * @param explicitMDP
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
 	 */
-	private void readTransitionCosts(int costFuncIndex, List<String> trewAllLines, String[][] choicesToActions,
-			ExplicitMDP explicitMDP) {
-		List<String> body = trewAllLines.subList(1, trewAllLines.size());
-		for (String line : body) {
-			// Line format: "{src} {choice} {dest} {cost}"
-			String[] tokens = line.split(" ");
-			int srcState = Integer.parseInt(tokens[0]);
-			int choiceIndex = Integer.parseInt(tokens[1]);
-			double cost = Double.parseDouble(tokens[3]);
-			String actionName = choicesToActions[srcState][choiceIndex];
-			explicitMDP.addTransitionCost(costFuncIndex, srcState, actionName, cost);
-		}
-	}
+	private void readTransitionCosts(int costFuncIndex, File trewFile, TransitionRows rows, int[] rowActionIndices,
+			ExplicitMDP explicitMDP) throws IOException, ExplicitModelParsingException {
+		ExplicitModelFileScanner scanner = new ExplicitModelFileScanner(trewFile);
 
-	/**
-	 * Read the mapping from (src state, choice index) -> action name from .tra file.
-	 * 
-	 * Assume that choice indices of each state are ordered.
-	 * 
-	 * @param traAllLines
-	 *            : All lines from .tra file
-	 * @param numStates
-	 * @param numActions
-	 * @return Mapping from (src state, choice index) -> action name
-	 */
-	private String[][] readChoicesToActions(List<String> traAllLines, int numStates, int numActions) {
-		// Maximum # of choices at each state is # of all actions
-		String[][] choicesToActions = new String[numStates][numActions];
-		List<String> body = traAllLines.subList(1, traAllLines.size());
-		int prevSrcState = -1;
-		int choiceIndex = 0;
-		for (String line : body) {
-			// Line format: "{src} {prob}:{dest} {prob}:{dest} ... {action name}"
-			String[] tokens = line.split(" ");
-			int srcState = Integer.parseInt(tokens[0]);
-			String actionName = tokens[tokens.length - 1];
+		// Skip header
+		scanner.skipToNextLine();
 
-			if (srcState != prevSrcState) {
-				// Reset choice index to 0 for the new state
-				choiceIndex = 0;
-			} else {
-				// Increment choice index for the current state
-				choiceIndex++;
+		while (scanner.hasNextLine()) {
+			// Line format: "{src} {choice} {dest} {cost}"
+			int srcState = scanner.nextInt();
+			int choiceIndex = scanner.nextInt();
+			scanner.nextInt();
+			double cost = scanner.nextDouble();
+
+			// Map (src, choice index) -> action index
+			int row = srcState >= 0 && srcState < rows.mNumStates ? rows.mFirstRows[srcState] + choiceIndex : -1;
+			if (row < 0 || row >= rows.mNumRows || rows.mSrcStates[row] != srcState) {
+				throw scanner.createParsingException("(source state, choice) of .tra file");
 			}
-
-			// Map (src, choice index) -> action name
-			choicesToActions[srcState][choiceIndex] = actionName;
-
-			prevSrcState = srcState;
+			explicitMDP.addTransitionCost(costFuncIndex, srcState, rowActionIndices[row], cost);
+			scanner.skipToNextLine();
 		}
-		return choicesToActions;
 	}
 
 	/**
@@ -337,15 +379,15 @@ public class ExplicitMDPReader {
 	 * 
 	 * @param explicitMDP
 	 * @throws IOException
+	 * @throws ExplicitModelParsingException
 	 */
-	private void readAllStateCosts(ExplicitMDP explicitMDP) throws IOException {
+	private void readAllStateCosts(ExplicitMDP explicitMDP) throws IOException, ExplicitModelParsingException {
 		int numRewardStructs = mQFunctionEncoding.getNumRewardStructures();
 
 		// Reserve 0-slot for the optimization objective function
 		for (int k = 1; k < numRewardStructs; k++) {
 			File srewFile = mPrismModelPointer.getIndexedStateRewardsFile(k);
-			List<String> srewAllLines = readLinesFromFile(srewFile);
-			readStateCosts(k, srewAllLines, explicitMDP);
+			readStateCosts(k, srewFile, explicitMDP);
 		}
 	}
 
@@ -354,25 +396,25 @@ public class ExplicitMDPReader {
 	 * 
 	 * @param costFuncIndex
 	 *            : Cost function index
-	 * @param srewAllLines
-	 *            : All lines from .srew file
+	 * @param srewFile
+	 *            : .srew file
 	 * @param explicitMDP
+	 * @throws IOException
+	 * @throws ExplicitModelParsingException
 	 */
-	private void readStateCosts(int costFuncIndex, List<String> srewAllLines, ExplicitMDP explicitMDP) {
-		List<String> body = srewAllLines.subList(1, srewAllLines.size());
-		for (String line : body) {
+	private void readStateCosts(int costFuncIndex, File srewFile, ExplicitMDP explicitMDP)
+			throws IOException, ExplicitModelParsingException {
+		ExplicitModelFileScanner scanner = new ExplicitModelFileScanner(srewFile);
+
+		// Skip header
+		scanner.skipToNextLine();
+
+		while (scanner.hasNextLine()) {
 			// Line format: "{src} {cost}"
-			String[] tokens = line.split(" ");
-			int state = Integer.parseInt(tokens[0]);
-			double cost = Double.parseDouble(tokens[1]);
+			int state = scanner.nextInt();
+			double cost = scanner.nextDouble();
 			explicitMDP.addStateCost(costFuncIndex, state, cost);
-		}
-	}
-
-	private String readFirstLineFromFile(File file) throws IOException {
-		try (FileReader fileReader = new FileReader(file);
-				BufferedReader buffReader = new BufferedReader(fileReader);) {
-			return buffReader.readLine();
+			scanner.skipToNextLine();
 		}
 	}
 
@@ -467,4 +509,58 @@ public class ExplicitMDPReader {
 
 		return objectiveCost;
 	}
+
+	/**
+	 * Choices read from .tra file, in the order of the file. The transitions of choice r are at [mRowEnds[r - 1],
+	 * mRowEnds[r]) of mDestStates and mProbs. The arrays are sized by the header of .tra file, and grow if needed.
+	 */
+	private static final class TransitionRows {
+
+		private int mNumStates;
+		private int mNumRows;
+		private int[] mSrcStates;
+		private int[] mActionNameIds;
+		private int[] mRowEnds;
+
+		// Row of choice index 0 of each state
+		private int[] mFirstRows;
+
+		private int mNumTransitions;
+		private int[] mDestStates;
+		private double[] mProbs;
+
+		private TokenTable mActionNames = new TokenTable();
+
+		private TransitionRows(int numStates, int numChoices, int numTransitions) {
+			mNumStates = numStates;
+			mSrcStates = new int[Math.max(numChoices, 1)];
+			mActionNameIds = new int[mSrcStates.length];
+			mRowEnds = new int[mSrcStates.length];
+			mFirstRows = new int[numStates];
+			mDestStates = new int[Math.max(numTransitions, 1)];
+			mProbs = new double[mDestStates.length];
+		}
+
+		private void addTransition(int destState, double probability) {
+			if (mNumTransitions == mDestStates.length) {
+				mDestStates = Arrays.copyOf(mDestStates, 2 * mNumTransitions);
+				mProbs = Arrays.copyOf(mProbs, 2 * mNumTransitions);
+			}
+			mDestStates[mNumTransitions] = destState;
+			mProbs[mNumTransitions] = probability;
+			mNumTransitions++;
+		}
+
+		private void addRow(int srcState, int actionNameId) {
+			if (mNumRows == mSrcStates.length) {
+				mSrcStates = Arrays.copyOf(mSrcStates, 2 * mNumRows);
+				mActionNameIds = Arrays.copyOf(mActionNameIds, 2 * mNumRows);
+				mRowEnds = Arrays.copyOf(mRowEnds, 2 * mNumRows);
+			}
+			mSrcStates[mNumRows] = srcState;
+			mActionNameIds[mNumRows] = actionNameId;
+			mRowEnds[mNumRows] = mNumTransitions;
+			mNumRows++;
+		}
+	}
 }
@@ -0,0 +1,409 @@
+package solver.prismconnector.explicitmodel;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import solver.prismconnector.exceptions.ExplicitModelParsingException;
+
+/**
+ * {@link ExplicitModelFileScanner} tokenizes a PRISM explicit model file in a single forward pass over a buffer that
+ * holds the whole file. Integers and decimal numbers are parsed directly from the bytes, without creating any string, and names
+ * (e.g., action names) are interned into int IDs by a {@link TokenTable}.
+ *
+ * Tokens on a line are separated by spaces, or by ':' (e.g., "{prob}:{dest}" in .tra file, and "{state}: {label}" in
+ * .lab file).
+ */
+final class ExplicitModelFileScanner {
+
+	/**
+	 * Powers of ten that are exactly representable as doubles.
+	 */
+	private static final double[] EXACT_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+			1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Any integer with at most this many digits is exactly representable as a double.
+	 */
+	private static final int MAX_EXACT_DIGITS = 15;
+
+	private final File mFile;
+	private final ByteBuffer mBuffer;
+	private final int mLimit;
+	private int mPos;
+	private int mLineNumber = 1;
+
+	ExplicitModelFileScanner(File file) throws IOException {
+		mFile = file;
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) {
+				throw new IOException("Explicit model file is too large to be read: " + file);
+			}
+			// Read into a heap buffer, rather than mapping the file: a mapped buffer is only unmapped when it is garbage
+			// collected, and until then, the file cannot be deleted or overwritten on some platforms (e.g., Windows)
+			mBuffer = ByteBuffer.allocate((int) size);
+			while (mBuffer.hasRemaining() && channel.read(mBuffer) >= 0) {
+				// Keep reading until the buffer is full, or the end of the file is reached
+			}
+			mBuffer.flip();
+		}
+		mLimit = mBuffer.limit();
+	}
+
+	/**
+	 * Skip any blank lines.
+	 *
+	 * @return Whether there is another non-blank line
+	 */
+	boolean hasNextLine() {
+		while (mPos < mLimit && isLineBreak(mBuffer.get(mPos))) {
+			if (mBuffer.get(mPos) == '\n') {
+				mLineNumber++;
+			}
+			mPos++;
+		}
+		return mPos < mLimit;
+	}
+
+	/**
+	 * Read the rest of the current line as a string, and move to the next line. This is intended for header lines.
+	 *
+	 * @return Rest of the current line
+	 */
+	String nextLine() {
+		int start = mPos;
+		int end = findLineEnd();
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = mBuffer.get(start + i);
+		}
+		mPos = end;
+		skipToNextLine();
+		return new String(bytes, StandardCharsets.US_ASCII).trim();
+	}
+
+	/**
+	 * Skip the rest of the current line, and move to the next line.
+	 */
+	void skipToNextLine() {
+		while (mPos < mLimit && mBuffer.get(mPos) != '\n') {
+			mPos++;
+		}
+		if (mPos < mLimit) {
+			mPos++;
+			mLineNumber++;
+		}
+	}
+
+	/**
+	 *
+	 * @return Whether there are no more tokens on the current line
+	 */
+	boolean isEndOfLine() {
+		skipSpaces();
+		return mPos >= mLimit || mBuffer.get(mPos) == '\n';
+	}
+
+	/**
+	 *
+	 * @param delimiter
+	 *            : Delimiter between tokens
+	 * @return Whether the next token on the current line is immediately followed by the given delimiter
+	 */
+	boolean isNextTokenFollowedBy(char delimiter) {
+		skipSpaces();
+		int end = findTokenEnd(mPos);
+		return end < mLimit && mBuffer.get(end) == delimiter;
+	}
+
+	/**
+	 * Skip the given delimiter.
+	 *
+	 * @param delimiter
+	 *            : Expected delimiter
+	 * @throws ExplicitModelParsingException
+	 *             if the next character is not the given delimiter
+	 */
+	void skip(char delimiter) throws ExplicitModelParsingException {
+		skipSpaces();
+		if (mPos >= mLimit || mBuffer.get(mPos) != delimiter) {
+			throw createParsingException("'" + delimiter + "'");
+		}
+		mPos++;
+	}
+
+	int nextInt() throws ExplicitModelParsingException {
+		skipSpaces();
+		int pos = mPos;
+		boolean negative = pos < mLimit && mBuffer.get(pos) == '-';
+		if (negative) {
+			pos++;
+		}
+
+		int start = pos;
+		long value = 0;
+		while (pos < mLimit && isDigit(mBuffer.get(pos)) && value <= Integer.MAX_VALUE) {
+			value = 10 * value + (mBuffer.get(pos) - '0');
+			pos++;
+		}
+		if (pos == start || value > Integer.MAX_VALUE || pos != findTokenEnd(pos)) {
+			throw createParsingException("integer");
+		}
+
+		mPos = pos;
+		return (int) (negative ? -value : value);
+	}
+
+	/**
+	 * Parse a decimal number. Numbers with at most 15 significant digits and a small decimal exponent, which covers
+	 * the probabilities and rewards exported by PRISM, are parsed without allocation: both the digits and the power of
+	 * ten are exact doubles, so a single multiplication or division gives the correctly rounded result, the same as
+	 * {@link Double#parseDouble(String)}. Any other number is parsed by {@link Double#parseDouble(String)}.
+	 *
+	 * @return Next decimal number
+	 * @throws ExplicitModelParsingException
+	 */
+	double nextDouble() throws ExplicitModelParsingException {
+		skipSpaces();
+		int tokenStart = mPos;
+		int tokenEnd = findTokenEnd(tokenStart);
+		int pos = tokenStart;
+
+		boolean negative = false;
+		if (pos < tokenEnd && (mBuffer.get(pos) == '-' || mBuffer.get(pos) == '+')) {
+			negative = mBuffer.get(pos) == '-';
+			pos++;
+		}
+
+		// Value = mantissa * 10^exponent, as long as the mantissa has at most MAX_EXACT_DIGITS significant digits
+		long mantissa = 0;
+		int numDigits = 0;
+		int numSignificantDigits = 0;
+		int exponent = 0;
+		boolean fraction = false;
+
+		for (; pos < tokenEnd; pos++) {
+			byte c = mBuffer.get(pos);
+			if (isDigit(c)) {
+				numDigits++;
+				if (mantissa > 0 || c != '0') {
+					numSignificantDigits++;
+				}
+				if (numSignificantDigits <= MAX_EXACT_DIGITS) {
+					mantissa = 10 * mantissa + (c - '0');
+					exponent -= fraction ? 1 : 0;
+				}
+			} else if (c == '.' && !fraction) {
+				fraction = true;
+			} else {
+				break;
+			}
+		}
+
+		boolean plainDecimal = numDigits > 0;
+		if (plainDecimal && pos < tokenEnd && (mBuffer.get(pos) == 'e' || mBuffer.get(pos) == 'E')) {
+			pos++;
+			boolean negativeExponent = false;
+			if (pos < tokenEnd && (mBuffer.get(pos) == '-' || mBuffer.get(pos) == '+')) {
+				negativeExponent = mBuffer.get(pos) == '-';
+				pos++;
+			}
+			int exponentStart = pos;
+			int explicitExponent = 0;
+			while (pos < tokenEnd && isDigit(mBuffer.get(pos)) && explicitExponent < EXACT_POWERS_OF_TEN.length) {
+				explicitExponent = 10 * explicitExponent + (mBuffer.get(pos) - '0');
+				pos++;
+			}
+			plainDecimal = pos > exponentStart;
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		if (plainDecimal && pos == tokenEnd && numSignificantDigits <= MAX_EXACT_DIGITS
+				&& Math.abs(exponent) < EXACT_POWERS_OF_TEN.length) {
+			double value = exponent < 0 ? mantissa / EXACT_POWERS_OF_TEN[-exponent]
+					: mantissa * EXACT_POWERS_OF_TEN[exponent];
+			mPos = tokenEnd;
+			return negative ? -value : value;
+		}
+
+		// Slow path: too many significant digits, large exponent, or not a plain decimal number
+		try {
+			double value = Double.parseDouble(getToken(tokenStart, tokenEnd));
+			mPos = tokenEnd;
+			return value;
+		} catch (NumberFormatException e) {
+			throw createParsingException("decimal number");
+		}
+	}
+
+	/**
+	 * Intern the next token on the current line.
+	 *
+	 * @param tokenTable
+	 *            : Table of the tokens interned so far
+	 * @return ID of the next token in the table
+	 * @throws ExplicitModelParsingException
+	 *             if there is no more token on the current line
+	 */
+	int nextToken(TokenTable tokenTable) throws ExplicitModelParsingException {
+		skipSpaces();
+		int start = mPos;
+		int end = findTokenEnd(start);
+		if (end == start) {
+			throw createParsingException("token");
+		}
+		mPos = end;
+		return tokenTable.intern(mBuffer, start, end);
+	}
+
+	ExplicitModelParsingException createParsingException(String expected) {
+		int lineStart = mPos;
+		while (lineStart > 0 && mBuffer.get(lineStart - 1) != '\n') {
+			lineStart--;
+		}
+		String line = getToken(lineStart, findLineEnd());
+		return new ExplicitModelParsingException(
+				"Cannot parse " + expected + " at line " + mLineNumber + " of " + mFile + ": " + line);
+	}
+
+	private void skipSpaces() {
+		while (mPos < mLimit && isSpace(mBuffer.get(mPos))) {
+			mPos++;
+		}
+	}
+
+	private int findTokenEnd(int start) {
+		int end = start;
+		while (end < mLimit && !isDelimiter(mBuffer.get(end))) {
+			end++;
+		}
+		return end;
+	}
+
+	private int findLineEnd() {
+		int end = mPos;
+		while (end < mLimit && !isLineBreak(mBuffer.get(end))) {
+			end++;
+		}
+		return end;
+	}
+
+	private String getToken(int start, int end) {
+		byte[] bytes = new byte[end - start];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = mBuffer.get(start + i);
+		}
+		return new String(bytes, StandardCharsets.US_ASCII);
+	}
+
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isSpace(byte c) {
+		return c == ' ' || c == '\t' || c == '\r';
+	}
+
+	private static boolean isLineBreak(byte c) {
+		return c == '\n' || c == '\r';
+	}
+
+	private static boolean isDelimiter(byte c) {
+		return isSpace(c) || c == '\n' || c == ':';
+	}
+
+	/**
+	 * {@link TokenTable} interns tokens (e.g., action names) into IDs 0, 1, 2, ..., in the order they are first seen.
+	 * A token that has been seen before is looked up by hashing its bytes in place, without allocation.
+	 */
+	static final class TokenTable {
+
+		private byte[][] mSlotTokens = new byte[16][];
+		private int[] mSlotIds = new int[16];
+		private List<String> mTokens = new ArrayList<>();
+
+		int intern(ByteBuffer buffer, int start, int end) {
+			int hash = hash(buffer, start, end);
+			int mask = mSlotTokens.length - 1;
+			int slot = hash & mask;
+
+			while (mSlotTokens[slot] != null) {
+				if (equals(mSlotTokens[slot], buffer, start, end)) {
+					return mSlotIds[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+
+			byte[] token = new byte[end - start];
+			for (int i = 0; i < token.length; i++) {
+				token[i] = buffer.get(start + i);
+			}
+			int id = mTokens.size();
+			mSlotTokens[slot] = token;
+			mSlotIds[slot] = id;
+			mTokens.add(new String(token, StandardCharsets.US_ASCII));
+
+			if (2 * mTokens.size() > mSlotTokens.length) {
+				rehash();
+			}
+			return id;
+		}
+
+		int size() {
+			return mTokens.size();
+		}
+
+		String getToken(int id) {
+			return mTokens.get(id);
+		}
+
+		private void rehash() {
+			byte[][] slotTokens = mSlotTokens;
+			int[] slotIds = mSlotIds;
+			mSlotTokens = new byte[2 * slotTokens.length][];
+			mSlotIds = new int[2 * slotTokens.length];
+			int mask = mSlotTokens.length - 1;
+
+			for (int s = 0; s < slotTokens.length; s++) {
+				if (slotTokens[s] == null) {
+					continue;
+				}
+				ByteBuffer token = ByteBuffer.wrap(slotTokens[s]);
+				int slot = hash(token, 0, slotTokens[s].length) & mask;
+				while (mSlotTokens[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				mSlotTokens[slot] = slotTokens[s];
+				mSlotIds[slot] = slotIds[s];
+			}
+		}
+
+		private static int hash(ByteBuffer buffer, int start, int end) {
+			// FNV-1a
+			int hash = 0x811C9DC5;
+			for (int i = start; i < end; i++) {
+				hash ^= buffer.get(i);
+				hash *= 0x01000193;
+			}
+			return hash ^ (hash >>> 16);
+		}
+
+		private static boolean equals(byte[] token, ByteBuffer buffer, int start, int end) {
+			if (token.length != end - start) {
+				return false;
+			}
+			for (int i = 0; i < token.length; i++) {
+				if (token[i] != buffer.get(start + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+package solver.prismconnector.explicitmodel;
+
+import java.io.IOException;
+import java.util.Map;
+
+import language.domain.models.IAction;
+import language.exceptions.XMDPException;
+import language.mdp.StateVarTuple;
+import language.policy.Policy;
+import solver.common.ExplicitMDP;
+import solver.prismconnector.PrismTranslatorUtils;
+
+/**
+ * {@link ExplicitPolicyEncoder} encodes a {@link Policy} of an XMDP as a deterministic policy of the corresponding
+ * {@link ExplicitMDP}: the index of the chosen (state, action) pair of each explicit state. This is the inverse of
+ * reading a policy from a policy matrix.
+ */
+public class ExplicitPolicyEncoder {
+
+	private ExplicitMDP mExplicitMDP;
+
+	// Mapping from integer values indexing states to the corresponding states
+	private Map<Integer, StateVarTuple> mStateIndices;
+
+	// Action of each action index of the explicit MDP, or null if it is a helper action
+	private IAction[] mActions;
+
+	public ExplicitPolicyEncoder(PrismExplicitModelReader prismExplicitModelReader, ExplicitMDP explicitMDP)
+			throws IOException, XMDPException {
+		mExplicitMDP = explicitMDP;
+		mStateIndices = prismExplicitModelReader.readStatesFromFile();
+
+		int numActions = explicitMDP.getNumActions();
+		mActions = new IAction[numActions];
+		for (int a = 0; a < numActions; a++) {
+			String sanitizedActionName = explicitMDP.getActionNameAtIndex(a);
+			if (!PrismExplicitModelReader.isAuxiliaryAction(sanitizedActionName)) {
+				String actionName = PrismTranslatorUtils.desanitizeNameString(sanitizedActionName);
+				mActions[a] = prismExplicitModelReader.getValueEncodingScheme().getActionSpace().getAction(actionName);
+			}
+		}
+	}
+
+	/**
+	 * Encode a policy. At each explicit state, the action of the policy is chosen if it is enabled; otherwise, a helper
+	 * action (e.g., "compute") is chosen if one is enabled.
+	 *
+	 * @param policy
+	 *            : Policy
+	 * @return Index of the chosen (state, action) pair of each state, or -1 if the policy is undefined at the state
+	 * @throws XMDPException
+	 */
+	public int[] encodePolicy(Policy policy) throws XMDPException {
+		int n = mExplicitMDP.getNumStates();
+		int[] policyPairs = new int[n];
+
+		for (int i = 0; i < n; i++) {
+			StateVarTuple state = mStateIndices.get(i);
+			IAction policyAction = state != null && policy.containsState(state) ? policy.getAction(state) : null;
+
+			int policyPair = -1;
+			int helperPair = -1;
+			for (int ia = mExplicitMDP.getStateActionPairOffset(i); ia < mExplicitMDP
+					.getStateActionPairOffset(i + 1); ia++) {
+				IAction action = mActions[mExplicitMDP.getActionOfStateActionPair(ia)];
+				if (action == null && helperPair == -1) {
+					helperPair = ia;
+				} else if (action != null && action.equals(policyAction)) {
+					policyPair = ia;
+					break;
+				}
+			}
+			policyPairs[i] = policyPair != -1 ? policyPair : helperPair;
+		}
+		return policyPairs;
+	}
+}